@@ -37,6 +37,21 @@ inline int writeFloatToBuf(unsigned char *buf, float value)
 	return 6;
 }
 
+inline int writeBinaryFloatToBuf(unsigned char *buf, float value)
+{
+	// little-endian IEEE 754, independent of the host byte order
+	unsigned int bits;
+	memcpy(&bits, &value, 4);
+	for (int i = 0; i < 4; i++)
+		buf[i] = (unsigned char) (bits >> (8 * i));
+	return 4;
+}
+
+inline int writeFloatToBuf(unsigned char *buf, float value, bool binary)
+{
+	return binary ? writeBinaryFloatToBuf(buf, value) : writeFloatToBuf(buf, value);
+}
+
 inline int writeColorToBuf(unsigned char *buf, const float *color, int channels)
 {
 	int i;
@@ -67,98 +82,101 @@ unsigned char *newBufferSwap(const string *name, int *bufSize)
 	return buf;
 }
 
-unsigned char *newCircle(
-		const float *center, float radius, float thickness, const float *color, const string *setName, int *bufSize)
+unsigned char *newCircle(const float *center, float radius, float thickness, const float *color,
+		const string *setName, int *bufSize, bool binary = false)
 {
-	*bufSize = 30 + ((setName != NULL) ? setName->length() : 0);
+	*bufSize = 6 + 4 * (binary ? 4 : 6) + ((setName != NULL) ? setName->length() : 0);
 	unsigned char *buf = new unsigned char[*bufSize];
 
 	long i = 0;
-	i += writeCharToBuf(buf + i, 1);
+	i += writeCharToBuf(buf + i, binary ? 4 : 1);
 	i += writeCharToBuf(buf + i, 0);
-	i += writeFloatToBuf(buf + i, center[0]);
-	i += writeFloatToBuf(buf + i, center[1]);
-	i += writeFloatToBuf(buf + i, radius);
-	i += writeFloatToBuf(buf + i, thickness);
+	i += writeFloatToBuf(buf + i, center[0], binary);
+	i += writeFloatToBuf(buf + i, center[1], binary);
+	i += writeFloatToBuf(buf + i, radius, binary);
+	i += writeFloatToBuf(buf + i, thickness, binary);
 	i += writeColorToBuf(buf + i, color, 3);
 	i += writeStringToBuf(buf + i, setName);
 
 	return buf;
 }
 
-unsigned char *newLine(
-		const float *a, const float *b, float thickness, const float *color, const string *setName, int *bufSize)
+unsigned char *newLine(const float *a, const float *b, float thickness, const float *color, const string *setName,
+		int *bufSize, bool binary = false)
 {
-	*bufSize = 48 + ((setName != NULL) ? setName->length() : 0);
+	*bufSize = 6 + 7 * (binary ? 4 : 6) + ((setName != NULL) ? setName->length() : 0);
 	unsigned char *buf = new unsigned char[*bufSize];
 
 	long i = 0;
+	i += writeCharToBuf(buf + i, binary ? 4 : 1);
 	i += writeCharToBuf(buf + i, 1);
-	i += writeCharToBuf(buf + i, 1);
-	i += writeFloatToBuf(buf + i, a[0]);
-	i += writeFloatToBuf(buf + i, a[1]);
-	i += writeFloatToBuf(buf + i, a[2]);
-	i += writeFloatToBuf(buf + i, b[0]);
-	i += writeFloatToBuf(buf + i, b[1]);
-	i += writeFloatToBuf(buf + i, b[2]);
-	i += writeFloatToBuf(buf + i, thickness);
+	i += writeFloatToBuf(buf + i, a[0], binary);
+	i += writeFloatToBuf(buf + i, a[1], binary);
+	i += writeFloatToBuf(buf + i, a[2], binary);
+	i += writeFloatToBuf(buf + i, b[0], binary);
+	i += writeFloatToBuf(buf + i, b[1], binary);
+	i += writeFloatToBuf(buf + i, b[2], binary);
+	i += writeFloatToBuf(buf + i, thickness, binary);
 	i += writeColorToBuf(buf + i, color, 3);
 	i += writeStringToBuf(buf + i, setName);
 
 	return buf;
 }
 
-unsigned char *newPoint(const float *p, float size, const float *color, const string *setName, int *bufSize)
+unsigned char *newPoint(const float *p, float size, const float *color, const string *setName,
+		int *bufSize, bool binary = false)
 {
-	*bufSize = 30 + ((setName != NULL) ? setName->length() : 0);
+	*bufSize = 6 + 4 * (binary ? 4 : 6) + ((setName != NULL) ? setName->length() : 0);
 	unsigned char *buf = new unsigned char[*bufSize];
 
 	long i = 0;
-	i += writeCharToBuf(buf + i, 1);
+	i += writeCharToBuf(buf + i, binary ? 4 : 1);
 	i += writeCharToBuf(buf + i, 2);
-	i += writeFloatToBuf(buf + i, p[0]);
-	i += writeFloatToBuf(buf + i, p[1]);
-	i += writeFloatToBuf(buf + i, p[2]);
-	i += writeFloatToBuf(buf + i, size);
+	i += writeFloatToBuf(buf + i, p[0], binary);
+	i += writeFloatToBuf(buf + i, p[1], binary);
+	i += writeFloatToBuf(buf + i, p[2], binary);
+	i += writeFloatToBuf(buf + i, size, binary);
 	i += writeColorToBuf(buf + i, color, 3);
 	i += writeStringToBuf(buf + i, setName);
 
 	return buf;
 }
 
-unsigned char *newSphere(const float *p, float radius, const float *color, const string *setName, int *bufSize)
+unsigned char *newSphere(const float *p, float radius, const float *color, const string *setName,
+		int *bufSize, bool binary = false)
 {
-	*bufSize = 30 + ((setName != NULL) ? setName->length() : 0);
+	*bufSize = 6 + 4 * (binary ? 4 : 6) + ((setName != NULL) ? setName->length() : 0);
 	unsigned char *buf = new unsigned char[*bufSize];
 
 	long i = 0;
-	i += writeCharToBuf(buf + i, 1);
+	i += writeCharToBuf(buf + i, binary ? 4 : 1);
 	i += writeCharToBuf(buf + i, 3);
-	i += writeFloatToBuf(buf + i, p[0]);
-	i += writeFloatToBuf(buf + i, p[1]);
-	i += writeFloatToBuf(buf + i, p[2]);
-	i += writeFloatToBuf(buf + i, radius);
+	i += writeFloatToBuf(buf + i, p[0], binary);
+	i += writeFloatToBuf(buf + i, p[1], binary);
+	i += writeFloatToBuf(buf + i, p[2], binary);
+	i += writeFloatToBuf(buf + i, radius, binary);
 	i += writeColorToBuf(buf + i, color, 3);
 	i += writeStringToBuf(buf + i, setName);
 
 	return buf;
 }
 
-unsigned char *newPolygon(const float *v, int numVerts, const float *color, const string *setName, int *bufSize)
+unsigned char *newPolygon(const float *v, int numVerts, const float *color, const string *setName,
+		int *bufSize, bool binary = false)
 {
-	*bufSize = 18 * numVerts + 8 + ((setName != NULL) ? setName->length() : 0);
+	*bufSize = 3 * (binary ? 4 : 6) * numVerts + 8 + ((setName != NULL) ? setName->length() : 0);
 	unsigned char *buf = new unsigned char[*bufSize];
 
 	long i = 0;
-	i += writeCharToBuf(buf + i, 1);
+	i += writeCharToBuf(buf + i, binary ? 4 : 1);
 	i += writeCharToBuf(buf + i, 4);
 	i += writeCharToBuf(buf + i, numVerts);
 	i += writeColorToBuf(buf + i, color, 4);
 
 	for (int j = 0; j < numVerts; j++) {
-		i += writeFloatToBuf(buf + i, v[j * 3 + 0]);
-		i += writeFloatToBuf(buf + i, v[j * 3 + 1]);
-		i += writeFloatToBuf(buf + i, v[j * 3 + 2]);
+		i += writeFloatToBuf(buf + i, v[j * 3 + 0], binary);
+		i += writeFloatToBuf(buf + i, v[j * 3 + 1], binary);
+		i += writeFloatToBuf(buf + i, v[j * 3 + 2], binary);
 	}
 
 	i += writeStringToBuf(buf + i, setName);
@@ -166,6 +184,61 @@ unsigned char *newPolygon(const float *v, int numVerts, const float *color, cons
 	return buf;
 }
 
+// 32 bit FNV-1a hash of a drawing set name, used as its ID in shape batches
+inline unsigned int getSetID(const string *setName)
+{
+	unsigned int hash = 0x811c9dc5;
+	for (size_t j = 0; j < setName->length(); j++) {
+		hash ^= (unsigned char) (*setName)[j];
+		hash *= 16777619;
+	}
+	return hash;
+}
+
+/*
+ * Draws numShapes shapes of one type (0 = circle, 1 = line, 2 = point, 3 = sphere, 4 = polygon)
+ * with a shared color and thickness. values holds the packed floats of all shapes: circle
+ * (x,y,radius), line (x1,y1,z1,x2,y2,z2), point (x,y,z), sphere (x,y,z,radius) or polygon (x,y,z
+ * of every vertex). numVerts holds the vertex count of every polygon and is ignored for other
+ * shapes. If sendName is false, RoboViz looks the set up by the ID bound by an earlier batch.
+ */
+unsigned char *newShapeBatch(int shapeType, const float *values, int numShapes, const unsigned char *numVerts,
+		float thickness, const float *color, const string *setName, bool sendName, int *bufSize)
+{
+	static const int shapeFloats[] = {3, 6, 3, 4, 0};
+	int numFloats = 0;
+	for (int j = 0; j < numShapes; j++)
+		numFloats += shapeType == 4 ? 3 * numVerts[j] : shapeFloats[shapeType];
+
+	*bufSize = 17 + (sendName ? setName->length() : 0) + 4 * numFloats + (shapeType == 4 ? numShapes : 0);
+	unsigned char *buf = new unsigned char[*bufSize];
+
+	unsigned int setID = getSetID(setName);
+	long i = 0;
+	i += writeCharToBuf(buf + i, 5);
+	i += writeCharToBuf(buf + i, shapeType);
+	for (int j = 0; j < 4; j++)
+		i += writeCharToBuf(buf + i, (unsigned char) (setID >> (8 * j)));
+	i += writeStringToBuf(buf + i, sendName ? setName : NULL);
+	i += writeColorToBuf(buf + i, color, 4);
+	i += writeBinaryFloatToBuf(buf + i, thickness);
+	i += writeCharToBuf(buf + i, (unsigned char) numShapes);
+	i += writeCharToBuf(buf + i, (unsigned char) (numShapes >> 8));
+
+	const float *v = values;
+	for (int j = 0; j < numShapes; j++) {
+		int n = shapeFloats[shapeType];
+		if (shapeType == 4) {
+			n = 3 * numVerts[j];
+			i += writeCharToBuf(buf + i, numVerts[j]);
+		}
+		for (int k = 0; k < n; k++)
+			i += writeBinaryFloatToBuf(buf + i, *v++);
+	}
+
+	return buf;
+}
+
 unsigned char *newAnnotation(
 		const string *text, const float *p, const float *color, const string *setName, int *bufSize)
 {
@@ -44,6 +44,8 @@ using namespace std;
 int sockfd;
 struct addrinfo *p;
 double angle = 0.0;
+// send shapes as DRAW_SHAPE_BINARY instead of ASCII encoded DRAW_SHAPE commands, see --binary
+bool binary = false;
 
 void swapBuffers(const string *setName)
 {
@@ -61,7 +63,7 @@ void drawLine(float x1, float y1, float z1, float x2, float y2, float z2, float
 	float color[3] = {r, g, b};
 
 	int bufSize = -1;
-	unsigned char *buf = newLine(pa, pb, thickness, color, setName, &bufSize);
+	unsigned char *buf = newLine(pa, pb, thickness, color, setName, &bufSize, binary);
 	sendto(sockfd, buf, bufSize, 0, p->ai_addr, p->ai_addrlen);
 	delete[] buf;
 }
@@ -72,7 +74,7 @@ void drawCircle(float x, float y, float radius, float thickness, float r, float
 	float color[3] = {r, g, b};
 
 	int bufSize = -1;
-	unsigned char *buf = newCircle(center, 2.0f, 2.5f, color, setName, &bufSize);
+	unsigned char *buf = newCircle(center, 2.0f, 2.5f, color, setName, &bufSize, binary);
 	sendto(sockfd, buf, bufSize, 0, p->ai_addr, p->ai_addrlen);
 	delete[] buf;
 }
@@ -83,7 +85,7 @@ void drawSphere(float x, float y, float z, float radius, float r, float g, float
 	float color[3] = {r, g, b};
 
 	int bufSize = -1;
-	unsigned char *buf = newSphere(center, radius, color, setName, &bufSize);
+	unsigned char *buf = newSphere(center, radius, color, setName, &bufSize, binary);
 	sendto(sockfd, buf, bufSize, 0, p->ai_addr, p->ai_addrlen);
 	delete[] buf;
 }
@@ -94,7 +96,7 @@ void drawPoint(float x, float y, float z, float size, float r, float g, float b,
 	float color[3] = {r, g, b};
 
 	int bufSize = -1;
-	unsigned char *buf = newPoint(center, size, color, setName, &bufSize);
+	unsigned char *buf = newPoint(center, size, color, setName, &bufSize, binary);
 	sendto(sockfd, buf, bufSize, 0, p->ai_addr, p->ai_addrlen);
 	delete[] buf;
 }
@@ -104,7 +106,7 @@ void drawPolygon(const float *v, int numVerts, float r, float g, float b, float
 	float color[4] = {r, g, b, a};
 
 	int bufSize = -1;
-	unsigned char *buf = newPolygon(v, numVerts, color, setName, &bufSize);
+	unsigned char *buf = newPolygon(v, numVerts, color, setName, &bufSize, binary);
 	sendto(sockfd, buf, bufSize, 0, p->ai_addr, p->ai_addrlen);
 	delete[] buf;
 }
@@ -258,6 +260,8 @@ int main(int argc, char *argv[])
 	int rv;
 	int numbytes;
 
+	binary = argc > 1 && strcmp(argv[1], "--binary") == 0;
+
 	memset(&hints, 0, sizeof hints);
 	hints.ai_family = AF_UNSPEC;
 	hints.ai_socktype = SOCK_DGRAM;
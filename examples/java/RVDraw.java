@@ -32,6 +32,21 @@ public class RVDraw
 		buf.put(String.format(Locale.US, "%6f", value).substring(0, 6).getBytes());
 	}
 
+	/** Writes a float as 4 byte little-endian IEEE 754 value to a buffer */
+	public static void writeBinaryFloatToBuffer(ByteBuffer buf, float value)
+	{
+		buf.putInt(Integer.reverseBytes(Float.floatToIntBits(value)));
+	}
+
+	/** Writes a float either as binary or as 6 ASCII characters to a buffer */
+	public static void writeFloatToBuffer(ByteBuffer buf, float value, boolean binary)
+	{
+		if (binary)
+			writeBinaryFloatToBuffer(buf, value);
+		else
+			writeFloatToBuffer(buf, value);
+	}
+
 	/** Writes RGB values of a Color object to a buffer */
 	public static void writeColorToBuffer(ByteBuffer buf, Color color, boolean alpha)
 	{
@@ -93,15 +108,37 @@ public class RVDraw
 	 */
 	public static byte[] newCircle(float[] center, float radius, float thickness, Color color, String group)
 	{
-		int numBytes = 30 + group.length();
+		return newCircle(center, radius, thickness, color, group, false);
+	}
+
+	/**
+	 * Creates a circle draw command
+	 *
+	 * @param center
+	 *            - coordinates of circle (x,y)
+	 * @param radius
+	 *            - radius of circle
+	 * @param thickness
+	 *            - width of circle edge in pixels
+	 * @param color
+	 *            - color of circle
+	 * @param group
+	 *            - drawing group name
+	 * @param binary
+	 *            - encode floats as little-endian IEEE 754 values (smaller and faster to parse)
+	 */
+	public static byte[] newCircle(
+			float[] center, float radius, float thickness, Color color, String group, boolean binary)
+	{
+		int numBytes = 6 + 4 * (binary ? 4 : 6) + group.length();
 		ByteBuffer buf = ByteBuffer.allocate(numBytes);
 
-		buf.put((byte) 1);
+		buf.put((byte) (binary ? 4 : 1));
 		buf.put((byte) 0);
-		writeFloatToBuffer(buf, center[0]);
-		writeFloatToBuffer(buf, center[1]);
-		writeFloatToBuffer(buf, radius);
-		writeFloatToBuffer(buf, thickness);
+		writeFloatToBuffer(buf, center[0], binary);
+		writeFloatToBuffer(buf, center[1], binary);
+		writeFloatToBuffer(buf, radius, binary);
+		writeFloatToBuffer(buf, thickness, binary);
 		writeColorToBuffer(buf, color, false);
 		writeStringToBuffer(buf, group);
 
@@ -124,18 +161,39 @@ public class RVDraw
 	 */
 	public static byte[] newLine(float[] a, float[] b, float thickness, Color color, String group)
 	{
-		int numBytes = 48 + group.length();
+		return newLine(a, b, thickness, color, group, false);
+	}
+
+	/**
+	 * Creates a line draw command
+	 *
+	 * @param a
+	 *            - starting point
+	 * @param b
+	 *            - ending point
+	 * @param thickness
+	 *            - width of line in pixels
+	 * @param color
+	 *            - color of line
+	 * @param group
+	 *            - drawing group name
+	 * @param binary
+	 *            - encode floats as little-endian IEEE 754 values (smaller and faster to parse)
+	 */
+	public static byte[] newLine(float[] a, float[] b, float thickness, Color color, String group, boolean binary)
+	{
+		int numBytes = 6 + 7 * (binary ? 4 : 6) + group.length();
 		ByteBuffer buf = ByteBuffer.allocate(numBytes);
 
+		buf.put((byte) (binary ? 4 : 1));
 		buf.put((byte) 1);
-		buf.put((byte) 1);
-		writeFloatToBuffer(buf, a[0]);
-		writeFloatToBuffer(buf, a[1]);
-		writeFloatToBuffer(buf, a[2]);
-		writeFloatToBuffer(buf, b[0]);
-		writeFloatToBuffer(buf, b[1]);
-		writeFloatToBuffer(buf, b[2]);
-		writeFloatToBuffer(buf, thickness);
+		writeFloatToBuffer(buf, a[0], binary);
+		writeFloatToBuffer(buf, a[1], binary);
+		writeFloatToBuffer(buf, a[2], binary);
+		writeFloatToBuffer(buf, b[0], binary);
+		writeFloatToBuffer(buf, b[1], binary);
+		writeFloatToBuffer(buf, b[2], binary);
+		writeFloatToBuffer(buf, thickness, binary);
 		writeColorToBuffer(buf, color, false);
 		writeStringToBuffer(buf, group);
 
@@ -156,15 +214,34 @@ public class RVDraw
 	 */
 	public static byte[] newPoint(float[] p, float size, Color color, String group)
 	{
-		int numBytes = 30 + group.length();
+		return newPoint(p, size, color, group, false);
+	}
+
+	/**
+	 * Creates a point draw command
+	 *
+	 * @param p
+	 *            - coordinates of point (x,y,z)
+	 * @param size
+	 *            - size of point in pixels
+	 * @param color
+	 *            - color of point
+	 * @param group
+	 *            - drawing group name
+	 * @param binary
+	 *            - encode floats as little-endian IEEE 754 values (smaller and faster to parse)
+	 */
+	public static byte[] newPoint(float[] p, float size, Color color, String group, boolean binary)
+	{
+		int numBytes = 6 + 4 * (binary ? 4 : 6) + group.length();
 		ByteBuffer buf = ByteBuffer.allocate(numBytes);
 
-		buf.put((byte) 1);
+		buf.put((byte) (binary ? 4 : 1));
 		buf.put((byte) 2);
-		writeFloatToBuffer(buf, p[0]);
-		writeFloatToBuffer(buf, p[1]);
-		writeFloatToBuffer(buf, p[2]);
-		writeFloatToBuffer(buf, size);
+		writeFloatToBuffer(buf, p[0], binary);
+		writeFloatToBuffer(buf, p[1], binary);
+		writeFloatToBuffer(buf, p[2], binary);
+		writeFloatToBuffer(buf, size, binary);
 		writeColorToBuffer(buf, color, false);
 		writeStringToBuffer(buf, group);
 
@@ -185,15 +262,34 @@ public class RVDraw
 	 */
 	public static byte[] newSphere(float[] p, float radius, Color color, String group)
 	{
-		int numBytes = 30 + group.length();
+		return newSphere(p, radius, color, group, false);
+	}
+
+	/**
+	 * Creates a sphere draw command
+	 *
+	 * @param p
+	 *            - coordinates of sphere center (x,y,z)
+	 * @param radius
+	 *            - radius of sphere
+	 * @param color
+	 *            - color of sphere
+	 * @param group
+	 *            - drawing group name
+	 * @param binary
+	 *            - encode floats as little-endian IEEE 754 values (smaller and faster to parse)
+	 */
+	public static byte[] newSphere(float[] p, float radius, Color color, String group, boolean binary)
+	{
+		int numBytes = 6 + 4 * (binary ? 4 : 6) + group.length();
 		ByteBuffer buf = ByteBuffer.allocate(numBytes);
 
-		buf.put((byte) 1);
+		buf.put((byte) (binary ? 4 : 1));
 		buf.put((byte) 3);
-		writeFloatToBuffer(buf, p[0]);
-		writeFloatToBuffer(buf, p[1]);
-		writeFloatToBuffer(buf, p[2]);
-		writeFloatToBuffer(buf, radius);
+		writeFloatToBuffer(buf, p[0], binary);
+		writeFloatToBuffer(buf, p[1], binary);
+		writeFloatToBuffer(buf, p[2], binary);
+		writeFloatToBuffer(buf, radius, binary);
 		writeColorToBuffer(buf, color, false);
 		writeStringToBuffer(buf, group);
 
@@ -202,21 +298,26 @@ public class RVDraw
 
 	public static byte[] newPolygon(float[][] v, Color color, String set)
 	{
-		int numBytes = 18 * v.length + 8 + set.length();
+		return newPolygon(v, color, set, false);
+	}
+
+	public static byte[] newPolygon(float[][] v, Color color, String set, boolean binary)
+	{
+		int numBytes = 3 * (binary ? 4 : 6) * v.length + 8 + set.length();
 
 		ByteBuffer buf = ByteBuffer.allocate(numBytes);
 
 		// 7 bytes
-		buf.put((byte) 1);
+		buf.put((byte) (binary ? 4 : 1));
 		buf.put((byte) 4);
 		buf.put((byte) v.length);
 		writeColorToBuffer(buf, color, true);
 
-		// 18 * v.length bytes
+		// 3 floats per vertex
 		for (int i = 0; i < v.length; i++) {
-			writeFloatToBuffer(buf, v[i][0]);
-			writeFloatToBuffer(buf, v[i][1]);
-			writeFloatToBuffer(buf, v[i][2]);
+			writeFloatToBuffer(buf, v[i][0], binary);
+			writeFloatToBuffer(buf, v[i][1], binary);
+			writeFloatToBuffer(buf, v[i][2], binary);
 		}
 
 		// set.length + 1 bytes
@@ -225,6 +326,62 @@ public class RVDraw
 		return buf.array();
 	}
 
+	/** Derives the ID of a drawing set from its name (32 bit FNV-1a hash of the name) */
+	public static int getSetID(String set)
+	{
+		int hash = 0x811c9dc5;
+		for (byte b : set.getBytes()) {
+			hash ^= b & 0xff;
+			hash *= 16777619;
+		}
+		return hash;
+	}
+
+	/**
+	 * Creates a command that draws several shapes of the same type with a shared color and
+	 * thickness. Floats are always sent as little-endian IEEE 754 values.
+	 *
+	 * @param shapeType
+	 *            - 0 = circle, 1 = line, 2 = point, 3 = sphere, 4 = polygon
+	 * @param shapes
+	 *            - values of each shape: circle (x,y,radius), line (x1,y1,z1,x2,y2,z2), point
+	 *            (x,y,z), sphere (x,y,z,radius) or polygon (x,y,z of every vertex)
+	 * @param thickness
+	 *            - width of lines and circles or size of points in pixels
+	 * @param color
+	 *            - color of all shapes
+	 * @param group
+	 *            - drawing group name
+	 * @param sendName
+	 *            - whether to include the group name; if false, RoboViz looks the group up by the ID
+	 *            bound by an earlier batch that included the name
+	 */
+	public static byte[] newShapeBatch(
+			int shapeType, float[][] shapes, float thickness, Color color, String group, boolean sendName)
+	{
+		String name = sendName ? group : "";
+		int numBytes = 17 + name.length();
+		for (float[] shape : shapes)
+			numBytes += 4 * shape.length + (shapeType == 4 ? 1 : 0);
+		ByteBuffer buf = ByteBuffer.allocate(numBytes);
+
+		buf.put((byte) 5);
+		buf.put((byte) shapeType);
+		buf.putInt(Integer.reverseBytes(getSetID(group)));
+		writeStringToBuffer(buf, name);
+		writeColorToBuffer(buf, color, true);
+		writeBinaryFloatToBuffer(buf, thickness);
+		buf.putShort(Short.reverseBytes((short) shapes.length));
+		for (float[] shape : shapes) {
+			if (shapeType == 4)
+				buf.put((byte) (shape.length / 3));
+			for (float value : shape)
+				writeBinaryFloatToBuffer(buf, value);
+		}
+
+		return buf.array();
+	}
+
 	public static byte[] newAnnotation(String text, float[] pos, Color color, String set)
 	{
 		// header bytes                        = 2
@@ -28,7 +28,7 @@ import javax.swing.Timer;
 
 /**
  * Program for testing network drawing on RoboViz with all shapes both animated
- * and static
+ * and static. Run with --binary to send shapes with binary encoded floats.
  *
  * @author Justin Stoecker
  */
@@ -44,9 +44,12 @@ public class RVTester
 	private float[] a = {0, 0, 0};
 	private float[] b = {0, 0, 1};
 	private double angle = 0;
+	/** send shapes as DRAW_SHAPE_BINARY instead of ASCII encoded DRAW_SHAPE commands */
+	private final boolean binary;
 
-	public RVTester() throws SocketException, UnknownHostException
+	public RVTester(boolean binary) throws SocketException, UnknownHostException
 	{
+		this.binary = binary;
 		socket = new DatagramSocket();
 		address = InetAddress.getLocalHost();
 
@@ -139,31 +142,31 @@ public class RVTester
 
 	public void drawCircle(float[] center, float radius, float thickness, Color color, String group) throws IOException
 	{
-		byte[] buf = RVDraw.newCircle(center, radius, thickness, color, group);
+		byte[] buf = RVDraw.newCircle(center, radius, thickness, color, group, binary);
 		socket.send(new DatagramPacket(buf, buf.length, address, ROBOVIZ_PORT));
 	}
 
 	public void drawLine(float[] a, float[] b, float thickness, Color color, String group) throws IOException
 	{
-		byte[] buf = RVDraw.newLine(a, b, thickness, color, group);
+		byte[] buf = RVDraw.newLine(a, b, thickness, color, group, binary);
 		socket.send(new DatagramPacket(buf, buf.length, address, ROBOVIZ_PORT));
 	}
 
 	public void drawPoint(float[] p, float size, Color color, String group) throws IOException
 	{
-		byte[] buf = RVDraw.newPoint(p, size, color, group);
+		byte[] buf = RVDraw.newPoint(p, size, color, group, binary);
 		socket.send(new DatagramPacket(buf, buf.length, address, ROBOVIZ_PORT));
 	}
 
 	public void drawSphere(float[] p, float radius, Color color, String group) throws IOException
 	{
-		byte[] buf = RVDraw.newSphere(p, radius, color, group);
+		byte[] buf = RVDraw.newSphere(p, radius, color, group, binary);
 		socket.send(new DatagramPacket(buf, buf.length, address, ROBOVIZ_PORT));
 	}
 
 	public void drawPolygon(float[][] v, Color color, String set) throws IOException
 	{
-		byte[] buf = RVDraw.newPolygon(v, color, set);
+		byte[] buf = RVDraw.newPolygon(v, color, set, binary);
 		socket.send(new DatagramPacket(buf, buf.length, address, ROBOVIZ_PORT));
 	}
 
@@ -187,7 +190,8 @@ public class RVTester
 
 	public static void main(String[] args) throws Exception
 	{
-		RVTester tester = new RVTester();
+		boolean binary = args.length > 0 && args[0].equals("--binary");
+		RVTester tester = new RVTester(binary);
 		while (true)
 			tester.runTest();
 	}
@@ -0,0 +1,162 @@
+/*
+ *  Copyright 2011 Justin Stoecker
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jsgl.jogl;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import com.jogamp.opengl.GL2GL3;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads RGB pixels of the current read framebuffer without waiting for the GPU.
+ * Two pixel buffer objects are used in turns: read() starts transferring the
+ * pixels into one of them and then hands the pixels of the previous read,
+ * which have arrived in the other one in the meantime, to its handler. The
+ * pixels of a read are therefore handled during the next call to read() or
+ * flush().
+ * <p>
+ * Without PBO support, the pixels are read synchronously and handled right
+ * away. All methods must be called with the same OpenGL context current.
+ */
+public class AsyncPixelReader implements GLDisposable
+{
+	/** Receives the pixels of a read */
+	public interface PixelHandler
+	{
+		/**
+		 * @param rgb
+		 *            - tightly packed RGB bytes, with the bottom row first; only
+		 *            valid until the method returns
+		 */
+		void pixelsRead(ByteBuffer rgb, int width, int height);
+	}
+
+	private final boolean usePBOs;
+	private final PixelBufferObject[] pbos = new PixelBufferObject[2];
+	private final int[] capacities = new int[2];
+	private final int[] widths = new int[2];
+	private final int[] heights = new int[2];
+	private final PixelHandler[] handlers = new PixelHandler[2];
+	private int next = 0;
+	private ByteBuffer syncBuffer;
+	private boolean disposed = false;
+
+	/**
+	 * @param usePBOs
+	 *            - false to read synchronously, e.g. if PBOs are not supported
+	 */
+	public AsyncPixelReader(boolean usePBOs)
+	{
+		this.usePBOs = usePBOs;
+	}
+
+	public boolean isAsynchronous()
+	{
+		return usePBOs;
+	}
+
+	/**
+	 * Starts reading a rectangle of the current read framebuffer, starting at
+	 * the lower left corner, and handles the pixels of the previous read
+	 */
+	public void read(GL2 gl, int width, int height, PixelHandler handler)
+	{
+		int size = width * height * 3;
+		gl.glPixelStorei(GL.GL_PACK_ALIGNMENT, 1);
+
+		if (!usePBOs) {
+			if (syncBuffer == null || syncBuffer.capacity() < size)
+				syncBuffer = Buffers.newDirectByteBuffer(size);
+			syncBuffer.clear();
+			gl.glReadPixels(0, 0, width, height, GL.GL_RGB, GL.GL_UNSIGNED_BYTE, syncBuffer);
+			syncBuffer.limit(size);
+			handler.pixelsRead(syncBuffer, width, height);
+			return;
+		}
+
+		int slot = next;
+		next = 1 - next;
+		// the slot may still hold a read that was never flushed
+		handle(gl, slot);
+
+		if (pbos[slot] == null) {
+			pbos[slot] = PixelBufferObject.createPBO(gl, null, size, true);
+			capacities[slot] = size;
+		}
+		gl.glBindBuffer(GL2GL3.GL_PIXEL_PACK_BUFFER, pbos[slot].getID());
+		if (capacities[slot] < size) {
+			gl.glBufferData(GL2GL3.GL_PIXEL_PACK_BUFFER, size, null, GL2GL3.GL_STREAM_READ);
+			capacities[slot] = size;
+		}
+		gl.glReadPixels(0, 0, width, height, GL.GL_RGB, GL.GL_UNSIGNED_BYTE, 0);
+		gl.glBindBuffer(GL2GL3.GL_PIXEL_PACK_BUFFER, 0);
+		widths[slot] = width;
+		heights[slot] = height;
+		handlers[slot] = handler;
+
+		handle(gl, next);
+	}
+
+	/** Handles all reads whose pixels haven't been handled yet, in order */
+	public void flush(GL2 gl)
+	{
+		if (!usePBOs)
+			return;
+		handle(gl, next);
+		handle(gl, 1 - next);
+	}
+
+	private void handle(GL2 gl, int slot)
+	{
+		PixelHandler handler = handlers[slot];
+		if (handler == null)
+			return;
+		handlers[slot] = null;
+
+		int size = widths[slot] * heights[slot] * 3;
+		gl.glBindBuffer(GL2GL3.GL_PIXEL_PACK_BUFFER, pbos[slot].getID());
+		ByteBuffer pixels = gl.glMapBuffer(GL2GL3.GL_PIXEL_PACK_BUFFER, GL2.GL_READ_ONLY);
+		if (pixels != null) {
+			pixels.clear();
+			pixels.limit(size);
+			try {
+				handler.pixelsRead(pixels, widths[slot], heights[slot]);
+			} finally {
+				gl.glUnmapBuffer(GL2GL3.GL_PIXEL_PACK_BUFFER);
+			}
+		} else {
+			System.err.println("Could not map pixel buffer object " + pbos[slot].getID());
+		}
+		gl.glBindBuffer(GL2GL3.GL_PIXEL_PACK_BUFFER, 0);
+	}
+
+	@Override
+	public void dispose(GL gl)
+	{
+		for (PixelBufferObject pbo : pbos)
+			if (pbo != null)
+				pbo.dispose(gl);
+		disposed = true;
+	}
+
+	@Override
+	public boolean isDisposed()
+	{
+		return disposed;
+	}
+}
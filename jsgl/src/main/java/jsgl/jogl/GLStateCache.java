@@ -0,0 +1,167 @@
+/*
+ *  Copyright 2011 Justin Stoecker
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jsgl.jogl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import com.jogamp.opengl.fixedfunc.GLLightingFunc;
+
+/**
+ * Filters redundant material and texture state changes. Between begin() and
+ * end(), the state set through this class is remembered, and calls that would
+ * set the same state again are skipped. Outside of these calls, all state
+ * changes are passed to OpenGL.
+ * <p>
+ * The cache only knows about state set through it, so begin() must be called
+ * after any other code may have changed the material of front and back faces
+ * or the texture bound to the active texture unit. The cache is meant for the
+ * thread that renders with the current OpenGL context.
+ */
+public class GLStateCache
+{
+	private static boolean enabled = false;
+
+	private static final float[] ambient = new float[4];
+	private static final float[] diffuse = new float[4];
+	private static final float[] specular = new float[4];
+	private static int shininess;
+	private static int texture2D;
+
+	/** false for each state whose value is unknown */
+	private static boolean ambientValid, diffuseValid, specularValid, shininessValid, texture2DValid;
+
+	private static int stateChanges = 0;
+	private static int skippedStateChanges = 0;
+
+	/** Starts filtering state changes, assuming all state is unknown */
+	public static void begin()
+	{
+		ambientValid = diffuseValid = specularValid = shininessValid = texture2DValid = false;
+		enabled = true;
+	}
+
+	/** Stops filtering state changes */
+	public static void end()
+	{
+		enabled = false;
+	}
+
+	/** Number of state changes passed to OpenGL since the last reset */
+	public static int getStateChangeCount()
+	{
+		return stateChanges;
+	}
+
+	/** Number of redundant state changes skipped since the last reset */
+	public static int getSkippedStateChangeCount()
+	{
+		return skippedStateChanges;
+	}
+
+	public static void resetCounts()
+	{
+		stateChanges = 0;
+		skippedStateChanges = 0;
+	}
+
+	/** Sets a material color of front and back faces */
+	public static void material(GL2 gl, int pname, float[] color)
+	{
+		if (changeMaterial(pname, color))
+			gl.glMaterialfv(GL.GL_FRONT_AND_BACK, pname, color, 0);
+	}
+
+	/** Sets the shininess of front and back faces */
+	public static void shininess(GL2 gl, int value)
+	{
+		if (changeShininess(value))
+			gl.glMateriali(GL.GL_FRONT_AND_BACK, GLLightingFunc.GL_SHININESS, value);
+	}
+
+	/** Binds a 2D texture to the active texture unit, 0 unbinds */
+	public static void bindTexture2D(GL gl, int id)
+	{
+		if (changeTexture2D(id))
+			gl.glBindTexture(GL.GL_TEXTURE_2D, id);
+	}
+
+	/**
+	 * Records a material color change and counts it
+	 *
+	 * @return true if the change must be passed to OpenGL
+	 */
+	static boolean changeMaterial(int pname, float[] color)
+	{
+		float[] cached;
+		boolean valid;
+		switch (pname) {
+		case GLLightingFunc.GL_AMBIENT:
+			cached = ambient;
+			valid = ambientValid;
+			ambientValid = enabled;
+			break;
+		case GLLightingFunc.GL_DIFFUSE:
+			cached = diffuse;
+			valid = diffuseValid;
+			diffuseValid = enabled;
+			break;
+		case GLLightingFunc.GL_SPECULAR:
+			cached = specular;
+			valid = specularValid;
+			specularValid = enabled;
+			break;
+		default:
+			stateChanges++;
+			return true;
+		}
+
+		if (enabled && valid && cached[0] == color[0] && cached[1] == color[1] && cached[2] == color[2] &&
+				cached[3] == color[3]) {
+			skippedStateChanges++;
+			return false;
+		}
+		System.arraycopy(color, 0, cached, 0, 4);
+		stateChanges++;
+		return true;
+	}
+
+	/** @see #changeMaterial(int, float[]) */
+	static boolean changeShininess(int value)
+	{
+		if (enabled && shininessValid && shininess == value) {
+			skippedStateChanges++;
+			return false;
+		}
+		shininess = value;
+		shininessValid = enabled;
+		stateChanges++;
+		return true;
+	}
+
+	/** @see #changeMaterial(int, float[]) */
+	static boolean changeTexture2D(int id)
+	{
+		if (enabled && texture2DValid && texture2D == id) {
+			skippedStateChanges++;
+			return false;
+		}
+		texture2D = id;
+		texture2DValid = enabled;
+		stateChanges++;
+		return true;
+	}
+}
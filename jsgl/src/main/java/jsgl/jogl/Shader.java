@@ -78,6 +78,16 @@ public class Shader implements GLDisposable
 		return createShaderObject(gl, GL2ES2.GL_FRAGMENT_SHADER, file, is);
 	}
 
+	/**
+	 * Creates a compiled GLSL fragment shader from source with preprocessor
+	 * macros defined before the first line, so the source must not start with
+	 * a #version directive
+	 */
+	public static Shader createFragmentShader(GL2 gl, String file, InputStream is, String... defines)
+	{
+		return createShaderObject(gl, GL2ES2.GL_FRAGMENT_SHADER, file, is, defines);
+	}
+
 	/**
 	 * Creates a compiled GLSL vertex shader from source. Requires GL version 2.0
 	 * or greater.
@@ -87,11 +97,21 @@ public class Shader implements GLDisposable
 		return createShaderObject(gl, GL2ES2.GL_VERTEX_SHADER, file, is);
 	}
 
-	private static Shader createShaderObject(GL2 gl, int type, String file, InputStream is)
+	/**
+	 * Creates a compiled GLSL vertex shader from source with preprocessor
+	 * macros defined before the first line, so the source must not start with
+	 * a #version directive
+	 */
+	public static Shader createVertexShader(GL2 gl, String file, InputStream is, String... defines)
+	{
+		return createShaderObject(gl, GL2ES2.GL_VERTEX_SHADER, file, is, defines);
+	}
+
+	private static Shader createShaderObject(GL2 gl, int type, String file, InputStream is, String... defines)
 	{
 		int id = gl.glCreateShader(type);
 
-		String[] src = copySourceToArray(file, is);
+		String[] src = copySourceToArray(file, is, defines);
 		IntBuffer lineLengths = getLineLengths(src);
 
 		gl.glShaderSource(id, src.length, src, lineLengths);
@@ -105,9 +125,11 @@ public class Shader implements GLDisposable
 		return new Shader(id, file, src);
 	}
 
-	private static String[] copySourceToArray(String fileName, InputStream is)
+	private static String[] copySourceToArray(String fileName, InputStream is, String[] defines)
 	{
 		ArrayList<String> src = new ArrayList<>();
+		for (String define : defines)
+			src.add("#define " + define + "\n");
 		BufferedReader in = new BufferedReader(new InputStreamReader(is));
 
 		try {
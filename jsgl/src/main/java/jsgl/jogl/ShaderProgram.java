@@ -70,10 +70,23 @@ public class ShaderProgram implements GLDisposable
 	 */
 	public static ShaderProgram create(GL2 gl, String v, String f, ClassLoader loader)
 	{
-		Shader vShader = Shader.createVertexShader(gl, v, loader.getResourceAsStream(v));
+		return create(gl, v, f, loader, new String[0]);
+	}
+
+	/**
+	 * Same as create(GL2, String, String, ClassLoader), but defines
+	 * preprocessor macros in both shaders, e.g. to compile a variant of a
+	 * shader. The sources must not start with a #version directive.
+	 *
+	 * @param defines
+	 *           - macro definitions such as "NAME" or "NAME value"
+	 */
+	public static ShaderProgram create(GL2 gl, String v, String f, ClassLoader loader, String... defines)
+	{
+		Shader vShader = Shader.createVertexShader(gl, v, loader.getResourceAsStream(v), defines);
 		if (vShader == null)
 			return null;
-		Shader fShader = Shader.createFragmentShader(gl, f, loader.getResourceAsStream(f));
+		Shader fShader = Shader.createFragmentShader(gl, f, loader.getResourceAsStream(f), defines);
 		if (fShader == null)
 			return null;
 
@@ -104,6 +117,12 @@ public class ShaderProgram implements GLDisposable
 		return gl.glGetUniformLocation(id, name);
 	}
 
+	/** Returns the location of a vertex attribute */
+	public int getAttribute(GL2 gl, String name)
+	{
+		return gl.glGetAttribLocation(id, name);
+	}
+
 	/** Removes the shader program and its shaders from memory */
 	@Override
 	public void dispose(GL gl)
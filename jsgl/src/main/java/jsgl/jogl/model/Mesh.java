@@ -21,6 +21,7 @@ import com.jogamp.opengl.GL2;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Map;
 import jsgl.jogl.GLDisposable;
 import jsgl.math.BoundingBox;
 import jsgl.math.vector.Matrix;
@@ -51,6 +52,9 @@ public class Mesh implements GLDisposable
 		IMMEDIATE
 	}
 
+	/** number of draw calls issued for all meshes since the last reset */
+	private static int drawCalls = 0;
+
 	protected MeshRenderer renderer;
 	protected ArrayList<MeshVertex> vertices;
 	protected ArrayList<MeshPart> parts;
@@ -60,6 +64,32 @@ public class Mesh implements GLDisposable
 	protected boolean disposed = false;
 	protected RenderMode mode;
 
+	/** simplified versions of this mesh, from the most to the least detailed */
+	protected ArrayList<Mesh> levels = new ArrayList<>();
+
+	/** true if this mesh is a level of detail of another mesh and shares its materials */
+	private boolean sharesMaterials = false;
+
+	/**
+	 * Returns the number of draw calls issued to render meshes since the last
+	 * call to resetDrawCallCount(), counting each part of a display list or
+	 * immediate mode mesh as one draw call
+	 */
+	public static int getDrawCallCount()
+	{
+		return drawCalls;
+	}
+
+	public static void resetDrawCallCount()
+	{
+		drawCalls = 0;
+	}
+
+	static void countDrawCalls(int count)
+	{
+		drawCalls += count;
+	}
+
 	public ArrayList<MeshPart> getParts()
 	{
 		return parts;
@@ -103,6 +133,36 @@ public class Mesh implements GLDisposable
 		vertices.add(vertex);
 	}
 
+	/**
+	 * Adds a simplified version of this mesh with the same materials, such as
+	 * one created by {@link MeshDecimator}, as the next lower level of detail.
+	 * Levels must be added before the mesh is initialized, which initializes
+	 * them as well.
+	 */
+	public void addLevel(Mesh level)
+	{
+		level.sharesMaterials = true;
+		levels.add(level);
+	}
+
+	/** Number of levels of detail, including the mesh itself */
+	public int getLevelCount()
+	{
+		return levels.size() + 1;
+	}
+
+	/**
+	 * Gets a level of detail of the mesh
+	 *
+	 * @param level
+	 *            - 0 for the mesh itself, up to getLevelCount() - 1 for the
+	 *            least detailed version
+	 */
+	public Mesh getLevel(int level)
+	{
+		return level == 0 ? this : levels.get(level - 1);
+	}
+
 	/**
 	 * Initialize mesh for rendering using a specified rendering mode
 	 */
@@ -128,6 +188,9 @@ public class Mesh implements GLDisposable
 
 		initMaterials(gl);
 		renderer.init(gl, this);
+
+		for (Mesh level : levels)
+			level.init(gl, mode);
 	}
 
 	/**
@@ -137,8 +200,9 @@ public class Mesh implements GLDisposable
 	 */
 	private void initMaterials(GL2 gl)
 	{
-		for (MeshPart part : parts)
-			part.getMaterial().init(gl);
+		if (!sharesMaterials)
+			for (MeshPart part : parts)
+				part.getMaterial().init(gl);
 
 		// if there are any transparent parts, push them to end of list so they
 		// render last
@@ -176,6 +240,20 @@ public class Mesh implements GLDisposable
 		unset(gl);
 	}
 
+	/**
+	 * Same as render(GL2, Matrix), but renders the mesh parts with the given
+	 * materials instead of their own
+	 *
+	 * @param materials
+	 *            - one material per part as created by {@link #createMaterials}
+	 */
+	public void render(GL2 gl, Matrix modelMatrix, MeshMaterial[] materials)
+	{
+		set(gl);
+		renderInstance(gl, modelMatrix, materials);
+		unset(gl);
+	}
+
 	/**
 	 * Renders a single instance of the mesh, assuming the mesh state has been
 	 * set. This method is intended to be used when batching the rendering the
@@ -195,6 +273,49 @@ public class Mesh implements GLDisposable
 		gl.glPopMatrix();
 	}
 
+	/**
+	 * Same as renderInstance(GL2, Matrix), but renders the mesh parts with the
+	 * given materials instead of their own
+	 *
+	 * @param materials
+	 *            - one material per part as created by {@link #createMaterials}
+	 */
+	public void renderInstance(GL2 gl, Matrix modelMatrix, MeshMaterial[] materials)
+	{
+		gl.glPushMatrix();
+		gl.glMultMatrixd(modelMatrix.wrap());
+		renderer.render(gl, materials);
+		gl.glPopMatrix();
+	}
+
+	/**
+	 * Creates the materials for rendering an instance of the mesh with some of
+	 * its materials replaced, so instances can differ in color without
+	 * modifying the shared mesh. Parts whose material has the name of a
+	 * replacement are rendered with the colors of the replacement, the other
+	 * parts with their own material. Changes to the replacements are visible in
+	 * later renders. Must be called after the mesh has been initialized, since
+	 * that reorders the parts.
+	 *
+	 * @param replacements
+	 *            - replacement materials keyed by the name of the material
+	 *            they replace
+	 * @return one material per part, to be passed to the render methods
+	 */
+	public MeshMaterial[] createMaterials(Map<String, ObjMaterial> replacements)
+	{
+		MeshMaterial[] materials = new MeshMaterial[parts.size()];
+		for (int i = 0; i < materials.length; i++) {
+			MeshMaterial material = parts.get(i).getMaterial();
+			ObjMaterial replacement = replacements.get(material.getName());
+			if (replacement != null && material instanceof ObjMaterial)
+				materials[i] = new ObjMaterialOverride((ObjMaterial) material, replacement);
+			else
+				materials[i] = material;
+		}
+		return materials;
+	}
+
 	/**
 	 * Sets up the mesh state prior to rendering. This should only be used in
 	 * conjunction with the renderInstance method. It is automatically called by
@@ -220,8 +341,11 @@ public class Mesh implements GLDisposable
 	{
 		if (renderer != null)
 			renderer.dispose(gl);
-		for (MeshPart part : parts)
-			part.dispose(gl);
+		if (!sharesMaterials)
+			for (MeshPart part : parts)
+				part.dispose(gl);
+		for (Mesh level : levels)
+			level.dispose(gl);
 		disposed = true;
 	}
 
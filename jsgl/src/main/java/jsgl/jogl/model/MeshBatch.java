@@ -0,0 +1,349 @@
+/*
+ *  Copyright 2011 Justin Stoecker
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jsgl.jogl.model;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import jsgl.jogl.GLDisposable;
+import jsgl.jogl.VertexBufferObject;
+import jsgl.math.vector.Matrix;
+
+/**
+ * Draws all instances of the same mesh with instanced draw calls. Instances
+ * are collected with add() and drawn with render(), which issues one draw call
+ * per mesh part and distinct material of that part, instead of one draw call
+ * per part and instance. Instances whose materials only differ in some parts,
+ * such as team colors, still share the draw calls of the other parts.
+ * <p>
+ * The model matrix of each instance is passed to the vertex shader in a mat4
+ * attribute with a divisor of 1, so the modelview matrix must only contain
+ * the view transformation. Only meshes rendered with VBOs can be instanced.
+ * Requires GL 3.3 or the instanced arrays and draw instanced extensions.
+ * <p>
+ * Without instancing support, the instances can be drawn in the same order
+ * with one draw call per instance and part, which still sets up the vertex
+ * arrays once per mesh and applies each material once per run of instances.
+ */
+public class MeshBatch implements GLDisposable
+{
+	private static final int FLOATS_PER_INSTANCE = 16;
+	private static final int STRIDE = FLOATS_PER_INSTANCE * Buffers.SIZEOF_FLOAT;
+
+	/** Instances of one mesh */
+	private static class Group
+	{
+		final Mesh mesh;
+		float[] matrices = new float[FLOATS_PER_INSTANCE * 8];
+		MeshMaterial[][] materials = new MeshMaterial[8][];
+		int count = 0;
+
+		/** instances in the order they are drawn, so equal materials are adjacent */
+		int[] order = new int[8];
+
+		/** index of the material of each instance and part, equal for equal materials */
+		int[] keys = new int[8];
+
+		/** index of the first instance of this group in the instance buffer */
+		int base;
+
+		Group(Mesh mesh)
+		{
+			this.mesh = mesh;
+		}
+
+		MeshMaterial getMaterial(int instance, int part)
+		{
+			MeshMaterial[] m = materials[instance];
+			return m == null ? mesh.parts.get(part).material : m[part];
+		}
+
+		/**
+		 * Orders the instances by their part materials, keeping the order of
+		 * equal instances
+		 *
+		 * @param indices
+		 *            - scratch map from materials to their index
+		 */
+		void sort(HashMap<MeshMaterial, Integer> indices)
+		{
+			// numbering the materials keeps distinct materials apart even if
+			// their hash codes are equal
+			int parts = mesh.parts.size();
+			if (keys.length < count * parts)
+				keys = new int[materials.length * parts];
+			indices.clear();
+			for (int i = 0; i < count; i++) {
+				for (int part = 0; part < parts; part++) {
+					MeshMaterial material = getMaterial(i, part);
+					Integer index = indices.get(material);
+					if (index == null) {
+						index = indices.size();
+						indices.put(material, index);
+					}
+					keys[i * parts + part] = index;
+				}
+			}
+
+			if (order.length < count)
+				order = new int[materials.length];
+			for (int i = 0; i < count; i++) {
+				int instance = i;
+				int j = i;
+				for (; j > 0 && compare(order[j - 1], instance) > 0; j--)
+					order[j] = order[j - 1];
+				order[j] = instance;
+			}
+		}
+
+		private int compare(int a, int b)
+		{
+			int parts = mesh.parts.size();
+			for (int part = 0; part < parts; part++) {
+				int ka = keys[a * parts + part];
+				int kb = keys[b * parts + part];
+				if (ka != kb)
+					return Integer.compare(ka, kb);
+			}
+			return 0;
+		}
+
+		/**
+		 * Finds the end of the run of sorted instances starting at start that
+		 * share the material of a part
+		 */
+		int findRunEnd(int part, int start)
+		{
+			int parts = mesh.parts.size();
+			int key = keys[order[start] * parts + part];
+			int end = start + 1;
+			while (end < count && keys[order[end] * parts + part] == key)
+				end++;
+			return end;
+		}
+	}
+
+	private final IdentityHashMap<Mesh, Group> groupsByMesh = new IdentityHashMap<>();
+	private final ArrayList<Group> groups = new ArrayList<>();
+	private final HashMap<MeshMaterial, Integer> materialIndices = new HashMap<>();
+	private FloatBuffer staging = Buffers.newDirectFloatBuffer(FLOATS_PER_INSTANCE * 64);
+	private VertexBufferObject instanceBuffer;
+	private boolean disposed = false;
+
+	/** Checks if the GL context supports instanced drawing */
+	public static boolean isSupported(GL gl)
+	{
+		return gl.isFunctionAvailable("glDrawElementsInstanced") && gl.isFunctionAvailable("glVertexAttribDivisor");
+	}
+
+	/**
+	 * Adds an instance of a mesh to the batch
+	 *
+	 * @param materials
+	 *            - one material per part as created by Mesh.createMaterials,
+	 *            or null to use the mesh's own materials
+	 * @return false if the mesh can't be instanced and must be rendered
+	 *         directly
+	 */
+	public boolean add(Mesh mesh, Matrix modelMatrix, MeshMaterial[] materials)
+	{
+		if (!(mesh.renderer instanceof MeshRendererVBO))
+			return false;
+
+		Group group = groupsByMesh.get(mesh);
+		if (group == null) {
+			group = new Group(mesh);
+			groupsByMesh.put(mesh, group);
+			groups.add(group);
+		}
+
+		if (group.count == group.materials.length) {
+			group.materials = Arrays.copyOf(group.materials, group.count * 2);
+			group.matrices = Arrays.copyOf(group.matrices, group.count * 2 * FLOATS_PER_INSTANCE);
+		}
+		modelMatrix.get(group.matrices, group.count * FLOATS_PER_INSTANCE);
+		group.materials[group.count++] = materials;
+		return true;
+	}
+
+	/**
+	 * Removes all instances. The storage of meshes that had instances since the
+	 * last clear is kept, meshes without instances are forgotten, so meshes of
+	 * earlier scenes are not visited again.
+	 */
+	public void clear()
+	{
+		for (Iterator<Group> it = groups.iterator(); it.hasNext();) {
+			Group group = it.next();
+			if (group.count == 0) {
+				it.remove();
+				groupsByMesh.remove(group.mesh);
+			} else {
+				group.count = 0;
+				Arrays.fill(group.materials, null);
+			}
+		}
+	}
+
+	/** Number of meshes the batch keeps storage for */
+	int getMeshCount()
+	{
+		return groups.size();
+	}
+
+	/**
+	 * Sorts the instances that have been added since the last clear and counts
+	 * the runs of instances that share the material of a part. Both render
+	 * methods apply one material per run, and render(GL2, int) issues one draw
+	 * call per run.
+	 */
+	int getRunCount()
+	{
+		int runs = 0;
+		for (Group group : groups) {
+			group.sort(materialIndices);
+			for (int part = 0; part < group.mesh.parts.size(); part++) {
+				for (int start = 0; start < group.count; start = group.findRunEnd(part, start))
+					runs++;
+			}
+		}
+		return runs;
+	}
+
+	/**
+	 * Draws all instances that have been added since the last clear
+	 *
+	 * @param matrixAttrib
+	 *            - location of the mat4 vertex attribute receiving the model
+	 *            matrix of each instance
+	 */
+	public void render(GL2 gl, int matrixAttrib)
+	{
+		int total = 0;
+		for (Group group : groups) {
+			group.base = total;
+			total += group.count;
+		}
+		if (total == 0)
+			return;
+
+		// upload the model matrices of all instances at once, in drawing order
+		if (staging.capacity() < total * FLOATS_PER_INSTANCE)
+			staging = Buffers.newDirectFloatBuffer(total * FLOATS_PER_INSTANCE * 2);
+		staging.clear();
+		for (Group group : groups) {
+			group.sort(materialIndices);
+			for (int i = 0; i < group.count; i++)
+				staging.put(group.matrices, group.order[i] * FLOATS_PER_INSTANCE, FLOATS_PER_INSTANCE);
+		}
+		staging.flip();
+
+		if (instanceBuffer == null)
+			instanceBuffer = new VertexBufferObject(gl, null, 0, GL.GL_ARRAY_BUFFER, GL2.GL_STREAM_DRAW);
+		gl.glBindBuffer(GL.GL_ARRAY_BUFFER, instanceBuffer.getID());
+		instanceBuffer.bufferData(gl, staging, staging.limit() * Buffers.SIZEOF_FLOAT);
+		gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+
+		for (int c = 0; c < 4; c++) {
+			gl.glEnableVertexAttribArray(matrixAttrib + c);
+			gl.glVertexAttribDivisor(matrixAttrib + c, 1);
+		}
+
+		for (Group group : groups) {
+			if (group.count == 0)
+				continue;
+			MeshRendererVBO renderer = (MeshRendererVBO) group.mesh.renderer;
+			group.mesh.set(gl);
+			for (int part = 0; part < group.mesh.parts.size(); part++) {
+				// draw each run of instances that share the material of this part
+				int start = 0;
+				while (start < group.count) {
+					MeshMaterial material = group.getMaterial(group.order[start], part);
+					int end = group.findRunEnd(part, start);
+
+					material.apply(gl);
+					gl.glBindBuffer(GL.GL_ARRAY_BUFFER, instanceBuffer.getID());
+					long offset = (long) (group.base + start) * STRIDE;
+					for (int c = 0; c < 4; c++)
+						gl.glVertexAttribPointer(matrixAttrib + c, 4, GL.GL_FLOAT, false, STRIDE, offset + c * 16);
+					renderer.renderInstances(gl, part, end - start);
+					start = end;
+				}
+			}
+			group.mesh.unset(gl);
+		}
+
+		for (int c = 0; c < 4; c++) {
+			gl.glVertexAttribDivisor(matrixAttrib + c, 0);
+			gl.glDisableVertexAttribArray(matrixAttrib + c);
+		}
+		gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * Draws all instances that have been added since the last clear without
+	 * instancing, in the same order as render(GL2, int). The model matrix of
+	 * each instance is multiplied with the current modelview matrix, so this
+	 * works with any shader and with the fixed-function pipeline.
+	 */
+	public void render(GL2 gl)
+	{
+		for (Group group : groups)
+			group.sort(materialIndices);
+		for (Group group : groups) {
+			if (group.count == 0)
+				continue;
+			MeshRendererVBO renderer = (MeshRendererVBO) group.mesh.renderer;
+			group.mesh.set(gl);
+			for (int part = 0; part < group.mesh.parts.size(); part++) {
+				int start = 0;
+				while (start < group.count) {
+					int end = group.findRunEnd(part, start);
+					group.getMaterial(group.order[start], part).apply(gl);
+					for (int i = start; i < end; i++) {
+						gl.glPushMatrix();
+						gl.glMultMatrixf(group.matrices, group.order[i] * FLOATS_PER_INSTANCE);
+						renderer.renderPart(gl, part);
+						gl.glPopMatrix();
+					}
+					start = end;
+				}
+			}
+			group.mesh.unset(gl);
+		}
+	}
+
+	@Override
+	public void dispose(GL gl)
+	{
+		if (instanceBuffer != null)
+			instanceBuffer.dispose(gl);
+		disposed = true;
+	}
+
+	@Override
+	public boolean isDisposed()
+	{
+		return disposed;
+	}
+}
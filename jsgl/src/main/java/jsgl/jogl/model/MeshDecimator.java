@@ -0,0 +1,308 @@
+/*
+ *  Copyright 2011 Justin Stoecker
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jsgl.jogl.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Creates simplified versions of a mesh to be used as lower levels of detail.
+ * The mesh is simplified by vertex clustering: the bounding box of the mesh is
+ * divided into a grid of cells, all vertices within a cell are merged into one
+ * and the triangles that collapse in the process are removed. The grid is
+ * refined as much as the requested number of triangles allows.
+ * <p>
+ * Merged vertices are placed at the average position of all vertices of their
+ * cell, so the simplified mesh has no cracks. Vertices of a cell whose normals
+ * point in different directions stay separate, so hard edges remain sharp.
+ * Vertices whose texture coordinates are far apart stay separate as well, so
+ * the texture does not smear across UV seams, and merged vertices get the
+ * average texture coordinates of their side of the seam.
+ * The simplified mesh shares the materials of the original mesh, which must
+ * not have been initialized yet.
+ */
+public class MeshDecimator
+{
+	private static final int MIN_RESOLUTION = 2;
+	private static final int MAX_RESOLUTION = 256;
+	/** texture coordinates of merged vertices are within a 1 / UV_RESOLUTION square */
+	private static final int UV_RESOLUTION = 8;
+
+	private final Mesh mesh;
+	private final float[] min = new float[3];
+	private final float[] extent = new float[3];
+	private final int triangles;
+
+	public MeshDecimator(Mesh mesh)
+	{
+		this.mesh = mesh;
+
+		min[0] = min[1] = min[2] = Float.POSITIVE_INFINITY;
+		float[] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+		for (MeshVertex v : mesh.vertices) {
+			float[] p = v.getPosition();
+			for (int i = 0; i < 3; i++) {
+				min[i] = Math.min(min[i], p[i]);
+				max[i] = Math.max(max[i], p[i]);
+			}
+		}
+		for (int i = 0; i < 3; i++)
+			extent[i] = Math.max(max[i] - min[i], 0);
+
+		int count = 0;
+		for (MeshPart part : mesh.parts)
+			count += part.getNumTriangles();
+		triangles = count;
+	}
+
+	/** Number of triangles of the original mesh */
+	public int getNumTriangles()
+	{
+		return triangles;
+	}
+
+	/**
+	 * Creates a simplified mesh with at most a fraction of the triangles of the
+	 * original mesh, and as close to that number as the grid allows
+	 *
+	 * @param ratio
+	 *            - maximum number of triangles relative to the original mesh
+	 * @return the simplified mesh, or null if the mesh can't be simplified that
+	 *         much
+	 */
+	public Mesh decimate(float ratio)
+	{
+		if (mesh.vertices.isEmpty())
+			return null;
+		int target = (int) (triangles * ratio);
+
+		// the number of triangles grows with the resolution of the grid
+		Mesh best = null;
+		int low = MIN_RESOLUTION;
+		int high = MAX_RESOLUTION;
+		while (low <= high) {
+			int resolution = (low + high) / 2;
+			Mesh simplified = cluster(resolution);
+			if (countTriangles(simplified) <= target) {
+				best = simplified;
+				low = resolution + 1;
+			} else {
+				high = resolution - 1;
+			}
+		}
+		return best != null && countTriangles(best) > 0 ? best : null;
+	}
+
+	private static int countTriangles(Mesh mesh)
+	{
+		int count = 0;
+		for (MeshPart part : mesh.parts)
+			count += part.getNumTriangles();
+		return count;
+	}
+
+	/**
+	 * Merges the vertices of each cell of a grid with a number of cells along
+	 * the longest side of the bounding box
+	 */
+	private Mesh cluster(int resolution)
+	{
+		float cellSize = Math.max(extent[0], Math.max(extent[1], extent[2])) / resolution;
+		if (cellSize <= 0)
+			cellSize = 1;
+
+		// assign every vertex to a cell, and to a cluster of vertices in that cell with
+		// similar normals and texture coordinates
+		int numVerts = mesh.vertices.size();
+		int[] cellOf = new int[numVerts];
+		int[] clusterOf = new int[numVerts];
+		HashMap<Long, Integer> cells = new HashMap<>();
+		HashMap<Long, Integer> clusters = new HashMap<>();
+		ArrayList<Integer> clusterCells = new ArrayList<>();
+		for (int i = 0; i < numVerts; i++) {
+			MeshVertex v = mesh.vertices.get(i);
+			float[] p = v.getPosition();
+			long cellKey = 0;
+			for (int axis = 0; axis < 3; axis++) {
+				long c = Math.min((long) ((p[axis] - min[axis]) / cellSize), resolution);
+				cellKey = cellKey * (MAX_RESOLUTION + 1) + c;
+			}
+			Integer cell = cells.get(cellKey);
+			if (cell == null) {
+				cell = cells.size();
+				cells.put(cellKey, cell);
+			}
+			cellOf[i] = cell;
+
+			long clusterKey = (long) cell * 8 + normalDirection(v.getNormal());
+			clusterKey = clusterKey * 0x10000 + uvRegion(v.getTexCoords());
+			Integer cluster = clusters.get(clusterKey);
+			if (cluster == null) {
+				cluster = clusters.size();
+				clusters.put(clusterKey, cluster);
+				clusterCells.add(cell);
+			}
+			clusterOf[i] = cluster;
+		}
+
+		// merged vertices are placed at the average position of their cell
+		float[] cellPositions = new float[cells.size() * 3];
+		int[] cellCounts = new int[cells.size()];
+		int numClusters = clusters.size();
+		float[][] normals = new float[numClusters][];
+		float[][] texCoords = new float[numClusters][];
+		int[] clusterCounts = new int[numClusters];
+		for (int i = 0; i < numVerts; i++) {
+			MeshVertex v = mesh.vertices.get(i);
+			float[] p = v.getPosition();
+			int cell = cellOf[i];
+			for (int axis = 0; axis < 3; axis++)
+				cellPositions[cell * 3 + axis] += p[axis];
+			cellCounts[cell]++;
+
+			int cluster = clusterOf[i];
+			float[] n = v.getNormal();
+			if (n != null) {
+				if (normals[cluster] == null)
+					normals[cluster] = new float[3];
+				for (int axis = 0; axis < 3; axis++)
+					normals[cluster][axis] += n[axis];
+			}
+			float[] uv = v.getTexCoords();
+			if (uv != null) {
+				if (texCoords[cluster] == null)
+					texCoords[cluster] = new float[uv.length];
+				for (int j = 0; j < uv.length; j++)
+					texCoords[cluster][j] += uv[j];
+				clusterCounts[cluster]++;
+			}
+		}
+
+		ArrayList<MeshVertex> vertices = new ArrayList<>(numClusters);
+		for (int cluster = 0; cluster < numClusters; cluster++) {
+			int cell = clusterCells.get(cluster);
+			float[] position = new float[3];
+			for (int axis = 0; axis < 3; axis++)
+				position[axis] = cellPositions[cell * 3 + axis] / cellCounts[cell];
+			float[] normal = normals[cluster];
+			if (normal != null) {
+				float length = (float) Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]);
+				if (length > 0)
+					for (int axis = 0; axis < 3; axis++)
+						normal[axis] /= length;
+			}
+			float[] uv = texCoords[cluster];
+			if (uv != null)
+				for (int j = 0; j < uv.length; j++)
+					uv[j] /= clusterCounts[cluster];
+			vertices.add(new MeshVertex(position, normal, uv));
+		}
+
+		// keep the triangles whose corners are in different cells
+		Mesh simplified = new Mesh(vertices);
+		simplified.setBounds(mesh.getBounds());
+		HashSet<Triangle> kept = new HashSet<>();
+		for (MeshPart part : mesh.parts) {
+			MeshPart simplifiedPart = new MeshPart();
+			simplifiedPart.setMaterial(part.getMaterial());
+			kept.clear();
+			for (MeshFace face : part.getFaces()) {
+				int[] indices = face.getVertIndices();
+				for (int i = 1; i <= face.getNumTriangles(); i++) {
+					int a = indices[0];
+					int b = indices[i];
+					int c = indices[i + 1];
+					if (cellOf[a] == cellOf[b] || cellOf[b] == cellOf[c] || cellOf[a] == cellOf[c])
+						continue;
+					Triangle t = new Triangle(clusterOf[a], clusterOf[b], clusterOf[c]);
+					if (kept.add(t))
+						simplifiedPart.addFace(new MeshFace(new int[] {t.a, t.b, t.c}));
+				}
+			}
+			if (simplifiedPart.getNumTriangles() > 0)
+				simplified.addPart(simplifiedPart);
+		}
+		return simplified;
+	}
+
+	/**
+	 * Classifies a normal by the sign of each component, so vertices with
+	 * normals that differ a lot are not merged
+	 */
+	private static int normalDirection(float[] n)
+	{
+		if (n == null)
+			return 0;
+		return (n[0] < 0 ? 1 : 0) | (n[1] < 0 ? 2 : 0) | (n[2] < 0 ? 4 : 0);
+	}
+
+	/**
+	 * Classifies texture coordinates by the square of a grid over the texture
+	 * they are in, so vertices on different sides of a UV seam are not merged
+	 */
+	private static int uvRegion(float[] uv)
+	{
+		if (uv == null)
+			return 0;
+		int u = (int) Math.floor(uv[0] * UV_RESOLUTION);
+		int v = (int) Math.floor(uv[1] * UV_RESOLUTION);
+		return (u & 0xFF) << 8 | v & 0xFF;
+	}
+
+	/**
+	 * Triangle of merged vertices; triangles with the same corners in the same
+	 * winding order are equal
+	 */
+	private static class Triangle
+	{
+		final int a, b, c;
+
+		Triangle(int a, int b, int c)
+		{
+			// start with the smallest index, keeping the winding order
+			if (a < b && a < c) {
+				this.a = a;
+				this.b = b;
+				this.c = c;
+			} else if (b < c) {
+				this.a = b;
+				this.b = c;
+				this.c = a;
+			} else {
+				this.a = c;
+				this.b = a;
+				this.c = b;
+			}
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Triangle))
+				return false;
+			Triangle t = (Triangle) o;
+			return a == t.a && b == t.b && c == t.c;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (a * 31 + b) * 31 + c;
+		}
+	}
+}
@@ -27,6 +27,13 @@ public interface MeshRenderer {
 	public void init(GL gl, Mesh mesh);
 	public void setState(GL gl);
 	public void render(GL gl);
+	/**
+	 * Renders the mesh parts with the given materials instead of their own
+	 *
+	 * @param materials
+	 *            - one material per part, in the order of the mesh parts
+	 */
+	public void render(GL gl, MeshMaterial[] materials);
 	public void unsetState(GL gl);
 	public void dispose(GL gl);
 }
\ No newline at end of file
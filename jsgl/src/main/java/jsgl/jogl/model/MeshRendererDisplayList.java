@@ -29,39 +29,40 @@ import java.util.ArrayList;
  */
 public class MeshRendererDisplayList implements MeshRenderer
 {
-	private int list;
+	private Mesh mesh;
+
+	/** first of the display lists, one for the geometry of each part */
+	private int lists;
 
 	@Override
 	public void init(GL glContext, Mesh mesh)
 	{
 		GL2 gl = glContext.getGL2();
+		this.mesh = mesh;
 
-		list = gl.glGenLists(1);
-
-		gl.glNewList(list, GL2.GL_COMPILE);
-		{
-			for (MeshPart part : mesh.parts) {
-				part.getMaterial().apply(gl);
-				gl.glBegin(GL.GL_TRIANGLES);
-				ArrayList<MeshFace> faces = part.getFaces();
-				for (MeshFace face : faces) {
-					int[] indices = face.getVertIndices();
-					for (int index : indices) {
-						MeshVertex v = mesh.vertices.get(index);
-						float[] vn = v.getNormal();
-						float[] vp = v.getPosition();
-						float[] vt = v.getTexCoords();
-						if (vn != null)
-							gl.glNormal3fv(vn, 0);
-						if (vt != null)
-							gl.glTexCoord2fv(vt, 0);
-						gl.glVertex3fv(vp, 0);
-					}
+		// materials are applied outside of the lists, so they can be replaced when rendering
+		lists = gl.glGenLists(mesh.parts.size());
+		for (int i = 0; i < mesh.parts.size(); i++) {
+			gl.glNewList(lists + i, GL2.GL_COMPILE);
+			gl.glBegin(GL.GL_TRIANGLES);
+			ArrayList<MeshFace> faces = mesh.parts.get(i).getFaces();
+			for (MeshFace face : faces) {
+				int[] indices = face.getVertIndices();
+				for (int index : indices) {
+					MeshVertex v = mesh.vertices.get(index);
+					float[] vn = v.getNormal();
+					float[] vp = v.getPosition();
+					float[] vt = v.getTexCoords();
+					if (vn != null)
+						gl.glNormal3fv(vn, 0);
+					if (vt != null)
+						gl.glTexCoord2fv(vt, 0);
+					gl.glVertex3fv(vp, 0);
 				}
-				gl.glEnd();
 			}
+			gl.glEnd();
+			gl.glEndList();
 		}
-		gl.glEndList();
 	}
 
 	@Override
@@ -72,7 +73,18 @@ public class MeshRendererDisplayList implements MeshRenderer
 	@Override
 	public void render(GL gl)
 	{
-		gl.getGL2().glCallList(list);
+		render(gl, null);
+	}
+
+	@Override
+	public void render(GL glContext, MeshMaterial[] materials)
+	{
+		GL2 gl = glContext.getGL2();
+		for (int i = 0; i < mesh.parts.size(); i++) {
+			(materials != null ? materials[i] : mesh.parts.get(i).getMaterial()).apply(gl);
+			gl.glCallList(lists + i);
+		}
+		Mesh.countDrawCalls(mesh.parts.size());
 	}
 
 	@Override
@@ -83,6 +95,6 @@ public class MeshRendererDisplayList implements MeshRenderer
 	@Override
 	public void dispose(GL gl)
 	{
-		gl.getGL2().glDeleteLists(list, 1);
+		gl.getGL2().glDeleteLists(lists, mesh.parts.size());
 	}
 }
@@ -39,12 +39,18 @@ public class MeshRendererImmediate implements MeshRenderer
 	{
 	}
 
-	public void render(GL glContext)
+	public void render(GL gl)
+	{
+		render(gl, null);
+	}
+
+	public void render(GL glContext, MeshMaterial[] materials)
 	{
 		GL2 gl = glContext.getGL2();
 
-		for (MeshPart part : mesh.parts) {
-			part.getMaterial().apply(gl);
+		for (int i = 0; i < mesh.parts.size(); i++) {
+			MeshPart part = mesh.parts.get(i);
+			(materials != null ? materials[i] : part.getMaterial()).apply(gl);
 			gl.glBegin(GL.GL_TRIANGLES);
 			ArrayList<MeshFace> faces = part.getFaces();
 			for (MeshFace face : faces) {
@@ -63,6 +69,7 @@ public class MeshRendererImmediate implements MeshRenderer
 			}
 			gl.glEnd();
 		}
+		Mesh.countDrawCalls(mesh.parts.size());
 	}
 
 	public void unsetState(GL gl)
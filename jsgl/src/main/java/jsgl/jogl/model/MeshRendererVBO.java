@@ -104,14 +104,47 @@ public class MeshRendererVBO implements MeshRenderer
 
 	@Override
 	public void render(GL gl)
+	{
+		render(gl, null);
+	}
+
+	@Override
+	public void render(GL gl, MeshMaterial[] materials)
 	{
 		for (int i = 0; i < mesh.parts.size(); i++) {
 			MeshPart part = mesh.parts.get(i);
-			part.material.apply(gl.getGL2());
+			(materials != null ? materials[i] : part.material).apply(gl.getGL2());
 			indexBuffers[i].bind();
 			gl.glDrawElements(GL.GL_TRIANGLES, part.numIndices, part.indexType, 0);
 			indexBuffers[i].unbind();
 		}
+		Mesh.countDrawCalls(mesh.parts.size());
+	}
+
+	/**
+	 * Draws a mesh part, assuming the mesh state and the part's material have
+	 * been set
+	 */
+	void renderPart(GL gl, int part)
+	{
+		MeshPart meshPart = mesh.parts.get(part);
+		indexBuffers[part].bind();
+		gl.glDrawElements(GL.GL_TRIANGLES, meshPart.numIndices, meshPart.indexType, 0);
+		indexBuffers[part].unbind();
+		Mesh.countDrawCalls(1);
+	}
+
+	/**
+	 * Draws several instances of a mesh part with one instanced draw call,
+	 * assuming the mesh state and the part's material have been set
+	 */
+	void renderInstances(GL gl, int part, int instances)
+	{
+		MeshPart meshPart = mesh.parts.get(part);
+		indexBuffers[part].bind();
+		gl.getGL2().glDrawElementsInstanced(GL.GL_TRIANGLES, meshPart.numIndices, meshPart.indexType, 0, instances);
+		indexBuffers[part].unbind();
+		Mesh.countDrawCalls(1);
 	}
 
 	@Override
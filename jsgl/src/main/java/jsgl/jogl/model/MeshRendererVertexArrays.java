@@ -96,14 +96,21 @@ public class MeshRendererVertexArrays implements MeshRenderer
 
 	@Override
 	public void render(GL gl)
+	{
+		render(gl, null);
+	}
+
+	@Override
+	public void render(GL gl, MeshMaterial[] materials)
 	{
 		for (int i = 0; i < mesh.parts.size(); i++) {
 			MeshPart part = mesh.parts.get(i);
-			part.material.apply(gl.getGL2());
+			(materials != null ? materials[i] : part.material).apply(gl.getGL2());
 			gl.glDrawElements(GL.GL_TRIANGLES, part.numIndices, part.indexType, indexBuffers[i].arrayOffset()); // TODO
 			// Don't know if arrayOffset() works, see:
 			// https://jogamp.org/deployment/jogamp-next/javadoc/jogl/javadoc/com/jogamp/opengl/GL.htm
 		}
+		Mesh.countDrawCalls(mesh.parts.size());
 	}
 
 	@Override
@@ -24,6 +24,7 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 import javax.imageio.ImageIO;
+import jsgl.jogl.GLStateCache;
 import jsgl.jogl.Texture2D;
 
 /**
@@ -150,15 +151,31 @@ public class ObjMaterial extends MeshMaterial
 		textureSource = texSrc;
 	}
 
+	/**
+	 * Applies this material. The state changes go through the GLStateCache,
+	 * so state shared with the previously applied material is not set again
+	 * while the cache is active.
+	 */
 	@Override
 	public void apply(GL2 gl)
 	{
-		gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GLLightingFunc.GL_AMBIENT, ambient, 0);
-		gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GLLightingFunc.GL_DIFFUSE, diffuse, 0);
-		gl.glMaterialfv(GL.GL_FRONT_AND_BACK, GLLightingFunc.GL_SPECULAR, specular, 0);
-		gl.glMateriali(GL.GL_FRONT_AND_BACK, GLLightingFunc.GL_SHININESS, illum == 2 ? shininess : 0);
+		apply(gl, this);
+	}
+
+	/**
+	 * Applies this material with the colors and shininess of another material, and with its texture
+	 * if it has one. This renders the same as copying those properties into this material, but
+	 * leaves this material unchanged.
+	 */
+	public void apply(GL2 gl, ObjMaterial colors)
+	{
+		GLStateCache.material(gl, GLLightingFunc.GL_AMBIENT, colors.ambient);
+		GLStateCache.material(gl, GLLightingFunc.GL_DIFFUSE, colors.diffuse);
+		GLStateCache.material(gl, GLLightingFunc.GL_SPECULAR, colors.specular);
+		GLStateCache.shininess(gl, illum == 2 ? colors.shininess : 0);
 
-		gl.glBindTexture(GL.GL_TEXTURE_2D, texture == null ? 0 : texture.getID());
+		Texture2D tex = colors.texture != null ? colors.texture : texture;
+		GLStateCache.bindTexture2D(gl, tex == null ? 0 : tex.getID());
 	}
 
 	@Override
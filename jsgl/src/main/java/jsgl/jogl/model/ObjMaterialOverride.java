@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2011 Justin Stoecker
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jsgl.jogl.model;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+
+/**
+ * Material of a mesh part rendered with the colors of another material. Neither material is
+ * modified or owned by the override.
+ *
+ * @see Mesh#createMaterials
+ */
+public class ObjMaterialOverride extends MeshMaterial
+{
+	private final ObjMaterial material;
+	private final ObjMaterial replacement;
+
+	public ObjMaterialOverride(ObjMaterial material, ObjMaterial replacement)
+	{
+		this.material = material;
+		this.replacement = replacement;
+		this.name = material.getName();
+		this.containsTransparency = material.containsTransparency;
+	}
+
+	public ObjMaterial getReplacement()
+	{
+		return replacement;
+	}
+
+	/** Overrides are equal if they apply the same replacement to the same material */
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (!(obj instanceof ObjMaterialOverride))
+			return false;
+		ObjMaterialOverride other = (ObjMaterialOverride) obj;
+		return material == other.material && replacement == other.replacement;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return System.identityHashCode(material) * 31 + System.identityHashCode(replacement);
+	}
+
+	@Override
+	public void init(GL2 gl)
+	{
+	}
+
+	@Override
+	public void apply(GL2 gl)
+	{
+		material.apply(gl, replacement);
+	}
+
+	@Override
+	public void dispose(GL gl)
+	{
+		disposed = true;
+	}
+
+	@Override
+	public boolean isDisposed()
+	{
+		return disposed;
+	}
+}
@@ -5,7 +5,6 @@ import com.jogamp.newt.event.MouseListener;
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GLAutoDrawable;
 import com.jogamp.opengl.GLEventListener;
-import com.jogamp.opengl.util.FPSAnimator;
 import jsgl.jogl.view.Viewport;
 
 public abstract class GLProgram implements GLEventListener
@@ -13,7 +12,7 @@ public abstract class GLProgram implements GLEventListener
 	private static final int TARGET_FPS = 60;
 
 	protected GLAutoDrawable drawable;
-	protected FPSAnimator animator;
+	protected OnDemandAnimator animator;
 	protected Viewport screen;
 	protected double elapsedMS = 0;
 	protected long lastNanoTime = 0;
@@ -46,18 +45,43 @@ public abstract class GLProgram implements GLEventListener
 		screen = new Viewport(0, 0, w, h);
 	}
 
+	/**
+	 * Requests that another frame is displayed. Programs started in on-demand
+	 * mode must call this whenever something changes what is shown, from any
+	 * thread.
+	 */
+	public void requestRedraw()
+	{
+		if (animator != null)
+			animator.requestRedraw();
+	}
+
 	protected void attachDrawableAndStart(GLAutoDrawable drawable)
+	{
+		attachDrawableAndStart(drawable, TARGET_FPS, false);
+	}
+
+	/**
+	 * Starts displaying the drawable
+	 *
+	 * @param fps
+	 *            - maximum number of frames per second
+	 * @param onDemand
+	 *            - only display frames after redraws have been requested
+	 */
+	protected void attachDrawableAndStart(GLAutoDrawable drawable, int fps, boolean onDemand)
 	{
 		this.drawable = drawable;
 		drawable.addGLEventListener(this);
-		animator = new FPSAnimator(drawable, TARGET_FPS);
+		animator = new OnDemandAnimator(drawable, fps, onDemand);
 		animator.start();
 	}
 
 	/**
 	 * Called repeatedly by the GLAutoDrawable. This method calls the update and
 	 * render methods in order. This method also keeps tracks of the time
-	 * elapsed since it was last called.
+	 * elapsed since it was last called. After the animator has been idle, the
+	 * duration of one frame at the target frame rate is used instead.
 	 */
 	@Override
 	public final void display(GLAutoDrawable drawable)
@@ -65,7 +89,9 @@ public abstract class GLProgram implements GLEventListener
 		GL gl = drawable.getGL();
 
 		long nanoTime = System.nanoTime();
-		if (lastNanoTime > 0)
+		if (animator != null && animator.checkIdle())
+			elapsedMS = 1000.0 / animator.getFPS();
+		else if (lastNanoTime > 0)
 			elapsedMS = (nanoTime - lastNanoTime) / 10e5;
 		lastNanoTime = nanoTime;
 
@@ -0,0 +1,170 @@
+/*
+ *  Copyright 2011 Justin Stoecker
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jsgl.jogl.prog;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Displays a drawable from a background thread at up to a target frame rate.
+ * In on-demand mode, a frame is only displayed if a redraw was requested since
+ * the previous frame started, so the thread sleeps and uses no CPU time while
+ * nothing changes. Anything that changes what is shown must then call
+ * requestRedraw(), which may happen from any thread. In continuous mode, frames
+ * are displayed at the target rate like with an FPSAnimator.
+ * <p>
+ * The animator is not registered with the drawable, so the drawable still
+ * displays itself when its window needs to be repainted. Exceptions thrown
+ * while displaying a frame are reported and don't stop the animator.
+ */
+public class OnDemandAnimator
+{
+	private final GLAutoDrawable drawable;
+	private final boolean onDemand;
+	private volatile long frameIntervalNanos;
+	private volatile boolean running = false;
+	private Thread thread;
+
+	private boolean redrawRequested = true;
+
+	/** true if the thread waited for a redraw request since the last call to checkIdle */
+	private boolean waited = false;
+
+	/** true if the last frame failed, so repeated failures are reported once */
+	private boolean failing = false;
+
+	public OnDemandAnimator(GLAutoDrawable drawable, int fps, boolean onDemand)
+	{
+		this.drawable = drawable;
+		this.onDemand = onDemand;
+		setFPS(fps);
+	}
+
+	/** Sets the maximum number of frames displayed per second */
+	public void setFPS(int fps)
+	{
+		frameIntervalNanos = 1000000000L / Math.max(1, fps);
+	}
+
+	public int getFPS()
+	{
+		return (int) (1000000000L / frameIntervalNanos);
+	}
+
+	public boolean isOnDemand()
+	{
+		return onDemand;
+	}
+
+	public boolean isAnimating()
+	{
+		return running;
+	}
+
+	/** Makes the animator display another frame as soon as the frame rate allows */
+	public synchronized void requestRedraw()
+	{
+		redrawRequested = true;
+		notifyAll();
+	}
+
+	/**
+	 * Checks if the animator has been waiting for a redraw request since the
+	 * last call. The time between two frames with idle time in between is not
+	 * the duration of a frame, so it shouldn't be used to advance animations.
+	 */
+	public synchronized boolean checkIdle()
+	{
+		boolean idle = waited;
+		waited = false;
+		return idle;
+	}
+
+	public synchronized void start()
+	{
+		if (running)
+			return;
+		running = true;
+		redrawRequested = true;
+		thread = new Thread(this::run, "OnDemandAnimator");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/** Stops displaying frames and waits for the current frame to finish */
+	public void stop()
+	{
+		Thread t;
+		synchronized (this) {
+			running = false;
+			notifyAll();
+			t = thread;
+			thread = null;
+		}
+		if (t == null || t == Thread.currentThread())
+			return;
+		try {
+			t.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run()
+	{
+		long nextFrame = System.nanoTime();
+		while (running) {
+			synchronized (this) {
+				while (running && onDemand && !redrawRequested) {
+					waited = true;
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (!running)
+					return;
+			}
+
+			long now = System.nanoTime();
+			if (now < nextFrame) {
+				LockSupport.parkNanos(nextFrame - now);
+				continue;
+			}
+			// keep a fixed rate, but don't catch up on frames skipped while idle or slow
+			if (now - nextFrame >= frameIntervalNanos)
+				nextFrame = now;
+			nextFrame += frameIntervalNanos;
+
+			// requests made while displaying this frame cause another one
+			synchronized (this) {
+				redrawRequested = false;
+			}
+			try {
+				drawable.display();
+				failing = false;
+			} catch (RuntimeException e) {
+				if (!failing) {
+					System.err.println("Exception while displaying a frame: " + e);
+					e.printStackTrace();
+				}
+				failing = true;
+			}
+		}
+	}
+}
@@ -22,7 +22,15 @@ import jsgl.math.vector.Vec3f;
 import jsgl.math.vector.Vec4f;
 
 /**
- * Bounding frustum of a view that can be used for intersection tests
+ * Bounding frustum of a view that can be used for intersection tests. Boxes
+ * are tested against the six planes of the frustum, which are extracted from
+ * the view-projection matrix. The tests are conservative: a box that is close
+ * to a corner of the frustum may be reported as intersecting although it is
+ * outside, but a box that intersects the frustum is never reported as
+ * disjoint.
+ * <p>
+ * The tests reuse internal storage, so a frustum must not be used by several
+ * threads at the same time.
  *
  * @author justin
  */
@@ -36,14 +44,55 @@ public class BoundingFrustum
 
 	private Matrix viewProjection;
 
+	/** a, b, c, d of the planes ax + by + cz + d = 0; normals point inside */
+	private final float[] planes = new float[24];
+
+	/** scratch storage for matrix elements */
+	private final float[] elements = new float[16];
+
 	public BoundingFrustum(Matrix view, Matrix projection)
 	{
-		viewProjection = projection.times(view);
+		this(projection.times(view));
 	}
 
 	public BoundingFrustum(Matrix viewProjection)
+	{
+		update(viewProjection);
+	}
+
+	/**
+	 * Changes the view-projection matrix of the frustum. The matrix is
+	 * referenced, not copied, so it must not be modified afterwards without
+	 * calling this method again.
+	 */
+	public void update(Matrix viewProjection)
 	{
 		this.viewProjection = viewProjection;
+
+		// rows of the matrix combined as in Gribb & Hartmann, "Fast
+		// Extraction of Viewing Frustum Planes from the World-View-Projection
+		// Matrix": left, right, bottom, top, near, far
+		float[] m = elements;
+		viewProjection.get(m, 0);
+		for (int p = 0; p < 6; p++) {
+			int row = p / 2;
+			float sign = p % 2 == 0 ? 1 : -1;
+			float a = m[3] + sign * m[row];
+			float b = m[7] + sign * m[4 + row];
+			float c = m[11] + sign * m[8 + row];
+			float d = m[15] + sign * m[12 + row];
+			float length = (float) Math.sqrt(a * a + b * b + c * c);
+			if (length > 0) {
+				a /= length;
+				b /= length;
+				c /= length;
+				d /= length;
+			}
+			planes[p * 4] = a;
+			planes[p * 4 + 1] = b;
+			planes[p * 4 + 2] = c;
+			planes[p * 4 + 3] = d;
+		}
 	}
 
 	public boolean contains(Vec3f point)
@@ -65,20 +114,79 @@ public class BoundingFrustum
 		return true;
 	}
 
-	public boolean intersects(BoundingBox box)
+	/**
+	 * Checks if an axis-aligned box given by its center and half extents is
+	 * disjoint from, contained in or intersecting the frustum
+	 */
+	public ContainmentType contains(float cx, float cy, float cz, float ex, float ey, float ez)
 	{
-		// TODO: check all cases
+		ContainmentType result = ContainmentType.Contains;
+		for (int i = 0; i < 24; i += 4) {
+			float a = planes[i], b = planes[i + 1], c = planes[i + 2];
 
-		// check if any corners of the box are inside the frustum
-		Vec3f[] corners = box.getCorners();
-		for (Vec3f corner : corners)
-			if (contains(corner))
-				return true;
+			// signed distance of the center and projected radius of the box
+			float distance = a * cx + b * cy + c * cz + planes[i + 3];
+			float radius = Math.abs(a) * ex + Math.abs(b) * ey + Math.abs(c) * ez;
+			if (distance < -radius)
+				return ContainmentType.Disjoint;
+			if (distance < radius)
+				result = ContainmentType.Intersects;
+		}
+		return result;
+	}
 
-		// check if an edge intersects
+	public ContainmentType contains(BoundingBox box)
+	{
+		Vec3f min = box.getMin();
+		Vec3f max = box.getMax();
+		return contains((min.x + max.x) / 2, (min.y + max.y) / 2, (min.z + max.z) / 2, (max.x - min.x) / 2,
+				(max.y - min.y) / 2, (max.z - min.z) / 2);
+	}
 
-		// check if entire frustum is contained by box
+	public boolean intersects(BoundingBox box)
+	{
+		return contains(box) != ContainmentType.Disjoint;
+	}
+
+	/**
+	 * Checks if a box intersects the frustum after it has been transformed.
+	 * The transformed box is enclosed in a new axis-aligned box, so this is as
+	 * conservative as the box after the transformation.
+	 *
+	 * @param box
+	 *            - box in object space
+	 * @param transform
+	 *            - affine transformation from object space to the space of
+	 *            the frustum, such as a model matrix
+	 */
+	public boolean intersects(BoundingBox box, Matrix transform)
+	{
+		Vec3f min = box.getMin();
+		Vec3f max = box.getMax();
+		float cx = (min.x + max.x) / 2, cy = (min.y + max.y) / 2, cz = (min.z + max.z) / 2;
+		float ex = (max.x - min.x) / 2, ey = (max.y - min.y) / 2, ez = (max.z - min.z) / 2;
 
-		return false;
+		// the transformed center, and the extents of the transformed box
+		// along each axis, from the column-major matrix elements
+		float[] m = elements;
+		transform.get(m, 0);
+		float tcx = m[0] * cx + m[4] * cy + m[8] * cz + m[12];
+		float tcy = m[1] * cx + m[5] * cy + m[9] * cz + m[13];
+		float tcz = m[2] * cx + m[6] * cy + m[10] * cz + m[14];
+		float tex = Math.abs(m[0]) * ex + Math.abs(m[4]) * ey + Math.abs(m[8]) * ez;
+		float tey = Math.abs(m[1]) * ex + Math.abs(m[5]) * ey + Math.abs(m[9]) * ez;
+		float tez = Math.abs(m[2]) * ex + Math.abs(m[6]) * ey + Math.abs(m[10]) * ez;
+		return contains(tcx, tcy, tcz, tex, tey, tez) != ContainmentType.Disjoint;
+	}
+
+	/** Checks if a sphere intersects the frustum */
+	public boolean intersects(float cx, float cy, float cz, float radius)
+	{
+		for (int i = 0; i < 24; i += 4) {
+			float distance = planes[i] * cx + planes[i + 1] * cy + planes[i + 2] * cz + planes[i + 3];
+			if (distance < -radius)
+				return false;
+		}
+		return true;
 	}
 }
@@ -71,6 +71,25 @@ public class Matrix
 		return new Vec3f(r.x, r.y, r.z);
 	}
 
+	/**
+	 * Transforms the point (x, y, z) using the current matrix and stores the result in the first
+	 * three elements of dst. Unlike transform(Vec3f), this does not allocate.
+	 */
+	public void transform(float x, float y, float z, float[] dst)
+	{
+		transform(x, y, z, dst, 0);
+	}
+
+	/**
+	 * Same as transform(float, float, float, float[]), but stores the result at an offset in dst
+	 */
+	public void transform(float x, float y, float z, float[] dst, int offset)
+	{
+		dst[offset] = (float) (x * m[0] + y * m[4] + z * m[8] + m[12]);
+		dst[offset + 1] = (float) (x * m[1] + y * m[5] + z * m[9] + m[13]);
+		dst[offset + 2] = (float) (x * m[2] + y * m[6] + z * m[10] + m[14]);
+	}
+
 	/**
 	 * Transforms a Vec4d using the current matrix
 	 */
@@ -119,6 +138,33 @@ public class Matrix
 		return mat;
 	}
 
+	/**
+	 * Multiplies the current matrix by another matrix and stores the result in the current matrix.
+	 * Unlike times(Matrix), this does not allocate.
+	 *
+	 * @param that
+	 *            - the second matrix in the multiplication; must not be the current matrix
+	 */
+	public void multiply(Matrix that)
+	{
+		// each row of the result only depends on the same row of the current matrix
+		for (int i = 0; i < 4; i++) {
+			double r0 = m[i], r1 = m[i + 4], r2 = m[i + 8], r3 = m[i + 12];
+			for (int j = 0; j < 4; j++) {
+				int c = 4 * j;
+				m[i + c] = r0 * that.m[c] + r1 * that.m[c + 1] + r2 * that.m[c + 2] + r3 * that.m[c + 3];
+			}
+		}
+	}
+
+	/**
+	 * Copies the elements of another matrix into the current matrix
+	 */
+	public void set(Matrix that)
+	{
+		System.arraycopy(that.m, 0, m, 0, 16);
+	}
+
 	/**
 	 * Creates an identity matrix
 	 */
@@ -405,6 +451,162 @@ public class Matrix
 		return createRotation(radians, new Vec3d(u.x, u.y, u.z));
 	}
 
+	/**
+	 * Interpolates between two affine transformations: the translation and scale are interpolated
+	 * linearly, the rotation spherically
+	 *
+	 * @param from
+	 *            - the transformation for t = 0
+	 * @param to
+	 *            - the transformation for t = 1
+	 * @param t
+	 *            - the interpolation factor in [0, 1]
+	 * @return the interpolated transformation
+	 */
+	public static Matrix interpolate(Matrix from, Matrix to, double t)
+	{
+		Matrix result = new Matrix(0);
+		interpolate(from, to, t, result);
+		return result;
+	}
+
+	/**
+	 * Same as interpolate(Matrix, Matrix, double), but stores the result in dst instead of
+	 * allocating a new matrix
+	 *
+	 * @param dst
+	 *            - the matrix receiving the interpolated transformation; must not be from or to
+	 */
+	public static void interpolate(Matrix from, Matrix to, double t, Matrix dst)
+	{
+		// the rotations and scales are stored in the result until it is written
+		double[] a = dst.m;
+		toQuaternion(from.m, a, 0);
+		toQuaternion(to.m, a, 7);
+
+		// take the shorter path
+		double cos = a[0] * a[7] + a[1] * a[8] + a[2] * a[9] + a[3] * a[10];
+		double sign = 1;
+		if (cos < 0) {
+			cos = -cos;
+			sign = -1;
+		}
+
+		double w1;
+		double w2;
+		if (cos > 0.9995) {
+			// nearly identical rotations, linear interpolation is precise enough
+			w1 = 1 - t;
+			w2 = t;
+		} else {
+			double angle = Math.acos(cos);
+			double sin = Math.sin(angle);
+			w1 = Math.sin((1 - t) * angle) / sin;
+			w2 = Math.sin(t * angle) / sin;
+		}
+		w2 *= sign;
+
+		double w = w1 * a[0] + w2 * a[7];
+		double x = w1 * a[1] + w2 * a[8];
+		double y = w1 * a[2] + w2 * a[9];
+		double z = w1 * a[3] + w2 * a[10];
+		double length = Math.sqrt(w * w + x * x + y * y + z * z);
+		w /= length;
+		x /= length;
+		y /= length;
+		z /= length;
+
+		double scaleX = a[4] + (a[11] - a[4]) * t;
+		double scaleY = a[5] + (a[12] - a[5]) * t;
+		double scaleZ = a[6] + (a[13] - a[6]) * t;
+
+		a[0] = (1 - 2 * (y * y + z * z)) * scaleX;
+		a[1] = 2 * (x * y + z * w) * scaleX;
+		a[2] = 2 * (x * z - y * w) * scaleX;
+		a[3] = 0;
+		a[4] = 2 * (x * y - z * w) * scaleY;
+		a[5] = (1 - 2 * (x * x + z * z)) * scaleY;
+		a[6] = 2 * (y * z + x * w) * scaleY;
+		a[7] = 0;
+		a[8] = 2 * (x * z + y * w) * scaleZ;
+		a[9] = 2 * (y * z - x * w) * scaleZ;
+		a[10] = (1 - 2 * (x * x + y * y)) * scaleZ;
+		a[11] = 0;
+		for (int row = 0; row < 3; row++)
+			a[row + 12] = from.m[row + 12] + (to.m[row + 12] - from.m[row + 12]) * t;
+		a[15] = 1;
+	}
+
+	/**
+	 * Extracts the rotation of an affine transformation as a unit quaternion and the scale of each
+	 * axis, and stores w, x, y, z, scaleX, scaleY and scaleZ in dst at offset
+	 */
+	private static void toQuaternion(double[] m, double[] dst, int offset)
+	{
+		double scaleX = Math.sqrt(m[0] * m[0] + m[1] * m[1] + m[2] * m[2]);
+		double scaleY = Math.sqrt(m[4] * m[4] + m[5] * m[5] + m[6] * m[6]);
+		double scaleZ = Math.sqrt(m[8] * m[8] + m[9] * m[9] + m[10] * m[10]);
+		double invX = scaleX == 0 ? 0 : 1 / scaleX;
+		double invY = scaleY == 0 ? 0 : 1 / scaleY;
+		double invZ = scaleZ == 0 ? 0 : 1 / scaleZ;
+
+		// rotation without the scale, r[row][col]
+		double r00 = m[0] * invX, r10 = m[1] * invX, r20 = m[2] * invX;
+		double r01 = m[4] * invY, r11 = m[5] * invY, r21 = m[6] * invY;
+		double r02 = m[8] * invZ, r12 = m[9] * invZ, r22 = m[10] * invZ;
+
+		double w, x, y, z;
+		double trace = r00 + r11 + r22;
+		if (trace > 0) {
+			double s = 0.5 / Math.sqrt(trace + 1);
+			w = 0.25 / s;
+			x = (r21 - r12) * s;
+			y = (r02 - r20) * s;
+			z = (r10 - r01) * s;
+		} else if (r00 > r11 && r00 > r22) {
+			double s = 2 * Math.sqrt(1 + r00 - r11 - r22);
+			w = (r21 - r12) / s;
+			x = 0.25 * s;
+			y = (r01 + r10) / s;
+			z = (r02 + r20) / s;
+		} else if (r11 > r22) {
+			double s = 2 * Math.sqrt(1 + r11 - r00 - r22);
+			w = (r02 - r20) / s;
+			x = (r01 + r10) / s;
+			y = 0.25 * s;
+			z = (r12 + r21) / s;
+		} else {
+			double s = 2 * Math.sqrt(1 + r22 - r00 - r11);
+			w = (r10 - r01) / s;
+			x = (r02 + r20) / s;
+			y = (r12 + r21) / s;
+			z = 0.25 * s;
+		}
+		dst[offset] = w;
+		dst[offset + 1] = x;
+		dst[offset + 2] = y;
+		dst[offset + 3] = z;
+		dst[offset + 4] = scaleX;
+		dst[offset + 5] = scaleY;
+		dst[offset + 6] = scaleZ;
+	}
+
+	/** Returns the element in the given row and column */
+	public double get(int row, int column)
+	{
+		return m[row + 4 * column];
+	}
+
+	/**
+	 * Copies the elements of the matrix in column-major order into a float
+	 * array, starting at offset
+	 */
+	public void get(float[] dst, int offset)
+	{
+		for (int i = 0; i < 16; i++)
+			dst[offset + i] = (float) m[i];
+	}
+
 	/**
 	 * Retrieves the elements of the matrix wrapped in a double buffer
 	 *
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2011 Justin Stoecker
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jsgl.jogl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.jogamp.opengl.fixedfunc.GLLightingFunc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GLStateCacheTest
+{
+	private static final float[] GRAY = {0.5f, 0.5f, 0.5f, 1};
+	private static final float[] BLUE = {0, 0, 1, 1};
+	private static final float[] RED = {1, 0, 0, 1};
+	private static final float[] WHITE = {1, 1, 1, 1};
+
+	private static final int AGENTS = 22;
+
+	@Before
+	public void setUp()
+	{
+		GLStateCache.resetCounts();
+		GLStateCache.begin();
+	}
+
+	@After
+	public void tearDown()
+	{
+		GLStateCache.end();
+	}
+
+	/** The state changes of ObjMaterial.apply */
+	private static void apply(float[] diffuse, int texture)
+	{
+		GLStateCache.changeMaterial(GLLightingFunc.GL_AMBIENT, GRAY);
+		GLStateCache.changeMaterial(GLLightingFunc.GL_DIFFUSE, diffuse);
+		GLStateCache.changeMaterial(GLLightingFunc.GL_SPECULAR, WHITE);
+		GLStateCache.changeShininess(10);
+		GLStateCache.changeTexture2D(texture);
+	}
+
+	@Test
+	public void testRedundantChangesAreSkipped()
+	{
+		assertTrue(GLStateCache.changeMaterial(GLLightingFunc.GL_DIFFUSE, RED));
+		assertFalse(GLStateCache.changeMaterial(GLLightingFunc.GL_DIFFUSE, RED.clone()));
+		assertTrue(GLStateCache.changeMaterial(GLLightingFunc.GL_AMBIENT, RED));
+		assertTrue(GLStateCache.changeMaterial(GLLightingFunc.GL_DIFFUSE, BLUE));
+		assertTrue(GLStateCache.changeShininess(10));
+		assertFalse(GLStateCache.changeShininess(10));
+		assertTrue(GLStateCache.changeTexture2D(3));
+		assertFalse(GLStateCache.changeTexture2D(3));
+		assertTrue(GLStateCache.changeTexture2D(0));
+
+		assertEquals(6, GLStateCache.getStateChangeCount());
+		assertEquals(3, GLStateCache.getSkippedStateChangeCount());
+	}
+
+	@Test
+	public void testChangesArePassedOutsideOfBeginAndEnd()
+	{
+		GLStateCache.end();
+		for (int i = 0; i < 3; i++) {
+			assertTrue(GLStateCache.changeMaterial(GLLightingFunc.GL_DIFFUSE, RED));
+			assertTrue(GLStateCache.changeTexture2D(3));
+		}
+
+		// the state set outside is unknown after begin
+		GLStateCache.begin();
+		assertTrue(GLStateCache.changeMaterial(GLLightingFunc.GL_DIFFUSE, RED));
+		assertTrue(GLStateCache.changeTexture2D(3));
+		assertEquals(8, GLStateCache.getStateChangeCount());
+		assertEquals(0, GLStateCache.getSkippedStateChangeCount());
+	}
+
+	/**
+	 * Agents with a textured body and a team colored part, applied per agent
+	 * as without a MeshBatch, and per run of equal materials as MeshBatch
+	 * draws them
+	 */
+	@Test
+	public void testSortedRunsReduceStateChanges()
+	{
+		for (int agent = 0; agent < AGENTS; agent++) {
+			apply(GRAY, 1);
+			apply(agent < AGENTS / 2 ? BLUE : RED, 0);
+		}
+		// only the diffuse color and texture differ between body and team
+		assertEquals(5 + (2 * AGENTS - 1) * 2, GLStateCache.getStateChangeCount());
+		assertEquals(2 * AGENTS * 5, GLStateCache.getStateChangeCount() + GLStateCache.getSkippedStateChangeCount());
+
+		GLStateCache.resetCounts();
+		GLStateCache.begin();
+		apply(GRAY, 1);
+		apply(BLUE, 0);
+		apply(RED, 0);
+		assertEquals(5 + 2 + 1, GLStateCache.getStateChangeCount());
+	}
+}
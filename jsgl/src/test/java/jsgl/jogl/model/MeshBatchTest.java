@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2011 Justin Stoecker
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jsgl.jogl.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import jsgl.math.vector.Matrix;
+import org.junit.Test;
+
+public class MeshBatchTest
+{
+	private final Matrix identity = Matrix.createIdentity();
+
+	/** Mesh with a body and a team colored part that can be instanced */
+	private static Mesh createRobotMesh()
+	{
+		Mesh mesh = new Mesh();
+		mesh.addPart(createPart(new ObjMaterial("body")));
+		mesh.addPart(createPart(new ObjMaterial("team")));
+		mesh.renderer = new MeshRendererVBO();
+		return mesh;
+	}
+
+	private static MeshPart createPart(MeshMaterial material)
+	{
+		MeshPart part = new MeshPart();
+		part.setMaterial(material);
+		return part;
+	}
+
+	private static MeshMaterial[] createTeamMaterials(Mesh mesh, ObjMaterial teamColor)
+	{
+		Map<String, ObjMaterial> replacements = new HashMap<>();
+		replacements.put("team", teamColor);
+		return mesh.createMaterials(replacements);
+	}
+
+	@Test
+	public void testInstancesShareRunsOfEqualMaterials()
+	{
+		Mesh mesh = createRobotMesh();
+		ObjMaterial left = new ObjMaterial("left");
+		ObjMaterial right = new ObjMaterial("right");
+
+		// each agent creates its own overrides, which are equal but not the same
+		MeshBatch batch = new MeshBatch();
+		batch.add(mesh, identity, null);
+		batch.add(mesh, identity, createTeamMaterials(mesh, left));
+		batch.add(mesh, identity, null);
+		batch.add(mesh, identity, createTeamMaterials(mesh, right));
+		batch.add(mesh, identity, createTeamMaterials(mesh, left));
+		batch.add(mesh, identity, null);
+
+		// one run for the shared body, one per team color, instead of 6 * 2 draw calls
+		assertEquals(4, batch.getRunCount());
+	}
+
+	@Test
+	public void testMaterialsWithEqualHashCodesAreNotInterleaved()
+	{
+		Mesh mesh = createRobotMesh();
+		MeshMaterial body = mesh.getParts().get(0).getMaterial();
+		MeshMaterial a = new ObjMaterial("a") {
+			@Override
+			public int hashCode()
+			{
+				return 1;
+			}
+		};
+		MeshMaterial b = new ObjMaterial("b") {
+			@Override
+			public int hashCode()
+			{
+				return 1;
+			}
+		};
+
+		MeshBatch batch = new MeshBatch();
+		for (int i = 0; i < 4; i++)
+			batch.add(mesh, identity, new MeshMaterial[] {body, i % 2 == 0 ? a : b});
+		assertEquals(3, batch.getRunCount());
+	}
+
+	@Test
+	public void testClearForgetsMeshesWithoutInstances()
+	{
+		Mesh robot = createRobotMesh();
+		Mesh ball = createRobotMesh();
+		MeshBatch batch = new MeshBatch();
+		batch.add(robot, identity, null);
+		batch.add(ball, identity, null);
+		batch.clear();
+		assertEquals(2, batch.getMeshCount());
+
+		// the ball is gone in the next scene
+		batch.add(robot, identity, null);
+		batch.clear();
+		assertEquals(1, batch.getMeshCount());
+		batch.clear();
+		assertEquals(0, batch.getMeshCount());
+		assertEquals(0, batch.getRunCount());
+	}
+
+	@Test
+	public void testOnlyVBOMeshesAreInstanced()
+	{
+		Mesh mesh = new Mesh();
+		mesh.addPart(createPart(new ObjMaterial("body")));
+		mesh.renderer = new MeshRendererVertexArrays();
+
+		MeshBatch batch = new MeshBatch();
+		assertFalse(batch.add(mesh, identity, null));
+		assertTrue(batch.add(createRobotMesh(), identity, null));
+		assertEquals(1, batch.getMeshCount());
+	}
+}
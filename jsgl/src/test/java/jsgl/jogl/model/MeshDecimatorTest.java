@@ -0,0 +1,142 @@
+/*
+ *  Copyright 2011 Justin Stoecker
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jsgl.jogl.model;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class MeshDecimatorTest
+{
+	private static final int SIZE = 16;
+
+	/**
+	 * Flat grid of SIZE * SIZE quads facing +z, in counter-clockwise order.
+	 * The texture coordinates of the left half are in 0 <= u <= 0.4, those of
+	 * the right half in 0.6 <= u <= 1, so the vertices of the middle column
+	 * are duplicated along the seam.
+	 */
+	private static Mesh createPlane()
+	{
+		Mesh mesh = new Mesh();
+		float[] normal = {0, 0, 1};
+		int[][] left = new int[SIZE + 1][SIZE + 1];
+		int[][] right = new int[SIZE + 1][SIZE + 1];
+		int half = SIZE / 2;
+		for (int y = 0; y <= SIZE; y++) {
+			for (int x = 0; x <= SIZE; x++) {
+				float[] position = {x, y, 0};
+				float v = y / (float) SIZE;
+				if (x <= half) {
+					left[x][y] = mesh.getVertices().size();
+					float u = 0.4f * x / half;
+					mesh.addVertex(new MeshVertex(position, normal, new float[] {u, v}));
+				}
+				if (x >= half) {
+					right[x][y] = mesh.getVertices().size();
+					float u = 0.6f + 0.4f * (x - half) / half;
+					mesh.addVertex(new MeshVertex(position, normal, new float[] {u, v}));
+				}
+			}
+		}
+
+		MeshPart part = new MeshPart();
+		part.setMaterial(new ObjMaterial("plane"));
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				int[][] side = x < half ? left : right;
+				part.addFace(new MeshFace(
+						new int[] {side[x][y], side[x + 1][y], side[x + 1][y + 1], side[x][y + 1]}));
+			}
+		}
+		mesh.addPart(part);
+		return mesh;
+	}
+
+	/** The corners of all triangles of a mesh */
+	private static List<MeshVertex[]> getTriangles(Mesh mesh)
+	{
+		List<MeshVertex[]> triangles = new ArrayList<>();
+		for (MeshPart part : mesh.getParts()) {
+			for (MeshFace face : part.getFaces()) {
+				int[] indices = face.getVertIndices();
+				for (int i = 1; i <= face.getNumTriangles(); i++) {
+					triangles.add(new MeshVertex[] {mesh.getVertices().get(indices[0]),
+							mesh.getVertices().get(indices[i]), mesh.getVertices().get(indices[i + 1])});
+				}
+			}
+		}
+		return triangles;
+	}
+
+	/** z component of the normal of a triangle given by its corners */
+	private static float getFaceNormalZ(MeshVertex[] t)
+	{
+		float[] a = t[0].getPosition(), b = t[1].getPosition(), c = t[2].getPosition();
+		return (b[0] - a[0]) * (c[1] - a[1]) - (b[1] - a[1]) * (c[0] - a[0]);
+	}
+
+	@Test
+	public void testTriangleCountIsBounded()
+	{
+		MeshDecimator decimator = new MeshDecimator(createPlane());
+		for (float ratio : new float[] {0.5f, 0.25f, 0.1f}) {
+			Mesh simplified = decimator.decimate(ratio);
+			assertNotNull(simplified);
+			int triangles = getTriangles(simplified).size();
+			assertTrue(triangles > 0);
+			assertTrue(triangles <= decimator.getNumTriangles() * ratio);
+		}
+	}
+
+	@Test
+	public void testDegenerateTrianglesAreDropped()
+	{
+		Mesh simplified = new MeshDecimator(createPlane()).decimate(0.25f);
+		for (MeshVertex[] t : getTriangles(simplified)) {
+			assertNotSame(t[0], t[1]);
+			assertNotSame(t[1], t[2]);
+			assertNotSame(t[0], t[2]);
+			assertTrue(Math.abs(getFaceNormalZ(t)) > 0);
+		}
+	}
+
+	@Test
+	public void testWindingOrderIsKept()
+	{
+		Mesh simplified = new MeshDecimator(createPlane()).decimate(0.25f);
+		for (MeshVertex[] t : getTriangles(simplified))
+			assertTrue(getFaceNormalZ(t) > 0);
+	}
+
+	@Test
+	public void testTextureDoesNotSmearAcrossSeams()
+	{
+		Mesh simplified = new MeshDecimator(createPlane()).decimate(0.25f);
+		for (MeshVertex[] t : getTriangles(simplified)) {
+			boolean leftSide = t[0].getTexCoords()[0] <= 0.4f;
+			for (MeshVertex corner : t) {
+				float u = corner.getTexCoords()[0];
+				assertTrue(leftSide ? u <= 0.4f : u >= 0.6f);
+			}
+		}
+	}
+}
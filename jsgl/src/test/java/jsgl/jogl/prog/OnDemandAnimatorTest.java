@@ -0,0 +1,140 @@
+/*
+ *  Copyright 2011 Justin Stoecker
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jsgl.jogl.prog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class OnDemandAnimatorTest
+{
+	private static final long TIMEOUT_MS = 5000;
+
+	/** released once per displayed frame */
+	private final Semaphore frames = new Semaphore(0);
+	private OnDemandAnimator animator;
+
+	/** Drawable that counts its frames, and throws in the frames given by failures */
+	private GLAutoDrawable createDrawable(int... failures)
+	{
+		int[] frame = {0};
+		return (GLAutoDrawable) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] {GLAutoDrawable.class}, (proxy, method, args) -> {
+					if (method.getName().equals("display")) {
+						int current = frame[0]++;
+						frames.release();
+						for (int failure : failures) {
+							if (failure == current)
+								throw new IllegalStateException("frame " + current);
+						}
+						return null;
+					}
+					Class<?> type = method.getReturnType();
+					if (type == boolean.class)
+						return false;
+					if (type.isPrimitive() && type != void.class)
+						return 0;
+					return null;
+				});
+	}
+
+	@After
+	public void tearDown()
+	{
+		if (animator != null)
+			animator.stop();
+	}
+
+	private boolean awaitFrames(int count) throws InterruptedException
+	{
+		return frames.tryAcquire(count, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/** Waits until the animator waits for a redraw request */
+	private void awaitIdle() throws InterruptedException
+	{
+		long end = System.currentTimeMillis() + TIMEOUT_MS;
+		while (!animator.checkIdle()) {
+			assertTrue(System.currentTimeMillis() < end);
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	public void testFramesAreOnlyDisplayedOnRequest() throws InterruptedException
+	{
+		animator = new OnDemandAnimator(createDrawable(), 1000, true);
+		animator.start();
+		assertTrue(awaitFrames(1));
+		awaitIdle();
+		Thread.sleep(50);
+		assertEquals(0, frames.availablePermits());
+
+		animator.requestRedraw();
+		assertTrue(awaitFrames(1));
+		awaitIdle();
+		assertEquals(0, frames.availablePermits());
+	}
+
+	@Test
+	public void testCheckIdleResetsAfterTheNextFrame() throws InterruptedException
+	{
+		animator = new OnDemandAnimator(createDrawable(), 1000, true);
+		animator.start();
+		assertTrue(awaitFrames(1));
+		awaitIdle();
+		assertFalse(animator.checkIdle());
+
+		// the animator waits again after the requested frame
+		animator.requestRedraw();
+		assertTrue(awaitFrames(1));
+		awaitIdle();
+	}
+
+	@Test
+	public void testFrameRateIsCapped() throws InterruptedException
+	{
+		animator = new OnDemandAnimator(createDrawable(), 20, false);
+		long start = System.nanoTime();
+		animator.start();
+		assertTrue(awaitFrames(5));
+		long elapsedMS = (System.nanoTime() - start) / 1000000;
+		// the first frame is displayed immediately, the others 50 ms apart
+		assertTrue("5 frames in " + elapsedMS + " ms", elapsedMS >= 190);
+	}
+
+	@Test
+	public void testExceptionsDontStopTheAnimator() throws InterruptedException
+	{
+		animator = new OnDemandAnimator(createDrawable(0, 1), 1000, true);
+		animator.start();
+		assertTrue(awaitFrames(1));
+		for (int i = 0; i < 2; i++) {
+			awaitIdle();
+			animator.requestRedraw();
+			assertTrue(awaitFrames(1));
+		}
+		assertTrue(animator.isAnimating());
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ *  Copyright 2011 Justin Stoecker
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jsgl.math.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import jsgl.math.BoundingBox;
+import jsgl.math.geom.BoundingFrustum.ContainmentType;
+import jsgl.math.vector.Matrix;
+import jsgl.math.vector.Vec3f;
+import org.junit.Test;
+
+public class BoundingFrustumTest
+{
+	/** Box with -1 < x, y < 1 and -10 < z < -1, looking down the negative z axis */
+	private final BoundingFrustum ortho = new BoundingFrustum(
+			Matrix.createIdentity(), Matrix.createOrtho(-1, 1, -1, 1, 1, 10));
+
+	/** 90 degree perspective looking down the negative z axis from (0, 0, 5) */
+	private final BoundingFrustum perspective = new BoundingFrustum(
+			Matrix.createLookAt(0, 0, 5, 0, 0, 0, 0, 1, 0), Matrix.createPerspective(90, 1, 1, 100));
+
+	/** Box of size 1 centered at the origin */
+	private final BoundingBox unitBox = new BoundingBox(new Vec3f(-0.5f), new Vec3f(0.5f));
+
+	@Test
+	public void testBoxInside()
+	{
+		assertEquals(ContainmentType.Contains, ortho.contains(0, 0, -5, 0.5f, 0.5f, 0.5f));
+		assertEquals(ContainmentType.Contains, perspective.contains(unitBox));
+		assertTrue(ortho.intersects(unitBox, Matrix.createTranslation(0, 0, -5)));
+	}
+
+	@Test
+	public void testBoxOutside()
+	{
+		assertEquals(ContainmentType.Disjoint, ortho.contains(5, 0, -5, 0.5f, 0.5f, 0.5f));
+		assertEquals(ContainmentType.Disjoint, ortho.contains(0, -5, -5, 0.5f, 0.5f, 0.5f));
+		// behind the near plane and beyond the far plane
+		assertEquals(ContainmentType.Disjoint, ortho.contains(0, 0, 0, 0.5f, 0.5f, 0.5f));
+		assertEquals(ContainmentType.Disjoint, ortho.contains(0, 0, -20, 0.5f, 0.5f, 0.5f));
+		// behind the camera
+		assertFalse(perspective.intersects(unitBox, Matrix.createTranslation(0, 0, 10)));
+		// beside the camera, outside of the 90 degree field of view
+		assertFalse(perspective.intersects(unitBox, Matrix.createTranslation(5, 0, 4)));
+	}
+
+	@Test
+	public void testBoxStraddlingAPlane()
+	{
+		assertEquals(ContainmentType.Intersects, ortho.contains(1, 0, -5, 0.5f, 0.5f, 0.5f));
+		assertEquals(ContainmentType.Intersects, ortho.contains(0, 0, -1, 0.5f, 0.5f, 0.5f));
+		assertEquals(ContainmentType.Intersects, ortho.contains(0, 0, -5, 2, 2, 2));
+		assertTrue(ortho.intersects(unitBox, Matrix.createTranslation(-1, 1, -10)));
+	}
+
+	@Test
+	public void testTransformedBox()
+	{
+		// a thin box along the x axis, right of the ortho frustum
+		BoundingBox stick = new BoundingBox(new Vec3f(1.5f, -0.1f, -0.1f), new Vec3f(3, 0.1f, 0.1f));
+		Matrix translation = Matrix.createTranslation(0, 0, -5);
+		assertFalse(ortho.intersects(stick, translation));
+
+		// turned along the z axis, it points into the frustum
+		assertTrue(ortho.intersects(stick, translation.times(Matrix.createRotationY(Math.PI / 2))));
+		// turned along the y axis, it is above the frustum
+		assertFalse(ortho.intersects(stick, translation.times(Matrix.createRotationZ(Math.PI / 2))));
+
+		// scaled up, the box at x = 5 reaches into the frustum
+		Matrix offset = Matrix.createTranslation(5, 0, -5);
+		assertFalse(ortho.intersects(unitBox, offset));
+		assertTrue(ortho.intersects(unitBox, offset.times(Matrix.createScale(new Vec3f(10)))));
+	}
+}
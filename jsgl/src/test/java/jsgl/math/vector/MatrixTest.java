@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2011 Justin Stoecker
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package jsgl.math.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class MatrixTest
+{
+	private static final double EPSILON = 1e-9;
+
+	private static void assertMatrixEquals(Matrix expected, Matrix actual)
+	{
+		for (int row = 0; row < 4; row++) {
+			for (int col = 0; col < 4; col++)
+				assertEquals(expected.get(row, col), actual.get(row, col), EPSILON);
+		}
+	}
+
+	private static Matrix createTransform(double x, double y, double z, double yaw, double scale)
+	{
+		return Matrix.createTranslation(x, y, z)
+				.times(Matrix.createRotationZ(yaw))
+				.times(Matrix.createScale(new Vec3f((float) scale)));
+	}
+
+	@Test
+	public void testInterpolationEndsAtTheGivenTransforms()
+	{
+		Matrix from = createTransform(1, 2, 3, 0.3, 1);
+		Matrix to = createTransform(-4, 0, 1, 2.5, 2);
+		assertMatrixEquals(from, Matrix.interpolate(from, to, 0));
+		assertMatrixEquals(to, Matrix.interpolate(from, to, 1));
+	}
+
+	@Test
+	public void testInterpolationBlendsTranslationRotationAndScale()
+	{
+		Matrix from = createTransform(0, 0, 0, 0, 1);
+		Matrix to = createTransform(2, 4, -2, Math.PI / 2, 3);
+		assertMatrixEquals(createTransform(1, 2, -1, Math.PI / 4, 2), Matrix.interpolate(from, to, 0.5));
+	}
+
+	@Test
+	public void testInterpolationIntoDestination()
+	{
+		Matrix from = createTransform(1, 2, 3, 0.3, 1);
+		Matrix to = createTransform(-4, 0, 1, -2.5, 2);
+		Matrix dst = Matrix.createIdentity();
+		for (double t = 0; t <= 1; t += 0.25) {
+			Matrix.interpolate(from, to, t, dst);
+			assertMatrixEquals(Matrix.interpolate(from, to, t), dst);
+		}
+	}
+}
@@ -9,7 +9,9 @@ import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JSpinner;
 import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
 import rv.Configuration;
 import rv.util.swing.FileChooser;
 import rv.util.swing.SwingUtil;
@@ -22,6 +24,7 @@ public class GeneralPanel extends JPanel implements SaveListener
 	JCheckBox recordLogsCB;
 	JTextField logDirectoryTF;
 	JButton openDirectoryButton;
+	JSpinner timeShiftSpinner;
 
 	public GeneralPanel(RVConfigure configProg)
 	{
@@ -71,6 +74,13 @@ public class GeneralPanel extends JPanel implements SaveListener
 		panel.add(logDirectoryTF, c);
 		panel.add(openDirectoryButton, c);
 
+		timeShiftSpinner = new JSpinner(new SpinnerNumberModel(config.timeShiftBufferSize, 0, 1024, 16));
+		timeShiftSpinner.setToolTipText(
+				"Memory used for pausing and rewinding live games, 0 to disable it and save the CPU time it costs");
+		c.gridy = 2;
+		panel.add(new JLabel("Time Shift Buffer (MB): "), c);
+		panel.add(timeShiftSpinner, c);
+
 		return panel;
 	}
 
@@ -79,5 +89,6 @@ public class GeneralPanel extends JPanel implements SaveListener
 	{
 		config.recordLogs = recordLogsCB.isSelected();
 		config.logfileDirectory = logDirectoryTF.getText();
+		config.timeShiftBufferSize = (Integer) timeShiftSpinner.getValue();
 	}
 }
@@ -43,6 +43,8 @@ public class GraphicsPanel extends JPanel implements SaveListener
 	JCheckBox fsaaCB;
 	JCheckBox stereoCB;
 	JCheckBox vsyncCB;
+	JCheckBox interpolationCB;
+	JCheckBox onDemandCB;
 	JCheckBox maximizedCB;
 	JCheckBox centerCB;
 	JCheckBox saveStateCB;
@@ -134,6 +136,10 @@ public class GraphicsPanel extends JPanel implements SaveListener
 
 		stereoCB = new JCheckBox("Stereo 3D", config.useStereo);
 		vsyncCB = new JCheckBox("V-Sync", config.useVsync);
+		interpolationCB = new JCheckBox("Interpolation", config.interpolateFrames);
+		interpolationCB.setToolTipText("Smooth motion between server updates");
+		onDemandCB = new JCheckBox("On Demand", config.renderOnDemand);
+		onDemandCB.setToolTipText("Only render when something changes, up to the target FPS");
 		fpsSpinner = createSpinner(config.targetFPS, 1, 60);
 		fpFovSpinner = createSpinner(config.firstPersonFOV, 1, 300);
 		tpFovSpinner = createSpinner(config.thirdPersonFOV, 1, 300);
@@ -147,6 +153,9 @@ public class GraphicsPanel extends JPanel implements SaveListener
 		addConstrained(fpsSpinner, panel, c, 3, y);
 
 		y++;
+		addConstrained(interpolationCB, panel, c, 0, y);
+		addConstrained(onDemandCB, panel, c, 1, y);
+
 		JLabel label = new JLabel("First Person FOV: ");
 		SwingUtil.setPreferredWidth(label, 95);
 		addConstrained(label, panel, c, 2, y);
@@ -273,6 +282,8 @@ public class GraphicsPanel extends JPanel implements SaveListener
 			shadowResTB.setText(config.shadowResolution + "");
 		}
 
+		config.interpolateFrames = interpolationCB.isSelected();
+		config.renderOnDemand = onDemandCB.isSelected();
 		config.targetFPS = (Integer) fpsSpinner.getValue();
 		config.firstPersonFOV = (Integer) fpFovSpinner.getValue();
 		config.thirdPersonFOV = (Integer) tpFovSpinner.getValue();
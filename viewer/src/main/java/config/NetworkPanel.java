@@ -20,6 +20,7 @@ import config.RVConfigure.SaveListener;
 import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
+import java.text.ParseException;
 import javax.swing.BorderFactory;
 import javax.swing.JCheckBox;
 import javax.swing.JComponent;
@@ -38,9 +39,11 @@ public class NetworkPanel extends JPanel implements SaveListener
 {
 	final Configuration.Networking config;
 	JCheckBox autoConnectCB;
+	JCheckBox playoutBufferCB;
 	JTextField serverHostTF;
 	JTextField serverPortTF;
 	JTextField drawingPortTF;
+	IntegerTextField drawBufferSizeTF;
 	JTextField autoConnectDelayTF;
 
 	public NetworkPanel(RVConfigure configProg)
@@ -113,6 +116,12 @@ public class NetworkPanel extends JPanel implements SaveListener
 
 		panel.add(autoConnectCB, c);
 
+		c.gridx = 1;
+		c.gridy = 4;
+		playoutBufferCB = new JCheckBox("Playout Buffer", config.playoutBuffer);
+		playoutBufferCB.setToolTipText("Smooths out network jitter by delaying live messages slightly");
+		panel.add(playoutBufferCB, c);
+
 		return panel;
 	}
 
@@ -138,6 +147,15 @@ public class NetworkPanel extends JPanel implements SaveListener
 		drawingPortTF.setPreferredSize(new Dimension(150, 28));
 		panel.add(drawingPortTF, c);
 
+		addLabel("Buffer: ", panel, c, 0, 1);
+
+		c.gridx = 1;
+		c.gridy = 1;
+		// 65507 bytes is the largest possible UDP payload
+		drawBufferSizeTF = new IntegerTextField(config.drawBufferSize, 64, 65507);
+		drawBufferSizeTF.setToolTipText("Maximum size of a drawing packet in bytes, larger packets are dropped");
+		panel.add(drawBufferSizeTF, c);
+
 		return panel;
 	}
 
@@ -153,6 +171,7 @@ public class NetworkPanel extends JPanel implements SaveListener
 		}
 
 		config.autoConnect = autoConnectCB.isSelected();
+		config.playoutBuffer = playoutBufferCB.isSelected();
 
 		try {
 			config.autoConnectDelay = Integer.parseInt(autoConnectDelayTF.getText());
@@ -165,5 +184,12 @@ public class NetworkPanel extends JPanel implements SaveListener
 		} catch (Exception e) {
 			drawingPortTF.setText("" + config.listenPort);
 		}
+
+		try {
+			drawBufferSizeTF.commitEdit();
+			config.drawBufferSize = (Integer) drawBufferSizeTF.getValue();
+		} catch (ParseException e) {
+			drawBufferSizeTF.setValue(config.drawBufferSize);
+		}
 	}
 }
@@ -69,6 +69,12 @@ public class Configuration
 		public boolean centerFrame = true;
 		public boolean isMaximized = false;
 		public boolean saveFrameState = true;
+		/** render smooth motion between server updates */
+		public boolean interpolateFrames = true;
+		/** only render frames when something changed, up to the target FPS */
+		public boolean renderOnDemand = true;
+		/** draw simplified robot meshes when they appear small */
+		public boolean useMeshLOD = true;
 		public int fsaaSamples = 4;
 		public int targetFPS = 60;
 		public int firstPersonFOV = 120;
@@ -78,6 +84,8 @@ public class Configuration
 		public int frameX = 0;
 		public int frameY = 0;
 		public int shadowResolution = 1024;
+		/** number of consecutive frames captured by a screenshot burst */
+		public int screenshotBurstFrames = 30;
 
 		private void read(BufferedReader in) throws IOException
 		{
@@ -101,6 +109,10 @@ public class Configuration
 			centerFrame = getNextBool(in);
 			isMaximized = getNextBool(in);
 			saveFrameState = getNextBool(in);
+			interpolateFrames = getOptionalBool(in, "Frame Interpolation", interpolateFrames);
+			renderOnDemand = getOptionalBool(in, "Render On Demand", renderOnDemand);
+			screenshotBurstFrames = getOptionalInt(in, "Screenshot Burst Frames", screenshotBurstFrames);
+			useMeshLOD = getOptionalBool(in, "Mesh LOD", useMeshLOD);
 			getNextLine(in);
 		}
 
@@ -126,6 +138,10 @@ public class Configuration
 			writeVal(out, "Center Frame", centerFrame);
 			writeVal(out, "Frame Maximized", isMaximized);
 			writeVal(out, "Save Frame State", saveFrameState);
+			writeVal(out, "Frame Interpolation", interpolateFrames);
+			writeVal(out, "Render On Demand", renderOnDemand);
+			writeVal(out, "Screenshot Burst Frames", screenshotBurstFrames);
+			writeVal(out, "Mesh LOD", useMeshLOD);
 			out.write(getNewline());
 		}
 	}
@@ -197,6 +213,13 @@ public class Configuration
 		public int serverPort = 3200;
 		public int listenPort = 32769;
 		public int autoConnectDelay = 1000;
+		public boolean playoutBuffer = false;
+		/** maximum size of a draw command packet in bytes */
+		public int drawBufferSize = 512;
+		/** drawing budgets of each agent and set prefix, 0 for unlimited, see DrawingBudget */
+		public int agentDrawBytesPerSecond = 0;
+		public int agentDrawShapesPerSecond = 0;
+		public int drawSetShapesPerSecond = 0;
 
 		public String overriddenServerHost = null;
 		private Integer overriddenServerPort = null;
@@ -210,6 +233,11 @@ public class Configuration
 			serverHost = serverHosts.get(0);
 			serverPort = getNextInt(in);
 			listenPort = getNextInt(in);
+			playoutBuffer = getOptionalBool(in, "Playout Buffer", playoutBuffer);
+			drawBufferSize = getOptionalInt(in, "Drawing Buffer Size", drawBufferSize);
+			agentDrawBytesPerSecond = getOptionalInt(in, "Agent Draw Bytes/s", agentDrawBytesPerSecond);
+			agentDrawShapesPerSecond = getOptionalInt(in, "Agent Draw Shapes/s", agentDrawShapesPerSecond);
+			drawSetShapesPerSecond = getOptionalInt(in, "Draw Set Shapes/s", drawSetShapesPerSecond);
 			getNextLine(in);
 		}
 
@@ -221,6 +249,11 @@ public class Configuration
 			writeVal(out, "Server Hosts", serverHosts);
 			writeVal(out, "Server Port", serverPort);
 			writeVal(out, "Drawing Port", listenPort);
+			writeVal(out, "Playout Buffer", playoutBuffer);
+			writeVal(out, "Drawing Buffer Size", drawBufferSize);
+			writeVal(out, "Agent Draw Bytes/s", agentDrawBytesPerSecond);
+			writeVal(out, "Agent Draw Shapes/s", agentDrawShapesPerSecond);
+			writeVal(out, "Draw Set Shapes/s", drawSetShapesPerSecond);
 			out.write(getNewline());
 		}
 
@@ -249,12 +282,15 @@ public class Configuration
 	{
 		public boolean recordLogs = false;
 		public String logfileDirectory = null;
+		/** size of the buffer for pausing and rewinding live games in MB, 0 to disable it */
+		public int timeShiftBufferSize = 0;
 
 		private void read(BufferedReader in) throws IOException
 		{
 			getNextLine(in);
 			recordLogs = getNextBool(in);
 			logfileDirectory = getNextString(in);
+			timeShiftBufferSize = getOptionalInt(in, "Time Shift Buffer", timeShiftBufferSize);
 			getNextLine(in);
 		}
 
@@ -263,6 +299,7 @@ public class Configuration
 			writeSection(out, "General Settings");
 			writeVal(out, "Record Logfiles", recordLogs);
 			writeVal(out, "Logfile Directory", logfileDirectory);
+			writeVal(out, "Time Shift Buffer", timeShiftBufferSize);
 			out.write(getNewline());
 		}
 	}
@@ -345,6 +382,30 @@ public class Configuration
 		return getVal(getNextLine(in));
 	}
 
+	/**
+	 * Reads the value of the next line if it has the given key. Otherwise the line is left for the
+	 * next read, so config files written by older versions without the key can still be read.
+	 */
+	private static String getOptionalString(BufferedReader in, String key, String defaultValue) throws IOException
+	{
+		in.mark(1024);
+		String line = getNextLine(in);
+		if (line != null && line.contains(":") && getKey(line).equals(key))
+			return getVal(line);
+		in.reset();
+		return defaultValue;
+	}
+
+	private static int getOptionalInt(BufferedReader in, String key, int defaultValue) throws IOException
+	{
+		return Integer.parseInt(getOptionalString(in, key, String.valueOf(defaultValue)));
+	}
+
+	private static boolean getOptionalBool(BufferedReader in, String key, boolean defaultValue) throws IOException
+	{
+		return Boolean.parseBoolean(getOptionalString(in, key, String.valueOf(defaultValue)));
+	}
+
 	private static String[] getNextStringList(BufferedReader in) throws IOException
 	{
 		String str = getVal(getNextLine(in));
@@ -20,18 +20,24 @@ import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2;
 import com.jogamp.opengl.GLAutoDrawable;
 import com.jogamp.opengl.fixedfunc.GLLightingFunc;
+import com.jogamp.opengl.fixedfunc.GLMatrixFunc;
 import com.jogamp.opengl.glu.GLU;
 import com.jogamp.opengl.util.gl2.GLUT;
 import jsgl.jogl.FrameBufferObject;
 import jsgl.jogl.GLInfo;
+import jsgl.jogl.GLStateCache;
 import jsgl.jogl.Texture2D;
+import jsgl.jogl.model.Mesh;
 import jsgl.jogl.view.Camera3D;
 import jsgl.jogl.view.Viewport;
+import jsgl.math.geom.BoundingFrustum;
+import jsgl.math.vector.Matrix;
 import rv.Viewer.WindowResizeEvent;
 import rv.Viewer.WindowResizeListener;
 import rv.content.ContentManager;
 import rv.effects.EffectManager;
 import rv.world.rendering.BasicSceneRenderer;
+import rv.world.rendering.RenderList;
 import rv.world.rendering.PhongWorldRenderer;
 import rv.world.rendering.SceneRenderer;
 import rv.world.rendering.ShadowMapRenderer;
@@ -57,6 +63,23 @@ public class Renderer implements WindowResizeListener
 	private FrameBufferObject msSceneFBO;
 	private int numSamples = -1;
 
+	/** number of mesh draw calls issued while rendering the last frame */
+	private int meshDrawCalls;
+	private int stateChanges;
+	private int skippedStateChanges;
+
+	/** camera matrices of the current view, read back after the vantage has been applied */
+	private final double[] projection = new double[16];
+	private final double[] modelView = new double[16];
+	/** views of the arrays above, which glGetDoublev updates */
+	private final Matrix projectionMatrix = new Matrix(projection);
+	private final Matrix modelViewMatrix = new Matrix(modelView);
+	private final Matrix viewProjection = Matrix.createIdentity();
+	private final BoundingFrustum viewFrustum = new BoundingFrustum(viewProjection);
+	private int culledMeshes;
+	private int visibleMeshes;
+	private int reducedMeshes;
+
 	public void setVantage(Camera3D vantage)
 	{
 		this.vantage = vantage;
@@ -67,6 +90,42 @@ public class Renderer implements WindowResizeListener
 		return vantage;
 	}
 
+	/** Number of mesh draw calls issued while rendering the last frame, including all passes */
+	public int getMeshDrawCalls()
+	{
+		return meshDrawCalls;
+	}
+
+	/** Number of material and texture state changes of meshes in the last frame */
+	public int getStateChanges()
+	{
+		return stateChanges;
+	}
+
+	/** Number of redundant material and texture state changes of meshes skipped in the last frame */
+	public int getSkippedStateChanges()
+	{
+		return skippedStateChanges;
+	}
+
+	/** Number of meshes outside of the view frustum that were skipped in the last view */
+	public int getCulledMeshes()
+	{
+		return culledMeshes;
+	}
+
+	/** Number of meshes inside of the view frustum in the last view */
+	public int getVisibleMeshes()
+	{
+		return visibleMeshes;
+	}
+
+	/** Number of meshes drawn at a lower level of detail in the last view */
+	public int getReducedMeshes()
+	{
+		return reducedMeshes;
+	}
+
 	public EffectManager getEffectManager()
 	{
 		return effectManager;
@@ -145,6 +204,8 @@ public class Renderer implements WindowResizeListener
 		synchronized (viewer.getWorldModel())
 		{
 			GL2 gl = drawable.getGL().getGL2();
+			Mesh.resetDrawCallCount();
+			GLStateCache.resetCounts();
 
 			if (config.useShadows) {
 				ShadowMapRenderer shadowRenderer = effectManager.getShadowRenderer();
@@ -174,11 +235,47 @@ public class Renderer implements WindowResizeListener
 
 				viewer.getUI().render(gl, glu, glut);
 			}
+			meshDrawCalls = Mesh.getDrawCallCount();
+			stateChanges = GLStateCache.getStateChangeCount();
+			skippedStateChanges = GLStateCache.getSkippedStateChangeCount();
 		}
 	}
 
+	/**
+	 * Culls the meshes and drawings outside of the view frustum of the projection and modelview
+	 * matrices that have been applied by the vantage, sorts the transparent meshes for the view and
+	 * chooses the level of detail of each mesh
+	 */
+	private void cullScene(GL2 gl)
+	{
+		gl.glGetDoublev(GLMatrixFunc.GL_PROJECTION_MATRIX, projection, 0);
+		gl.glGetDoublev(GLMatrixFunc.GL_MODELVIEW_MATRIX, modelView, 0);
+		viewProjection.set(projectionMatrix);
+		viewProjection.multiply(modelViewMatrix);
+		viewFrustum.update(viewProjection);
+
+		RenderList renderList = viewer.getWorldModel().getRenderList();
+		renderList.cull(viewFrustum);
+		// the eye position is the translation of the inverse of the rigid view transformation
+		double[] v = modelView;
+		float eyeX = (float) -(v[0] * v[12] + v[1] * v[13] + v[2] * v[14]);
+		float eyeY = (float) -(v[4] * v[12] + v[5] * v[13] + v[6] * v[14]);
+		float eyeZ = (float) -(v[8] * v[12] + v[9] * v[13] + v[10] * v[14]);
+		renderList.sortTransparent(eyeX, eyeY, eyeZ);
+		// the second diagonal element of a perspective projection is 1 / tan(fovy / 2)
+		float pixelsPerUnit = (float) projection[5] * viewer.getScreen().h / 2;
+		renderList.selectLevels(eyeX, eyeY, eyeZ, pixelsPerUnit);
+
+		culledMeshes = renderList.getCulledCount();
+		visibleMeshes = renderList.getVisibleCount();
+		reducedMeshes = renderList.getReducedCount();
+		viewer.getDrawings().setFrustum(viewFrustum);
+	}
+
 	private void drawScene(GL2 gl)
 	{
+		cullScene(gl);
+
 		if (graphics.useBloom) {
 			if (msSceneFBO != null) {
 				msSceneFBO.bind(gl);
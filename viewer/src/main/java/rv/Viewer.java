@@ -27,30 +27,37 @@ import com.jogamp.opengl.GLCapabilities;
 import com.jogamp.opengl.GLEventListener;
 import com.jogamp.opengl.GLProfile;
 import com.jogamp.opengl.awt.GLCanvas;
-import com.jogamp.opengl.util.awt.AWTGLReadBufferUtil;
+import java.awt.AWTEvent;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.EventQueue;
 import java.awt.Frame;
 import java.awt.HeadlessException;
 import java.awt.Point;
+import java.awt.Toolkit;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.EventObject;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
+import jsgl.jogl.AsyncPixelReader;
 import jsgl.jogl.GLInfo;
+import jsgl.jogl.PixelBufferObject;
 import jsgl.jogl.prog.GLProgram;
 import jsgl.jogl.view.Viewport;
 import rv.comm.NetworkManager;
@@ -59,6 +66,7 @@ import rv.comm.rcssserver.LogPlayer;
 import rv.comm.rcssserver.ServerComm;
 import rv.comm.rcssserver.StatisticsParser;
 import rv.comm.rcssserver.scenegraph.SceneGraph;
+import rv.comm.rcssserver.scenegraph.SceneGraph.SceneGraphListener;
 import rv.content.ContentManager;
 import rv.ui.UserInterface;
 import rv.ui.menus.MenuBar;
@@ -67,6 +75,8 @@ import rv.util.commandline.BooleanArgument;
 import rv.util.commandline.IntegerArgument;
 import rv.util.commandline.StringArgument;
 import rv.util.swing.SwingUtil;
+import rv.video.FrameWriter;
+import rv.video.ImageSequenceWriter;
 import rv.world.WorldModel;
 
 /**
@@ -76,7 +86,8 @@ import rv.world.WorldModel;
  * @author Justin Stoecker
  */
 public class Viewer
-		extends GLProgram implements GLEventListener, ServerComm.ServerChangeListener, LogPlayer.StateChangeListener
+		extends GLProgram
+		implements GLEventListener, ServerComm.ServerChangeListener, LogPlayer.StateChangeListener, SceneGraphListener
 {
 	private static final String VERSION = "1.7.0";
 
@@ -131,10 +142,27 @@ public class Viewer
 	private boolean fullscreen = false;
 	private GLInfo glInfo;
 	private final Configuration config;
+	/** file name without extension of the current screenshot or burst */
 	private String ssName = null;
+	/** number of frames left to capture, starting with the next one */
+	private int ssFrames = 0;
+	private int ssIndex = 0;
+	private boolean ssBurst = false;
+	private final Object ssLock = new Object();
+	private AsyncPixelReader ssReader;
+	private boolean ssReadPending = false;
+	private final ExecutorService ssEncoder =
+			Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), r -> {
+				Thread thread = new Thread(r, "Screenshot Encoder");
+				thread.setDaemon(true);
+				return thread;
+			});
 	private File logFile;
 	private String drawingFilter;
 	private Mode mode = Mode.LIVE;
+	/** camera view of the previous frame, to keep rendering while the camera moves */
+	private final float[] lastView = new float[16];
+	private final float[] view = new float[16];
 
 	public LogPlayer getLogPlayer()
 	{
@@ -293,7 +321,14 @@ public class Viewer
 		frame.add(canvas, BorderLayout.CENTER);
 		restoreConfig();
 		frame.setVisible(true);
-		attachDrawableAndStart(canvas);
+
+		// any input to or change of a RoboViz window may change what is shown; redraw after the
+		// event has been handled
+		Toolkit.getDefaultToolkit().addAWTEventListener(e -> EventQueue.invokeLater(this::requestRedraw),
+				AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK |
+						AWTEvent.MOUSE_WHEEL_EVENT_MASK | AWTEvent.COMPONENT_EVENT_MASK |
+						AWTEvent.WINDOW_STATE_EVENT_MASK);
+		attachDrawableAndStart(canvas, config.graphics.targetFPS, config.graphics.renderOnDemand);
 	}
 
 	private void restoreConfig()
@@ -346,6 +381,8 @@ public class Viewer
 
 		// initialize / load content
 		contentManager = new ContentManager(config.teamColors);
+		contentManager.setUseMeshLOD(config.graphics.useMeshLOD);
+		contentManager.addModelLoadListener(model -> requestRedraw());
 		if (!contentManager.init(drawable, glInfo)) {
 			exitError("Problems loading resource files!");
 		}
@@ -356,9 +393,11 @@ public class Viewer
 		world = new WorldModel();
 		world.init(drawable.getGL(), contentManager, config, mode);
 
-		statisticsParser = new StatisticsParser(world, this);
+		statisticsParser = new StatisticsParser(world);
 
 		drawings = new Drawings();
+		drawings.init(gl, contentManager, glInfo);
+		drawings.addBufferSwapListener(name -> requestRedraw());
 		ui = new UserInterface(this, drawingFilter);
 
 		if (mode == Mode.LIVE) {
@@ -366,6 +405,8 @@ public class Viewer
 			netManager.init(this, config);
 			netManager.getServer().addChangeListener(world.getGameState());
 			netManager.getServer().addChangeListener(this);
+			if (netManager.getAgentComm() != null)
+				ui.getShapeSetPanel().setDrawingBudget(netManager.getAgentComm().getBudget());
 		} else {
 			if (!init) {
 				logPlayer = new LogPlayer(logFile, world, config, this);
@@ -382,6 +423,10 @@ public class Viewer
 		if (init && oldSceneGraph != null)
 			world.setSceneGraph(oldSceneGraph);
 		world.addSceneGraphListener(contentManager);
+		world.addSceneGraphListener(this);
+
+		ssReader = new AsyncPixelReader(PixelBufferObject.getSupport(glInfo));
+		ssReadPending = false;
 
 		gl.glClearColor(0, 0, 0, 1);
 
@@ -400,31 +445,73 @@ public class Viewer
 
 	public void takeScreenShot()
 	{
-		String s = Calendar.getInstance().getTime().toString();
-		s = s.replaceAll("[\\s:]+", "_");
-		s = s.replaceAll("[\\s:]+", "_");
-		ssName = String.format(Locale.US, "screenshots/%s_%s.png", "roboviz", s);
+		takeScreenShots(1);
 	}
 
-	private void takeScreenshot(String fileName)
+	/** Captures the next frames as screenshots, one file per frame if more than one */
+	public void takeScreenShots(int frames)
 	{
-		// TODO Info: GLReadBufferUtil.readPixels: pre-exisiting GL error 0x501
-
-		GLProfile glp = GLProfile.getDefault();
-		AWTGLReadBufferUtil screenshot = new AWTGLReadBufferUtil(glp, false);
-		BufferedImage ss = screenshot.readPixelsToBufferedImage(drawable.getGL(), true);
+		String s = Calendar.getInstance().getTime().toString();
+		s = s.replaceAll("[\\s:]+", "_");
+		synchronized (ssLock) {
+			ssName = String.format(Locale.US, "screenshots/%s_%s", "roboviz", s);
+			ssFrames = frames;
+			ssIndex = 0;
+			ssBurst = frames > 1;
+		}
+		requestRedraw();
+	}
+
+	/**
+	 * Starts reading the frame back if a screenshot was requested. The pixels arrive through a PBO
+	 * during the next frame without stalling the GPU, and are encoded and saved in the background.
+	 */
+	private void captureScreenshot(GL2 gl)
+	{
+		File file = null;
+		synchronized (ssLock) {
+			if (ssFrames > 0) {
+				ssFrames--;
+				if (ssBurst)
+					file = new File(String.format(Locale.US, "%s_%03d.png", ssName, ssIndex++));
+				else
+					file = new File(ssName + ".png");
+			}
+		}
 
-		File ssFile = new File(fileName);
-		File ssDir = new File("screenshots");
-		try {
-			if (!ssDir.exists())
-				ssDir.mkdir();
-			ImageIO.write(ss, "png", ssFile);
-		} catch (IOException e) {
-			e.printStackTrace();
+		if (file == null) {
+			if (ssReadPending) {
+				ssReader.flush(gl);
+				ssReadPending = false;
+			}
+			return;
 		}
 
-		System.out.println("Screenshot taken: " + ssFile.getAbsolutePath());
+		File ssFile = file;
+		gl.glReadBuffer(GL.GL_BACK);
+		ssReader.read(gl, drawable.getSurfaceWidth(), drawable.getSurfaceHeight(),
+				(rgb, w, h) -> saveScreenshot(rgb, w, h, ssFile));
+		ssReadPending = ssReader.isAsynchronous();
+		// the pixels are handled in the next frame, which is also the next frame of a burst
+		requestRedraw();
+	}
+
+	private void saveScreenshot(ByteBuffer rgb, int w, int h, File ssFile)
+	{
+		byte[] pixels = new byte[w * h * 3];
+		FrameWriter.flipRows(rgb, w, h, pixels);
+		ssEncoder.execute(() -> {
+			File ssDir = ssFile.getParentFile();
+			try {
+				if (!ssDir.exists())
+					ssDir.mkdir();
+				ImageIO.write(ImageSequenceWriter.createImage(pixels, w, h), "png", ssFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+				return;
+			}
+			System.out.println("Screenshot taken: " + ssFile.getAbsolutePath());
+		});
 	}
 
 	/** Enter or exit full-screen exclusive mode depending on current mode */
@@ -450,10 +537,16 @@ public class Viewer
 			return;
 
 		GL2 gl = glGeneric.getGL2();
-		contentManager.update(gl);
 		ui.update(gl, elapsedMS);
 		world.update(gl, elapsedMS, ui);
 		drawings.update();
+
+		// changes that continue without further input or server messages need another frame
+		ui.getCamera().getView().get(view, 0);
+		boolean cameraMoved = !Arrays.equals(view, lastView);
+		System.arraycopy(view, 0, lastView, 0, view.length);
+		if (cameraMoved || world.isAnimating())
+			requestRedraw();
 	}
 
 	public static void main(String[] args)
@@ -484,6 +577,11 @@ public class Viewer
 			world.dispose(gl);
 		if (renderer != null)
 			renderer.dispose(gl);
+		if (ssReader != null) {
+			// save the last screenshot of a burst if its pixels haven't been handled yet
+			ssReader.flush(gl.getGL2());
+			ssReader.dispose(gl);
+		}
 		if (contentManager != null)
 			contentManager.dispose(gl);
 	}
@@ -504,12 +602,8 @@ public class Viewer
 		if (!init)
 			return;
 
-		if (ssName != null) {
-			takeScreenshot(ssName);
-			ssName = null;
-		}
-
 		renderer.render(drawable, config.graphics);
+		captureScreenshot(gl.getGL2());
 	}
 
 	@Override
@@ -523,9 +617,22 @@ public class Viewer
 		frame.setTitle(getTitle(host));
 	}
 
+	@Override
+	public void newSceneGraph(SceneGraph sg)
+	{
+		requestRedraw();
+	}
+
+	@Override
+	public void updatedSceneGraph(SceneGraph sg)
+	{
+		requestRedraw();
+	}
+
 	@Override
 	public void playerStateChanged(boolean playing)
 	{
+		requestRedraw();
 		if (getUI().getTrackerCamera() != null)
 			getUI().getTrackerCamera().setPlaybackSpeed(logPlayer.getPlayBackSpeed());
 	}
@@ -0,0 +1,211 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.analysis;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import rv.Configuration;
+import rv.util.commandline.Argument;
+import rv.util.commandline.IntegerArgument;
+import rv.util.commandline.StringArgument;
+
+/**
+ * Headless entry point that computes match statistics for a whole directory of logfiles. Logs are
+ * analyzed in parallel on a fixed thread pool, one {@link LogAnalysisTask} per log. A JSON report
+ * is written for every match, in the same subdirectory as its log, and a CSV summary with one row
+ * per match for the whole directory.
+ */
+public class BatchLogAnalyzer
+{
+	private static final String[] LOG_ENDINGS = {".log", ".bz2", ".gz", ".zip"};
+
+	private final File logDirectory;
+	private final File outputDirectory;
+	private final int threads;
+	private final Configuration config;
+
+	public BatchLogAnalyzer(File logDirectory, File outputDirectory, int threads, Configuration config)
+	{
+		this.logDirectory = logDirectory;
+		this.outputDirectory = outputDirectory;
+		this.threads = threads;
+		this.config = config;
+	}
+
+	/**
+	 * Analyzes all logfiles in the log directory and writes the results
+	 *
+	 * @return the number of logs that could not be analyzed
+	 */
+	public int run() throws IOException
+	{
+		List<File> logs = findLogfiles(logDirectory);
+		if (logs.isEmpty()) {
+			System.err.println("No logfiles found in '" + logDirectory + "'");
+			return 0;
+		}
+		if (!outputDirectory.exists() && !outputDirectory.mkdirs())
+			throw new IOException("Could not create output directory '" + outputDirectory + "'");
+
+		System.out.printf(Locale.US, "Analyzing %d logfiles using %d threads%n", logs.size(), threads);
+		long startTime = System.nanoTime();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CompletionService<MatchStatistics> completion = new ExecutorCompletionService<>(executor);
+		List<Future<MatchStatistics>> futures = new ArrayList<>();
+		for (File log : logs)
+			futures.add(completion.submit(new LogAnalysisTask(log, getRelativePath(log), config)));
+
+		int failed = 0;
+		long totalFrames = 0;
+		File summaryFile = new File(outputDirectory, "summary.csv");
+		try (PrintWriter summary = new PrintWriter(new BufferedWriter(new FileWriter(summaryFile)))) {
+			summary.println(MatchStatistics.getCsvHeader());
+			for (int i = 0; i < futures.size(); i++) {
+				MatchStatistics result;
+				try {
+					result = completion.take().get();
+				} catch (ExecutionException e) {
+					System.err.println("Failed to analyze logfile: " + e.getCause());
+					failed++;
+					continue;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+
+				summary.println(result.toCsvRow());
+				writeReport(result);
+				totalFrames += result.getFrames();
+				System.out.printf(Locale.US, "[%d/%d] %s: %d frames in %d ms (%.0f frames/s)%n", i + 1, logs.size(),
+						result.getLogName(), result.getFrames(), result.getElapsedMS(),
+						framesPerSecond(result.getFrames(), result.getElapsedMS()));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		long elapsedMS = (System.nanoTime() - startTime) / 1000000;
+		int analyzed = logs.size() - failed;
+		System.out.printf(Locale.US,
+				"Analyzed %d logfiles (%d failed) with %d frames in %.1f s: %.2f logs/s, %.0f frames/s%n", analyzed, failed, totalFrames, elapsedMS / 1000.0, analyzed * 1000.0 / Math.max(1, elapsedMS),
+				framesPerSecond(totalFrames, elapsedMS));
+		System.out.println("Results written to " + outputDirectory.getAbsolutePath());
+		return failed;
+	}
+
+	private void writeReport(MatchStatistics result)
+	{
+		// logs of different subdirectories may have the same file name
+		File reportFile = new File(outputDirectory, result.getLogName() + ".json");
+		File reportDirectory = reportFile.getParentFile();
+		if (!reportDirectory.isDirectory() && !reportDirectory.mkdirs()) {
+			System.err.println("Could not create directory '" + reportDirectory + "'");
+			return;
+		}
+
+		try (BufferedWriter out = new BufferedWriter(new FileWriter(reportFile))) {
+			result.writeJson(out);
+		} catch (IOException e) {
+			System.err.println("Could not write report '" + reportFile + "': " + e.getMessage());
+		}
+	}
+
+	/** Path of a log relative to the log directory, which identifies it in the results */
+	private String getRelativePath(File log)
+	{
+		return logDirectory.toPath().relativize(log.toPath()).toString();
+	}
+
+	private static double framesPerSecond(long frames, long elapsedMS)
+	{
+		return frames * 1000.0 / Math.max(1, elapsedMS);
+	}
+
+	private static List<File> findLogfiles(File directory)
+	{
+		List<File> logs = new ArrayList<>();
+		File[] files = directory.listFiles();
+		if (files == null)
+			return logs;
+
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.isDirectory()) {
+				logs.addAll(findLogfiles(file));
+			} else if (isLogfile(file)) {
+				logs.add(file);
+			}
+		}
+		return logs;
+	}
+
+	private static boolean isLogfile(File file)
+	{
+		String name = file.getName().toLowerCase(Locale.US);
+		for (String ending : LOG_ENDINGS) {
+			if (name.endsWith(ending))
+				return true;
+		}
+		return false;
+	}
+
+	public static void main(String[] args)
+	{
+		StringArgument logDirArgument = new StringArgument("logDir", null);
+		StringArgument outputDirArgument = new StringArgument("outputDir", "analysis");
+		IntegerArgument threadsArgument =
+				new IntegerArgument("threads", Runtime.getRuntime().availableProcessors(), 1, 256);
+
+		String logDir = logDirArgument.parse(args);
+		String outputDir = outputDirArgument.parse(args);
+		int threads = threadsArgument.parse(args);
+		Argument.endParse(args);
+
+		if (logDir == null) {
+			System.err.println("Usage: --logDir=<directory> [--outputDir=<directory>] [--threads=<n>]");
+			System.exit(1);
+		}
+
+		File logDirectory = new File(logDir.replaceFirst("^~", System.getProperty("user.home")));
+		if (!logDirectory.isDirectory()) {
+			System.err.println("The specified log directory '" + logDir + "' is not a directory");
+			System.exit(1);
+		}
+
+		try {
+			int failed = new BatchLogAnalyzer(logDirectory, new File(outputDir), threads, new Configuration()).run();
+			System.exit(failed == 0 ? 0 : 2);
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import rv.comm.rcssserver.Logfile;
+import rv.comm.rcssserver.MessageParser;
+import rv.world.WorldModel;
+
+/**
+ * Sequentially parses all frames of a logfile into a headless world model, skipping draw commands.
+ */
+public class HeadlessLogParser
+{
+	public interface FrameListener {
+		/** Called after a frame was parsed and the scene graph items were updated */
+		void frameParsed(WorldModel world, int frame);
+	}
+
+	private final WorldModel world;
+	private final MessageParser parser;
+
+	/**
+	 * @param world
+	 *            a world model initialized with {@link WorldModel#initHeadless}
+	 */
+	public HeadlessLogParser(WorldModel world)
+	{
+		this.world = world;
+		this.parser = new MessageParser(world);
+	}
+
+	/**
+	 * Parses every frame of the logfile
+	 *
+	 * @return the number of successfully parsed frames
+	 * @throws IOException
+	 *             if the logfile can not be read
+	 */
+	public int parse(File file, FrameListener listener) throws IOException
+	{
+		// draw commands are skipped, so no viewer is needed for the logfile
+		Logfile logfile;
+		try {
+			logfile = new Logfile(file, null, false);
+		} catch (Exception e) {
+			throw new IOException("Could not open logfile '" + file + "'", e);
+		}
+		if (!logfile.isValid())
+			throw new IOException("Could not open logfile '" + file + "'");
+
+		int frames = 0;
+		try {
+			while (!logfile.isAtEndOfLog()) {
+				String msg = logfile.getCurrentFrameMessage();
+				if (msg != null && !msg.isEmpty()) {
+					try {
+						parser.parse(msg);
+						world.updateSceneGraphItems();
+						if (listener != null)
+							listener.frameParsed(world, frames);
+						frames++;
+					} catch (ParseException | RuntimeException e) {
+						// a single broken frame should not abort the analysis of a whole match
+						System.err.println(
+								"Skipping frame " + logfile.getCurrentFrame() + " of " + file + ": " + e.getMessage());
+					}
+				}
+				logfile.stepForward();
+			}
+		} finally {
+			logfile.close();
+		}
+		return frames;
+	}
+}
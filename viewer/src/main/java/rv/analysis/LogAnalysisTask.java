@@ -0,0 +1,59 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.analysis;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+import rv.Configuration;
+import rv.comm.rcssserver.StatisticsParser;
+import rv.world.WorldModel;
+
+/**
+ * Parses a complete logfile without any rendering and collects the statistics of the match. Each
+ * task owns its world model and parsers, so any number of tasks can run concurrently.
+ */
+public class LogAnalysisTask implements Callable<MatchStatistics>
+{
+	private final File file;
+	private final String logName;
+	private final Configuration config;
+
+	/**
+	 * @param logName
+	 *            - name of the log in the results, see {@link MatchStatistics#getLogName()}
+	 */
+	public LogAnalysisTask(File file, String logName, Configuration config)
+	{
+		this.file = file;
+		this.logName = logName;
+		this.config = config;
+	}
+
+	@Override
+	public MatchStatistics call() throws Exception
+	{
+		long startTime = System.nanoTime();
+
+		WorldModel world = new WorldModel();
+		world.initHeadless(config);
+		StatisticsParser statisticsParser = new StatisticsParser(world);
+		int frames = new HeadlessLogParser(world).parse(file, null);
+
+		long elapsedMS = (System.nanoTime() - startTime) / 1000000;
+		return new MatchStatistics(file, logName, world.getGameState(), statisticsParser, frames, elapsedMS);
+	}
+}
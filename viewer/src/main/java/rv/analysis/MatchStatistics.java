@@ -0,0 +1,206 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import rv.comm.rcssserver.GameState;
+import rv.comm.rcssserver.StatisticsParser;
+import rv.comm.rcssserver.StatisticsParser.PossessionStatistic;
+import rv.comm.rcssserver.StatisticsParser.Statistic;
+import rv.comm.rcssserver.StatisticsParser.StatisticType;
+
+/**
+ * Snapshot of the statistics collected for a single match, with writers for the CSV summary and
+ * the per-match JSON report.
+ */
+public class MatchStatistics
+{
+	private final File logFile;
+	private final String logName;
+	private final String teamLeft;
+	private final String teamRight;
+	private final int scoreLeft;
+	private final int scoreRight;
+	private final float gameTime;
+	private final int frames;
+	private final long elapsedMS;
+
+	/** number of statistics per type, [type][0] for the left and [type][1] for the right team */
+	private final int[][] counts = new int[StatisticType.values().length][2];
+	private final List<Statistic> events = new ArrayList<>();
+	private final List<PossessionStatistic> possession;
+	private final int[][] ballPositions;
+
+	/**
+	 * @param logName
+	 *            - name of the log in the summary and report, unique among the analyzed logs
+	 */
+	public MatchStatistics(
+			File file, String logName, GameState gs, StatisticsParser statistics, int frames, long elapsedMS)
+	{
+		this.logFile = file;
+		this.logName = logName;
+		this.teamLeft = gs.getUIStringTeamLeft();
+		this.teamRight = gs.getUIStringTeamRight();
+		this.scoreLeft = gs.getScoreLeft();
+		this.scoreRight = gs.getScoreRight();
+		this.gameTime = gs.getTime();
+		this.frames = frames;
+		this.elapsedMS = elapsedMS;
+
+		for (StatisticType type : StatisticType.values()) {
+			for (Statistic statistic : statistics.getStatisticList(type.name())) {
+				counts[type.ordinal()][statistic.team == 1 ? 0 : 1]++;
+				if (type != StatisticType.POSSESSION)
+					events.add(statistic);
+			}
+		}
+		events.sort((o1, o2) -> Float.compare(o1.time, o2.time));
+		possession = new ArrayList<>(statistics.getPossessionValuesOverTime());
+		ballPositions = statistics.getBallPositions();
+	}
+
+	public File getLogFile()
+	{
+		return logFile;
+	}
+
+	public String getLogName()
+	{
+		return logName;
+	}
+
+	public int getFrames()
+	{
+		return frames;
+	}
+
+	public long getElapsedMS()
+	{
+		return elapsedMS;
+	}
+
+	/**
+	 * Share of possession samples that belong to the left team, between 0 and 1
+	 */
+	public float getLeftPossession()
+	{
+		int[] possessionCounts = counts[StatisticType.POSSESSION.ordinal()];
+		int total = possessionCounts[0] + possessionCounts[1];
+		return total == 0 ? 0.5f : possessionCounts[0] / (float) total;
+	}
+
+	public static String getCsvHeader()
+	{
+		StringBuilder sb = new StringBuilder("log,team_left,team_right,score_left,score_right,game_time,frames");
+		for (StatisticType type : StatisticType.values()) {
+			if (type != StatisticType.POSSESSION)
+				sb.append(',').append(type).append("_left,").append(type).append("_right");
+		}
+		sb.append(",possession_left,analysis_ms");
+		return sb.toString();
+	}
+
+	public String toCsvRow()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(csv(logName)).append(',').append(csv(teamLeft)).append(',').append(csv(teamRight));
+		sb.append(',').append(scoreLeft).append(',').append(scoreRight);
+		sb.append(',').append(String.format(Locale.US, "%.2f", gameTime)).append(',').append(frames);
+		for (StatisticType type : StatisticType.values()) {
+			if (type != StatisticType.POSSESSION) {
+				int[] count = counts[type.ordinal()];
+				sb.append(',').append(count[0]).append(',').append(count[1]);
+			}
+		}
+		sb.append(',').append(String.format(Locale.US, "%.3f", getLeftPossession()));
+		sb.append(',').append(elapsedMS);
+		return sb.toString();
+	}
+
+	public void writeJson(Writer out) throws IOException
+	{
+		out.write("{\n");
+		out.write(String.format(Locale.US, "  \"log\": %s,\n", json(logName)));
+		out.write(String.format(Locale.US, "  \"teams\": [%s, %s],\n", json(teamLeft), json(teamRight)));
+		out.write(String.format(Locale.US, "  \"score\": [%d, %d],\n", scoreLeft, scoreRight));
+		out.write(String.format(Locale.US, "  \"gameTime\": %.2f,\n", gameTime));
+		out.write(String.format(Locale.US, "  \"frames\": %d,\n", frames));
+		out.write(String.format(Locale.US, "  \"possessionLeft\": %.3f,\n", getLeftPossession()));
+
+		out.write("  \"counts\": {");
+		String separator = "\n";
+		for (StatisticType type : StatisticType.values()) {
+			int[] count = counts[type.ordinal()];
+			out.write(String.format(Locale.US, "%s    \"%s\": [%d, %d]", separator, type, count[0], count[1]));
+			separator = ",\n";
+		}
+		out.write("\n  },\n");
+
+		out.write("  \"events\": [");
+		separator = "\n";
+		for (Statistic event : events) {
+			out.write(String.format(Locale.US, "%s    {\"time\": %.2f, \"type\": \"%s\", \"team\": %d, \"agent\": %d}",
+					separator, event.time, event.type, event.team, event.agentID));
+			separator = ",\n";
+		}
+		out.write("\n  ],\n");
+
+		out.write("  \"possessionOverTime\": [");
+		separator = "\n";
+		for (PossessionStatistic value : possession) {
+			out.write(String.format(
+					Locale.US, "%s    [%.2f, %.3f]", separator, value.time, value.leftPossession));
+			separator = ",\n";
+		}
+		out.write("\n  ],\n");
+
+		out.write("  \"ballHeatMap\": [");
+		separator = "\n";
+		if (ballPositions != null) {
+			for (int[] row : ballPositions) {
+				StringBuilder sb = new StringBuilder(separator).append("    [");
+				for (int i = 0; i < row.length; i++) {
+					if (i > 0)
+						sb.append(',');
+					sb.append(row[i]);
+				}
+				out.write(sb.append(']').toString());
+				separator = ",\n";
+			}
+		}
+		out.write("\n  ]\n");
+		out.write("}\n");
+	}
+
+	private static String csv(String value)
+	{
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0)
+			return value;
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static String json(String value)
+	{
+		return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.analysis;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Locale;
+import jsgl.math.vector.Vec3f;
+import rv.Configuration;
+import rv.analysis.TrajectoryFile.Column;
+import rv.util.commandline.Argument;
+import rv.util.commandline.StringArgument;
+import rv.world.Team;
+import rv.world.WorldModel;
+import rv.world.objects.Agent;
+import rv.world.objects.Ball;
+
+/**
+ * Converts a logfile into a columnar {@link TrajectoryFile} containing the positions and headings
+ * of the ball and all agents, so they can be queried later without parsing the text log again.
+ */
+public class TrajectoryExporter implements HeadlessLogParser.FrameListener
+{
+	/** ball followed by the agents of the left and of the right team */
+	private static final int NUM_ENTITIES = 1 + 2 * Team.MAX_AGENTS;
+
+	private static final int NUM_COLUMNS = TrajectoryFile.NUM_COLUMNS;
+
+	private float[] times = new float[1024];
+
+	/** values per frame, indexed by [entity * NUM_COLUMNS + column] */
+	private final float[][] columns = new float[NUM_ENTITIES * NUM_COLUMNS][1024];
+
+	private int numFrames = 0;
+
+	/**
+	 * Parses a logfile and writes the trajectories of all entities to the output file
+	 *
+	 * @return the number of exported frames
+	 */
+	public static int export(File logFile, File outputFile) throws IOException
+	{
+		WorldModel world = new WorldModel();
+		world.initHeadless(new Configuration());
+
+		TrajectoryExporter exporter = new TrajectoryExporter();
+		new HeadlessLogParser(world).parse(logFile, exporter);
+		exporter.write(outputFile);
+		return exporter.numFrames;
+	}
+
+	@Override
+	public void frameParsed(WorldModel world, int frame)
+	{
+		if (world.getSceneGraph() == null)
+			return;
+
+		if (numFrames == times.length) {
+			times = Arrays.copyOf(times, numFrames * 2);
+			for (int i = 0; i < columns.length; i++)
+				columns[i] = Arrays.copyOf(columns[i], numFrames * 2);
+		}
+
+		times[numFrames] = world.getGameState().getTime();
+
+		Ball ball = world.getBall();
+		store(0, ball.getPosition(), null, null);
+
+		for (int i = 0; i < Team.MAX_AGENTS; i++) {
+			storeAgent(1 + i, world.getLeftTeam().getAgentByID(i + 1));
+			storeAgent(1 + Team.MAX_AGENTS + i, world.getRightTeam().getAgentByID(i + 1));
+		}
+
+		numFrames++;
+	}
+
+	private void storeAgent(int entity, Agent agent)
+	{
+		if (agent == null)
+			store(entity, null, null, null);
+		else
+			store(entity, agent.getPosition(), agent.getTorsoDirection(), agent.getHeadDirection());
+	}
+
+	private void store(int entity, Vec3f position, Vec3f torsoDirection, Vec3f headDirection)
+	{
+		int offset = entity * NUM_COLUMNS;
+		if (position != null) {
+			Vec3f fieldPos = WorldModel.COORD_TFN.transform(position);
+			columns[offset + Column.X.ordinal()][numFrames] = fieldPos.x;
+			columns[offset + Column.Y.ordinal()][numFrames] = fieldPos.y;
+			columns[offset + Column.Z.ordinal()][numFrames] = fieldPos.z;
+		} else {
+			columns[offset + Column.X.ordinal()][numFrames] = Float.NaN;
+			columns[offset + Column.Y.ordinal()][numFrames] = Float.NaN;
+			columns[offset + Column.Z.ordinal()][numFrames] = Float.NaN;
+		}
+		columns[offset + Column.TORSO_HEADING.ordinal()][numFrames] = heading(torsoDirection);
+		columns[offset + Column.HEAD_HEADING.ordinal()][numFrames] = heading(headDirection);
+	}
+
+	/**
+	 * Heading of a RoboViz direction vector in SimSpark field coordinates, in degrees
+	 */
+	private static float heading(Vec3f direction)
+	{
+		if (direction == null)
+			return Float.NaN;
+		Vec3f fieldDir = WorldModel.COORD_TFN.transform(direction);
+		return (float) Math.toDegrees(Math.atan2(fieldDir.y, fieldDir.x));
+	}
+
+	private void write(File outputFile) throws IOException
+	{
+		try (FileOutputStream out = new FileOutputStream(outputFile)) {
+			FileChannel channel = out.getChannel();
+
+			ByteBuffer header = ByteBuffer.allocate(TrajectoryFile.getHeaderSize(NUM_ENTITIES));
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(TrajectoryFile.MAGIC);
+			header.putInt(TrajectoryFile.VERSION);
+			header.putInt(numFrames);
+			header.putInt(NUM_ENTITIES);
+			header.putInt(NUM_COLUMNS);
+			header.putInt(TrajectoryFile.BALL).putInt(0);
+			for (int i = 1; i <= Team.MAX_AGENTS; i++)
+				header.putInt(Team.LEFT).putInt(i);
+			for (int i = 1; i <= Team.MAX_AGENTS; i++)
+				header.putInt(Team.RIGHT).putInt(i);
+			header.flip();
+			writeFully(channel, header);
+
+			ByteBuffer column = ByteBuffer.allocate(4 * numFrames).order(ByteOrder.LITTLE_ENDIAN);
+			writeColumn(channel, column, times);
+			for (float[] values : columns)
+				writeColumn(channel, column, values);
+		}
+	}
+
+	private void writeColumn(FileChannel channel, ByteBuffer buffer, float[] values) throws IOException
+	{
+		buffer.clear();
+		buffer.asFloatBuffer().put(values, 0, numFrames);
+		buffer.limit(4 * numFrames);
+		writeFully(channel, buffer);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	public static void main(String[] args)
+	{
+		StringArgument logFileArgument = new StringArgument("logFile", null);
+		StringArgument outputArgument = new StringArgument("output", null);
+
+		String logFile = logFileArgument.parse(args);
+		String output = outputArgument.parse(args);
+		Argument.endParse(args);
+
+		if (logFile == null) {
+			System.err.println("Usage: --logFile=<logfile> [--output=<trajectory file>]");
+			System.exit(1);
+		}
+		if (output == null)
+			output = logFile + ".trj";
+
+		try {
+			long startTime = System.nanoTime();
+			int frames = export(new File(logFile), new File(output));
+			long elapsedMS = (System.nanoTime() - startTime) / 1000000;
+			System.out.printf(Locale.US, "Exported %d frames to %s in %d ms%n", frames, output, elapsedMS);
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.analysis;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory-mapped reader for the columnar trajectory files written by {@link TrajectoryExporter}.
+ * <p>
+ * Layout (little-endian, 4 byte words): a header of {@link #MAGIC}, {@link #VERSION}, number of
+ * frames, number of entities and number of columns, followed by a (team, id) pair per entity. The
+ * data section starts with the time column followed by every column of every entity, each one
+ * being a float array with one value per frame. Values of entities that are not on the field in a
+ * frame are NaN. Positions are in SimSpark field coordinates, headings in degrees.
+ * <p>
+ * The files are meant for scripts; the statistics overlays of the viewer don't read them yet.
+ */
+public class TrajectoryFile implements Closeable
+{
+	public static final int MAGIC = 0x52565452; // "RVTR"
+	public static final int VERSION = 1;
+
+	/** team value of the ball entity */
+	public static final int BALL = -1;
+
+	public enum Column {
+		X,
+		Y,
+		Z,
+		/** heading of the torso, NaN for the ball */
+		TORSO_HEADING,
+		/** heading of the head, NaN for the ball */
+		HEAD_HEADING
+	}
+
+	public static final int NUM_COLUMNS = Column.values().length;
+
+	private final RandomAccessFile file;
+	private final FloatBuffer data;
+	private final int numFrames;
+	private final int[] teams;
+	private final int[] ids;
+	/** true if the time stamps never decrease, so frames can be found by binary search */
+	private final boolean sorted;
+
+	public TrajectoryFile(File path) throws IOException
+	{
+		file = new RandomAccessFile(path, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (buffer.getInt() != MAGIC)
+				throw new IOException("'" + path + "' is not a trajectory file");
+			int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported trajectory file version " + version);
+			numFrames = buffer.getInt();
+			int numEntities = buffer.getInt();
+			int numColumns = buffer.getInt();
+			if (numColumns != NUM_COLUMNS)
+				throw new IOException("Unexpected number of columns: " + numColumns);
+
+			teams = new int[numEntities];
+			ids = new int[numEntities];
+			for (int i = 0; i < numEntities; i++) {
+				teams[i] = buffer.getInt();
+				ids[i] = buffer.getInt();
+			}
+
+			long expected = buffer.position() + 4L * numFrames * (1 + numEntities * numColumns);
+			if (channel.size() < expected)
+				throw new IOException("Trajectory file '" + path + "' is truncated");
+
+			data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+			sorted = isSorted(data, numFrames);
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	public static int getHeaderSize(int numEntities)
+	{
+		return 4 * (5 + 2 * numEntities);
+	}
+
+	public int getNumFrames()
+	{
+		return numFrames;
+	}
+
+	public int getNumEntities()
+	{
+		return teams.length;
+	}
+
+	/** @return {@link #BALL}, Team.LEFT or Team.RIGHT */
+	public int getTeam(int entity)
+	{
+		return teams[entity];
+	}
+
+	public int getID(int entity)
+	{
+		return ids[entity];
+	}
+
+	/**
+	 * @return the index of the ball entity, or -1 if there is none
+	 */
+	public int getBallEntity()
+	{
+		return getEntity(BALL, 0);
+	}
+
+	/**
+	 * @return the index of the entity with the given team and player ID, or -1 if there is none
+	 */
+	public int getEntity(int team, int id)
+	{
+		for (int i = 0; i < teams.length; i++) {
+			if (teams[i] == team && ids[i] == id)
+				return i;
+		}
+		return -1;
+	}
+
+	public float getTime(int frame)
+	{
+		return data.get(frame);
+	}
+
+	public float get(int entity, Column column, int frame)
+	{
+		return data.get(getColumnOffset(entity, column) + frame);
+	}
+
+	/**
+	 * Copies the values of a column for the frames [from, to) into dst
+	 */
+	public void get(int entity, Column column, int from, int to, float[] dst)
+	{
+		FloatBuffer view = data.duplicate();
+		view.position(getColumnOffset(entity, column) + from);
+		view.get(dst, 0, to - from);
+	}
+
+	/**
+	 * Copies the time stamps of the frames [from, to) into dst
+	 */
+	public void getTimes(int from, int to, float[] dst)
+	{
+		FloatBuffer view = data.duplicate();
+		view.position(from);
+		view.get(dst, 0, to - from);
+	}
+
+	private static boolean isSorted(FloatBuffer times, int numFrames)
+	{
+		for (int i = 1; i < numFrames; i++) {
+			if (times.get(i) < times.get(i - 1))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the first frame with a time stamp of at least the given time, or the number of
+	 * frames if there is none. This is a binary search if the game time never decreases, as in
+	 * logs of a single match, and a linear search otherwise, e.g. if the server was restarted.
+	 */
+	public int findFrame(float time)
+	{
+		if (!sorted) {
+			for (int frame = 0; frame < numFrames; frame++) {
+				if (data.get(frame) >= time)
+					return frame;
+			}
+			return numFrames;
+		}
+
+		int low = 0;
+		int high = numFrames;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (data.get(mid) < time)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	private int getColumnOffset(int entity, Column column)
+	{
+		return numFrames * (1 + entity * NUM_COLUMNS + column.ordinal());
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		file.close();
+	}
+}
@@ -16,10 +16,12 @@
 
 package rv.comm;
 
-import java.net.SocketException;
+import java.io.IOException;
 import rv.Configuration;
 import rv.Viewer;
 import rv.comm.drawing.DrawComm;
+import rv.comm.drawing.DrawingBudget;
+import rv.comm.rcssserver.LiveBuffer;
 import rv.comm.rcssserver.ServerComm;
 
 /**
@@ -45,11 +47,18 @@ public class NetworkManager
 	public void init(Viewer viewer, Configuration config)
 	{
 		try {
-			agentComm = new DrawComm(viewer, config.networking.listenPort);
-		} catch (SocketException e) {
+			agentComm = new DrawComm(viewer, config.networking.listenPort, config.networking.drawBufferSize,
+					new DrawingBudget(config.networking));
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
 		serverComm = new ServerComm(viewer.getWorldModel(), config, viewer.getMode());
+		if (config.general.timeShiftBufferSize > 0) {
+			LiveBuffer liveBuffer = new LiveBuffer(viewer, config.general.timeShiftBufferSize * 1024 * 1024);
+			serverComm.setLiveBuffer(liveBuffer);
+			if (agentComm != null)
+				liveBuffer.addLiveStateListener(live -> agentComm.setPaused(!live));
+		}
 		if (agentComm != null) {
 			agentComm.addListener(serverComm);
 		}
@@ -17,6 +17,9 @@
 package rv.comm.drawing;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Contains two buffers of the same data type that can be used for asynchronous reading and writing
@@ -26,13 +29,14 @@ import java.util.ArrayList;
  */
 public class BufferedSet<T> implements VisibleNamedObject
 {
-	private boolean visible = true;
+	private volatile boolean visible = true;
 	private final String name;
-	private int frontBuf = 0;
-	private int backBuf = 1;
 
-	@SuppressWarnings("unchecked")
-	private final ArrayList<T>[] buffers = new ArrayList[2];
+	/** written only by the thread that swaps the buffers, reused after every swap */
+	private final ArrayList<T> backBuffer = new ArrayList<>();
+
+	/** immutable snapshot of the last swapped back buffer */
+	private volatile List<T> frontBuffer = Collections.emptyList();
 
 	public boolean isVisible()
 	{
@@ -52,23 +56,15 @@ public class BufferedSet<T> implements VisibleNamedObject
 	public BufferedSet(String name)
 	{
 		this.name = name;
-		buffers[0] = new ArrayList<>();
-		buffers[1] = new ArrayList<>();
 	}
 
 	/**
-	 * Gets a copy of the set of data stored in the front buffer
+	 * Gets the set of data stored in the front buffer. The returned list is immutable and is not
+	 * affected by later buffer swaps, so it can be iterated without locking (such as rendering).
 	 */
-	public synchronized ArrayList<T> getFrontSet()
+	public List<T> getFrontSet()
 	{
-		// a copy is made because we don't want to return a reference to the
-		// current front buffer; this buffer may be swapped while the thread
-		// is still using the shapes in it (such as rendering).
-		ArrayList<T> set = buffers[frontBuf];
-		ArrayList<T> setCopy = new ArrayList<>(set.size());
-		setCopy.addAll(set);
-
-		return setCopy;
+		return frontBuffer;
 	}
 
 	/**
@@ -77,17 +73,16 @@ public class BufferedSet<T> implements VisibleNamedObject
 	 */
 	public void put(T data)
 	{
-		buffers[backBuf].add(data);
+		backBuffer.add(data);
 	}
 
 	/**
-	 * Swaps the front and back buffers and clears the new back buffer.
+	 * Publishes the back buffer as the new front buffer and clears the back buffer.
 	 */
-	public synchronized void swapBuffers()
+	@SuppressWarnings("unchecked")
+	public void swapBuffers()
 	{
-		int temp = backBuf;
-		backBuf = frontBuf;
-		frontBuf = temp;
-		buffers[backBuf].clear();
+		frontBuffer = Collections.unmodifiableList(Arrays.asList((T[]) backBuffer.toArray()));
+		backBuffer.clear();
 	}
 }
@@ -18,12 +18,14 @@ package rv.comm.drawing;
 
 import java.io.IOException;
 import java.net.BindException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.SocketException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import jsgl.io.ByteUtil;
 import rv.Viewer;
 import rv.comm.drawing.commands.Command;
@@ -36,21 +38,26 @@ import rv.ui.DebugInfo;
  */
 public class DrawComm
 {
-	/** Receives UDP packets */
+	/**
+	 * Receives UDP packets into a single reused direct buffer, so no memory is allocated per packet
+	 */
 	private class ReceiveThread extends Thread
 	{
-		private static final int BUFFER_SIZE = 512;
-		private DatagramSocket socket = null;
+		private final ByteBuffer buffer;
+		private DatagramChannel channel = null;
 		private volatile boolean running = true;
 
-		public ReceiveThread(int port) throws SocketException
+		public ReceiveThread(int port, int bufferSize) throws IOException
 		{
+			buffer = ByteBuffer.allocateDirect(bufferSize);
+			channel = DatagramChannel.open();
 			try {
-				socket = new DatagramSocket(port);
+				channel.bind(new InetSocketAddress(port));
 			} catch (BindException e) {
 				DebugInfo.println(getClass(),
 						"Unable to bind to draw port " + port +
 								" - another RoboViz instance is probably already listening on the same port");
+				channel.close();
 				running = false;
 			}
 		}
@@ -60,28 +67,57 @@ public class DrawComm
 		{
 			while (running) {
 				try {
-					byte[] buf = new byte[BUFFER_SIZE];
-					DatagramPacket packet = new DatagramPacket(buf, buf.length);
-					socket.receive(packet);
-					handle(packet);
+					buffer.clear();
+					SocketAddress source = channel.receive(buffer);
+					// datagrams larger than the buffer are truncated, and parsing the rest would
+					// execute a partial command, so packets filling the whole buffer are dropped
+					if (!buffer.hasRemaining()) {
+						droppedLargePacket();
+						continue;
+					}
+					buffer.flip();
+					handle(buffer, source);
+				} catch (ClosedChannelException e) {
+					break;
 				} catch (IOException e) {
 					e.printStackTrace();
 				}
 			}
-			if (socket != null)
-				socket.close();
+			try {
+				channel.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 		}
 	}
 
+	/** Counts a packet that didn't fit into the receive buffer, logging the 1st, 2nd, 4th, ... one */
+	private void droppedLargePacket()
+	{
+		long count = largePackets.incrementAndGet();
+		if ((count & (count - 1)) == 0)
+			DebugInfo.println(getClass(), "Dropped " + count + " draw command packets of at least " +
+					bufferSize + " bytes - increase the Drawing Buffer Size to receive them");
+	}
+
 	public interface DrawCommListener {
-		void drawCommandReceived(byte[] command);
+		/**
+		 * Called with a view of the received packet that is only valid during the call. Listeners
+		 * that keep the data have to copy it.
+		 */
+		void drawCommandReceived(ByteBuffer command);
 	}
 
 	private final List<DrawCommListener> listeners = new ArrayList<>();
 
 	private final static boolean SHOW_WARNINGS = true;
 	private final Viewer viewer;
+	private final DrawingBudget budget;
+	private final int bufferSize;
 	private ReceiveThread packetReceiver;
+	/** number of packets that didn't fit into the receive buffer */
+	private final AtomicLong largePackets = new AtomicLong();
+	private volatile boolean paused = false;
 
 	public void addListener(DrawCommListener l)
 	{
@@ -93,41 +129,73 @@ public class DrawComm
 		listeners.remove(l);
 	}
 
-	/** Creates a new AgentComm */
-	public DrawComm(Viewer viewer, int port) throws SocketException
+	/**
+	 * While paused, received commands are passed to the listeners but not executed
+	 */
+	public void setPaused(boolean paused)
+	{
+		this.paused = paused;
+	}
+
+	/**
+	 * Creates a new AgentComm
+	 *
+	 * @param bufferSize
+	 *            - size of the receive buffer in bytes, packets filling it are dropped
+	 * @param budget
+	 *            - limits the drawing traffic of each agent
+	 */
+	public DrawComm(Viewer viewer, int port, int bufferSize, DrawingBudget budget) throws IOException
 	{
 		this.viewer = viewer;
-		packetReceiver = new ReceiveThread(port);
+		this.budget = budget;
+		this.bufferSize = bufferSize;
+		packetReceiver = new ReceiveThread(port, bufferSize);
 		packetReceiver.start();
 	}
 
-	/** Handle incoming UDP packet data */
-	public void handle(DatagramPacket packet)
+	public DrawingBudget getBudget()
 	{
-		byte[] pktData = new byte[packet.getLength()];
-		System.arraycopy(packet.getData(), packet.getOffset(), pktData, 0, pktData.length);
+		return budget;
+	}
 
-		for (DrawCommListener l : listeners)
-			l.drawCommandReceived(pktData);
+	/**
+	 * Handle incoming UDP packet data between the position and limit of the buffer. Packets and
+	 * shapes exceeding the budget of the source are dropped.
+	 */
+	public void handle(ByteBuffer buf, SocketAddress source)
+	{
+		int start = buf.position();
+		int end = buf.limit();
+		if (!budget.acceptPacket(source, end - start))
+			return;
+
+		for (DrawCommListener l : listeners) {
+			l.drawCommandReceived(buf);
+			buf.limit(end).position(start);
+		}
 
-		ByteBuffer buf = ByteBuffer.wrap(pktData);
+		if (paused)
+			return;
 
+		Command.ShapeBudget shapeBudget = budget.getShapeBudget(source);
 		while (buf.hasRemaining()) {
+			int cmdStart = buf.position();
 			Command cmd = null;
 			try {
-				cmd = Command.parse(buf, viewer);
+				cmd = Command.parse(buf, viewer, shapeBudget);
 			} catch (Exception e) {
 				if (SHOW_WARNINGS) {
-					System.out.printf("Exception parsing command (start index %d)\n", buf.position());
-					printPacket(packet);
+					System.out.printf("Exception parsing command (start index %d)\n", cmdStart - start);
+					printPacket(buf, start, end);
 				}
 				return;
 			}
 
 			if (cmd == null) {
 				if (SHOW_WARNINGS) {
-					System.out.printf("Null command (start index %d)\n", buf.position());
-					printPacket(packet);
+					System.out.printf("Null command (start index %d)\n", cmdStart - start);
+					printPacket(buf, start, end);
 				}
 				return;
 			} else {
@@ -140,17 +208,20 @@ public class DrawComm
 	public void shutdown()
 	{
 		packetReceiver.running = false;
+		try {
+			// unblocks a pending receive
+			packetReceiver.channel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 
 	/** Prints packet contents for debug purposes */
-	private static void printPacket(DatagramPacket pkt)
+	private static void printPacket(ByteBuffer buf, int start, int end)
 	{
-		int length = pkt.getLength();
-		int offset = pkt.getOffset();
-		byte[] data = pkt.getData();
+		int length = end - start;
 
 		System.out.printf("Packet Length: %d\n", length);
-		System.out.printf("Packet Offset: %d\n", offset);
 		System.out.println("Packet Data:");
 
 		for (int i = 0; i < length; i++)
@@ -162,10 +233,10 @@ public class DrawComm
 		System.out.println();
 
 		for (int i = 0; i < length; i++) {
-			int d = ByteUtil.uValue(data[i + offset]);
+			int d = ByteUtil.uValue(buf.get(start + i));
 			System.out.printf("%3d|", d);
 		}
 		System.out.println();
 		System.out.println();
 	}
-}
\ No newline at end of file
+}
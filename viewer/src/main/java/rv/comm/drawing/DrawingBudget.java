@@ -0,0 +1,273 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import rv.Configuration;
+import rv.comm.drawing.commands.Command;
+
+/**
+ * Limits the drawing traffic of each agent, so a single agent flooding the draw port can't degrade
+ * the frame rate for everyone. Budgets are token buckets that refill continuously:
+ * <ul>
+ * <li>bytes per second of each source address and port, checked before a packet is parsed; the
+ * bucket holds one second worth of traffic, but at least one packet of the maximum UDP size</li>
+ * <li>shapes per second of each source address and port</li>
+ * <li>shapes per second of each set prefix (the set name up to the first '.') of each source, so a
+ * source flooding a common prefix like "debug." doesn't take the budget of other sources</li>
+ * </ul>
+ * Shape budgets hold one second worth of shapes and are checked while a command is parsed, before
+ * its shapes are read. Both budgets of a shape are checked before taking from either, and a batch
+ * exceeding them is accepted in part. A budget of 0 is unlimited. Accepted and dropped traffic is
+ * counted even without limits; the counters of a set prefix sum up all sources.
+ * <p>
+ * The accept methods must only be called by the thread receiving draw commands. The usage counters
+ * can be read from any thread.
+ */
+public class DrawingBudget
+{
+	/** the largest possible UDP payload, so no packet exceeds the burst of a byte budget */
+	private static final int MAX_PACKET_BYTES = 65507;
+
+	/** Traffic counters of a source or a set prefix */
+	public static class Usage
+	{
+		private final String name;
+		volatile long acceptedBytes = 0;
+		volatile long droppedBytes = 0;
+		volatile long acceptedShapes = 0;
+		volatile long droppedShapes = 0;
+
+		Usage(String name)
+		{
+			this.name = name;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public long getAcceptedBytes()
+		{
+			return acceptedBytes;
+		}
+
+		public long getDroppedBytes()
+		{
+			return droppedBytes;
+		}
+
+		public long getAcceptedShapes()
+		{
+			return acceptedShapes;
+		}
+
+		public long getDroppedShapes()
+		{
+			return droppedShapes;
+		}
+	}
+
+	private static class Bucket
+	{
+		/** tokens per second, 0 if unlimited */
+		private final double rate;
+		private final double capacity;
+		private final LongSupplier clock;
+		private double tokens;
+		private long lastRefill;
+
+		Bucket(int rate, int capacity, LongSupplier clock)
+		{
+			this.rate = rate;
+			this.capacity = capacity;
+			this.clock = clock;
+			tokens = capacity;
+			lastRefill = clock.getAsLong();
+		}
+
+		/** Number of whole tokens that can be taken right now */
+		int available()
+		{
+			if (rate <= 0)
+				return Integer.MAX_VALUE;
+
+			long now = clock.getAsLong();
+			tokens = Math.min(capacity, tokens + rate * (now - lastRefill) / 1e9);
+			lastRefill = now;
+			return (int) tokens;
+		}
+
+		/** Takes tokens, which must not exceed the last result of {@link #available()} */
+		void take(int amount)
+		{
+			if (rate > 0)
+				tokens -= amount;
+		}
+	}
+
+	private class Source extends Usage implements Command.ShapeBudget
+	{
+		final Bucket bytes;
+		final Bucket shapes;
+		/** shape budgets of the set prefixes this source has drawn to, keyed by prefix */
+		final HashMap<String, Bucket> prefixShapes = new HashMap<>();
+
+		Source(String name)
+		{
+			super(name);
+			bytes = new Bucket(
+					sourceBytesPerSecond, Math.max(sourceBytesPerSecond, MAX_PACKET_BYTES), clock);
+			shapes = new Bucket(sourceShapesPerSecond, sourceShapesPerSecond, clock);
+		}
+
+		@Override
+		public int acceptShapes(String set, int count)
+		{
+			SetPrefix setPrefix = getSetPrefix(set);
+			Bucket prefixBucket = prefixShapes.get(setPrefix.getName());
+			if (prefixBucket == null) {
+				prefixBucket = new Bucket(setShapesPerSecond, setShapesPerSecond, clock);
+				prefixShapes.put(setPrefix.getName(), prefixBucket);
+			}
+
+			int accepted = Math.min(count, Math.min(shapes.available(), prefixBucket.available()));
+			shapes.take(accepted);
+			prefixBucket.take(accepted);
+
+			acceptedShapes += accepted;
+			droppedShapes += count - accepted;
+			setPrefix.acceptedShapes += accepted;
+			setPrefix.droppedShapes += count - accepted;
+			return accepted;
+		}
+	}
+
+	/** Counters of a set prefix */
+	private static class SetPrefix extends Usage
+	{
+		SetPrefix(String name)
+		{
+			super(name);
+		}
+	}
+
+	private final int sourceBytesPerSecond;
+	private final int sourceShapesPerSecond;
+	private final int setShapesPerSecond;
+	private final LongSupplier clock;
+	private final ConcurrentHashMap<SocketAddress, Source> sources = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, SetPrefix> setPrefixes = new ConcurrentHashMap<>();
+	/** set prefix of every set name, so the prefix doesn't have to be extracted per command */
+	private final ConcurrentHashMap<String, SetPrefix> setPrefixBySet = new ConcurrentHashMap<>();
+
+	public DrawingBudget(Configuration.Networking config)
+	{
+		this(config.agentDrawBytesPerSecond, config.agentDrawShapesPerSecond, config.drawSetShapesPerSecond);
+	}
+
+	public DrawingBudget(int sourceBytesPerSecond, int sourceShapesPerSecond, int setShapesPerSecond)
+	{
+		this(sourceBytesPerSecond, sourceShapesPerSecond, setShapesPerSecond, System::nanoTime);
+	}
+
+	/**
+	 * @param clock
+	 *            - time in nanoseconds at which the budgets refill
+	 */
+	DrawingBudget(int sourceBytesPerSecond, int sourceShapesPerSecond, int setShapesPerSecond, LongSupplier clock)
+	{
+		this.sourceBytesPerSecond = sourceBytesPerSecond;
+		this.sourceShapesPerSecond = sourceShapesPerSecond;
+		this.setShapesPerSecond = setShapesPerSecond;
+		this.clock = clock;
+	}
+
+	private Source getSource(SocketAddress address)
+	{
+		Source source = sources.get(address);
+		if (source == null) {
+			source = new Source(address.toString());
+			sources.put(address, source);
+		}
+		return source;
+	}
+
+	private SetPrefix getSetPrefix(String set)
+	{
+		SetPrefix setPrefix = setPrefixBySet.get(set);
+		if (setPrefix == null) {
+			int end = set.indexOf('.');
+			String prefix = end < 0 ? set : set.substring(0, end + 1);
+			setPrefix = setPrefixes.get(prefix);
+			if (setPrefix == null) {
+				setPrefix = new SetPrefix(prefix);
+				setPrefixes.put(prefix, setPrefix);
+			}
+			setPrefixBySet.put(set, setPrefix);
+		}
+		return setPrefix;
+	}
+
+	/**
+	 * Checks the byte budget of the sender of a packet
+	 *
+	 * @return false if the packet should be dropped without parsing it
+	 */
+	public boolean acceptPacket(SocketAddress address, int bytes)
+	{
+		Source source = getSource(address);
+		if (source.bytes.available() >= bytes) {
+			source.bytes.take(bytes);
+			source.acceptedBytes += bytes;
+			return true;
+		}
+		source.droppedBytes += bytes;
+		return false;
+	}
+
+	/**
+	 * Gets the shape budgets of the sender of a packet, to be checked by its commands while they are
+	 * parsed
+	 */
+	public Command.ShapeBudget getShapeBudget(SocketAddress address)
+	{
+		return getSource(address);
+	}
+
+	/** Gets the counters of all sources and set prefixes that have sent drawings */
+	public List<Usage> getUsage()
+	{
+		List<Usage> usage = new ArrayList<>(sources.values());
+		usage.addAll(setPrefixes.values());
+		return usage;
+	}
+
+	/** Forgets all sources and set prefixes and their counters */
+	public void clear()
+	{
+		sources.clear();
+		setPrefixes.clear();
+		setPrefixBySet.clear();
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Regular expression that decides which drawing sets are visible. The expression is compiled once
+ * and the result is cached per set name, since the same few set names are matched over and over.
+ */
+public class DrawingFilter
+{
+	private final Pattern pattern;
+	private final ConcurrentHashMap<String, Boolean> matches = new ConcurrentHashMap<>();
+
+	/**
+	 * @throws java.util.regex.PatternSyntaxException
+	 *             if the expression is invalid
+	 */
+	public DrawingFilter(String regex)
+	{
+		pattern = Pattern.compile(regex);
+	}
+
+	public String getRegex()
+	{
+		return pattern.pattern();
+	}
+
+	/** Checks if the whole set name matches the expression */
+	public boolean matches(String setName)
+	{
+		Boolean match = matches.get(setName);
+		if (match == null) {
+			match = pattern.matcher(setName).matches();
+			matches.put(setName, match);
+		}
+		return match;
+	}
+}
@@ -24,10 +24,13 @@ import java.util.EventListener;
 import java.util.EventObject;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import jsgl.jogl.GLInfo;
+import jsgl.math.geom.BoundingFrustum;
 import rv.comm.drawing.annotations.AgentAnnotation;
 import rv.comm.drawing.annotations.Annotation;
-import rv.comm.drawing.shapes.Shape;
+import rv.content.ContentManager;
 
 /**
  * Contains and manages shape sets
@@ -39,15 +42,15 @@ public class Drawings
 	/** Event object launched when the list of sets is modified */
 	public static class SetListChangeEvent extends EventObject
 	{
-		private final CopyOnWriteArrayList<BufferedSet<Shape>> shapeSets;
-		private final CopyOnWriteArrayList<BufferedSet<Annotation>> annotationSets;
+		private final List<ShapeSet> shapeSets;
+		private final List<BufferedSet<Annotation>> annotationSets;
 
-		public CopyOnWriteArrayList<BufferedSet<Shape>> getShapeSets()
+		public List<ShapeSet> getShapeSets()
 		{
 			return shapeSets;
 		}
 
-		public CopyOnWriteArrayList<BufferedSet<Annotation>> getAnnotationSets()
+		public List<BufferedSet<Annotation>> getAnnotationSets()
 		{
 			return annotationSets;
 		}
@@ -55,8 +58,8 @@ public class Drawings
 		public SetListChangeEvent(Drawings source)
 		{
 			super(source);
-			this.shapeSets = source.shapeSets;
-			this.annotationSets = source.annotationSets;
+			this.shapeSets = source.shapeSets.getSets();
+			this.annotationSets = source.annotationSets.getSets();
 		}
 	}
 
@@ -65,11 +68,34 @@ public class Drawings
 		void setListChanged(SetListChangeEvent evt);
 	}
 
+	/** Interface for listeners of buffer swaps, which make new shapes and annotations visible */
+	public interface BufferSwapListener extends EventListener {
+		void buffersSwapped(String name);
+	}
+
 	private final ArrayList<ShapeListListener> listeners = new ArrayList<>();
-	private final HashMap<String, BufferedSet<Shape>> shapeSetListing = new HashMap<>();
-	private final HashMap<String, BufferedSet<Annotation>> annotationSetListing = new HashMap<>();
-	private final CopyOnWriteArrayList<BufferedSet<Shape>> shapeSets = new CopyOnWriteArrayList<>();
-	private final CopyOnWriteArrayList<BufferedSet<Annotation>> annotationSets = new CopyOnWriteArrayList<>();
+	/** notified from the threads receiving drawings */
+	private final List<BufferSwapListener> swapListeners = new CopyOnWriteArrayList<>();
+	/** written by the threads receiving drawings, cleared from the UI */
+	private final ConcurrentHashMap<Integer, ShapeSet> shapeSetIDs = new ConcurrentHashMap<>();
+	private volatile DrawingFilter filter = new DrawingFilter(".*");
+	private final SetIndex<ShapeSet> shapeSets = new SetIndex<>(name -> {
+		ShapeSet set = new ShapeSet(name);
+		set.setVisible(filter.matches(name));
+		return set;
+	});
+	private final SetIndex<BufferedSet<Annotation>> annotationSets = new SetIndex<>(name -> {
+		BufferedSet<Annotation> set = new BufferedSet<>(name);
+		set.setVisible(filter.matches(name));
+		return set;
+	});
+	/** retained-mode render state of the shape sets, only accessed while rendering */
+	private final HashMap<ShapeSet, ShapeBatch> shapeBatches = new HashMap<>();
+	private final SphereRenderer sphereRenderer = new SphereRenderer();
+	private boolean batchesCleared = false;
+	private int drawCalls = 0;
+	private BoundingFrustum frustum = null;
+	private int culledSets = 0;
 	private boolean changed = false;
 	private boolean visible = true;
 
@@ -83,9 +109,63 @@ public class Drawings
 		visible = !visible;
 	}
 
+	/**
+	 * Prepares instanced rendering of spheres. Without calling this, spheres are drawn individually.
+	 */
+	public void init(GL2 gl, ContentManager cm, GLInfo info)
+	{
+		sphereRenderer.init(gl, cm, info);
+	}
+
+	/** Number of draw calls issued for shapes during the last call to render */
+	public int getDrawCallCount()
+	{
+		return drawCalls;
+	}
+
+	/**
+	 * Sets the view frustum for the next calls to render. Shape sets whose shapes are all outside of
+	 * it are not drawn.
+	 *
+	 * @param frustum
+	 *            - frustum in RoboViz coordinates, or null to draw all visible sets
+	 */
+	public synchronized void setFrustum(BoundingFrustum frustum)
+	{
+		this.frustum = frustum;
+	}
+
+	/** Number of visible shape sets that were outside of the frustum during the last call to render */
+	public int getCulledSetCount()
+	{
+		return culledSets;
+	}
+
+	public DrawingFilter getFilter()
+	{
+		return filter;
+	}
+
+	/**
+	 * Shows the sets whose names match the regular expression and hides all others. New sets are
+	 * visible if they match. Shapes and annotations of hidden sets are skipped when they are parsed.
+	 *
+	 * @throws java.util.regex.PatternSyntaxException
+	 *             if the expression is invalid
+	 */
+	public void setFilter(String regex)
+	{
+		DrawingFilter filter = new DrawingFilter(regex);
+		this.filter = filter;
+		for (ShapeSet set : shapeSets.getSets())
+			set.setVisible(filter.matches(set.getName()));
+		for (BufferedSet<Annotation> set : annotationSets.getSets())
+			set.setVisible(filter.matches(set.getName()));
+	}
+
 	public List<BufferedSet<Annotation>> getAnnotationSets()
 	{
-		return annotationSets;
+		return annotationSets.getSets();
 	}
 
 	public void addShapeSetListener(ShapeListListener listener)
@@ -98,6 +178,16 @@ public class Drawings
 		listeners.remove(listener);
 	}
 
+	public void addBufferSwapListener(BufferSwapListener listener)
+	{
+		swapListeners.add(listener);
+	}
+
+	public void removeBufferSwapListener(BufferSwapListener listener)
+	{
+		swapListeners.remove(listener);
+	}
+
 	private void fireShapeChangeListener()
 	{
 		SetListChangeEvent evt = new SetListChangeEvent(this);
@@ -115,82 +205,88 @@ public class Drawings
 			return;
 		}
 
-		BufferedSet<Annotation> set = annotationSetListing.get(setName);
-
-		if (set == null) {
-			// shape has a set name that hasn't been seen, so create a new set
-			BufferedSet<Annotation> newSet = new BufferedSet<>(setName);
-			newSet.put(annotation);
-			synchronized (this)
-			{
-				annotationSets.add(newSet);
-			}
-			annotationSetListing.put(setName, newSet);
-			changed = true;
-		} else {
+		// annotation has a set name that hasn't been seen, so create a new set
+		BufferedSet<Annotation> set = annotationSets.getOrCreate(setName, s -> changed = true);
+		if (set.isVisible())
 			set.put(annotation);
-		}
 	}
 
-	public void addShape(Shape shape)
+	/**
+	 * Gets the set with the given name for adding shapes, creating the set if it doesn't exist yet
+	 *
+	 * @return the set, or null if it is hidden and its shapes should be skipped
+	 */
+	public ShapeSet getVisibleShapeSet(String setName)
 	{
-		String setName = shape.getSetName();
-		BufferedSet<Shape> set = shapeSetListing.get(setName);
+		ShapeSet set = getOrCreateShapeSet(setName);
+		return set.isVisible() ? set : null;
+	}
 
-		if (set == null) {
-			// shape has a set name that hasn't been seen, so create a new set
-			BufferedSet<Shape> newSet = new BufferedSet<>(setName);
-			newSet.put(shape);
-			synchronized (this)
-			{
-				shapeSets.add(newSet);
-			}
-			shapeSetListing.put(setName, newSet);
-			changed = true;
-		} else {
-			set.put(shape);
-		}
+	/** Adds shapes to the back buffer of a set */
+	public void addShapes(ShapeSet set, ShapeBuffer shapes)
+	{
+		set.getBackBuffer().addAll(shapes);
+	}
+
+	/** Gets the set with the given name, creating it if it doesn't exist yet, even if it is hidden */
+	public ShapeSet getOrCreateShapeSet(String setName)
+	{
+		// shape has a set name that hasn't been seen, so create a new set
+		return shapeSets.getOrCreate(setName, set -> changed = true);
+	}
+
+	/**
+	 * Associates a client chosen ID with the shape set of the given name, creating the set if it
+	 * doesn't exist yet. Later commands can refer to the set by ID without repeating its name. An ID
+	 * stays bound to its set until all sets are cleared, so an agent can't redirect the shapes of
+	 * other agents by binding an ID they use to another set.
+	 *
+	 * @return false if the ID is already bound to a different set
+	 */
+	public boolean bindShapeSet(int id, String name)
+	{
+		ShapeSet set = getOrCreateShapeSet(name);
+		ShapeSet bound = shapeSetIDs.putIfAbsent(id, set);
+		return bound == null || bound == set;
+	}
+
+	/** Retrieves a shape set by the ID bound with {@link #bindShapeSet}, or null if unknown */
+	public ShapeSet getShapeSet(int id)
+	{
+		return shapeSetIDs.get(id);
 	}
 
 	/** Removes all known shape sets */
 	public synchronized void clearAllShapeSets()
 	{
-		shapeSetListing.clear();
+		shapeSetIDs.clear();
 		shapeSets.clear();
-		annotationSetListing.clear();
 		annotationSets.clear();
+		batchesCleared = true;
 		fireShapeChangeListener();
 	}
 
 	/** Retrieves a shape set by name */
-	public BufferedSet<Shape> getShapeSet(String name)
+	public ShapeSet getShapeSet(String name)
 	{
-		return shapeSetListing.get(name);
+		return shapeSets.get(name);
 	}
 
 	public BufferedSet<Annotation> getAnnotationSet(String name)
 	{
-		return annotationSetListing.get(name);
+		return annotationSets.get(name);
 	}
 
 	/**
-	 * Swaps buffers on set with specified name; if name is empty, all buffers are swapped.
+	 * Swaps buffers on all sets whose name starts with the specified name; if name is empty, all
+	 * buffers are swapped.
 	 */
 	public void swapBuffers(String name)
 	{
-		if (name.isEmpty()) {
-			for (BufferedSet<Shape> set : shapeSets)
-				set.swapBuffers();
-			for (BufferedSet<Annotation> set : annotationSets)
-				set.swapBuffers();
-		} else {
-			for (BufferedSet<Shape> p : shapeSets)
-				if (p.getName().startsWith(name))
-					p.swapBuffers();
-			for (BufferedSet<Annotation> p : annotationSets)
-				if (p.getName().startsWith(name))
-					p.swapBuffers();
-		}
+		shapeSets.forEachWithPrefix(name, ShapeSet::swapBuffers);
+		annotationSets.forEachWithPrefix(name, BufferedSet::swapBuffers);
+		for (BufferSwapListener listener : swapListeners)
+			listener.buffersSwapped(name);
 	}
 
 	public synchronized void render(GL2 gl, GLUT glut)
@@ -202,16 +298,32 @@ public class Drawings
 		gl.glDisable(GL.GL_TEXTURE_2D);
 		gl.glDisable(GL2.GL_LIGHTING);
 
-		for (BufferedSet<Shape> setBuffer : shapeSets) {
-			if (setBuffer.isVisible()) {
-				ArrayList<Shape> shapes = setBuffer.getFrontSet();
-				for (Shape s : shapes) {
-					if (s != null) {
-						s.draw(gl);
-					}
+		if (batchesCleared) {
+			for (ShapeBatch batch : shapeBatches.values())
+				batch.dispose(gl);
+			shapeBatches.clear();
+			batchesCleared = false;
+		}
+
+		int calls = 0;
+		int culled = 0;
+		for (ShapeSet set : shapeSets.getSets()) {
+			if (set.isVisible()) {
+				ShapeBatch batch = shapeBatches.get(set);
+				if (batch == null) {
+					batch = new ShapeBatch();
+					shapeBatches.put(set, batch);
+				}
+				batch.update(set);
+				if (frustum != null && !batch.intersects(frustum)) {
+					culled++;
+					continue;
 				}
+				calls += batch.render(gl, sphereRenderer);
 			}
 		}
+		drawCalls = calls;
+		culledSets = culled;
 
 		gl.glPopAttrib();
 	}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Index of drawing sets by set name. The names are kept sorted, so sets whose names start with a
+ * common prefix, such as "team.agent3.path.", are adjacent and operations on all of them only visit
+ * that range instead of every known set. Lookups of single sets by their full name use a hash index
+ * instead, since they happen for every received shape.
+ * <p>
+ * Lookups and traversals don't lock and can run concurrently with additions. Additions and
+ * {@link #clear()} are synchronized with each other.
+ */
+public class SetIndex<S extends VisibleNamedObject>
+{
+	private final Function<String, S> factory;
+	private volatile ConcurrentSkipListMap<String, S> sorted = new ConcurrentSkipListMap<>();
+	private volatile ConcurrentHashMap<String, S> byName = new ConcurrentHashMap<>();
+
+	/** immutable snapshot of all sets in the order they were added */
+	private volatile List<S> sets = Collections.emptyList();
+
+	/**
+	 * @param factory
+	 *            - creates an empty set with the given name
+	 */
+	public SetIndex(Function<String, S> factory)
+	{
+		this.factory = factory;
+	}
+
+	/** Retrieves the set with the given name, or null if there is none */
+	public S get(String name)
+	{
+		return byName.get(name);
+	}
+
+	/**
+	 * Retrieves the set with the given name, creating it if it doesn't exist yet
+	 *
+	 * @param created
+	 *            - invoked with the new set if one was created
+	 */
+	public S getOrCreate(String name, Consumer<S> created)
+	{
+		S set = get(name);
+		if (set != null)
+			return set;
+
+		synchronized (this) {
+			set = get(name);
+			if (set != null)
+				return set;
+
+			set = factory.apply(name);
+			sorted.put(name, set);
+			byName.put(name, set);
+			List<S> newSets = new ArrayList<>(sets.size() + 1);
+			newSets.addAll(sets);
+			newSets.add(set);
+			sets = Collections.unmodifiableList(newSets);
+		}
+		created.accept(set);
+		return set;
+	}
+
+	/** Removes all sets */
+	public synchronized void clear()
+	{
+		sorted = new ConcurrentSkipListMap<>();
+		byName = new ConcurrentHashMap<>();
+		sets = Collections.emptyList();
+	}
+
+	/**
+	 * Gets all sets in the order they were added. The returned list is immutable and is not affected
+	 * by later additions.
+	 */
+	public List<S> getSets()
+	{
+		return sets;
+	}
+
+	/** Invokes the action on every set whose name starts with the prefix, in order of their names */
+	public void forEachWithPrefix(String prefix, Consumer<S> action)
+	{
+		// names with the prefix are at the start of the tail starting at the prefix itself
+		for (Map.Entry<String, S> entry : sorted.tailMap(prefix).entrySet()) {
+			if (!entry.getKey().startsWith(prefix))
+				break;
+			action.accept(entry.getValue());
+		}
+	}
+}
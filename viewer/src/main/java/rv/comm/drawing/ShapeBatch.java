@@ -0,0 +1,294 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import jsgl.jogl.GLDisposable;
+import jsgl.jogl.VertexBufferObject;
+import jsgl.math.geom.BoundingFrustum;
+
+/**
+ * Retained-mode representation of the front buffer of a shape set. The shapes are packed into
+ * interleaved position / color vertex arrays, grouped by primitive type and line width or point
+ * size, and uploaded to a single VBO. Spheres are stored as instances of a shared mesh, see
+ * {@link SphereRenderer}. The arrays are only rebuilt and uploaded again when the set publishes a
+ * new front buffer. The bounding box of the packed shapes is kept for culling the whole set.
+ */
+public class ShapeBatch implements GLDisposable
+{
+	/** x, y, z, r, g, b, a */
+	private static final int FLOATS_PER_VERTEX = 7;
+	private static final int STRIDE = FLOATS_PER_VERTEX * Buffers.SIZEOF_FLOAT;
+
+	/** Vertices of one primitive type with the same width */
+	private static class Group
+	{
+		final int mode;
+		final float width;
+		float[] data = new float[64 * FLOATS_PER_VERTEX];
+		int size = 0;
+		int first;
+
+		Group(int mode, float width)
+		{
+			this.mode = mode;
+			this.width = width;
+		}
+
+		int getVertexCount()
+		{
+			return size / FLOATS_PER_VERTEX;
+		}
+	}
+
+	private final List<Group> groups = new ArrayList<>();
+	private float[] sphereData = new float[16 * SphereRenderer.FLOATS_PER_INSTANCE];
+	private int sphereDataSize = 0;
+	private FloatBuffer spheres = Buffers.newDirectFloatBuffer(0);
+	private VertexBufferObject sphereVBO = null;
+	/** version of the front buffer that was packed last time, see {@link ShapeSet#getVersion()} */
+	private long version = -1;
+	private FloatBuffer vertices = Buffers.newDirectFloatBuffer(0);
+	private VertexBufferObject vbo = null;
+	private boolean dirty = false;
+	private boolean disposed = false;
+
+	/** bounds of all packed shapes; min > max if there are none */
+	private float minX, minY, minZ, maxX, maxY, maxZ;
+
+	/**
+	 * Packs the shapes of the front buffer of a set unless they were packed last time
+	 */
+	public void update(ShapeSet set)
+	{
+		if (set.getVersion() == version)
+			return;
+
+		for (Group group : groups)
+			group.size = 0;
+		sphereDataSize = 0;
+		minX = minY = minZ = Float.POSITIVE_INFINITY;
+		maxX = maxY = maxZ = Float.NEGATIVE_INFINITY;
+		version = set.readFront(shapes -> shapes.pack(this));
+
+		int totalSize = 0;
+		for (Group group : groups) {
+			group.first = totalSize / FLOATS_PER_VERTEX;
+			totalSize += group.size;
+		}
+
+		if (vertices.capacity() < totalSize)
+			vertices = Buffers.newDirectFloatBuffer(Math.max(totalSize, 2 * vertices.capacity()));
+		vertices.clear();
+		for (Group group : groups)
+			vertices.put(group.data, 0, group.size);
+		vertices.flip();
+
+		if (spheres.capacity() < sphereDataSize)
+			spheres = Buffers.newDirectFloatBuffer(Math.max(sphereDataSize, 2 * spheres.capacity()));
+		spheres.clear();
+		spheres.put(sphereData, 0, sphereDataSize);
+		spheres.flip();
+		dirty = true;
+	}
+
+	/**
+	 * Adds a vertex to the group of the given primitive type and width
+	 *
+	 * @param mode
+	 *            - GL_POINTS, GL_LINES or GL_TRIANGLES
+	 * @param width
+	 *            - point size or line width in pixels
+	 * @param color
+	 *            - RGBA color, see {@link ShapeBuffer#packColor}
+	 */
+	public void addVertex(int mode, float width, float x, float y, float z, int color)
+	{
+		Group group = getGroup(mode, width);
+		if (group.size + FLOATS_PER_VERTEX > group.data.length)
+			group.data = Arrays.copyOf(group.data, group.data.length * 2);
+
+		include(x, y, z, 0);
+
+		float[] d = group.data;
+		int i = group.size;
+		d[i] = x;
+		d[i + 1] = y;
+		d[i + 2] = z;
+		d[i + 3] = (color >>> 24) / 255.0f;
+		d[i + 4] = (color >>> 16 & 0xFF) / 255.0f;
+		d[i + 5] = (color >>> 8 & 0xFF) / 255.0f;
+		d[i + 6] = (color & 0xFF) / 255.0f;
+		group.size += FLOATS_PER_VERTEX;
+	}
+
+	/** Adds a sphere that is drawn from the shared sphere mesh */
+	public void addSphere(float x, float y, float z, float radius, int color)
+	{
+		if (sphereDataSize + SphereRenderer.FLOATS_PER_INSTANCE > sphereData.length)
+			sphereData = Arrays.copyOf(sphereData, sphereData.length * 2);
+
+		include(x, y, z, radius);
+
+		float[] d = sphereData;
+		int i = sphereDataSize;
+		d[i] = x;
+		d[i + 1] = y;
+		d[i + 2] = z;
+		d[i + 3] = radius;
+		d[i + 4] = (color >>> 24) / 255.0f;
+		d[i + 5] = (color >>> 16 & 0xFF) / 255.0f;
+		d[i + 6] = (color >>> 8 & 0xFF) / 255.0f;
+		d[i + 7] = (color & 0xFF) / 255.0f;
+		sphereDataSize += SphereRenderer.FLOATS_PER_INSTANCE;
+	}
+
+	private void include(float x, float y, float z, float radius)
+	{
+		minX = Math.min(minX, x - radius);
+		minY = Math.min(minY, y - radius);
+		minZ = Math.min(minZ, z - radius);
+		maxX = Math.max(maxX, x + radius);
+		maxY = Math.max(maxY, y + radius);
+		maxZ = Math.max(maxZ, z + radius);
+	}
+
+	/**
+	 * Checks if any of the packed shapes may be inside of a frustum. An empty batch has nothing to
+	 * cull and always intersects.
+	 */
+	public boolean intersects(BoundingFrustum frustum)
+	{
+		if (minX > maxX)
+			return true;
+		return frustum.contains((minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2, (maxX - minX) / 2,
+				(maxY - minY) / 2, (maxZ - minZ) / 2) != BoundingFrustum.ContainmentType.Disjoint;
+	}
+
+	/** Number of packed vertices of the given primitive type and width */
+	int getVertexCount(int mode, float width)
+	{
+		for (Group group : groups) {
+			if (group.mode == mode && group.width == width)
+				return group.getVertexCount();
+		}
+		return 0;
+	}
+
+	/** Number of groups with packed vertices, each of which is drawn with a single call */
+	int getGroupCount()
+	{
+		int count = 0;
+		for (Group group : groups) {
+			if (group.size > 0)
+				count++;
+		}
+		return count;
+	}
+
+	private Group getGroup(int mode, float width)
+	{
+		// there are only a few different widths per set, so a linear search is fine
+		for (Group group : groups) {
+			if (group.mode == mode && group.width == width)
+				return group;
+		}
+		Group group = new Group(mode, width);
+		groups.add(group);
+		return group;
+	}
+
+	/**
+	 * Draws the packed shapes, uploading them first if they changed
+	 *
+	 * @return the number of issued draw calls
+	 */
+	public int render(GL2 gl, SphereRenderer sphereRenderer)
+	{
+		int drawCalls = 0;
+		int bytes = vertices.limit() * Buffers.SIZEOF_FLOAT;
+		int sphereBytes = spheres.limit() * Buffers.SIZEOF_FLOAT;
+
+		if (sphereBytes > 0 && sphereRenderer.isInstanced()) {
+			if (sphereVBO == null) {
+				sphereVBO = new VertexBufferObject(gl, spheres, sphereBytes, GL.GL_ARRAY_BUFFER, GL.GL_DYNAMIC_DRAW);
+			} else if (dirty) {
+				gl.glBindBuffer(GL.GL_ARRAY_BUFFER, sphereVBO.getID());
+				sphereVBO.bufferData(gl, spheres, sphereBytes);
+			}
+		}
+
+		if (bytes > 0) {
+			if (vbo == null) {
+				vbo = new VertexBufferObject(gl, vertices, bytes, GL.GL_ARRAY_BUFFER, GL.GL_DYNAMIC_DRAW);
+				gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vbo.getID());
+			} else {
+				gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vbo.getID());
+				if (dirty)
+					vbo.bufferData(gl, vertices, bytes);
+			}
+
+			gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+			gl.glEnableClientState(GL2.GL_COLOR_ARRAY);
+			gl.glVertexPointer(3, GL.GL_FLOAT, STRIDE, 0);
+			gl.glColorPointer(4, GL.GL_FLOAT, STRIDE, 3 * Buffers.SIZEOF_FLOAT);
+
+			for (Group group : groups) {
+				int count = group.getVertexCount();
+				if (count == 0)
+					continue;
+				if (group.mode == GL.GL_POINTS)
+					gl.glPointSize(group.width);
+				else if (group.mode == GL.GL_LINES)
+					gl.glLineWidth(group.width);
+				gl.glDrawArrays(group.mode, group.first, count);
+				drawCalls++;
+			}
+
+			gl.glDisableClientState(GL2.GL_COLOR_ARRAY);
+			gl.glDisableClientState(GL2.GL_VERTEX_ARRAY);
+			gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+		}
+		dirty = false;
+
+		drawCalls += sphereRenderer.render(
+				gl, sphereVBO, spheres, sphereDataSize / SphereRenderer.FLOATS_PER_INSTANCE);
+		return drawCalls;
+	}
+
+	@Override
+	public void dispose(GL gl)
+	{
+		if (vbo != null)
+			vbo.dispose(gl);
+		if (sphereVBO != null)
+			sphereVBO.dispose(gl);
+		disposed = true;
+	}
+
+	@Override
+	public boolean isDisposed()
+	{
+		return disposed;
+	}
+}
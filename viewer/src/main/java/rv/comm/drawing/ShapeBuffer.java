@@ -0,0 +1,306 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import com.jogamp.opengl.GL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import rv.comm.drawing.shapes.Circle;
+import rv.comm.drawing.shapes.Line;
+import rv.comm.drawing.shapes.Point;
+import rv.comm.drawing.shapes.Polygon;
+import rv.comm.drawing.shapes.Shape;
+import rv.comm.drawing.shapes.Sphere;
+
+/**
+ * Compact storage for shapes. Shapes of each type are kept in growable primitive arrays with a
+ * fixed number of floats per shape and a color packed into an int (RGBA, 8 bits per channel), so
+ * adding a shape doesn't allocate any objects. Clearing the buffer keeps the arrays, so a buffer
+ * that is reused for every cycle stops allocating once it has grown to the size of a cycle.
+ * <p>
+ * All coordinates are RoboViz coordinates. {@link Shape} objects are only created on request as a
+ * view of the stored shapes.
+ */
+public class ShapeBuffer
+{
+	private static final float[] NO_VALUES = new float[0];
+	private static final int[] NO_COLORS = new int[0];
+
+	/** Shapes of one type */
+	private static class Records
+	{
+		final int stride;
+		float[] values = NO_VALUES;
+		int[] colors = NO_COLORS;
+		int count = 0;
+
+		Records(int stride)
+		{
+			this.stride = stride;
+		}
+
+		/** Reserves space for a shape and returns the offset of its values */
+		int add(int color)
+		{
+			if (count == colors.length) {
+				int capacity = Math.max(16, count * 2);
+				colors = Arrays.copyOf(colors, capacity);
+				values = Arrays.copyOf(values, capacity * stride);
+			}
+			colors[count] = color;
+			return count++ * stride;
+		}
+
+		void addAll(Records other)
+		{
+			int newCount = count + other.count;
+			if (newCount > colors.length) {
+				int capacity = Math.max(newCount, count * 2);
+				colors = Arrays.copyOf(colors, capacity);
+				values = Arrays.copyOf(values, capacity * stride);
+			}
+			System.arraycopy(other.colors, 0, colors, count, other.count);
+			System.arraycopy(other.values, 0, values, count * stride, other.count * stride);
+			count = newCount;
+		}
+	}
+
+	/** Number of line segments used for circles */
+	private static final int CIRCLE_SEGMENTS = 20;
+	private static final float[] CIRCLE_COS = new float[CIRCLE_SEGMENTS + 1];
+	private static final float[] CIRCLE_SIN = new float[CIRCLE_SEGMENTS + 1];
+
+	static {
+		for (int i = 0; i <= CIRCLE_SEGMENTS; i++) {
+			double angle = Math.PI * 2.0 * i / CIRCLE_SEGMENTS;
+			CIRCLE_COS[i] = (float) Math.cos(angle);
+			CIRCLE_SIN[i] = (float) Math.sin(angle);
+		}
+	}
+
+	/** x, y, z, radius, thickness */
+	private final Records circles = new Records(5);
+	/** x1, y1, z1, x2, y2, z2, thickness */
+	private final Records lines = new Records(7);
+	/** x, y, z, size */
+	private final Records points = new Records(4);
+	/** x, y, z, radius */
+	private final Records spheres = new Records(4);
+	/** number of vertices */
+	private final Records polygons = new Records(1);
+	/** x, y, z of the vertices of all polygons, in the order of the polygons */
+	private float[] polygonVertices = NO_VALUES;
+	private int polygonVertexSize = 0;
+
+	/** number of threads reading the buffer as the front buffer of a {@link ShapeSet} */
+	final AtomicInteger readers = new AtomicInteger();
+
+	/** Packs RGBA values in [0,255] into an int */
+	public static int packColor(int r, int g, int b, int a)
+	{
+		return r << 24 | g << 16 | b << 8 | a;
+	}
+
+	/** Unpacks a color created by {@link #packColor} into RGBA floats in [0,1] */
+	public static float[] unpackColor(int color)
+	{
+		return new float[] {(color >>> 24) / 255.0f, (color >>> 16 & 0xFF) / 255.0f, (color >>> 8 & 0xFF) / 255.0f,
+				(color & 0xFF) / 255.0f};
+	}
+
+	public void addCircle(float x, float y, float z, float radius, float thickness, int color)
+	{
+		int i = circles.add(color);
+		float[] v = circles.values;
+		v[i] = x;
+		v[i + 1] = y;
+		v[i + 2] = z;
+		v[i + 3] = radius;
+		v[i + 4] = thickness;
+	}
+
+	public void addLine(float x1, float y1, float z1, float x2, float y2, float z2, float thickness, int color)
+	{
+		int i = lines.add(color);
+		float[] v = lines.values;
+		v[i] = x1;
+		v[i + 1] = y1;
+		v[i + 2] = z1;
+		v[i + 3] = x2;
+		v[i + 4] = y2;
+		v[i + 5] = z2;
+		v[i + 6] = thickness;
+	}
+
+	public void addPoint(float x, float y, float z, float size, int color)
+	{
+		int i = points.add(color);
+		float[] v = points.values;
+		v[i] = x;
+		v[i + 1] = y;
+		v[i + 2] = z;
+		v[i + 3] = size;
+	}
+
+	public void addSphere(float x, float y, float z, float radius, int color)
+	{
+		int i = spheres.add(color);
+		float[] v = spheres.values;
+		v[i] = x;
+		v[i + 1] = y;
+		v[i + 2] = z;
+		v[i + 3] = radius;
+	}
+
+	/**
+	 * Starts a polygon whose vertices are added with {@link #addPolygonVertex}
+	 *
+	 * @param vertexCount
+	 *            - number of vertices that will be added
+	 */
+	public void beginPolygon(int vertexCount, int color)
+	{
+		int i = polygons.add(color);
+		polygons.values[i] = vertexCount;
+		if (polygonVertexSize + vertexCount * 3 > polygonVertices.length)
+			polygonVertices = Arrays.copyOf(
+					polygonVertices, Math.max(polygonVertexSize + vertexCount * 3, 2 * polygonVertices.length));
+	}
+
+	public void addPolygonVertex(float x, float y, float z)
+	{
+		polygonVertices[polygonVertexSize++] = x;
+		polygonVertices[polygonVertexSize++] = y;
+		polygonVertices[polygonVertexSize++] = z;
+	}
+
+	/** Appends all shapes of another buffer */
+	public void addAll(ShapeBuffer other)
+	{
+		circles.addAll(other.circles);
+		lines.addAll(other.lines);
+		points.addAll(other.points);
+		spheres.addAll(other.spheres);
+		polygons.addAll(other.polygons);
+
+		if (polygonVertexSize + other.polygonVertexSize > polygonVertices.length)
+			polygonVertices = Arrays.copyOf(polygonVertices,
+					Math.max(polygonVertexSize + other.polygonVertexSize, 2 * polygonVertices.length));
+		System.arraycopy(other.polygonVertices, 0, polygonVertices, polygonVertexSize, other.polygonVertexSize);
+		polygonVertexSize += other.polygonVertexSize;
+	}
+
+	/** Removes all shapes, but keeps the allocated arrays */
+	public void clear()
+	{
+		circles.count = 0;
+		lines.count = 0;
+		points.count = 0;
+		spheres.count = 0;
+		polygons.count = 0;
+		polygonVertexSize = 0;
+	}
+
+	public int getShapeCount()
+	{
+		return circles.count + lines.count + points.count + spheres.count + polygons.count;
+	}
+
+	/** Adds the vertices and sphere instances of all shapes to a batch */
+	public void pack(ShapeBatch batch)
+	{
+		float[] v = circles.values;
+		for (int i = 0, o = 0; i < circles.count; i++, o += circles.stride) {
+			// circles lie on the field and are drawn as separate line segments
+			int color = circles.colors[i];
+			float radius = v[o + 3];
+			for (int s = 0; s < CIRCLE_SEGMENTS; s++) {
+				batch.addVertex(GL.GL_LINES, v[o + 4], v[o] + CIRCLE_COS[s] * radius, v[o + 1],
+						v[o + 2] + CIRCLE_SIN[s] * radius, color);
+				batch.addVertex(GL.GL_LINES, v[o + 4], v[o] + CIRCLE_COS[s + 1] * radius, v[o + 1],
+						v[o + 2] + CIRCLE_SIN[s + 1] * radius, color);
+			}
+		}
+
+		v = lines.values;
+		for (int i = 0, o = 0; i < lines.count; i++, o += lines.stride) {
+			batch.addVertex(GL.GL_LINES, v[o + 6], v[o], v[o + 1], v[o + 2], lines.colors[i]);
+			batch.addVertex(GL.GL_LINES, v[o + 6], v[o + 3], v[o + 4], v[o + 5], lines.colors[i]);
+		}
+
+		v = points.values;
+		for (int i = 0, o = 0; i < points.count; i++, o += points.stride)
+			batch.addVertex(GL.GL_POINTS, v[o + 3], v[o], v[o + 1], v[o + 2], points.colors[i]);
+
+		v = spheres.values;
+		for (int i = 0, o = 0; i < spheres.count; i++, o += spheres.stride)
+			batch.addSphere(v[o], v[o + 1], v[o + 2], v[o + 3], spheres.colors[i]);
+
+		// like GL_POLYGON, this assumes convex polygons and triangulates them as fans
+		float[] pv = polygonVertices;
+		for (int i = 0, first = 0; i < polygons.count; i++) {
+			int count = (int) polygons.values[i];
+			int color = polygons.colors[i];
+			for (int j = 1; j + 1 < count; j++) {
+				int b = first + j * 3;
+				int c = b + 3;
+				batch.addVertex(GL.GL_TRIANGLES, 0, pv[first], pv[first + 1], pv[first + 2], color);
+				batch.addVertex(GL.GL_TRIANGLES, 0, pv[b], pv[b + 1], pv[b + 2], color);
+				batch.addVertex(GL.GL_TRIANGLES, 0, pv[c], pv[c + 1], pv[c + 2], color);
+			}
+			first += count * 3;
+		}
+	}
+
+	/**
+	 * Creates {@link Shape} objects for all stored shapes
+	 *
+	 * @param set
+	 *            - name of the set the shapes belong to
+	 */
+	public List<Shape> getShapes(String set)
+	{
+		List<Shape> shapes = new ArrayList<>(getShapeCount());
+		float[] v = circles.values;
+		for (int i = 0, o = 0; i < circles.count; i++, o += circles.stride)
+			shapes.add(new Circle(set, Arrays.copyOfRange(v, o, o + 3), unpackColor(circles.colors[i]), v[o + 3],
+					v[o + 4]));
+
+		v = lines.values;
+		for (int i = 0, o = 0; i < lines.count; i++, o += lines.stride)
+			shapes.add(new Line(set, Arrays.copyOfRange(v, o, o + 3), Arrays.copyOfRange(v, o + 3, o + 6),
+					unpackColor(lines.colors[i]), v[o + 6]));
+
+		v = points.values;
+		for (int i = 0, o = 0; i < points.count; i++, o += points.stride)
+			shapes.add(new Point(set, Arrays.copyOfRange(v, o, o + 3), unpackColor(points.colors[i]), v[o + 3]));
+
+		v = spheres.values;
+		for (int i = 0, o = 0; i < spheres.count; i++, o += spheres.stride)
+			shapes.add(new Sphere(set, Arrays.copyOfRange(v, o, o + 3), unpackColor(spheres.colors[i]), v[o + 3]));
+
+		for (int i = 0, first = 0; i < polygons.count; i++) {
+			float[][] verts = new float[(int) polygons.values[i]][];
+			for (int j = 0; j < verts.length; j++, first += 3)
+				verts[j] = Arrays.copyOfRange(polygonVertices, first, first + 3);
+			shapes.add(new Polygon(set, unpackColor(polygons.colors[i]), verts));
+		}
+		return shapes;
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import java.util.List;
+import java.util.function.Consumer;
+import rv.comm.drawing.shapes.Shape;
+
+/**
+ * Double buffered set of shapes stored in {@link ShapeBuffer}s. Unlike {@link BufferedSet}, the
+ * buffers are swapped and reused instead of allocating a new back buffer for every swap.
+ * <p>
+ * The front buffer is published through a volatile reference, so reading it never blocks swapping
+ * and swapping never blocks a reader. A reader marks the buffer it reads, and the old front buffer
+ * is only reused as back buffer once no reader uses it anymore. Until then, the swapping thread
+ * continues with a third buffer.
+ */
+public class ShapeSet implements VisibleNamedObject
+{
+	private volatile boolean visible = true;
+	private final String name;
+
+	/** written only by the thread that swaps the buffers */
+	private ShapeBuffer backBuffer = new ShapeBuffer();
+	private volatile ShapeBuffer frontBuffer = new ShapeBuffer();
+
+	/** old front buffer that was still being read when it was replaced, null if none */
+	private ShapeBuffer retiredBuffer = null;
+
+	/** incremented whenever the front buffer changes, always after the front buffer is replaced */
+	private volatile long version = 0;
+
+	public ShapeSet(String name)
+	{
+		this.name = name;
+	}
+
+	@Override
+	public boolean isVisible()
+	{
+		return visible;
+	}
+
+	@Override
+	public void setVisible(boolean visible)
+	{
+		this.visible = visible;
+	}
+
+	@Override
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Gets the buffer that receives new shapes. This must only be used by the thread that also swaps
+	 * the buffers.
+	 */
+	public ShapeBuffer getBackBuffer()
+	{
+		return backBuffer;
+	}
+
+	public long getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * Passes the front buffer to a reader. The buffers can be swapped meanwhile, but the buffer
+	 * being read is not modified until the reader returns.
+	 *
+	 * @return the version of the front buffer that was read; it may be older than the buffer, in
+	 *         which case the buffer is merely read again on the next version check
+	 */
+	public long readFront(Consumer<ShapeBuffer> reader)
+	{
+		// reading the version first means it can only be too old, never too new
+		long frontVersion = version;
+		ShapeBuffer buffer = acquireFront();
+		try {
+			reader.accept(buffer);
+		} finally {
+			buffer.readers.decrementAndGet();
+		}
+		return frontVersion;
+	}
+
+	/** Creates {@link Shape} objects for the shapes in the front buffer, e.g. for the UI */
+	public List<Shape> getFrontShapes()
+	{
+		ShapeBuffer buffer = acquireFront();
+		try {
+			return buffer.getShapes(name);
+		} finally {
+			buffer.readers.decrementAndGet();
+		}
+	}
+
+	/** Marks the current front buffer as being read, so it isn't reused until it's released */
+	private ShapeBuffer acquireFront()
+	{
+		while (true) {
+			ShapeBuffer buffer = frontBuffer;
+			buffer.readers.incrementAndGet();
+			// if the buffer is still the front buffer, the swapping thread will see the mark
+			if (frontBuffer == buffer)
+				return buffer;
+			buffer.readers.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Makes the back buffer the new front buffer and reuses an old front buffer that is not being
+	 * read anymore as an empty back buffer
+	 */
+	public void swapBuffers()
+	{
+		ShapeBuffer oldFront = frontBuffer;
+		frontBuffer = backBuffer;
+		version++;
+
+		// no reader can start reading the old front buffer anymore, only finish reading it
+		ShapeBuffer free;
+		if (oldFront.readers.get() == 0) {
+			free = oldFront;
+		} else if (retiredBuffer != null && retiredBuffer.readers.get() == 0) {
+			free = retiredBuffer;
+			retiredBuffer = oldFront;
+		} else {
+			free = new ShapeBuffer();
+			retiredBuffer = oldFront;
+		}
+		free.clear();
+		backBuffer = free;
+	}
+}
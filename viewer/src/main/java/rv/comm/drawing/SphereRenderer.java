@@ -0,0 +1,173 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import java.nio.FloatBuffer;
+import jsgl.jogl.GLDisposable;
+import jsgl.jogl.GLInfo;
+import jsgl.jogl.ShaderProgram;
+import jsgl.jogl.VertexBufferObject;
+import jsgl.math.geom.GeodesicSphere;
+import rv.content.ContentManager;
+
+/**
+ * Draws the spheres of shape sets from a single shared unit sphere mesh. If instancing is
+ * supported, all spheres of a set are drawn with one instanced draw call that reads center, radius
+ * and color per instance. Otherwise, every sphere is drawn from the shared mesh with its own
+ * transformation.
+ */
+public class SphereRenderer implements GLDisposable
+{
+	/** center (xyz), radius, color (rgba) */
+	public static final int FLOATS_PER_INSTANCE = 8;
+	private static final int STRIDE = FLOATS_PER_INSTANCE * Buffers.SIZEOF_FLOAT;
+
+	/** the tessellation level of the sphere shape */
+	private static final int LEVEL = 1;
+
+	private VertexBufferObject mesh = null;
+	private int meshVertices;
+	private ShaderProgram shader = null;
+	private int sphereAttrib;
+	private int colorAttrib;
+	private boolean disposed = false;
+
+	/**
+	 * Loads the instancing shader if instanced arrays are supported. Without calling this, spheres
+	 * are drawn individually.
+	 */
+	public void init(GL2 gl, ContentManager cm, GLInfo info)
+	{
+		boolean supported = info.getGLVersion() >= 3.3f ||
+							(info.extSupported("GL_ARB_instanced_arrays") && info.extSupported("GL_ARB_draw_instanced"));
+		if (!supported || !ShaderProgram.isSupported(info))
+			return;
+
+		shader = cm.loadShader(gl, "sphere");
+		if (shader == null) {
+			System.err.println("Sphere instancing shader failed to load, drawing spheres individually");
+			return;
+		}
+		sphereAttrib = gl.glGetAttribLocation(shader.getID(), "instanceSphere");
+		colorAttrib = gl.glGetAttribLocation(shader.getID(), "instanceColor");
+		if (sphereAttrib < 0 || colorAttrib < 0) {
+			shader.dispose(gl);
+			shader = null;
+		}
+	}
+
+	public boolean isInstanced()
+	{
+		return shader != null;
+	}
+
+	private void createMesh(GL2 gl)
+	{
+		GeodesicSphere sphere = new GeodesicSphere(1, LEVEL);
+		float[][] verts = sphere.getVerts();
+		int[][] triangles = sphere.getTriangles();
+
+		meshVertices = triangles.length * 3;
+		FloatBuffer data = Buffers.newDirectFloatBuffer(meshVertices * 3);
+		for (int[] triangle : triangles) {
+			for (int i : triangle)
+				data.put(verts[i]);
+		}
+		data.flip();
+		mesh = new VertexBufferObject(
+				gl, data, data.limit() * Buffers.SIZEOF_FLOAT, GL.GL_ARRAY_BUFFER, GL.GL_STATIC_DRAW);
+	}
+
+	/**
+	 * Draws sphere instances
+	 *
+	 * @param instances
+	 *            - VBO containing the instance data, used for instanced drawing
+	 * @param data
+	 *            - the same instance data on the CPU, used if instancing isn't available
+	 * @param count
+	 *            - the number of spheres
+	 * @return the number of issued draw calls
+	 */
+	public int render(GL2 gl, VertexBufferObject instances, FloatBuffer data, int count)
+	{
+		if (count == 0)
+			return 0;
+		if (mesh == null)
+			createMesh(gl);
+
+		gl.glBindBuffer(GL.GL_ARRAY_BUFFER, mesh.getID());
+		gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+		gl.glVertexPointer(3, GL.GL_FLOAT, 0, 0);
+
+		int drawCalls;
+		if (shader != null) {
+			gl.glBindBuffer(GL.GL_ARRAY_BUFFER, instances.getID());
+			gl.glEnableVertexAttribArray(sphereAttrib);
+			gl.glEnableVertexAttribArray(colorAttrib);
+			gl.glVertexAttribPointer(sphereAttrib, 4, GL.GL_FLOAT, false, STRIDE, 0);
+			gl.glVertexAttribPointer(colorAttrib, 4, GL.GL_FLOAT, false, STRIDE, 4 * Buffers.SIZEOF_FLOAT);
+			gl.glVertexAttribDivisor(sphereAttrib, 1);
+			gl.glVertexAttribDivisor(colorAttrib, 1);
+
+			shader.enable(gl);
+			gl.glDrawArraysInstanced(GL.GL_TRIANGLES, 0, meshVertices, count);
+			shader.disable(gl);
+
+			gl.glVertexAttribDivisor(sphereAttrib, 0);
+			gl.glVertexAttribDivisor(colorAttrib, 0);
+			gl.glDisableVertexAttribArray(sphereAttrib);
+			gl.glDisableVertexAttribArray(colorAttrib);
+			drawCalls = 1;
+		} else {
+			for (int i = 0; i < count; i++) {
+				int offset = i * FLOATS_PER_INSTANCE;
+				float radius = data.get(offset + 3);
+				gl.glColor4f(data.get(offset + 4), data.get(offset + 5), data.get(offset + 6), data.get(offset + 7));
+				gl.glPushMatrix();
+				gl.glTranslatef(data.get(offset), data.get(offset + 1), data.get(offset + 2));
+				gl.glScalef(radius, radius, radius);
+				gl.glDrawArrays(GL.GL_TRIANGLES, 0, meshVertices);
+				gl.glPopMatrix();
+			}
+			drawCalls = count;
+		}
+
+		gl.glDisableClientState(GL2.GL_VERTEX_ARRAY);
+		gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+		return drawCalls;
+	}
+
+	@Override
+	public void dispose(GL gl)
+	{
+		if (mesh != null)
+			mesh.dispose(gl);
+		if (shader != null)
+			shader.dispose(gl);
+		disposed = true;
+	}
+
+	@Override
+	public boolean isDisposed()
+	{
+		return disposed;
+	}
+}
@@ -21,6 +21,7 @@ import java.util.Locale;
 import jsgl.io.ByteUtil;
 import jsgl.math.vector.Vec3f;
 import rv.Viewer;
+import rv.comm.drawing.ShapeBuffer;
 import rv.ui.DebugInfo;
 import rv.world.Team;
 import rv.world.WorldModel;
@@ -38,6 +39,27 @@ public abstract class Command
 	public static final int DRAW_SHAPE = 1;
 	public static final int DRAW_ANNOTATION = 2;
 	public static final int CONTROL = 3;
+	/**
+	 * Same as {@link #DRAW_SHAPE}, but all floats are encoded as 4 byte little-endian IEEE 754 values
+	 * instead of 6 ASCII characters
+	 */
+	public static final int DRAW_SHAPE_BINARY = 4;
+	/** Several shapes of one type sharing a set, color and thickness, see {@link DrawShapeBatch} */
+	public static final int DRAW_SHAPE_BATCH = 5;
+
+	/**
+	 * Limits the number of shapes that commands add to sets. It is checked while parsing, so shapes
+	 * exceeding the budget are skipped without reading them.
+	 */
+	public interface ShapeBudget
+	{
+		/**
+		 * Takes shapes to be added to a set from the budget
+		 *
+		 * @return how many of the shapes may be added, from 0 to count
+		 */
+		int acceptShapes(String setName, int count);
+	}
 
 	/** Performs the command's function */
 	public abstract void execute();
@@ -128,13 +150,28 @@ public abstract class Command
 
 	/** Converts a sequence of bytes into a command */
 	public static Command parse(ByteBuffer buf, Viewer viewer)
+	{
+		return parse(buf, viewer, null);
+	}
+
+	/**
+	 * Converts a sequence of bytes into a command, dropping shapes that exceed a budget
+	 *
+	 * @param budget
+	 *            - budget of the sender of the command, or null if unlimited
+	 */
+	public static Command parse(ByteBuffer buf, Viewer viewer, ShapeBudget budget)
 	{
 		int type = ByteUtil.uValue(buf.get());
 		switch (type) {
 		case Command.DRAW_OPTION:
 			return new DrawOption(buf, viewer);
 		case Command.DRAW_SHAPE:
-			return new DrawShape(buf, viewer);
+			return new DrawShape(buf, viewer, false, budget);
+		case Command.DRAW_SHAPE_BINARY:
+			return new DrawShape(buf, viewer, true, budget);
+		case Command.DRAW_SHAPE_BATCH:
+			return new DrawShapeBatch(buf, viewer, budget);
 		case Command.DRAW_ANNOTATION:
 			return new DrawAnnotation(buf, viewer);
 		case Command.CONTROL:
@@ -175,6 +212,21 @@ public abstract class Command
 		return result;
 	}
 
+	/** Reads a 4 byte little-endian IEEE 754 float from a buffer */
+	public static float readBinaryFloat(ByteBuffer buf)
+	{
+		return Float.intBitsToFloat(Integer.reverseBytes(buf.getInt()));
+	}
+
+	/**
+	 * Reads a float that is either binary (see {@link #readBinaryFloat}) or formatted in 6 ASCII
+	 * characters
+	 */
+	public static float readFloat(ByteBuffer buf, boolean binary)
+	{
+		return binary ? readBinaryFloat(buf) : readFloat(buf);
+	}
+
 	/**
 	 * Retrieves RGB colors as floats in [0,1] from 3 sequential bytes of RGB in a ByteBuffer
 	 */
@@ -200,6 +252,25 @@ public abstract class Command
 		};
 	}
 
+	/**
+	 * Retrieves an RGB color from 3 sequential bytes packed into an int with full opacity, see
+	 * {@link ShapeBuffer#packColor}
+	 */
+	public static int readPackedRGB(ByteBuffer buf)
+	{
+		return ShapeBuffer.packColor(
+				ByteUtil.uValue(buf.get()), ByteUtil.uValue(buf.get()), ByteUtil.uValue(buf.get()), 255);
+	}
+
+	/**
+	 * Retrieves an RGBA color from 4 sequential bytes packed into an int, see
+	 * {@link ShapeBuffer#packColor}
+	 */
+	public static int readPackedRGBA(ByteBuffer buf)
+	{
+		return buf.getInt();
+	}
+
 	/**
 	 * Reads a series of floats from a buffer and converts them from SimSpark coordinates to RoboViz
 	 * coordinates
@@ -211,6 +282,32 @@ public abstract class Command
 		return WorldModel.COORD_TFN.transform(v).getVals();
 	}
 
+	/**
+	 * Reads a series of floats from a buffer and converts them from SimSpark coordinates to RoboViz
+	 * coordinates. Binary coordinates are converted in place without intermediate objects.
+	 */
+	public static float[] readCoords(ByteBuffer buf, int n, boolean binary)
+	{
+		if (!binary)
+			return readCoords(buf, n);
+
+		float[] coords = new float[3];
+		readCoords(buf, n, true, coords, 0);
+		return coords;
+	}
+
+	/**
+	 * Same as {@link #readCoords(ByteBuffer, int, boolean)}, but stores the 3 coordinates at an
+	 * offset in an existing array
+	 */
+	public static void readCoords(ByteBuffer buf, int n, boolean binary, float[] dst, int offset)
+	{
+		float x = readFloat(buf, binary);
+		float y = readFloat(buf, binary);
+		float z = n == 2 ? 0 : readFloat(buf, binary);
+		WorldModel.COORD_TFN.transform(x, y, z, dst, offset);
+	}
+
 	public static Agent readAgent(ByteBuffer buf, WorldModel world)
 	{
 		int agentTeam = ByteUtil.uValue(buf.get());
@@ -19,13 +19,8 @@ package rv.comm.drawing.commands;
 import java.nio.ByteBuffer;
 import jsgl.io.ByteUtil;
 import rv.Viewer;
-import rv.comm.drawing.Drawings;
-import rv.comm.drawing.shapes.Circle;
-import rv.comm.drawing.shapes.Line;
-import rv.comm.drawing.shapes.Point;
-import rv.comm.drawing.shapes.Polygon;
-import rv.comm.drawing.shapes.Shape;
-import rv.comm.drawing.shapes.Sphere;
+import rv.comm.drawing.ShapeBuffer;
+import rv.comm.drawing.ShapeSet;
 
 /**
  * Parses a draw shape packet and, when executing, adds the shape to the intended agent's list of
@@ -41,46 +36,135 @@ public class DrawShape extends Command
 	public static final int SPHERE = 3;
 	public static final int POLYGON = 4;
 
-	private final Shape shape;
-	private final Drawings drawings;
+	private final int type;
+	/** coordinates and sizes of the shape in the same order as in {@link ShapeBuffer} */
+	private final float[] values;
+	private final int color;
+	private final String setName;
+	/** the set receiving the shape, null if the set is hidden or the shape is unknown */
+	private final ShapeSet set;
 
-	public DrawShape(ByteBuffer buf, Viewer viewer)
+	/**
+	 * @param binary
+	 *            - whether floats are encoded as little-endian IEEE 754 values rather than ASCII
+	 * @param budget
+	 *            - budget of the sender, or null if unlimited
+	 */
+	public DrawShape(ByteBuffer buf, Viewer viewer, boolean binary, Command.ShapeBudget budget)
 	{
-		this.drawings = viewer.getDrawings();
+		type = ByteUtil.uValue(buf.get());
 
-		int type = ByteUtil.uValue(buf.get());
+		// the set name comes last, so skip ahead to decide if the shape is needed before parsing it
+		int start = buf.position();
+		int size = getSize(buf, type, binary);
+		if (size < 0) {
+			System.err.println("Unknown shape : " + type);
+			values = null;
+			color = 0;
+			setName = null;
+			set = null;
+			return;
+		}
+		buf.position(start + size);
+		setName = getString(buf);
+		ShapeSet visibleSet = viewer.getDrawings().getVisibleShapeSet(setName);
+		if (visibleSet != null && budget != null && budget.acceptShapes(setName, 1) == 0)
+			visibleSet = null;
+		set = visibleSet;
+		if (set == null) {
+			values = null;
+			color = 0;
+			return;
+		}
+		int end = buf.position();
+		buf.position(start);
 
 		switch (type) {
 		case CIRCLE:
-			shape = Circle.parse(buf);
+			values = new float[5];
+			readCoords(buf, 2, binary, values, 0);
+			values[3] = readFloat(buf, binary);
+			values[4] = readFloat(buf, binary);
+			color = readPackedRGB(buf);
 			break;
 		case LINE:
-			shape = Line.parse(buf);
+			values = new float[7];
+			readCoords(buf, 3, binary, values, 0);
+			readCoords(buf, 3, binary, values, 3);
+			values[6] = readFloat(buf, binary);
+			color = readPackedRGB(buf);
 			break;
-		case POINT:
-			shape = Point.parse(buf);
+		case POLYGON:
+			values = new float[ByteUtil.uValue(buf.get()) * 3];
+			color = readPackedRGBA(buf);
+			for (int i = 0; i < values.length; i += 3)
+				readCoords(buf, 3, binary, values, i);
 			break;
+		default:
+			// point or sphere
+			values = new float[4];
+			readCoords(buf, 3, binary, values, 0);
+			values[3] = readFloat(buf, binary);
+			color = readPackedRGB(buf);
+		}
+		buf.position(end);
+	}
+
+	/**
+	 * Computes the size of a shape in bytes from the current position of the buffer up to the set
+	 * name without consuming it
+	 *
+	 * @return the size, or -1 if the shape type is unknown
+	 */
+	private static int getSize(ByteBuffer buf, int type, boolean binary)
+	{
+		int floatSize = binary ? 4 : 6;
+		switch (type) {
+		case CIRCLE:
+		case POINT:
 		case SPHERE:
-			shape = Sphere.parse(buf);
-			break;
+			return 4 * floatSize + 3;
+		case LINE:
+			return 7 * floatSize + 3;
 		case POLYGON:
-			shape = Polygon.parse(buf);
-			break;
+			return 5 + ByteUtil.uValue(buf.get(buf.position())) * 3 * floatSize;
 		default:
-			System.err.println("Unknown shape : " + type);
-			shape = null;
+			return -1;
 		}
 	}
 
 	@Override
 	public void execute()
 	{
-		drawings.addShape(shape);
+		if (set == null)
+			return;
+
+		ShapeBuffer shapes = set.getBackBuffer();
+		float[] v = values;
+		switch (type) {
+		case CIRCLE:
+			shapes.addCircle(v[0], v[1], v[2], v[3], v[4], color);
+			break;
+		case LINE:
+			shapes.addLine(v[0], v[1], v[2], v[3], v[4], v[5], v[6], color);
+			break;
+		case POINT:
+			shapes.addPoint(v[0], v[1], v[2], v[3], color);
+			break;
+		case SPHERE:
+			shapes.addSphere(v[0], v[1], v[2], v[3], color);
+			break;
+		case POLYGON:
+			shapes.beginPolygon(v.length / 3, color);
+			for (int i = 0; i < v.length; i += 3)
+				shapes.addPolygonVertex(v[i], v[i + 1], v[i + 2]);
+			break;
+		}
 	}
 
 	@Override
 	public String toString()
 	{
-		return String.format("DrawShape: %s", shape);
+		return String.format("DrawShape: type %d, set %s", type, setName);
 	}
 }
@@ -0,0 +1,175 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing.commands;
+
+import java.nio.ByteBuffer;
+import jsgl.io.ByteUtil;
+import rv.Viewer;
+import rv.comm.drawing.Drawings;
+import rv.comm.drawing.ShapeBuffer;
+import rv.comm.drawing.ShapeSet;
+import rv.ui.DebugInfo;
+
+/**
+ * Parses a batch of shapes of the same type that share a set, color and thickness, and adds them
+ * to the set in one operation when executing. All floats are 4 byte little-endian IEEE 754 values.
+ * <p>
+ * Header: shape type (1 byte, same IDs as {@link DrawShape}), set ID (4 bytes, little-endian), set
+ * name (NUL-terminated, may be empty), RGBA color (4 bytes), thickness (float, line width or point
+ * size) and the number of shapes (2 bytes, little-endian). Every shape then consists of:
+ * <ul>
+ * <li>circle: x, y, radius</li>
+ * <li>line: x1, y1, z1, x2, y2, z2</li>
+ * <li>point: x, y, z</li>
+ * <li>sphere: x, y, z, radius</li>
+ * <li>polygon: number of vertices (1 byte) followed by x, y, z of every vertex</li>
+ * </ul>
+ * A non-empty set name binds the set ID to that set when the batch is executed, so later batches can
+ * leave the name empty. Set IDs are shared by all agents and should therefore be derived from the
+ * set name, e.g. by hashing it. An ID that is already bound to a different set is not rebound; the
+ * batch is still added to the named set. Batches with an empty name and an unknown set ID are
+ * dropped, as are batches for hidden sets.
+ * Shapes exceeding the budget of the sender are skipped without parsing them.
+ */
+public class DrawShapeBatch extends Command
+{
+	private final Drawings drawings;
+	private final ShapeSet set;
+	private final int setID;
+	/** name to bind the set ID to, empty if the set was looked up by ID */
+	private final String setName;
+	/** the parsed shapes, null if they were skipped */
+	private final ShapeBuffer shapes;
+
+	/**
+	 * @param budget
+	 *            - budget of the sender, or null if unlimited
+	 */
+	public DrawShapeBatch(ByteBuffer buf, Viewer viewer, Command.ShapeBudget budget)
+	{
+		this.drawings = viewer.getDrawings();
+
+		int type = ByteUtil.uValue(buf.get());
+		setID = Integer.reverseBytes(buf.getInt());
+		setName = getString(buf);
+		int color = readPackedRGBA(buf);
+		float thickness = readBinaryFloat(buf);
+		int count = Short.toUnsignedInt(Short.reverseBytes(buf.getShort()));
+
+		if (setName.isEmpty()) {
+			set = drawings.getShapeSet(setID);
+			if (set == null)
+				DebugInfo.println(getClass(), "Dropping shape batch for unknown set ID " + setID);
+		} else {
+			set = drawings.getOrCreateShapeSet(setName);
+		}
+
+		int accepted = 0;
+		if (set != null && set.isVisible())
+			accepted = budget != null ? budget.acceptShapes(set.getName(), count) : count;
+		if (accepted == 0) {
+			shapes = null;
+			skipShapes(buf, type, count);
+			return;
+		}
+
+		shapes = new ShapeBuffer();
+		float[] v1 = new float[3];
+		float[] v2 = new float[3];
+		for (int i = 0; i < accepted; i++) {
+			if (!parseShape(buf, type, color, thickness, v1, v2))
+				return;
+		}
+		skipShapes(buf, type, count - accepted);
+	}
+
+	private boolean parseShape(ByteBuffer buf, int type, int color, float thickness, float[] v1, float[] v2)
+	{
+		switch (type) {
+		case DrawShape.CIRCLE:
+			readCoords(buf, 2, true, v1, 0);
+			shapes.addCircle(v1[0], v1[1], v1[2], readBinaryFloat(buf), thickness, color);
+			return true;
+		case DrawShape.LINE:
+			readCoords(buf, 3, true, v1, 0);
+			readCoords(buf, 3, true, v2, 0);
+			shapes.addLine(v1[0], v1[1], v1[2], v2[0], v2[1], v2[2], thickness, color);
+			return true;
+		case DrawShape.POINT:
+			readCoords(buf, 3, true, v1, 0);
+			shapes.addPoint(v1[0], v1[1], v1[2], thickness, color);
+			return true;
+		case DrawShape.SPHERE:
+			readCoords(buf, 3, true, v1, 0);
+			shapes.addSphere(v1[0], v1[1], v1[2], readBinaryFloat(buf), color);
+			return true;
+		case DrawShape.POLYGON:
+			int numVerts = ByteUtil.uValue(buf.get());
+			shapes.beginPolygon(numVerts, color);
+			for (int i = 0; i < numVerts; i++) {
+				readCoords(buf, 3, true, v1, 0);
+				shapes.addPolygonVertex(v1[0], v1[1], v1[2]);
+			}
+			return true;
+		default:
+			// the size of unknown shapes is unknown, so the rest of the packet can't be parsed
+			System.err.println("Unknown shape : " + type);
+			buf.position(buf.limit());
+			return false;
+		}
+	}
+
+	/** Moves the position of the buffer behind the shapes without parsing them */
+	private static void skipShapes(ByteBuffer buf, int type, int count)
+	{
+		switch (type) {
+		case DrawShape.CIRCLE:
+		case DrawShape.POINT:
+			buf.position(buf.position() + count * 12);
+			break;
+		case DrawShape.LINE:
+			buf.position(buf.position() + count * 24);
+			break;
+		case DrawShape.SPHERE:
+			buf.position(buf.position() + count * 16);
+			break;
+		case DrawShape.POLYGON:
+			for (int i = 0; i < count; i++) {
+				int numVerts = ByteUtil.uValue(buf.get());
+				buf.position(buf.position() + numVerts * 12);
+			}
+			break;
+		default:
+			buf.position(buf.limit());
+		}
+	}
+
+	@Override
+	public void execute()
+	{
+		if (!setName.isEmpty() && !drawings.bindShapeSet(setID, setName))
+			DebugInfo.println(getClass(), "Set ID " + setID + " is already bound to another set than " + setName);
+		if (shapes != null)
+			drawings.addShapes(set, shapes);
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("DrawShapeBatch: %d shapes", shapes != null ? shapes.getShapeCount() : 0);
+	}
+}
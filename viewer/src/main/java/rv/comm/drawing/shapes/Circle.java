@@ -18,8 +18,6 @@ package rv.comm.drawing.shapes;
 
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2;
-import java.nio.ByteBuffer;
-import rv.comm.drawing.commands.Command;
 
 /**
  * Circle that lies on the surface of the field
@@ -56,15 +54,4 @@ public class Circle extends Shape
 			gl.glVertex3d(pt[0], pt[1], pt[2]);
 		gl.glEnd();
 	}
-
-	public static Circle parse(ByteBuffer buf)
-	{
-		float[] posXY = Command.readCoords(buf, 2);
-		float radius = Command.readFloat(buf);
-		float thickness = Command.readFloat(buf);
-		float[] color = Command.readRGB(buf);
-		String set = Command.getString(buf);
-
-		return new Circle(set, posXY, color, radius, thickness);
-	}
 }
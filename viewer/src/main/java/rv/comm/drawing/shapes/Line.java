@@ -18,8 +18,6 @@ package rv.comm.drawing.shapes;
 
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2;
-import java.nio.ByteBuffer;
-import rv.comm.drawing.commands.Command;
 
 /**
  * @author Justin Stoecker
@@ -49,15 +47,4 @@ public class Line extends Shape
 		gl.glVertex3fv(end, 0);
 		gl.glEnd();
 	}
-
-	public static Line parse(ByteBuffer buf)
-	{
-		float[] start = Command.readCoords(buf, 3);
-		float[] end = Command.readCoords(buf, 3);
-		float thickness = Command.readFloat(buf);
-		float[] color = Command.readRGB(buf);
-		String set = Command.getString(buf);
-
-		return new Line(set, start, end, color, thickness);
-	}
 }
@@ -18,8 +18,6 @@ package rv.comm.drawing.shapes;
 
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2;
-import java.nio.ByteBuffer;
-import rv.comm.drawing.commands.Command;
 
 public class Point extends Shape
 {
@@ -45,14 +43,4 @@ public class Point extends Shape
 		gl.glVertex3fv(position, 0);
 		gl.glEnd();
 	}
-
-	public static Point parse(ByteBuffer buf)
-	{
-		float[] pos = Command.readCoords(buf, 3);
-		float size = Command.readFloat(buf);
-		float[] color = Command.readRGB(buf);
-		String set = Command.getString(buf);
-
-		return new Point(set, pos, color, size);
-	}
 }
@@ -17,9 +17,6 @@
 package rv.comm.drawing.shapes;
 
 import com.jogamp.opengl.GL2;
-import java.nio.ByteBuffer;
-import jsgl.io.ByteUtil;
-import rv.comm.drawing.commands.Command;
 
 public class Polygon extends Shape
 {
@@ -40,18 +37,4 @@ public class Polygon extends Shape
 			gl.glVertex3fv(aV, 0);
 		gl.glEnd();
 	}
-
-	public static Polygon parse(ByteBuffer buf)
-	{
-		int numVerts = ByteUtil.uValue(buf.get());
-		float[][] v = new float[numVerts][];
-
-		float[] color = Command.readRGBA(buf);
-		for (int i = 0; i < numVerts; i++)
-			v[i] = Command.readCoords(buf, 3);
-
-		String set = Command.getString(buf);
-
-		return new Polygon(set, color, v);
-	}
 }
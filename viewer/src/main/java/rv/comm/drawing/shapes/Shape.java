@@ -17,11 +17,13 @@
 package rv.comm.drawing.shapes;
 
 import com.jogamp.opengl.GL2;
-import jsgl.jogl.light.Material;
 
+/**
+ * Shape of a drawing set. Received shapes are stored in {@link rv.comm.drawing.ShapeBuffer}s; shape
+ * objects are only created as a view of them, e.g. for the UI.
+ */
 public abstract class Shape
 {
-	protected final Material material;
 	protected float[] color;
 	protected final String set;
 
@@ -34,9 +36,6 @@ public abstract class Shape
 	{
 		this.set = set;
 		this.color = color;
-
-		material = new Material();
-		material.setDiffAmbient(color[0], color[1], color[2], 1);
 	}
 
 	public abstract void draw(GL2 gl);
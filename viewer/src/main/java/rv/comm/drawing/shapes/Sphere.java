@@ -17,27 +17,24 @@
 package rv.comm.drawing.shapes;
 
 import com.jogamp.opengl.GL2;
-import java.nio.ByteBuffer;
-import jsgl.jogl.light.Material;
 import jsgl.math.geom.GeodesicSphere;
-import rv.comm.drawing.commands.Command;
 
 public class Sphere extends Shape
 {
 	/** Size of a parsed draw circle command packet */
 	public static final int CMD_SIZE = 31;
 
+	/** unit sphere shared by all spheres that are drawn individually */
+	private static final GeodesicSphere MODEL = new GeodesicSphere(1, 1);
+
 	private final float[] position;
-	private final GeodesicSphere model;
+	private final float radius;
 
 	public Sphere(String set, float[] position, float[] color, float radius)
 	{
 		super(set, color);
 		this.position = position;
-		Material mat = new Material();
-		this.color = color;
-		mat.setDiffAmbient(color[0], color[1], color[2], 1);
-		model = new GeodesicSphere(radius, 1);
+		this.radius = radius;
 	}
 
 	@Override
@@ -45,19 +42,9 @@ public class Sphere extends Shape
 	{
 		gl.glPushMatrix();
 		gl.glColor3fv(color, 0);
-		material.apply(gl, GL2.GL_FRONT_AND_BACK);
 		gl.glTranslatef(position[0], position[1], position[2]);
-		model.render(gl);
+		gl.glScalef(radius, radius, radius);
+		MODEL.render(gl);
 		gl.glPopMatrix();
 	}
-
-	public static Sphere parse(ByteBuffer buf)
-	{
-		float[] pos = Command.readCoords(buf, 3);
-		float radius = Command.readFloat(buf);
-		float[] color = Command.readRGB(buf);
-		String set = Command.getString(buf);
-
-		return new Sphere(set, pos, color, radius);
-	}
 }
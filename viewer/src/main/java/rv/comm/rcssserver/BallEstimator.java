@@ -5,7 +5,6 @@ import static java.lang.Math.log;
 
 import java.util.LinkedList;
 import jsgl.math.vector.Vec3f;
-import rv.Viewer;
 import rv.world.WorldModel;
 
 public class BallEstimator
@@ -19,14 +18,14 @@ public class BallEstimator
 	LinkedList<Vec3f> ballPosQueue = new LinkedList<>();
 	LinkedList<Float> ballPosTimeQueue = new LinkedList<>();
 
-	private Viewer viewer;
+	private final StatisticsParser statisticsParser;
 	private WorldModel world;
 	private GameState gs;
 
-	public BallEstimator(Viewer viewer)
+	public BallEstimator(WorldModel world, StatisticsParser statisticsParser)
 	{
-		this.viewer = viewer;
-		this.world = viewer.getWorldModel();
+		this.statisticsParser = statisticsParser;
+		this.world = world;
 		this.gs = world.getGameState();
 		ballExpK = -1.05719f;
 		indRefTime = indRefTime3 = indRefTime5 = 0;
@@ -71,7 +70,7 @@ public class BallEstimator
 				found5 = true;
 			}
 		}
-		if (viewer.getStatisticsParser().getMinimumDistanceToBall() < 0.3) {
+		if (statisticsParser.getMinimumDistanceToBall() < 0.3) {
 			refPosAway = refPos;
 			refTimeAway = refTime;
 		}
@@ -564,6 +564,56 @@ public class GameState implements ServerChangeListener
 		}
 	}
 
+	/**
+	 * Appends an expression containing the complete current state, in the format the server uses
+	 * for the first message after connecting. Parsing it restores this state.
+	 */
+	public void appendFullState(StringBuilder sb)
+	{
+		sb.append('(');
+		if (initialized) {
+			appendValue(sb, FIELD_LENGTH, fieldLength);
+			appendValue(sb, FIELD_WIDTH, fieldWidth);
+			appendValue(sb, FIELD_HEIGHT, fieldHeight);
+			appendValue(sb, GOAL_WIDTH, goalWidth);
+			appendValue(sb, GOAL_DEPTH, goalDepth);
+			appendValue(sb, GOAL_HEIGHT, goalHeight);
+			appendValue(sb, FREE_KICK_DST, freeKickDist);
+			appendValue(sb, WAIT_BEFORE_KO, waitBeforeKickoff);
+			appendValue(sb, AGENT_RADIUS, agentRadius);
+			appendValue(sb, BALL_RADIUS, ballRadius);
+			appendValue(sb, BALL_MASS, ballMass);
+			appendValue(sb, RULE_GOAL_PAUSE_TIME, ruleGoalPauseTime);
+			appendValue(sb, RULE_KICK_PAUSE_TIME, ruleKickPauseTime);
+			appendValue(sb, RULE_HALF_TIME, ruleHalfTime);
+		}
+		if (playModes != null) {
+			sb.append('(').append(PLAY_MODES);
+			for (String mode : playModes)
+				sb.append(' ').append(mode);
+			sb.append(')');
+		}
+		if (teamLeft != null)
+			appendValue(sb, TEAM_LEFT, teamLeft);
+		if (teamRight != null)
+			appendValue(sb, TEAM_RIGHT, teamRight);
+		appendValue(sb, SCORE_LEFT, scoreLeft);
+		appendValue(sb, SCORE_RIGHT, scoreRight);
+		appendValue(sb, TIME, time);
+		appendValue(sb, HALF, half);
+		if (playModes != null) {
+			int mode = Arrays.asList(playModes).indexOf(playMode);
+			if (mode >= 0)
+				appendValue(sb, PLAY_MODE, mode);
+		}
+		sb.append(')');
+	}
+
+	private static void appendValue(StringBuilder sb, String name, Object value)
+	{
+		sb.append('(').append(name).append(' ').append(value).append(')');
+	}
+
 	@Override
 	public void connectionChanged(ServerComm server)
 	{
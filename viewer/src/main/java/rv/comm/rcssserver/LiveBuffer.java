@@ -0,0 +1,446 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.rcssserver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import rv.Viewer;
+import rv.comm.drawing.commands.Command;
+import rv.comm.rcssserver.scenegraph.SceneGraph;
+import rv.comm.rcssserver.scenegraph.SceneGraphHeader;
+import rv.world.WorldModel;
+
+/**
+ * Time shift buffer for a live server connection. Received messages are stored as US-ASCII bytes in
+ * a ring of fixed size, together with the draw commands that arrived before them. Every
+ * {@link #KEYFRAME_INTERVAL} frames a full description of the scene is stored instead of the diff,
+ * so any buffered frame can be restored by parsing at most that many messages. When the ring is
+ * full, the oldest keyframe is dropped together with the diffs that depend on it.
+ * <p>
+ * The buffer is a {@link ILogfileReader}, so a {@link LogPlayer} can pause, rewind and replay the
+ * buffered part of the game while the connection stays open. While the buffer is live, the
+ * {@link ServerComm} applies incoming messages to the world directly.
+ */
+public class LiveBuffer implements ILogfileReader
+{
+	public interface LiveStateListener {
+		/** Called when playback leaves or returns to the live edge of the stream */
+		void liveStateChanged(boolean live);
+	}
+
+	/** number of frames after which a keyframe is stored */
+	private static final int KEYFRAME_INTERVAL = 50;
+
+	/** smallest expected message size, determines how many frames can be indexed */
+	private static final int MIN_FRAME_SIZE = 256;
+
+	/** draw commands exceeding this size are not buffered for a single frame */
+	private static final int MAX_DRAW_BYTES_PER_FRAME = 1024 * 1024;
+
+	private final Viewer viewer;
+	private final byte[] data;
+
+	/** number of bytes written since the buffer was created */
+	private long writePosition = 0;
+
+	private final long[] frameOffsets;
+	private final int[] messageLengths;
+	private final int[] drawLengths;
+	private final boolean[] keyframes;
+
+	/** absolute number of the oldest buffered frame */
+	private long firstFrame = 0;
+	/** absolute number of the frame after the newest buffered frame */
+	private long endFrame = 0;
+	private long lastKeyframe = -1;
+
+	private boolean live = true;
+	private long currentFrame = -1;
+	private String currentMessage;
+
+	/** state at the newest buffered frame, used to create keyframes */
+	private final WorldModel recordWorld = new WorldModel();
+	private final MessageParser recordParser = new MessageParser(recordWorld);
+	private SceneGraph recordSceneGraph;
+
+	/** scratch state used to restore frames between two keyframes */
+	private final WorldModel seekWorld = new WorldModel();
+	private final MessageParser seekParser = new MessageParser(seekWorld);
+
+	private final ByteArrayOutputStream pendingDrawCommands = new ByteArrayOutputStream();
+	private boolean haveDrawCommands = false;
+
+	private final List<LogfileListener> listeners = new CopyOnWriteArrayList<>();
+	private final List<LiveStateListener> liveStateListeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * @param capacity
+	 *            the size of the ring in bytes
+	 */
+	public LiveBuffer(Viewer viewer, int capacity)
+	{
+		this.viewer = viewer;
+		data = new byte[capacity];
+
+		int maxFrames = Math.max(KEYFRAME_INTERVAL * 2, capacity / MIN_FRAME_SIZE);
+		frameOffsets = new long[maxFrames];
+		messageLengths = new int[maxFrames];
+		drawLengths = new int[maxFrames];
+		keyframes = new boolean[maxFrames];
+	}
+
+	public void addLiveStateListener(LiveStateListener l)
+	{
+		liveStateListeners.add(l);
+	}
+
+	public void removeLiveStateListener(LiveStateListener l)
+	{
+		liveStateListeners.remove(l);
+	}
+
+	/**
+	 * Stores draw commands received from agents. They are attached to the next server message.
+	 */
+	public synchronized void addDrawCommand(byte[] command)
+	{
+		if (pendingDrawCommands.size() + command.length <= MAX_DRAW_BYTES_PER_FRAME)
+			pendingDrawCommands.write(command, 0, command.length);
+
+		if (!haveDrawCommands) {
+			haveDrawCommands = true;
+			for (LogfileListener l : listeners)
+				l.haveDrawCmds();
+		}
+	}
+
+	/**
+	 * Stores a message received from the server as the newest frame
+	 */
+	public synchronized void addMessage(String message)
+	{
+		try {
+			recordParser.parse(message);
+		} catch (ParseException | RuntimeException e) {
+			// diffs received before the first full scene graph can not be restored
+			return;
+		}
+		if (recordWorld.getSceneGraph() == null)
+			return;
+
+		boolean fullUpdate = recordWorld.getSceneGraph() != recordSceneGraph;
+		recordSceneGraph = recordWorld.getSceneGraph();
+
+		boolean keyframe = fullUpdate || lastKeyframe < firstFrame || endFrame - lastKeyframe >= KEYFRAME_INTERVAL;
+		byte[] messageBytes = encode(keyframe ? createKeyframe(recordWorld) : message);
+		byte[] drawBytes = pendingDrawCommands.toByteArray();
+		pendingDrawCommands.reset();
+
+		if (!makeRoom(messageBytes.length + drawBytes.length))
+			return;
+		if (!keyframe && firstFrame == endFrame) {
+			// the keyframe this diff depends on had to be dropped
+			keyframe = true;
+			messageBytes = encode(createKeyframe(recordWorld));
+			if (!makeRoom(messageBytes.length + drawBytes.length))
+				return;
+		}
+
+		int slot = slot(endFrame);
+		frameOffsets[slot] = writePosition;
+		messageLengths[slot] = messageBytes.length;
+		drawLengths[slot] = drawBytes.length;
+		keyframes[slot] = keyframe;
+		write(messageBytes);
+		write(drawBytes);
+
+		if (keyframe)
+			lastKeyframe = endFrame;
+		endFrame++;
+	}
+
+	/**
+	 * Drops the oldest frames until the given number of bytes and a frame slot are available
+	 *
+	 * @return false if the frame does not fit into the buffer at all
+	 */
+	private boolean makeRoom(int size)
+	{
+		if (size > data.length)
+			return false;
+
+		while (firstFrame < endFrame && (endFrame - firstFrame >= frameOffsets.length ||
+												writePosition + size - frameOffsets[slot(firstFrame)] > data.length)) {
+			// drop the oldest keyframe together with all diffs that depend on it
+			do {
+				firstFrame++;
+			} while (firstFrame < endFrame && !keyframes[slot(firstFrame)]);
+		}
+		return true;
+	}
+
+	private int slot(long frame)
+	{
+		return (int) (frame % frameOffsets.length);
+	}
+
+	private void write(byte[] bytes)
+	{
+		int start = (int) (writePosition % data.length);
+		int firstPart = Math.min(bytes.length, data.length - start);
+		System.arraycopy(bytes, 0, data, start, firstPart);
+		System.arraycopy(bytes, firstPart, data, 0, bytes.length - firstPart);
+		writePosition += bytes.length;
+	}
+
+	private byte[] read(long position, int length)
+	{
+		byte[] bytes = new byte[length];
+		int start = (int) (position % data.length);
+		int firstPart = Math.min(length, data.length - start);
+		System.arraycopy(data, start, bytes, 0, firstPart);
+		System.arraycopy(data, 0, bytes, firstPart, length - firstPart);
+		return bytes;
+	}
+
+	private static byte[] encode(String message)
+	{
+		return message.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private String readMessage(long frame)
+	{
+		int slot = slot(frame);
+		return new String(read(frameOffsets[slot], messageLengths[slot]), StandardCharsets.US_ASCII);
+	}
+
+	private void executeDrawCommands(long frame)
+	{
+		int slot = slot(frame);
+		if (drawLengths[slot] == 0)
+			return;
+
+		ByteBuffer buf = ByteBuffer.wrap(read(frameOffsets[slot] + messageLengths[slot], drawLengths[slot]));
+		while (buf.hasRemaining()) {
+			try {
+				Command cmd = Command.parse(buf, viewer);
+				if (cmd == null)
+					break;
+				cmd.execute();
+			} catch (Exception e) {
+				System.out.println(e);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Creates a message that restores the complete state of a world when parsed
+	 */
+	private static String createKeyframe(WorldModel world)
+	{
+		StringBuilder sb = new StringBuilder(64 * 1024);
+		world.getGameState().appendFullState(sb);
+		sb.append('(').append(SceneGraphHeader.FULL).append(" 0 1)");
+		world.getSceneGraph().appendFullDescription(sb);
+		return sb.toString();
+	}
+
+	public synchronized boolean isLive()
+	{
+		return live;
+	}
+
+	/**
+	 * Stops following the stream at the newest frame, which the world currently shows
+	 */
+	public synchronized void leaveLive()
+	{
+		if (!live || firstFrame == endFrame)
+			return;
+		live = false;
+		currentFrame = endFrame - 1;
+		currentMessage = null;
+		liveStateChanged();
+	}
+
+	/**
+	 * Restores the newest state with the given parser and continues following the stream
+	 */
+	public synchronized void goLive(MessageParser parser)
+	{
+		if (live)
+			return;
+		if (recordWorld.getSceneGraph() != null) {
+			try {
+				parser.parse(createKeyframe(recordWorld));
+			} catch (ParseException e) {
+				e.printStackTrace();
+			}
+		}
+		live = true;
+		currentFrame = endFrame - 1;
+		currentMessage = null;
+		liveStateChanged();
+	}
+
+	private void liveStateChanged()
+	{
+		for (LiveStateListener l : liveStateListeners)
+			l.liveStateChanged(live);
+	}
+
+	/**
+	 * Moves to a buffered frame. Frames between keyframes are restored by parsing the diffs since
+	 * the last keyframe into a scratch world and describing its state as a single message.
+	 */
+	private void restore(long frame)
+	{
+		long keyframe = frame;
+		while (keyframe > firstFrame && !keyframes[slot(keyframe)])
+			keyframe--;
+
+		if (keyframe == frame) {
+			currentMessage = readMessage(frame);
+		} else {
+			try {
+				for (long i = keyframe; i <= frame; i++)
+					seekParser.parse(readMessage(i));
+				currentMessage = createKeyframe(seekWorld);
+			} catch (ParseException | RuntimeException e) {
+				System.err.println("Could not restore buffered frame " + frame + ": " + e.getMessage());
+				frame = keyframe;
+				currentMessage = readMessage(keyframe);
+			}
+		}
+
+		for (long i = keyframe; i <= frame; i++)
+			executeDrawCommands(i);
+		currentFrame = frame;
+	}
+
+	@Override
+	public boolean isValid()
+	{
+		return true;
+	}
+
+	@Override
+	public synchronized boolean isAtBeginningOfLog()
+	{
+		return !live && currentFrame <= firstFrame;
+	}
+
+	@Override
+	public synchronized boolean isAtEndOfLog()
+	{
+		return live || currentFrame >= endFrame - 1;
+	}
+
+	@Override
+	public void setNumFrames(int numFrames)
+	{
+		// the number of frames is always known
+	}
+
+	@Override
+	public synchronized int getNumFrames()
+	{
+		return (int) (endFrame - firstFrame);
+	}
+
+	@Override
+	public synchronized int getCurrentFrame()
+	{
+		if (live)
+			return Math.max(0, getNumFrames() - 1);
+		return (int) Math.max(0, currentFrame - firstFrame);
+	}
+
+	@Override
+	public synchronized String getCurrentFrameMessage()
+	{
+		return currentMessage;
+	}
+
+	@Override
+	public synchronized void rewind()
+	{
+		stepAnywhere(0);
+	}
+
+	@Override
+	public synchronized void close()
+	{
+		// buffered frames stay available until the viewer exits
+	}
+
+	@Override
+	public synchronized String stepForward()
+	{
+		if (live || currentFrame + 1 >= endFrame)
+			return null;
+
+		if (currentFrame + 1 < firstFrame) {
+			// the frames following the current one were dropped meanwhile
+			restore(firstFrame);
+		} else {
+			currentFrame++;
+			currentMessage = readMessage(currentFrame);
+			executeDrawCommands(currentFrame);
+		}
+		return currentMessage;
+	}
+
+	@Override
+	public synchronized void stepBackward()
+	{
+		if (!live && currentFrame > firstFrame)
+			restore(currentFrame - 1);
+	}
+
+	@Override
+	public synchronized void stepAnywhere(int frame)
+	{
+		if (live || firstFrame == endFrame)
+			return;
+		restore(firstFrame + Math.max(0, Math.min(frame, getNumFrames() - 1)));
+	}
+
+	@Override
+	public void addListener(LogfileListener l)
+	{
+		listeners.add(l);
+	}
+
+	@Override
+	public void removeListener(LogfileListener l)
+	{
+		listeners.remove(l);
+	}
+
+	@Override
+	public File getFile()
+	{
+		return null;
+	}
+}
@@ -28,6 +28,7 @@ import rv.Configuration;
 import rv.Viewer;
 import rv.comm.rcssserver.ILogfileReader.LogfileListener;
 import rv.comm.rcssserver.LogAnalyzerThread.Goal;
+import rv.comm.rcssserver.scenegraph.SceneGraph;
 import rv.util.StringUtil;
 import rv.util.swing.FileChooser;
 import rv.world.WorldModel;
@@ -55,9 +56,13 @@ public class LogPlayer implements LogfileListener
 
 	private final Configuration config;
 	private ILogfileReader logfile;
+	/** set when time shifting a live stream instead of playing a logfile */
+	private LiveBuffer liveBuffer;
+	private volatile boolean liveRequested = false;
 	private LogRunnerThread logRunner;
 	private LogAnalyzerThread logAnalyzer;
 	private final MessageParser parser;
+	private WorldModel world;
 	private boolean playing;
 	private double playbackSpeed = 1;
 	private Integer desiredFrame = null;
@@ -83,6 +88,7 @@ public class LogPlayer implements LogfileListener
 		this.viewer = viewer;
 
 		playing = false;
+		this.world = world;
 		parser = new MessageParser(world);
 
 		if (file == null)
@@ -98,8 +104,26 @@ public class LogPlayer implements LogfileListener
 		startRunnerThread();
 	}
 
+	/**
+	 * Plays back the buffered part of a live stream. The player follows the stream until it is
+	 * paused or moved to another frame, and returns to it when playback reaches the newest frame.
+	 */
+	public LogPlayer(LiveBuffer buffer, WorldModel world, Configuration config, Viewer viewer)
+	{
+		this((File) null, world, config, viewer);
+
+		// the server sends a monitor message every other simulation cycle
+		SECONDS_PER_FRAME = 0.04f;
+		liveBuffer = buffer;
+		logfile = buffer;
+		logfile.addListener(this);
+		logAnalyzed = true;
+		startRunnerThread();
+	}
+
 	public void setWorldModel(WorldModel world)
 	{
+		this.world = world;
 		parser.setWorldModel(world);
 	}
 
@@ -130,6 +154,30 @@ public class LogPlayer implements LogfileListener
 		return logfile != null && logfile.isAtBeginningOfLog();
 	}
 
+	/**
+	 * @return true if this player time shifts a live stream instead of playing a logfile
+	 */
+	public boolean isLiveStream()
+	{
+		return liveBuffer != null;
+	}
+
+	public boolean isLive()
+	{
+		return liveBuffer != null && liveBuffer.isLive();
+	}
+
+	/**
+	 * Jumps to the newest state of the live stream and follows it again
+	 */
+	public void goLive()
+	{
+		if (liveBuffer == null)
+			return;
+		desiredFrame = null;
+		liveRequested = true;
+	}
+
 	public boolean isAtEnd()
 	{
 		return logfile != null && logfile.isAtEndOfLog();
@@ -168,6 +216,8 @@ public class LogPlayer implements LogfileListener
 
 	public void rewind()
 	{
+		if (liveBuffer != null)
+			liveBuffer.leaveLive();
 		viewer.getDrawings().clearAllShapeSets();
 		setDesiredFrame(0);
 	}
@@ -240,7 +290,7 @@ public class LogPlayer implements LogfileListener
 
 	public String getFilePath()
 	{
-		if (logfile == null)
+		if (logfile == null || logfile.getFile() == null)
 			return null;
 		return logfile.getFile().getPath();
 	}
@@ -460,6 +510,9 @@ public class LogPlayer implements LogfileListener
 			}
 
 			while (!aborted) {
+				if (liveBuffer != null && followLiveStream())
+					continue;
+
 				if ((logfile.isAtEndOfLog() && playbackSpeed > 0) ||
 						(logfile.isAtBeginningOfLog() && playbackSpeed < 0))
 					pause();
@@ -490,6 +543,37 @@ public class LogPlayer implements LogfileListener
 			}
 		}
 
+		/**
+		 * While the live stream is followed, the server connection updates the world. Pausing or
+		 * moving to another frame starts time shifting, and playing past the newest buffered frame
+		 * returns to the stream.
+		 *
+		 * @return true if the live stream is followed and no frame has to be played back
+		 */
+		private boolean followLiveStream()
+		{
+			if (liveBuffer.isLive()) {
+				if (playing && playbackSpeed > 0 && desiredFrame == null) {
+					try {
+						Thread.sleep(Math.round(SECONDS_PER_FRAME * 1000));
+					} catch (InterruptedException e) {
+					}
+					stateChanged();
+					return true;
+				}
+				liveBuffer.leaveLive();
+			} else if (liveRequested ||
+					   (playing && playbackSpeed > 0 && desiredFrame == null && logfile.isAtEndOfLog())) {
+				liveRequested = false;
+				liveBuffer.goLive(parser);
+				playbackSpeed = 1;
+				setPlaying(true);
+				stateChanged();
+				return true;
+			}
+			return false;
+		}
+
 		private void setCurrentFrame(int previousFrame, int frame)
 		{
 			if (frame == getFrame()) {
@@ -501,6 +585,10 @@ public class LogPlayer implements LogfileListener
 					logfile.stepForward();
 					parseFrame();
 				} else {
+					// the motion between frames that are further apart is not known, so don't blend it
+					SceneGraph sceneGraph = world.getSceneGraph();
+					if (sceneGraph != null && Math.abs(frame - previousFrame) > 1)
+						sceneGraph.snapNextUpdate();
 					stepAnywhere(frame);
 				}
 			} catch (Exception e) {
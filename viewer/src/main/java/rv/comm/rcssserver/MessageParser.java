@@ -57,7 +57,7 @@ public class MessageParser
 				SceneGraph sg = new SceneGraph(expressions.get(2));
 				world.setSceneGraph(sg);
 			} else {
-				world.getSceneGraph().update(expressions.get(2));
+				world.updateSceneGraph(expressions.get(2));
 			}
 		}
 	}
@@ -0,0 +1,262 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.rcssserver;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive jitter buffer for live server messages. Arrivals are time stamped to estimate the
+ * message interval and the network jitter, and a playout thread hands the messages to the consumer
+ * at a steady cadence, delayed by a multiple of the jitter. The delay grows after underruns and
+ * shrinks again while the network is calm.
+ * <p>
+ * Messages are never discarded, since later diffs depend on them. If the backlog exceeds the
+ * maximum delay, the surplus messages are played without pacing and counted as dropped frames.
+ */
+public class PlayoutBuffer
+{
+	public interface MessageConsumer {
+		void playMessage(String message);
+	}
+
+	private static final long MS = 1000000;
+	private static final long MIN_DELAY = 20 * MS;
+	private static final long MAX_DELAY = 500 * MS;
+	private static final long DEFAULT_INTERVAL = 40 * MS;
+	/** inter-arrival times above this are connection pauses, not jitter */
+	private static final long MAX_INTERVAL = 1000 * MS;
+	/** the delay in multiples of the estimated jitter */
+	private static final float JITTER_FACTOR = 3;
+
+	private final MessageConsumer consumer;
+	private final LongSupplier clock;
+	private final ArrayDeque<String> queue = new ArrayDeque<>();
+	private final Thread playoutThread;
+
+	private long lastArrival = 0;
+	private double interval = DEFAULT_INTERVAL;
+	private double jitter = 0;
+	private boolean buffering = true;
+	/** arrival time of the oldest message queued while buffering */
+	private long bufferingSince = 0;
+	/** true while the playout thread hands messages to the consumer */
+	private boolean playing = false;
+
+	private volatile long targetDelay = MIN_DELAY;
+	private volatile long currentDelay = 0;
+	private volatile int underruns = 0;
+	private volatile int droppedFrames = 0;
+
+	public PlayoutBuffer(MessageConsumer consumer)
+	{
+		this(consumer, System::nanoTime, true);
+	}
+
+	/**
+	 * @param clock
+	 *            - time in nanoseconds
+	 * @param start
+	 *            - false to only estimate the delay without playing messages, e.g. for tests
+	 */
+	PlayoutBuffer(MessageConsumer consumer, LongSupplier clock, boolean start)
+	{
+		this.consumer = consumer;
+		this.clock = clock;
+		playoutThread = new Thread(this::run, "PlayoutBuffer");
+		playoutThread.setDaemon(true);
+		if (start)
+			playoutThread.start();
+	}
+
+	/**
+	 * Queues a message that was just received
+	 */
+	public synchronized void add(String message)
+	{
+		long now = clock.getAsLong();
+		if (lastArrival != 0) {
+			long delta = now - lastArrival;
+			if (delta < MAX_INTERVAL) {
+				interval += (delta - interval) / 16;
+				jitter += (Math.abs(delta - interval) - jitter) / 16;
+			}
+		}
+		lastArrival = now;
+		updateTargetDelay();
+
+		if (buffering && queue.isEmpty())
+			bufferingSince = now;
+		queue.add(message);
+		notifyAll();
+	}
+
+	/**
+	 * Discards queued messages, e.g. when the connection is closed, and waits until the consumer has
+	 * handled the messages that were already being played
+	 */
+	public synchronized void clear()
+	{
+		queue.clear();
+		lastArrival = 0;
+		buffering = true;
+
+		if (Thread.currentThread() == playoutThread)
+			return;
+		try {
+			while (playing)
+				wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void updateTargetDelay()
+	{
+		targetDelay = Math.max(MIN_DELAY, Math.min(MAX_DELAY, (long) (JITTER_FACTOR * jitter)));
+	}
+
+	private long getBacklog()
+	{
+		return (long) (queue.size() * interval);
+	}
+
+	private void run()
+	{
+		long nextRelease = clock.getAsLong();
+		while (true) {
+			String message;
+			String[] surplus = null;
+			synchronized (this) {
+				try {
+					while (queue.isEmpty() || (buffering && getBacklog() < targetDelay)) {
+						if (queue.isEmpty()) {
+							wait(buffering ? 0 : Math.max(1, (long) interval / MS));
+							continue;
+						}
+						// the stream may pause before the backlog is complete, so messages also
+						// leave the buffer once the oldest one has waited for the target delay
+						long remaining = bufferingSince + targetDelay - clock.getAsLong();
+						if (remaining <= 0)
+							break;
+						wait(Math.max(1, remaining / MS));
+					}
+				} catch (InterruptedException e) {
+					return;
+				}
+
+				if (buffering) {
+					buffering = false;
+					nextRelease = clock.getAsLong();
+				}
+
+				playing = true;
+				message = queue.poll();
+				long backlog = getBacklog();
+				if (backlog > MAX_DELAY) {
+					// catch up instead of lagging further behind
+					int count = queue.size() - (int) (targetDelay / interval);
+					surplus = new String[count];
+					for (int i = 0; i < count; i++)
+						surplus[i] = queue.poll();
+					droppedFrames += count;
+					backlog = getBacklog();
+				}
+				currentDelay = backlog;
+
+				// play slightly faster or slower to approach the target delay
+				double step = interval;
+				if (backlog > targetDelay + interval)
+					step *= 0.9;
+				else if (backlog < targetDelay - interval)
+					step *= 1.1;
+				nextRelease += (long) step;
+			}
+
+			try {
+				play(message);
+				if (surplus != null) {
+					for (String m : surplus)
+						play(m);
+				}
+			} finally {
+				synchronized (this) {
+					playing = false;
+					notifyAll();
+				}
+			}
+
+			long wait = nextRelease - clock.getAsLong();
+			if (wait > 0) {
+				try {
+					Thread.sleep(wait / MS, (int) (wait % MS));
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+
+			synchronized (this) {
+				// after clear(), the buffer is already refilling
+				if (queue.isEmpty() && !buffering) {
+					// the next message is late: buffer more from now on
+					underruns++;
+					jitter += interval / JITTER_FACTOR;
+					updateTargetDelay();
+					buffering = true;
+				}
+			}
+		}
+	}
+
+	/** Passes a message to the consumer, reporting its failures instead of ending playout */
+	private void play(String message)
+	{
+		try {
+			consumer.playMessage(message);
+		} catch (RuntimeException e) {
+			System.err.println("Exception while playing a message: " + e);
+			e.printStackTrace();
+		}
+	}
+
+	public long getTargetDelayMS()
+	{
+		return targetDelay / MS;
+	}
+
+	public long getCurrentDelayMS()
+	{
+		return currentDelay / MS;
+	}
+
+	public int getUnderruns()
+	{
+		return underruns;
+	}
+
+	public int getDroppedFrames()
+	{
+		return droppedFrames;
+	}
+
+	public String getStatus()
+	{
+		return String.format(Locale.US, "Playout Delay: %d ms (target %d ms), Underruns: %d, Dropped: %d",
+				getCurrentDelayMS(), getTargetDelayMS(), underruns, droppedFrames);
+	}
+}
@@ -23,6 +23,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -51,8 +52,6 @@ public class ServerComm implements DrawCommListener
 	 */
 	private class MessageReceiver extends Thread
 	{
-		private final MessageParser parser = new MessageParser(world);
-
 		private final String host;
 
 		private final int port;
@@ -75,18 +74,17 @@ public class ServerComm implements DrawCommListener
 				if (recordLogs)
 					setupNewLogfile();
 
+				if (playoutBuffer != null)
+					playoutBuffer.clear();
+
 				String message;
 				do {
 					message = readMessage();
 					if (message != null) {
-						try {
-							parser.parse(message);
-							if (logfileOutput != null)
-								writeToLogfile(message);
-
-						} catch (ParseException e) {
-							e.printStackTrace();
-						}
+						if (playoutBuffer != null)
+							playoutBuffer.add(message);
+						else
+							processMessage(message);
 					}
 				} while (message != null);
 
@@ -138,6 +136,9 @@ public class ServerComm implements DrawCommListener
 	private boolean recordLogs = false;
 	private String logfileDirectory = null;
 	private String drawCommands = "";
+	private LiveBuffer liveBuffer = null;
+	private final MessageParser parser;
+	private PlayoutBuffer playoutBuffer = null;
 
 	private void setConnected(boolean connected)
 	{
@@ -166,6 +167,54 @@ public class ServerComm implements DrawCommListener
 		return world;
 	}
 
+	/**
+	 * @return the time shift buffer of received messages, or null if disabled
+	 */
+	public LiveBuffer getLiveBuffer()
+	{
+		return liveBuffer;
+	}
+
+	/**
+	 * @return the jitter buffer that paces received messages, or null if disabled
+	 */
+	public PlayoutBuffer getPlayoutBuffer()
+	{
+		return playoutBuffer;
+	}
+
+	public void setLiveBuffer(LiveBuffer liveBuffer)
+	{
+		this.liveBuffer = liveBuffer;
+	}
+
+	private void processMessage(String message)
+	{
+		try {
+			handleMessage(message);
+			if (logfileOutput != null)
+				writeToLogfile(message);
+		} catch (ParseException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void handleMessage(String message) throws ParseException
+	{
+		if (liveBuffer == null) {
+			parser.parse(message);
+			return;
+		}
+
+		// while time shifting, messages are only buffered until playback returns to live
+		synchronized (liveBuffer)
+		{
+			liveBuffer.addMessage(message);
+			if (liveBuffer.isLive())
+				parser.parse(message);
+		}
+	}
+
 	private void writeToLogfile(String msg)
 	{
 		synchronized (this)
@@ -180,8 +229,11 @@ public class ServerComm implements DrawCommListener
 	public ServerComm(WorldModel world, Configuration config, Viewer.Mode viewerMode)
 	{
 		this.world = world;
+		this.parser = new MessageParser(world);
 
 		Configuration.Networking net = config.networking;
+		if (net.playoutBuffer)
+			playoutBuffer = new PlayoutBuffer(this::processMessage);
 
 		serverHost = net.getServerHost();
 		serverPort = net.getServerPort();
@@ -225,7 +277,10 @@ public class ServerComm implements DrawCommListener
 
 	private void closeCurrentLogfile()
 	{
-		logfileOutput.close();
+		if (logfileOutput != null) {
+			logfileOutput.close();
+			logfileOutput = null;
+		}
 	}
 
 	public void connect()
@@ -250,6 +305,9 @@ public class ServerComm implements DrawCommListener
 
 	public void disconnect()
 	{
+		// queued frames must neither reach the world nor the logfile after the connection is gone
+		if (playoutBuffer != null)
+			playoutBuffer.clear();
 		if (recordLogs)
 			closeCurrentLogfile();
 
@@ -370,8 +428,15 @@ public class ServerComm implements DrawCommListener
 	}
 
 	@Override
-	public void drawCommandReceived(byte[] cmd)
+	public void drawCommandReceived(ByteBuffer command)
 	{
+		if (liveBuffer == null && logfileOutput == null)
+			return;
+
+		byte[] cmd = new byte[command.remaining()];
+		command.get(cmd);
+		if (liveBuffer != null)
+			liveBuffer.addDrawCommand(cmd);
 		if (logfileOutput != null) {
 			synchronized (this)
 			{
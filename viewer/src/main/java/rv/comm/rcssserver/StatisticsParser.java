@@ -4,7 +4,6 @@ import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 import jsgl.math.vector.Vec3f;
-import rv.Viewer;
 import rv.util.MatrixUtil;
 import rv.world.Team;
 import rv.world.WorldModel;
@@ -154,18 +153,16 @@ public class StatisticsParser implements GameState.ServerMessageReceivedListener
 	private Map<String, List<Statistic>> statistics;
 	private List<PossessionStatistic> possessionValuesOverTime = new CopyOnWriteArrayList<>();
 
-	private final Viewer viewer;
 	private final WorldModel world;
 
 	private final List<StatisticsParserListener> spListeners = new CopyOnWriteArrayList<>();
 
 	private BallEstimator ballEstimator;
 
-	public StatisticsParser(WorldModel world, Viewer viewer)
+	public StatisticsParser(WorldModel world)
 	{
-		this.viewer = viewer;
 		this.world = world;
-		this.ballEstimator = new BallEstimator(viewer);
+		this.ballEstimator = new BallEstimator(world, this);
 
 		time = 0;
 		prevTime = 0;
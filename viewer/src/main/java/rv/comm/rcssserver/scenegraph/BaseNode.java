@@ -32,6 +32,12 @@ public class BaseNode extends Node
 		// (nd BN <contents>)
 	}
 
+	@Override
+	protected void appendProperties(StringBuilder sb)
+	{
+		sb.append(' ').append(EXP_ABRV);
+	}
+
 	@Override
 	public String toString()
 	{
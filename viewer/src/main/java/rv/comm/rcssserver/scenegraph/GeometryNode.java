@@ -16,6 +16,7 @@
 
 package rv.comm.rcssserver.scenegraph;
 
+import java.nio.DoubleBuffer;
 import jsgl.math.vector.Matrix;
 import jsgl.math.vector.Vec3f;
 import rv.comm.rcssserver.SExp;
@@ -117,6 +118,30 @@ public abstract class GeometryNode extends Node
 		return false;
 	}
 
+	/** Appends the operations that recreate the current state of this node */
+	protected void appendOperations(StringBuilder sb)
+	{
+		if (name != null)
+			sb.append(" (load ").append(name).append(')');
+		if (localTransform != null) {
+			DoubleBuffer values = scale.wrap();
+			sb.append(" (sSc");
+			appendNumber(sb, (float) values.get(0));
+			appendNumber(sb, (float) values.get(5));
+			appendNumber(sb, (float) values.get(10));
+			sb.append(')');
+		}
+		sb.append(" (setVisible ").append(visible ? 1 : 0).append(')');
+		if (transparent)
+			sb.append(" (setTransparent)");
+		if (materials != null) {
+			sb.append(" (resetMaterials");
+			for (String material : materials)
+				sb.append(' ').append(material);
+			sb.append(')');
+		}
+	}
+
 	@Override
 	public void update(SExp exp)
 	{
@@ -60,6 +60,23 @@ public class LightNode extends Node
 			array[i] = Float.parseFloat(atoms[i + 1]);
 	}
 
+	@Override
+	protected void appendProperties(StringBuilder sb)
+	{
+		sb.append(' ').append(EXP_ABRV);
+		appendValues(sb, "setDiffuse", diffuse);
+		appendValues(sb, "setAmbient", ambient);
+		appendValues(sb, "setSpecular", specular);
+	}
+
+	private static void appendValues(StringBuilder sb, String operation, float[] array)
+	{
+		sb.append(" (").append(operation);
+		for (float value : array)
+			appendNumber(sb, value);
+		sb.append(')');
+	}
+
 	@Override
 	public String toString()
 	{
@@ -16,6 +16,7 @@
 
 package rv.comm.rcssserver.scenegraph;
 
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import jsgl.math.vector.Matrix;
 import rv.comm.rcssserver.SExp;
@@ -70,22 +71,89 @@ public abstract class Node
 	 */
 	public Matrix getWorldTransform()
 	{
+		Matrix local = getRenderTransform();
 		if (parent == null) {
-			if (localTransform == null)
+			if (local == null)
 				return Matrix.createIdentity();
-			return localTransform;
+			return local;
 		} else {
-			if (localTransform == null)
+			if (local == null)
 				return parent.getWorldTransform();
-			return parent.getWorldTransform().times(localTransform);
+			return parent.getWorldTransform().times(local);
 		}
 	}
 
+	/**
+	 * Multiplies dst by the absolute transformation of this node. This gives the same result as
+	 * dst.times(getWorldTransform()), but doesn't allocate.
+	 */
+	public void applyWorldTransform(Matrix dst)
+	{
+		if (parent != null)
+			parent.applyWorldTransform(dst);
+		Matrix local = getRenderTransform();
+		if (local != null)
+			dst.multiply(local);
+	}
+
+	/**
+	 * The local transformation used for rendering, which may be interpolated between the last two
+	 * updates
+	 */
+	protected Matrix getRenderTransform()
+	{
+		return localTransform;
+	}
+
 	public Node(Node parent)
 	{
 		this.parent = parent;
 	}
 
+	/**
+	 * Appends the declaration of this node and all of its children in the format of a full scene
+	 * graph message, so parsing it again creates an identical branch
+	 */
+	protected void appendDeclaration(StringBuilder sb)
+	{
+		sb.append('(').append(DECL_ABRV);
+		appendProperties(sb);
+		if (children != null) {
+			for (Node child : children)
+				child.appendDeclaration(sb);
+		}
+		sb.append(')');
+	}
+
+	/** Appends the node type and its current properties to a declaration */
+	protected abstract void appendProperties(StringBuilder sb);
+
+	/** Appends the atoms of a matrix in the column-major order used by the server */
+	protected static void appendMatrix(StringBuilder sb, Matrix matrix)
+	{
+		DoubleBuffer values = matrix.wrap();
+		for (int i = 0; i < 16; i++)
+			appendNumber(sb, values.get(i));
+	}
+
+	protected static void appendNumber(StringBuilder sb, double value)
+	{
+		sb.append(' ');
+		if (value == (long) value)
+			sb.append((long) value);
+		else
+			sb.append(value);
+	}
+
+	protected static void appendNumber(StringBuilder sb, float value)
+	{
+		sb.append(' ');
+		if (value == (long) value)
+			sb.append((long) value);
+		else
+			sb.append(value);
+	}
+
 	protected void update(SExp exp)
 	{
 		if (exp.getChildren() == null || children == null)
@@ -33,7 +33,17 @@ public class SceneGraph
 		void updatedSceneGraph(SceneGraph sg);
 	}
 
+	/** assumed time between two updates until it was measured */
+	private static final long DEFAULT_UPDATE_INTERVAL = 40000000;
+
+	/** pauses longer than this are not considered when measuring the update interval */
+	private static final long MAX_UPDATE_INTERVAL = 250000000;
+
 	private final Node root;
+	private final List<TransformNode> transformNodes = new ArrayList<>();
+	private long lastUpdateTime = System.nanoTime();
+	private long updateInterval = DEFAULT_UPDATE_INTERVAL;
+	private boolean snapNextUpdate = false;
 
 	public Node getRoot()
 	{
@@ -192,7 +202,57 @@ public class SceneGraph
 	 */
 	public void update(SExp exp)
 	{
+		long time = System.nanoTime();
+		long interval = time - lastUpdateTime;
+		if (interval < MAX_UPDATE_INTERVAL)
+			updateInterval = (updateInterval * 7 + interval) / 8;
+		lastUpdateTime = time;
+
+		for (TransformNode node : transformNodes)
+			node.beginInterpolation(snapNextUpdate);
 		root.update(exp);
+		snapNextUpdate = false;
+	}
+
+	/**
+	 * Makes the next update render its transformations immediately instead of blending to them.
+	 * This is needed when the next update doesn't follow the last one in time, e.g. after seeking in
+	 * a logfile.
+	 */
+	public void snapNextUpdate()
+	{
+		snapNextUpdate = true;
+	}
+
+	/**
+	 * Blends the rendered transformations between the last two updates. The progress is the time
+	 * since the last update relative to the measured update interval, so rendering lags behind the
+	 * server by up to one update in exchange for smooth motion at any frame rate.
+	 *
+	 * @param time
+	 *            the current time as returned by {@link System#nanoTime()}
+	 * @return true if the transformations have not reached the last update yet
+	 */
+	public boolean interpolate(long time)
+	{
+		float alpha = Math.min(1, Math.max(0, (time - lastUpdateTime) / (float) updateInterval));
+		for (TransformNode node : transformNodes)
+			node.interpolate(alpha);
+		return alpha < 1;
+	}
+
+	/**
+	 * Appends an expression declaring every node of the scene graph in its current state, as the
+	 * server does in a full update. Parsing it creates a scene graph with the same structure.
+	 */
+	public void appendFullDescription(StringBuilder sb)
+	{
+		sb.append('(');
+		if (root.children != null) {
+			for (Node child : root.children)
+				child.appendDeclaration(sb);
+		}
+		sb.append(')');
 	}
 
 	/**
@@ -215,6 +275,7 @@ public class SceneGraph
 				switch (type) {
 				case TransformNode.EXP_ABRV:
 					node = new TransformNode(parent, e);
+					transformNodes.add((TransformNode) node);
 					break;
 				case LightNode.EXP_ABRV:
 					node = new LightNode(parent, e);
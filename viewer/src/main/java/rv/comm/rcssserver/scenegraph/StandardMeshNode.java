@@ -39,6 +39,13 @@ public class StandardMeshNode extends GeometryNode
 		// matDarkGrey))
 	}
 
+	@Override
+	protected void appendProperties(StringBuilder sb)
+	{
+		sb.append(' ').append(EXP_ABRV);
+		appendOperations(sb);
+	}
+
 	@Override
 	protected void load(SExp exp)
 	{
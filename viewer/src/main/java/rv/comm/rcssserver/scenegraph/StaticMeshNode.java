@@ -44,6 +44,13 @@ public class StaticMeshNode extends GeometryNode
 		name = exp.getAtoms()[1];
 	}
 
+	@Override
+	protected void appendProperties(StringBuilder sb)
+	{
+		sb.append(' ').append(EXP_ABRV);
+		appendOperations(sb);
+	}
+
 	@Override
 	public String toString()
 	{
@@ -30,6 +30,27 @@ public class TransformNode extends Node
 	/** Abbreviation declaring this node type in an s-expression */
 	public static final String EXP_ABRV = "TRF";
 
+	/**
+	 * objects that move further between two updates were repositioned, e.g. after a goal, and are
+	 * not blended
+	 */
+	private static final double MAX_BLEND_DISTANCE = 1.0;
+
+	/** the rendered local transformation at the time of the last update */
+	private final Matrix previousTransform = Matrix.createIdentity();
+
+	/** the local transformation at the time of the last update, null before the first one */
+	private Matrix previousLocalTransform;
+
+	/** true if the previous transformation was blended */
+	private boolean previousBlended = false;
+
+	/** local transformation blended from the previous one */
+	private final Matrix blendedTransform = Matrix.createIdentity();
+
+	/** true while the blended transformation is rendered */
+	private boolean blending = false;
+
 	public TransformNode(Node parent, SExp exp)
 	{
 		super(parent);
@@ -58,6 +79,52 @@ public class TransformNode extends Node
 		}
 	}
 
+	/**
+	 * Remembers the currently rendered transformation as the start of the next interpolation
+	 *
+	 * @param snap
+	 *            true if the next update doesn't continue the motion so far, e.g. after seeking, so
+	 *            its transformation is rendered immediately
+	 */
+	void beginInterpolation(boolean snap)
+	{
+		Matrix current = getRenderTransform();
+		if (current != null)
+			previousTransform.set(current);
+		previousLocalTransform = snap ? null : localTransform;
+		previousBlended = blending;
+	}
+
+	/**
+	 * Blends the rendered transformation between the previous and the current one
+	 *
+	 * @param alpha
+	 *            progress between the last two updates in [0, 1]
+	 */
+	void interpolate(float alpha)
+	{
+		// nothing to blend if the transformation didn't change since it was reached
+		boolean unchanged = localTransform == previousLocalTransform && !previousBlended;
+		blending = previousLocalTransform != null && !unchanged && alpha < 1 && !isJump();
+		if (blending)
+			Matrix.interpolate(previousTransform, localTransform, alpha, blendedTransform);
+	}
+
+	/** Checks if the translation changed too much since the last update to blend it */
+	private boolean isJump()
+	{
+		double dx = localTransform.get(0, 3) - previousTransform.get(0, 3);
+		double dy = localTransform.get(1, 3) - previousTransform.get(1, 3);
+		double dz = localTransform.get(2, 3) - previousTransform.get(2, 3);
+		return dx * dx + dy * dy + dz * dz > MAX_BLEND_DISTANCE * MAX_BLEND_DISTANCE;
+	}
+
+	@Override
+	protected Matrix getRenderTransform()
+	{
+		return blending ? blendedTransform : localTransform;
+	}
+
 	@Override
 	public void update(SExp exp)
 	{
@@ -67,6 +134,14 @@ public class TransformNode extends Node
 		super.update(exp);
 	}
 
+	@Override
+	protected void appendProperties(StringBuilder sb)
+	{
+		sb.append(' ').append(EXP_ABRV).append(" (SLT");
+		appendMatrix(sb, localTransform != null ? localTransform : Matrix.createIdentity());
+		sb.append(')');
+	}
+
 	@Override
 	public String toString()
 	{
@@ -25,8 +25,14 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.imageio.ImageIO;
 import jsgl.jogl.GLInfo;
 import jsgl.jogl.ShaderProgram;
@@ -57,22 +63,71 @@ public class ContentManager implements SceneGraphListener, GameState.GameStateCh
 	public static final String TEXTURE_ROOT = "textures/";
 	public static final String MATERIAL_ROOT = "materials/";
 
-	private class ModelLoader extends Thread
+	/** Number of threads reading model files */
+	private static final int LOADER_THREADS = 2;
+
+	/** Models that are loaded after all others, since they are not needed to follow the game */
+	private static final String[] DECORATION_MODELS = {"skybox", "field", "goal"};
+
+	/** Interface for listeners that are notified on the GL thread when a model has been loaded */
+	public interface ModelLoadListener {
+		void modelLoaded(Model model);
+	}
+
+	/**
+	 * Reads the mesh data of a model in the background and then lets the GL thread initialize it.
+	 * Robot parts and the ball are loaded before decorations, otherwise models are loaded in the
+	 * order they were requested.
+	 */
+	private class ModelLoader implements Runnable, Comparable<ModelLoader>
 	{
 		private final Model model;
+		private final int priority;
+		private final long sequence = loaderSequence.getAndIncrement();
 
 		public ModelLoader(Model model)
 		{
 			this.model = model;
+			int priority = 0;
+			for (String decoration : DECORATION_MODELS)
+				if (model.getName().contains(decoration))
+					priority = 1;
+			this.priority = priority;
 		}
 
+		@Override
 		public void run()
 		{
-			model.readMeshData(ContentManager.this);
-			synchronized (ContentManager.this)
-			{
-				modelsToInitialize.add(model);
+			try {
+				model.readMeshData(ContentManager.this);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+				modelFinished();
+				return;
 			}
+
+			// meshes need a current OpenGL context to finish initializing
+			boolean queued = drawable.invoke(false, d -> {
+				try {
+					model.init(d.getGL().getGL2(), meshRenderMode);
+				} finally {
+					modelFinished();
+				}
+				for (ModelLoadListener l : modelLoadListeners)
+					l.modelLoaded(model);
+				return true;
+			});
+			// the drawable is not realized (anymore), so the model will never be initialized
+			if (!queued)
+				modelFinished();
+		}
+
+		@Override
+		public int compareTo(ModelLoader other)
+		{
+			if (priority != other.priority)
+				return Integer.compare(priority, other.priority);
+			return Long.compare(sequence, other.sequence);
 		}
 	}
 
@@ -82,9 +137,19 @@ public class ContentManager implements SceneGraphListener, GameState.GameStateCh
 	private Texture2D whiteTexture;
 	public static Texture2D selectionTexture;
 	public static Texture2D selectionTextureThin;
-	private final List<Model> modelsToInitialize = new ArrayList<>();
-	private final List<Model> models = new ArrayList<>();
+	private final ConcurrentHashMap<String, Model> models = new ConcurrentHashMap<>();
+	private final AtomicLong loaderSequence = new AtomicLong();
+	private final AtomicInteger pendingModels = new AtomicInteger();
+	private final List<ModelLoadListener> modelLoadListeners = new CopyOnWriteArrayList<>();
+	private final ThreadPoolExecutor modelLoader = new ThreadPoolExecutor(LOADER_THREADS, LOADER_THREADS, 0,
+			TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(), r -> {
+				Thread thread = new Thread(r, "Model Loader");
+				thread.setDaemon(true);
+				return thread;
+			});
+	private GLAutoDrawable drawable;
 	private ObjMaterialLibrary naoMaterialLib;
+	private volatile boolean useMeshLOD = true;
 
 	public Texture2D getWhiteTexture()
 	{
@@ -96,6 +161,18 @@ public class ContentManager implements SceneGraphListener, GameState.GameStateCh
 		return meshRenderMode;
 	}
 
+	/** Checks if simplified levels of detail are created for the models that are loaded */
+	public boolean isUsingMeshLOD()
+	{
+		return useMeshLOD;
+	}
+
+	/** Sets if models loaded from now on get simplified levels of detail */
+	public void setUseMeshLOD(boolean useMeshLOD)
+	{
+		this.useMeshLOD = useMeshLOD;
+	}
+
 	public ObjMaterial getMaterial(String name)
 	{
 		for (ObjMaterial mat : naoMaterialLib.getMaterials())
@@ -106,43 +183,57 @@ public class ContentManager implements SceneGraphListener, GameState.GameStateCh
 
 	/**
 	 * Retrieves model from content manager. If model is not found in set of loaded models, it is
-	 * added to a queue and loaded.
+	 * added to a queue and loaded. Can be called from any thread without locking.
 	 */
-	public synchronized Model getModel(String name)
+	public Model getModel(String name)
 	{
-		for (Model model : models) {
-			if (model.getName().equals(name)) {
-				return model;
-			}
-		}
-
-		// The requested mesh was not found, so we create a new one and start
-		// loading it in a thread.
-		Model model = new Model(name);
-		models.add(model);
-		new ModelLoader(model).start();
-
-		return model;
+		Model model = models.get(name);
+		if (model != null)
+			return model;
+
+		// The requested mesh was not found, so we create a new one and queue
+		// it for loading. Only the thread that adds it to the map loads it.
+		Model newModel = new Model(name);
+		model = models.putIfAbsent(name, newModel);
+		if (model != null)
+			return model;
+		pendingModels.incrementAndGet();
+		modelLoader.execute(new ModelLoader(newModel));
+		return newModel;
 	}
 
-	public ContentManager(Configuration.TeamColors config)
+	/** Number of requested models that are still being loaded */
+	public int getPendingModelCount()
 	{
-		this.config = config;
+		return pendingModels.get();
 	}
 
-	public synchronized void update(GL2 gl)
+	/**
+	 * Blocks until all requested models have been loaded or have failed to load. Must not be called
+	 * while holding the drawable's OpenGL context, since the models are initialized with it.
+	 */
+	public void waitForPendingModels() throws InterruptedException
 	{
-		// meshes need a current OpenGL context to finish initializing, so this
-		// update pass checks all models that are waiting to initialize and then
-		// clears the list
-
-		if (modelsToInitialize.size() == 0)
-			return;
+		synchronized (pendingModels)
+		{
+			while (pendingModels.get() > 0)
+				pendingModels.wait();
+		}
+	}
 
-		for (Model m : modelsToInitialize)
-			m.init(gl, meshRenderMode);
+	private void modelFinished()
+	{
+		if (pendingModels.decrementAndGet() == 0) {
+			synchronized (pendingModels)
+			{
+				pendingModels.notifyAll();
+			}
+		}
+	}
 
-		modelsToInitialize.clear();
+	public ContentManager(Configuration.TeamColors config)
+	{
+		this.config = config;
 	}
 
 	public static void renderSelection(GL2 gl, Vec3f p, float r, float[] color, float alpha, boolean thin)
@@ -166,8 +257,20 @@ public class ContentManager implements SceneGraphListener, GameState.GameStateCh
 		Texture2D.unbind(gl);
 	}
 
+	public void addModelLoadListener(ModelLoadListener l)
+	{
+		modelLoadListeners.add(l);
+	}
+
+	public void removeModelLoadListener(ModelLoadListener l)
+	{
+		modelLoadListeners.remove(l);
+	}
+
 	public boolean init(GLAutoDrawable drawable, GLInfo glInfo)
 	{
+		this.drawable = drawable;
+
 		// use VBOs if they are supported
 		if (glInfo.extSupported("GL_ARB_vertex_buffer_object")) {
 			meshRenderMode = Mesh.RenderMode.VBO;
@@ -255,16 +358,23 @@ public class ContentManager implements SceneGraphListener, GameState.GameStateCh
 			whiteTexture.dispose(gl);
 		if (selectionTexture != null)
 			selectionTexture.dispose(gl);
-		for (Model model : models)
+		modelLoader.shutdownNow();
+		for (Model model : models.values())
 			model.dispose(gl);
 	}
 
 	public ShaderProgram loadShader(GL2 gl, String name)
+	{
+		return loadShader(gl, name, new String[0]);
+	}
+
+	/** Loads a variant of a shader compiled with the given preprocessor macros defined */
+	public ShaderProgram loadShader(GL2 gl, String name, String... defines)
 	{
 		String v = "shaders/" + name + ".vs";
 		String f = "shaders/" + name + ".fs";
 		ClassLoader cl = this.getClass().getClassLoader();
-		return ShaderProgram.create(gl, v, f, cl);
+		return ShaderProgram.create(gl, v, f, cl, defines);
 	}
 
 	@Override
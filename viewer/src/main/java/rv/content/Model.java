@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import jsgl.jogl.model.Mesh;
+import jsgl.jogl.model.MeshDecimator;
 import jsgl.jogl.model.MeshPart;
 import jsgl.jogl.model.ObjMaterial;
 import jsgl.jogl.model.ObjMeshImporter;
@@ -35,6 +36,12 @@ import rv.ui.DebugInfo;
  */
 public class Model
 {
+	/** fraction of the triangles of the model kept by each lower level of detail */
+	private static final float[] LOD_RATIOS = {0.35f, 0.12f};
+
+	/** models with fewer triangles are cheap enough to always be drawn in full detail */
+	private static final int LOD_MIN_TRIANGLES = 200;
+
 	private Mesh mesh;
 	private boolean loaded = false;
 	private final String name;
@@ -96,30 +103,28 @@ public class Model
 				}
 			}
 		}
+
+		if (cm.isUsingMeshLOD())
+			createLevels();
 	}
 
-	private void failureMessage()
+	/** Creates simplified versions of the mesh that are drawn when the model appears small */
+	private void createLevels()
 	{
-		DebugInfo.println(getClass(), "Failed to load " + name);
+		MeshDecimator decimator = new MeshDecimator(mesh);
+		if (decimator.getNumTriangles() < LOD_MIN_TRIANGLES)
+			return;
+		for (float ratio : LOD_RATIOS) {
+			Mesh level = decimator.decimate(ratio);
+			if (level == null)
+				break;
+			mesh.addLevel(level);
+		}
 	}
 
-	/**
-	 * Copies material information from src material to target material
-	 */
-	public void replaceMaterial(String target, ObjMaterial src)
+	private void failureMessage()
 	{
-		for (MeshPart part : mesh.getParts()) {
-			ObjMaterial mat = (ObjMaterial) part.getMaterial();
-			if (mat.getName().equals(target)) {
-				if (src.getTexture() != null)
-					mat.setTexture(src.getTexture(), false);
-				mat.setAmbient(src.getAmbient());
-				mat.setDiffuse(src.getDiffuse());
-				mat.setSpecular(src.getSpecular());
-				mat.setShininess(src.getShininess());
-				return;
-			}
-		}
+		DebugInfo.println(getClass(), "Failed to load " + name);
 	}
 
 	public void init(GL2 gl, Mesh.RenderMode mode)
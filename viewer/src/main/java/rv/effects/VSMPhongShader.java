@@ -54,6 +54,16 @@ public class VSMPhongShader
 	private final ShaderProgram prog;
 	private Uniform.Mat4 modelMatrix;
 	private Uniform.Mat4 lvpbMatrix;
+	private int instanceModelAttrib = -1;
+
+	/**
+	 * Location of the per-instance model matrix attribute of the instanced variant, or -1 for the
+	 * regular shader
+	 */
+	public int getInstanceModelAttribute()
+	{
+		return instanceModelAttrib;
+	}
 
 	/** Uploads modelMatrix of geometry to be rendered */
 	public void setModelMatrix(GL2 gl, Matrix m)
@@ -84,8 +94,19 @@ public class VSMPhongShader
 
 	public static VSMPhongShader create(GL2 gl)
 	{
-		ShaderProgram prog = ShaderProgram.create(
-				gl, "shaders/vsm_phong.vert", "shaders/vsm_phong.frag", VSMPhongShader.class.getClassLoader());
+		return create(gl, false);
+	}
+
+	/**
+	 * @param instanced
+	 *            - creates the variant that takes the model matrix from a per-instance vertex
+	 *            attribute instead of the modelMatrix uniform
+	 */
+	public static VSMPhongShader create(GL2 gl, boolean instanced)
+	{
+		String[] defines = instanced ? new String[] {"INSTANCED"} : new String[0];
+		ShaderProgram prog = ShaderProgram.create(gl, "shaders/vsm_phong.vert", "shaders/vsm_phong.frag",
+				VSMPhongShader.class.getClassLoader(), defines);
 
 		if (prog == null)
 			return null;
@@ -98,6 +119,8 @@ public class VSMPhongShader
 		shader.lvpbMatrix = new Uniform.Mat4(gl, prog, "lightViewProjectionBias", i);
 		gl.glUniform1i(prog.getUniform(gl, "diffuseTexture"), 0);
 		gl.glUniform1i(prog.getUniform(gl, "shadowTexture"), 1);
+		if (instanced)
+			shader.instanceModelAttrib = prog.getAttribute(gl, "instanceModel");
 		prog.disable(gl);
 
 		return shader;
@@ -19,28 +19,33 @@ package rv.ui;
 import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.GridLayout;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.List;
+import java.util.regex.PatternSyntaxException;
 import javax.swing.DefaultListModel;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.ListCellRenderer;
 import javax.swing.ListSelectionModel;
+import javax.swing.Timer;
 import rv.comm.drawing.BufferedSet;
+import rv.comm.drawing.DrawingBudget;
 import rv.comm.drawing.Drawings;
 import rv.comm.drawing.Drawings.SetListChangeEvent;
 import rv.comm.drawing.Drawings.ShapeListListener;
+import rv.comm.drawing.ShapeSet;
 import rv.comm.drawing.VisibleNamedObject;
 import rv.comm.drawing.annotations.Annotation;
-import rv.comm.drawing.shapes.Shape;
 
 /**
  * TODO: lots of work on this class; should use a JTree instead of JList
@@ -97,6 +102,9 @@ public class DrawingListPanel extends FramePanelBase implements ShapeListListene
 	}
 
 	private Drawings drawings;
+	private DrawingBudget budget = null;
+	private final JTextArea budgetText = new JTextArea(4, 20);
+	private final Timer budgetTimer = new Timer(1000, e -> updateBudgetText());
 	private final JTextField regexField;
 	private final JList<CheckListItem> list;
 	final DefaultListModel<CheckListItem> model = new DefaultListModel<>();
@@ -132,6 +140,9 @@ public class DrawingListPanel extends FramePanelBase implements ShapeListListene
 		frame.setLayout(new BorderLayout());
 
 		frame.add(new JScrollPane(list), BorderLayout.CENTER);
+		budgetText.setEditable(false);
+		budgetText.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+		budgetText.setToolTipText("Accepted / dropped drawing traffic per agent and set prefix");
 		JPanel p = new JPanel();
 		p.setLayout(new GridLayout(1, 3));
 		regexField = new JTextField(drawingFilter);
@@ -161,11 +172,16 @@ public class DrawingListPanel extends FramePanelBase implements ShapeListListene
 		frame.add(p, BorderLayout.SOUTH);
 
 		JButton clearButton = new JButton("Clear");
-		clearButton.addActionListener(arg0 -> DrawingListPanel.this.drawings.clearAllShapeSets());
+		clearButton.addActionListener(arg0 -> {
+			DrawingListPanel.this.drawings.clearAllShapeSets();
+			if (budget != null)
+				budget.clear();
+		});
 		p.add(clearButton);
 
 		this.drawings = drawings;
 		drawings.addShapeSetListener(this);
+		regexList(drawingFilter);
 
 		frame.pack();
 		frame.setSize(300, 600);
@@ -173,11 +189,49 @@ public class DrawingListPanel extends FramePanelBase implements ShapeListListene
 		drawings.clearAllShapeSets();
 	}
 
+	/**
+	 * Shows the accepted and dropped traffic of a drawing budget, updated every second while the
+	 * panel is visible
+	 */
+	public void setDrawingBudget(DrawingBudget budget)
+	{
+		if (this.budget == null) {
+			frame.add(new JScrollPane(budgetText), BorderLayout.NORTH);
+			frame.revalidate();
+			budgetTimer.start();
+		}
+		this.budget = budget;
+	}
+
+	private void updateBudgetText()
+	{
+		if (!frame.isVisible())
+			return;
+
+		StringBuilder sb = new StringBuilder();
+		for (DrawingBudget.Usage usage : budget.getUsage()) {
+			if (sb.length() > 0)
+				sb.append('\n');
+			sb.append(String.format("%s  shapes %d / %d dropped", usage.getName(), usage.getAcceptedShapes(),
+					usage.getDroppedShapes()));
+			if (usage.getAcceptedBytes() + usage.getDroppedBytes() > 0)
+				sb.append(String.format(", kB %d / %d dropped", usage.getAcceptedBytes() / 1024,
+						usage.getDroppedBytes() / 1024));
+		}
+		budgetText.setText(sb.toString());
+	}
+
 	private void regexList(String s)
 	{
+		try {
+			drawings.setFilter(s);
+		} catch (PatternSyntaxException e) {
+			System.err.println("Invalid drawing filter: " + e.getMessage());
+			return;
+		}
 		for (int i = 0; i < model.getSize(); i++) {
 			CheckListItem cli = (model.getElementAt(i));
-			cli.setSelected(cli.item.getName().matches(s));
+			cli.setSelected(cli.item.isVisible());
 		}
 		list.repaint();
 	}
@@ -185,16 +239,13 @@ public class DrawingListPanel extends FramePanelBase implements ShapeListListene
 	@Override
 	public void setListChanged(SetListChangeEvent evt)
 	{
-		String regex = regexField.getText();
-
+		// new sets are already shown or hidden by the drawing filter
 		model.clear();
-		List<BufferedSet<Shape>> shapeSets = evt.getShapeSets();
-		for (BufferedSet<Shape> shapeSet : shapeSets) {
+		List<ShapeSet> shapeSets = evt.getShapeSets();
+		for (ShapeSet shapeSet : shapeSets) {
 			if (shapeSet != null) {
 				CheckListItem item = new CheckListItem(shapeSet);
-				boolean visible = shapeSet.isVisible();
-				boolean matchRegex = regex == null || shapeSet.getName().matches(regex);
-				item.setSelected(visible && matchRegex);
+				item.setSelected(shapeSet.isVisible());
 				model.addElement(item);
 			}
 		}
@@ -203,9 +254,7 @@ public class DrawingListPanel extends FramePanelBase implements ShapeListListene
 		for (BufferedSet<Annotation> annotationSet : annotationSets) {
 			if (annotationSet != null) {
 				CheckListItem item = new CheckListItem(annotationSet);
-				boolean visible = annotationSet.isVisible();
-				boolean matchRegex = regex == null || annotationSet.getName().matches(regex);
-				item.setSelected(visible && matchRegex);
+				item.setSelected(annotationSet.isVisible());
 				model.addElement(item);
 			}
 		}
@@ -179,7 +179,10 @@ public class UserInterface implements KeyListener
 	{
 		switch (e.getKeyCode()) {
 		case KeyEvent.VK_F12:
-			viewer.takeScreenShot();
+			if (e.isShiftDown())
+				viewer.takeScreenShots(viewer.getConfig().graphics.screenshotBurstFrames);
+			else
+				viewer.takeScreenShot();
 			break;
 		default:
 			break;
@@ -65,8 +65,10 @@ public class FoulListOverlay extends ScreenBase
 			return;
 		}
 		long currentTimeMillis = System.currentTimeMillis();
+		boolean displayed = false;
 		for (GameState.Foul f : fouls) {
 			if (shouldDisplayFoul(f, currentTimeMillis)) {
+				displayed = true;
 				float dt = (currentTimeMillis - f.receivedTime) / 1000.0f;
 				float opacity = dt > FOUL_SHOW_TIME ? 1.0f - (dt - FOUL_SHOW_TIME) / FOUL_FADE_TIME : 1.0f;
 				drawFoul(gl, x, y - (int) (FOUL_HEIGHT * (n - 1)), FOUL_WIDTH, FOUL_HEIGHT, screenW, screenH, f,
@@ -74,6 +76,10 @@ public class FoulListOverlay extends ScreenBase
 				n += opacity;
 			}
 		}
+
+		// keep rendering until the fouls have faded out
+		if (displayed)
+			viewer.requestRedraw();
 	}
 
 	@Override
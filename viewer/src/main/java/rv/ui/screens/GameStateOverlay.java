@@ -25,6 +25,7 @@ import java.util.Locale;
 import jsgl.jogl.view.Viewport;
 import rv.Viewer;
 import rv.comm.rcssserver.GameState;
+import rv.comm.rcssserver.PlayoutBuffer;
 import rv.comm.rcssserver.ServerSpeedBenchmarker;
 
 public class GameStateOverlay extends ScreenBase
@@ -119,6 +120,8 @@ public class GameStateOverlay extends ScreenBase
 			tr2.draw("Playmode: " + gs.getPlayMode(), x, y - 20);
 			if (showServerSpeed && ssb != null) {
 				tr2.draw("Server Speed: " + ssb.getServerSpeed(), x + NAME_WIDTH + SCORE_BOX_WIDTH, y - 20);
+				if (playoutBuffer != null)
+					tr2.draw(playoutBuffer.getStatus(), x + NAME_WIDTH + SCORE_BOX_WIDTH, y - 40);
 			}
 			Float timeOfLastPassEnd = null;
 			for (int i = gs.getPlayModeHistory().size() - 1; i >= 0; i--) {
@@ -147,6 +150,7 @@ public class GameStateOverlay extends ScreenBase
 	private final Viewer viewer;
 	private final GameStateBar gsBar;
 	private ServerSpeedBenchmarker ssb = null;
+	private PlayoutBuffer playoutBuffer = null;
 
 	public GameStateOverlay(Viewer viewer)
 	{
@@ -224,6 +228,11 @@ public class GameStateOverlay extends ScreenBase
 		ssb = benchmarker;
 	}
 
+	public void setPlayoutBuffer(PlayoutBuffer playoutBuffer)
+	{
+		this.playoutBuffer = playoutBuffer;
+	}
+
 	static void drawBox(GL2 gl, float x, float y, float w, float h)
 	{
 		gl.glVertex2f(x, y);
@@ -23,6 +23,8 @@ import jsgl.math.vector.Vec3f;
 import rv.Configuration;
 import rv.Viewer;
 import rv.comm.rcssserver.GameState;
+import rv.comm.rcssserver.LiveBuffer;
+import rv.comm.rcssserver.LogPlayer;
 import rv.comm.rcssserver.ServerComm;
 import rv.comm.rcssserver.ServerSpeedBenchmarker;
 import rv.ui.menus.Menu;
@@ -36,6 +38,9 @@ public class LiveGameScreen extends ViewerScreenBase implements ServerComm.Serve
 {
 	private final PlaymodeOverlay playmodeOverlay;
 	private final InfoOverlay connectionOverlay;
+	/** plays back the buffered part of the game, null if the time shift buffer is disabled */
+	private final LogPlayer timeShiftPlayer;
+	private final PlayerControls timeShiftControls;
 
 	public LiveGameScreen(Viewer viewer)
 	{
@@ -45,11 +50,21 @@ public class LiveGameScreen extends ViewerScreenBase implements ServerComm.Serve
 		viewer.getNetManager().getServer().addChangeListener(this);
 		viewer.getNetManager().getServer().addChangeListener(ssb);
 		gameStateOverlay.addServerSpeedBenchmarker(ssb);
+		gameStateOverlay.setPlayoutBuffer(viewer.getNetManager().getServer().getPlayoutBuffer());
 		playmodeOverlay = new PlaymodeOverlay(viewer, this);
 		overlays.add(playmodeOverlay);
 		connectionOverlay = new InfoOverlay().setMessage(getConnectionMessage());
 		overlays.add(connectionOverlay);
 		createServerMenu(viewer.getFrame().getMenu().getServerMenu());
+
+		LiveBuffer liveBuffer = getServer().getLiveBuffer();
+		if (liveBuffer != null) {
+			timeShiftPlayer = new LogPlayer(liveBuffer, viewer.getWorldModel(), viewer.getConfig(), viewer);
+			timeShiftControls = PlayerControls.getInstance(timeShiftPlayer);
+		} else {
+			timeShiftPlayer = null;
+			timeShiftControls = null;
+		}
 	}
 
 	@Override
@@ -65,6 +80,10 @@ public class LiveGameScreen extends ViewerScreenBase implements ServerComm.Serve
 		super.createViewMenu(menu);
 		menu.addItem("Toggle Server Speed", "M", this::toggleShowServerSpeed);
 		menu.addItem("Playmode Overlay", "O", this::openPlaymodeOverlay);
+		if (timeShiftPlayer != null) {
+			menu.addItem("Pause / Resume", "P", this::togglePause);
+			menu.addItem("Time Shift Controls", "shift P", this::openTimeShiftControls);
+		}
 	}
 
 	private void createServerMenu(Menu menu)
@@ -90,6 +109,19 @@ public class LiveGameScreen extends ViewerScreenBase implements ServerComm.Serve
 		menu.addItem("Drop Ball", "B", this::dropBall);
 	}
 
+	private void togglePause()
+	{
+		if (timeShiftPlayer.isPlaying())
+			timeShiftPlayer.pause();
+		else
+			timeShiftPlayer.resume();
+	}
+
+	private void openTimeShiftControls()
+	{
+		timeShiftControls.showFrame(viewer.getFrame());
+	}
+
 	private ServerComm getServer()
 	{
 		return viewer.getNetManager().getServer();
@@ -195,6 +227,14 @@ public class LiveGameScreen extends ViewerScreenBase implements ServerComm.Serve
 		case KeyEvent.VK_M:
 			toggleShowServerSpeed();
 			break;
+		case KeyEvent.VK_P:
+			if (timeShiftPlayer != null) {
+				if (e.isShiftDown())
+					openTimeShiftControls();
+				else
+					togglePause();
+			}
+			break;
 		}
 	}
 
@@ -310,7 +350,9 @@ public class LiveGameScreen extends ViewerScreenBase implements ServerComm.Serve
 			switch (gs.getPlayMode()) {
 			case GameState.KICK_OFF_LEFT:
 			case GameState.KICK_OFF_RIGHT:
-				getServer().requestFullState();
+				// replayed kick offs don't need a new state
+				if (timeShiftPlayer == null || timeShiftPlayer.isLive())
+					getServer().requestFullState();
 				break;
 			}
 
@@ -43,7 +43,7 @@ import rv.ui.FramePanelBase;
 import rv.util.swing.SwingUtil;
 
 /**
- * Dialog containing the media player controls for log mode
+ * Dialog containing the media player controls for log mode and for time shifting live games
  *
  * @author dorer
  */
@@ -67,13 +67,14 @@ class PlayerControls extends FramePanelBase implements LogPlayer.StateChangeList
 	private RoundButton nextFrameButton;
 	private RoundButton previousGoalButton;
 	private RoundButton nextGoalButton;
+	private RoundButton liveButton;
 	private JSpinner playbackSpeedSpinner;
 	private JSlider slider;
 	private boolean sliderUpdate;
 
 	private PlayerControls(LogPlayer player)
 	{
-		super("Logplayer");
+		super(player.isLiveStream() ? "Time Shift" : "Logplayer");
 		this.player = player;
 		createControls();
 		this.player.addListener(this);
@@ -100,7 +101,8 @@ class PlayerControls extends FramePanelBase implements LogPlayer.StateChangeList
 		c.fill = GridBagConstraints.HORIZONTAL;
 		c.insets = new Insets(0, 5, 0, 0);
 
-		createButton(c, "file_open", "Open logfile...", e -> player.openFileDialog(frame));
+		if (!player.isLiveStream())
+			createButton(c, "file_open", "Open logfile...", e -> player.openFileDialog(frame));
 
 		rewindButton = createButton(c, "rewind", "Rewind", e -> player.rewind());
 
@@ -126,9 +128,13 @@ class PlayerControls extends FramePanelBase implements LogPlayer.StateChangeList
 				player.stepForward();
 		});
 
-		previousGoalButton = createButton(c, "previous_goal", null, e -> player.stepBackwardGoal());
+		if (player.isLiveStream()) {
+			liveButton = createButton(c, "next_goal", "Return to live", e -> player.goLive());
+		} else {
+			previousGoalButton = createButton(c, "previous_goal", null, e -> player.stepBackwardGoal());
 
-		nextGoalButton = createButton(c, "next_goal", null, e -> player.stepForwardGoal());
+			nextGoalButton = createButton(c, "next_goal", null, e -> player.stepForwardGoal());
+		}
 
 		c.gridx++;
 		c.insets = new Insets(0, 25, 0, 0);
@@ -185,13 +191,19 @@ class PlayerControls extends FramePanelBase implements LogPlayer.StateChangeList
 		boolean isValid = player.isValid();
 		rewindButton.setEnabled(isValid);
 		previousFrameButton.setEnabled(isValid && !playing && !atBeginning);
-		playPauseButton.setEnabled(isValid && (!atEnd || player.getPlayBackSpeed() <= 0) &&
-								   (!atBeginning || player.getPlayBackSpeed() >= 0));
+		if (player.isLiveStream()) {
+			// playing past the newest frame returns to live
+			playPauseButton.setEnabled(isValid && (!atBeginning || player.getPlayBackSpeed() >= 0));
+			liveButton.setEnabled(!player.isLive());
+		} else {
+			playPauseButton.setEnabled(isValid && (!atEnd || player.getPlayBackSpeed() <= 0) &&
+									   (!atBeginning || player.getPlayBackSpeed() >= 0));
+			previousGoalButton.setEnabled(isValid && player.hasPreviousGoal());
+			previousGoalButton.setToolTipText(player.getPreviousGoalMessage());
+			nextGoalButton.setEnabled(isValid && player.hasNextGoal());
+			nextGoalButton.setToolTipText(player.getNextGoalMessage());
+		}
 		playPauseButton.setIcon(playing ? "pause" : "play");
-		previousGoalButton.setEnabled(isValid && player.hasPreviousGoal());
-		previousGoalButton.setToolTipText(player.getPreviousGoalMessage());
-		nextGoalButton.setEnabled(isValid && player.hasNextGoal());
-		nextGoalButton.setToolTipText(player.getNextGoalMessage());
 		nextFrameButton.setEnabled(isValid && !playing && !atEnd);
 		playbackSpeedSpinner.setEnabled(isValid);
 		playbackSpeedSpinner.setValue(player.getPlayBackSpeed());
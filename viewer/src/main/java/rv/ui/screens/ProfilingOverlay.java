@@ -0,0 +1,86 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.ui.screens;
+
+import com.jogamp.opengl.GL2;
+import com.jogamp.opengl.glu.GLU;
+import com.jogamp.opengl.util.gl2.GLUT;
+import java.awt.Color;
+import java.awt.Font;
+import java.util.ArrayList;
+import java.util.List;
+import jsgl.jogl.view.Viewport;
+import rv.Renderer;
+import rv.Viewer;
+import rv.comm.drawing.Drawings;
+import rv.world.rendering.ShadowMapRenderer;
+
+/**
+ * Shows the counters the renderer collected while drawing the last frame, e.g. to check how much
+ * batching saves on a particular machine
+ */
+public class ProfilingOverlay extends ScreenBase
+{
+	private static final int LINE_HEIGHT = 18;
+	private static final int SIDE_SCREEN_OFFSET = 10;
+	/** leaves room for the number of players of the right team */
+	private static final int BOTTOM_SCREEN_OFFSET = 40;
+
+	private final Viewer viewer;
+	private final BorderTextRenderer tr;
+
+	public ProfilingOverlay(Viewer viewer)
+	{
+		this.viewer = viewer;
+		tr = new BorderTextRenderer(new Font("Arial", Font.PLAIN, 14), true, false);
+		setVisible(false);
+	}
+
+	/** The counters of the last frame, one per line */
+	List<String> getLines()
+	{
+		List<String> lines = new ArrayList<>();
+		Renderer renderer = viewer.getRenderer();
+		lines.add(String.format("Mesh draw calls: %d", renderer.getMeshDrawCalls()));
+		lines.add(String.format("State changes: %d (%d skipped)", renderer.getStateChanges(),
+				renderer.getSkippedStateChanges()));
+		lines.add(String.format("Meshes: %d visible, %d culled, %d reduced", renderer.getVisibleMeshes(),
+				renderer.getCulledMeshes(), renderer.getReducedMeshes()));
+		ShadowMapRenderer shadowRenderer = renderer.getEffectManager().getShadowRenderer();
+		if (shadowRenderer != null && viewer.getConfig().graphics.useShadows)
+			lines.add(String.format("Shadow casters: %d visible, %d culled", shadowRenderer.getVisibleCasters(),
+					shadowRenderer.getCulledCasters()));
+		Drawings drawings = viewer.getDrawings();
+		lines.add(String.format("Shape draw calls: %d", drawings.getDrawCallCount()));
+		lines.add(String.format("Shape sets culled: %d", drawings.getCulledSetCount()));
+		return lines;
+	}
+
+	@Override
+	public void render(GL2 gl, GLU glu, GLUT glut, Viewport vp)
+	{
+		List<String> lines = getLines();
+		tr.beginRendering(vp.w, vp.h);
+		int y = BOTTOM_SCREEN_OFFSET + (lines.size() - 1) * LINE_HEIGHT;
+		for (String line : lines) {
+			int x = (int) (vp.w - tr.getBounds(line).getWidth() - SIDE_SCREEN_OFFSET);
+			tr.drawWithShadow(line, x, y, Color.white, Color.black);
+			y -= LINE_HEIGHT;
+		}
+		tr.endRendering();
+	}
+}
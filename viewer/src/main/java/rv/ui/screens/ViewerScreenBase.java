@@ -66,6 +66,7 @@ public abstract class ViewerScreenBase
 	private final Field2DOverlay fieldOverlay;
 	private final StatisticsOverlay statisticsOverlay;
 	private final FoulListOverlay foulListOverlay;
+	private final ProfilingOverlay profilingOverlay;
 	protected final List<Screen> overlays = new ArrayList<>();
 
 	protected final BorderTextRenderer overlayTextRenderer;
@@ -97,6 +98,8 @@ public abstract class ViewerScreenBase
 		overlays.add(statisticsOverlay);
 		foulListOverlay = new FoulListOverlay(viewer);
 		overlays.add(foulListOverlay);
+		profilingOverlay = new ProfilingOverlay(viewer);
+		overlays.add(profilingOverlay);
 
 		overlayTextRenderer = new BorderTextRenderer(new Font("Arial", Font.PLAIN, 48), true, false);
 		Font font = new Font("Arial", Font.BOLD, 16);
@@ -126,6 +129,7 @@ public abstract class ViewerScreenBase
 		menu.addItem("Toggle Drawings", "T", this::toggleDrawings);
 		menu.addItem("Toggle Fouls", "Q", this::toggleFouls);
 		menu.addItem("Toggle Statistics", "U", this::toggleStatistics);
+		menu.addItem("Toggle Profiling Counters", "F3", this::toggleProfiling);
 	}
 
 	private void createCameraMenu(Menu menu)
@@ -169,7 +173,7 @@ public abstract class ViewerScreenBase
 			if (!set.isVisible())
 				continue;
 
-			ArrayList<Annotation> annotations = set.getFrontSet();
+			List<Annotation> annotations = set.getFrontSet();
 			for (Annotation a : annotations)
 				if (a != null)
 					renderBillboardText(a.getText(), new Vec3f(a.getPos()), a.getColor());
@@ -206,8 +210,11 @@ public abstract class ViewerScreenBase
 		tr.endRendering();
 
 		vp.apply(gl);
-		if (textOverlays.size() > 0)
+		if (textOverlays.size() > 0) {
 			renderTextOverlays(vp.w, vp.h);
+			// keep rendering until the overlays have faded out
+			viewer.requestRedraw();
+		}
 
 		// Render screen overlays last so that they may cover text and won't have other text
 		// accidentally drawn over them
@@ -333,6 +340,10 @@ public abstract class ViewerScreenBase
 			if (!e.isControlDown())
 				openHelp();
 			break;
+		case KeyEvent.VK_F3:
+			if (!e.isControlDown())
+				toggleProfiling();
+			break;
 		case KeyEvent.VK_0:
 		case KeyEvent.VK_NUMPAD0:
 			selectBall();
@@ -508,6 +519,12 @@ public abstract class ViewerScreenBase
 						viewer.getWorldModel(), 100));
 	}
 
+	private void toggleProfiling()
+	{
+		profilingOverlay.setVisible(!profilingOverlay.isVisible());
+		viewer.requestRedraw();
+	}
+
 	private void setShowNumPlayers(boolean showNumPlayers)
 	{
 		this.showNumPlayers = showNumPlayers;
@@ -0,0 +1,48 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.video;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** Writes rendered frames of a video */
+public interface FrameWriter extends Closeable {
+	/**
+	 * Writes a frame
+	 *
+	 * @param rgb
+	 *            - tightly packed RGB bytes with the bottom row first, as read from OpenGL; only
+	 *            valid until the method returns
+	 * @param frame
+	 *            - index of the frame in the video
+	 */
+	void write(ByteBuffer rgb, int width, int height, int frame) throws IOException;
+
+	/**
+	 * Copies OpenGL pixels into an array with the top row first, as expected by video encoders and
+	 * image formats
+	 */
+	static void flipRows(ByteBuffer rgb, int width, int height, byte[] dst)
+	{
+		int rowBytes = width * 3;
+		for (int row = 0; row < height; row++) {
+			rgb.position((height - 1 - row) * rowBytes);
+			rgb.get(dst, row * rowBytes, rowBytes);
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.video;
+
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.imageio.ImageIO;
+
+/**
+ * Writes every frame to a numbered PNG file. Frames are encoded on a thread pool, so rendering
+ * continues while earlier frames are compressed; at most two frames per thread are waiting to be
+ * encoded at any time.
+ */
+public class ImageSequenceWriter implements FrameWriter
+{
+	private static final ComponentColorModel RGB = new ComponentColorModel(
+			ColorSpace.getInstance(ColorSpace.CS_sRGB), false, false, Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
+
+	private final File directory;
+	private final ExecutorService encoders;
+	private final Semaphore queued;
+	private final AtomicReference<IOException> error = new AtomicReference<>();
+
+	public ImageSequenceWriter(File directory, int threads) throws IOException
+	{
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Could not create output directory '" + directory + "'");
+		this.directory = directory;
+		encoders = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "PNG Encoder");
+			thread.setDaemon(true);
+			return thread;
+		});
+		queued = new Semaphore(threads * 2);
+	}
+
+	@Override
+	public void write(ByteBuffer rgb, int width, int height, int frame) throws IOException
+	{
+		checkError();
+		byte[] bytes = new byte[width * height * 3];
+		FrameWriter.flipRows(rgb, width, height, bytes);
+		File file = new File(directory, String.format(Locale.US, "frame_%06d.png", frame));
+
+		queued.acquireUninterruptibly();
+		encoders.execute(() -> {
+			try {
+				ImageIO.write(createImage(bytes, width, height), "png", file);
+			} catch (IOException e) {
+				error.compareAndSet(null, new IOException("Could not write '" + file + "'", e));
+			} finally {
+				queued.release();
+			}
+		});
+	}
+
+	/** Wraps RGB bytes with the top row first in an image without copying them */
+	public static BufferedImage createImage(byte[] rgb, int width, int height)
+	{
+		WritableRaster raster = Raster.createInterleavedRaster(
+				new DataBufferByte(rgb, rgb.length), width, height, width * 3, 3, new int[] {0, 1, 2}, null);
+		return new BufferedImage(RGB, raster, false, null);
+	}
+
+	private void checkError() throws IOException
+	{
+		IOException e = error.get();
+		if (e != null)
+			throw e;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		encoders.shutdown();
+		try {
+			encoders.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		checkError();
+	}
+}
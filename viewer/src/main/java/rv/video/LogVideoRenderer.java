@@ -0,0 +1,378 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.video;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import com.jogamp.opengl.GLCapabilities;
+import com.jogamp.opengl.GLDrawableFactory;
+import com.jogamp.opengl.GLOffscreenAutoDrawable;
+import com.jogamp.opengl.GLProfile;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.text.ParseException;
+import java.util.Locale;
+import jsgl.jogl.AsyncPixelReader;
+import jsgl.jogl.FrameBufferObject;
+import jsgl.jogl.GLInfo;
+import jsgl.jogl.PixelBufferObject;
+import jsgl.jogl.view.FPCamera;
+import jsgl.jogl.view.Viewport;
+import jsgl.math.vector.Vec2f;
+import jsgl.math.vector.Vec3f;
+import rv.Configuration;
+import rv.Renderer;
+import rv.Viewer;
+import rv.comm.drawing.Drawings;
+import rv.comm.rcssserver.Logfile;
+import rv.comm.rcssserver.MessageParser;
+import rv.content.ContentManager;
+import rv.effects.EffectManager;
+import rv.ui.view.TargetTrackerCamera;
+import rv.util.commandline.Argument;
+import rv.util.commandline.BooleanArgument;
+import rv.util.commandline.IntegerArgument;
+import rv.util.commandline.StringArgument;
+import rv.world.WorldModel;
+import rv.world.rendering.BasicSceneRenderer;
+import rv.world.rendering.PhongWorldRenderer;
+import rv.world.rendering.SceneRenderer;
+import rv.world.rendering.VSMPhongWorldRenderer;
+
+/**
+ * Headless entry point that renders a logfile into video frames. No window is opened: the scene is
+ * drawn into a {@link FrameBufferObject} of an offscreen drawable, which JOGL backs with an FBO or a
+ * pbuffer, so a software OpenGL implementation such as Mesa's llvmpipe is sufficient on machines
+ * without a GPU. Frames are read back through two pixel buffer objects in turns and written as raw
+ * RGB24 video to stdout or as a PNG image sequence.
+ * <p>
+ * The logfile is stepped through frame by frame instead of being played back in real time, so the
+ * output only depends on the logfile and the options, and matches render as fast as the machine
+ * allows. Every {@code step}-th logfile frame becomes a video frame, and the camera follows the ball
+ * like the ball tracker of the viewer. Draw commands of the logfile, UI overlays and bloom are not
+ * rendered.
+ */
+public class LogVideoRenderer
+{
+	private static final float FOV = 45;
+	private static final float NEAR = 0.1f;
+	private static final float FAR = 200;
+
+	private final File logFile;
+	private final Configuration config;
+	private final FrameWriter writer;
+	private final int width;
+	private final int height;
+	private final int step;
+	private final int startFrame;
+	private final int endFrame;
+	private final boolean followBall;
+	private final boolean usePbuffer;
+
+	/** messages go to stderr, since stdout may carry the video */
+	private final PrintStream log = System.err;
+
+	private GLOffscreenAutoDrawable drawable;
+	private ContentManager content;
+	private WorldModel world;
+	private Drawings drawings;
+	private EffectManager effects;
+	private SceneRenderer sceneRenderer;
+	private FrameBufferObject fbo;
+	private AsyncPixelReader reader;
+	private final Viewport viewport;
+	private final FPCamera camera;
+	private TargetTrackerCamera tracker;
+	private int videoFrames = 0;
+
+	public LogVideoRenderer(File logFile, Configuration config, FrameWriter writer, int width, int height, int step,
+			int startFrame, int endFrame, boolean followBall, boolean usePbuffer)
+	{
+		this.logFile = logFile;
+		this.config = config;
+		this.writer = writer;
+		this.width = width;
+		this.height = height;
+		this.step = step;
+		this.startFrame = startFrame;
+		this.endFrame = endFrame;
+		this.followBall = followBall;
+		this.usePbuffer = usePbuffer;
+
+		viewport = new Viewport(0, 0, width, height);
+		camera = new FPCamera(new Vec3f(0, 7, -10), new Vec2f(-40, 180), FOV, NEAR, FAR);
+	}
+
+	/**
+	 * Renders the frames of the logfile and closes the writer
+	 *
+	 * @return the number of video frames written
+	 */
+	public int run() throws IOException
+	{
+		Logfile logfile;
+		try {
+			logfile = new Logfile(logFile, null, false);
+		} catch (Exception e) {
+			throw new IOException("Could not open logfile '" + logFile + "'", e);
+		}
+		if (!logfile.isValid())
+			throw new IOException("Could not open logfile '" + logFile + "'");
+
+		try {
+			createDrawable();
+			invoke(this::init);
+			MessageParser parser = new MessageParser(world);
+
+			while (!logfile.isAtEndOfLog() && (endFrame < 0 || logfile.getCurrentFrame() <= endFrame)) {
+				int frame = logfile.getCurrentFrame();
+				String msg = logfile.getCurrentFrameMessage();
+				if (msg != null && !msg.isEmpty()) {
+					try {
+						parser.parse(msg);
+						world.updateSceneGraphItems();
+					} catch (ParseException | RuntimeException e) {
+						log.println("Skipping frame " + frame + " of " + logFile + ": " + e.getMessage());
+					}
+				}
+				if (frame >= startFrame && (frame - startFrame) % step == 0) {
+					waitForModels();
+					invoke(this::renderFrame);
+				}
+				logfile.stepForward();
+			}
+			invoke(gl -> reader.flush(gl));
+		} finally {
+			logfile.close();
+			if (drawable != null) {
+				invoke(this::dispose);
+				drawable.destroy();
+			}
+			writer.close();
+		}
+		return videoFrames;
+	}
+
+	private void createDrawable() throws IOException
+	{
+		GLProfile glp = GLProfile.get(GLProfile.GL2);
+		GLCapabilities caps = new GLCapabilities(glp);
+		caps.setOnscreen(false);
+		if (usePbuffer) {
+			caps.setPBuffer(true);
+			caps.setFBO(false);
+		}
+		// the scene is rendered into an FBO of its own, so the drawable itself can be tiny
+		drawable = GLDrawableFactory.getFactory(glp).createOffscreenAutoDrawable(null, caps, null, 1, 1);
+		drawable.display();
+		if (drawable.getContext() == null)
+			throw new IOException("Could not create an offscreen OpenGL context");
+	}
+
+	private interface GLTask {
+		void run(GL2 gl) throws IOException;
+	}
+
+	/** Runs a task on the current thread with the OpenGL context of the drawable made current */
+	private void invoke(GLTask task) throws IOException
+	{
+		IOException[] error = new IOException[1];
+		drawable.invoke(true, d -> {
+			try {
+				task.run(d.getGL().getGL2());
+			} catch (IOException e) {
+				error[0] = e;
+			} catch (UncheckedIOException e) {
+				error[0] = e.getCause();
+			}
+			return true;
+		});
+		if (error[0] != null)
+			throw error[0];
+	}
+
+	private void init(GL2 gl) throws IOException
+	{
+		GLInfo glInfo = new GLInfo(gl);
+		log.println("Rendering with " + gl.glGetString(GL.GL_RENDERER) + " (" + gl.glGetString(GL.GL_VERSION) + ")");
+
+		Configuration.Graphics graphics = config.graphics;
+		graphics.useBloom = false;
+		graphics.useStereo = false;
+		// without a server clock, interpolation would depend on how fast frames are parsed
+		graphics.interpolateFrames = false;
+
+		content = new ContentManager(config.teamColors);
+		// frames are rendered offline, so there is no reason to trade detail for speed
+		content.setUseMeshLOD(false);
+		if (!content.init(drawable, glInfo))
+			throw new IOException("Problems loading resource files!");
+
+		world = new WorldModel();
+		world.init(gl, content, config, Viewer.Mode.LOGFILE);
+		world.addSceneGraphListener(content);
+
+		drawings = new Drawings();
+		drawings.init(gl, content, glInfo);
+
+		effects = new EffectManager();
+		effects.init(gl, null, viewport, graphics, content);
+		if (graphics.useShadows && effects.getShadowRenderer() != null)
+			sceneRenderer = new VSMPhongWorldRenderer(effects);
+		else if (graphics.usePhong)
+			sceneRenderer = new PhongWorldRenderer();
+		if (sceneRenderer != null && !sceneRenderer.init(gl, graphics, content)) {
+			log.println("Could not initialize " + sceneRenderer);
+			sceneRenderer = null;
+		}
+		if (sceneRenderer == null) {
+			sceneRenderer = new BasicSceneRenderer();
+			sceneRenderer.init(gl, graphics, content);
+		}
+
+		fbo = FrameBufferObject.create(gl, width, height, GL.GL_RGB8);
+		if (fbo == null)
+			throw new IOException("Could not create a " + width + "x" + height + " framebuffer object");
+		reader = new AsyncPixelReader(PixelBufferObject.getSupport(glInfo));
+
+		tracker = new TargetTrackerCamera(camera, world.getGameState());
+		tracker.setTarget(world.getBall());
+		tracker.setEnabled(followBall);
+
+		gl.glClearColor(0, 0, 0, 1);
+	}
+
+	/** Blocks until all models of the current scene graph have been loaded */
+	private void waitForModels() throws IOException
+	{
+		try {
+			content.waitForPendingModels();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading models");
+		}
+	}
+
+	private void renderFrame(GL2 gl)
+	{
+		tracker.update(viewport);
+		world.getSkyBox().setPosition(camera.getPosition());
+
+		synchronized (world)
+		{
+			if (effects.getShadowRenderer() != null && sceneRenderer instanceof VSMPhongWorldRenderer)
+				effects.getShadowRenderer().render(gl, world, drawings);
+
+			fbo.bind(gl);
+			fbo.setViewport(gl);
+			gl.glClear(GL.GL_COLOR_BUFFER_BIT | GL.GL_DEPTH_BUFFER_BIT);
+			camera.apply(gl, Renderer.glu, viewport);
+
+			// everything is drawn, since frames are rendered far less often than the scene changes
+			world.getRenderList().cull(null);
+			Vec3f eye = camera.getPosition();
+			world.getRenderList().sortTransparent(eye.x, eye.y, eye.z);
+			sceneRenderer.render(gl, world, drawings);
+		}
+
+		int frame = videoFrames++;
+		gl.glBindFramebuffer(GL2.GL_READ_FRAMEBUFFER, fbo.getID());
+		reader.read(gl, width, height, (rgb, w, h) -> {
+			try {
+				writer.write(rgb, w, h, frame);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		fbo.unbind(gl);
+	}
+
+	private void dispose(GL2 gl)
+	{
+		if (reader != null)
+			reader.dispose(gl);
+		if (fbo != null)
+			fbo.dispose(gl);
+		if (sceneRenderer != null)
+			sceneRenderer.dispose(gl);
+		if (effects != null)
+			effects.dispose(gl);
+		if (world != null)
+			world.dispose(gl);
+		if (content != null)
+			content.dispose(gl);
+	}
+
+	public static void main(String[] args)
+	{
+		StringArgument logFileArgument = new StringArgument("logFile", null);
+		StringArgument outputArgument = new StringArgument("output", "-");
+		IntegerArgument widthArgument = new IntegerArgument("width", 1280, 16, 8192);
+		IntegerArgument heightArgument = new IntegerArgument("height", 720, 16, 8192);
+		IntegerArgument stepArgument = new IntegerArgument("step", 1, 1, 1000);
+		IntegerArgument startArgument = new IntegerArgument("startFrame", 0, 0, Integer.MAX_VALUE);
+		IntegerArgument endArgument = new IntegerArgument("endFrame", -1, -1, Integer.MAX_VALUE);
+		IntegerArgument threadsArgument =
+				new IntegerArgument("threads", Runtime.getRuntime().availableProcessors(), 1, 256);
+		BooleanArgument staticCameraArgument = new BooleanArgument("staticCamera");
+		BooleanArgument pbufferArgument = new BooleanArgument("pbuffer");
+
+		String logFile = logFileArgument.parse(args);
+		String output = outputArgument.parse(args);
+		int width = widthArgument.parse(args);
+		int height = heightArgument.parse(args);
+		int step = stepArgument.parse(args);
+		int startFrame = startArgument.parse(args);
+		int endFrame = endArgument.parse(args);
+		int threads = threadsArgument.parse(args);
+		boolean staticCamera = staticCameraArgument.parse(args);
+		boolean pbuffer = pbufferArgument.parse(args);
+		Argument.endParse(args);
+
+		if (logFile == null) {
+			System.err.println("Usage: --logFile=<logfile> [--output=<image directory>|-] [--width=<pixels>] "
+							   + "[--height=<pixels>] [--step=<logfile frames per video frame>] [--startFrame=<n>] "
+							   + "[--endFrame=<n>] [--threads=<png encoders>] [--staticCamera] [--pbuffer]");
+			System.exit(1);
+		}
+
+		try {
+			FrameWriter writer;
+			if (output.equals("-"))
+				writer = new RawVideoWriter(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 20));
+			else
+				writer = new ImageSequenceWriter(new File(output), threads);
+
+			long startTime = System.nanoTime();
+			LogVideoRenderer renderer = new LogVideoRenderer(new File(logFile), Configuration.loadFromFile(), writer,
+					width, height, step, startFrame, endFrame, !staticCamera, pbuffer);
+			int frames = renderer.run();
+			long elapsedMS = (System.nanoTime() - startTime) / 1000000;
+			System.err.printf(Locale.US, "Rendered %d frames of %dx%d in %d ms (%.1f frames/s)%n", frames, width,
+					height, elapsedMS, frames * 1000.0 / Math.max(1, elapsedMS));
+			System.exit(0);
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+}
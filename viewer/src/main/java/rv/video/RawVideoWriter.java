@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.video;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes frames as headerless RGB24 video, e.g. to be piped into an encoder:
+ * <code>ffmpeg -f rawvideo -pix_fmt rgb24 -s 1280x720 -r 25 -i - video.mp4</code>
+ */
+public class RawVideoWriter implements FrameWriter
+{
+	private final OutputStream out;
+	private byte[] frameBytes = new byte[0];
+
+	public RawVideoWriter(OutputStream out)
+	{
+		this.out = out;
+	}
+
+	@Override
+	public void write(ByteBuffer rgb, int width, int height, int frame) throws IOException
+	{
+		int size = width * height * 3;
+		if (frameBytes.length != size)
+			frameBytes = new byte[size];
+		FrameWriter.flipRows(rgb, width, height, frameBytes);
+		out.write(frameBytes);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		out.close();
+	}
+}
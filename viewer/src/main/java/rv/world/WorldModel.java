@@ -29,6 +29,7 @@ import rv.Configuration;
 import rv.Viewer;
 import rv.comm.rcssserver.GameState;
 import rv.comm.rcssserver.ISceneGraphItem;
+import rv.comm.rcssserver.SExp;
 import rv.comm.rcssserver.scenegraph.SceneGraph;
 import rv.comm.rcssserver.scenegraph.SceneGraph.SceneGraphListener;
 import rv.content.ContentManager;
@@ -37,6 +38,7 @@ import rv.world.objects.Agent;
 import rv.world.objects.Ball;
 import rv.world.objects.Field;
 import rv.world.objects.SkyBox;
+import rv.world.rendering.RenderList;
 
 /**
  * Contains, updates, and renders world state data
@@ -55,6 +57,7 @@ public class WorldModel
 	private final GameState gameState = new GameState();
 	private SceneGraph sceneGraph = null;
 	private ContentManager cm;
+	private RenderList renderList;
 	private Configuration config;
 
 	private final ArrayList<ISceneGraphItem> sgItems = new ArrayList<>();
@@ -69,16 +72,17 @@ public class WorldModel
 	private ISelectable selectedObject;
 	private float ballCircleTimeLeft;
 	private float ballCircleTime;
+	private boolean animating = false;
 
 	private final ArrayList<SceneGraphListener> sgListeners = new ArrayList<>();
 	private final ArrayList<SelectionChangeListener> selListeners = new ArrayList<>();
 
-	public void addSceneGraphListener(SceneGraphListener sgl)
+	public synchronized void addSceneGraphListener(SceneGraphListener sgl)
 	{
 		sgListeners.add(sgl);
 	}
 
-	public void removeSceneGraphListener(SceneGraphListener sgl)
+	public synchronized void removeSceneGraphListener(SceneGraphListener sgl)
 	{
 		sgListeners.remove(sgl);
 	}
@@ -135,11 +139,13 @@ public class WorldModel
 		this.sceneGraph = sceneGraph;
 
 		if (sceneGraph != null) {
-			for (SceneGraphListener sgl : sgListeners)
-				sgl.newSceneGraph(sceneGraph);
-
 			for (ISceneGraphItem sgi : sgItems)
 				sgi.sceneGraphChanged(sceneGraph);
+
+			// listeners are notified after the items, since agents switch goalies to their own
+			// models by renaming mesh nodes
+			for (SceneGraphListener sgl : sgListeners)
+				sgl.newSceneGraph(sceneGraph);
 		}
 
 		if (selectedObject instanceof Agent) {
@@ -154,6 +160,23 @@ public class WorldModel
 		}
 	}
 
+	/**
+	 * Updates the current scene graph with new information and tells the scene graph listeners about
+	 * it. The structure of the scene graph remains unchanged.
+	 */
+	public synchronized void updateSceneGraph(SExp exp)
+	{
+		sceneGraph.update(exp);
+		for (SceneGraphListener sgl : sgListeners)
+			sgl.updatedSceneGraph(sceneGraph);
+	}
+
+	/** Meshes of the current scene graph prepared for rendering, null if the world is headless */
+	public RenderList getRenderList()
+	{
+		return renderList;
+	}
+
 	public LightModel getLighting()
 	{
 		return lighting;
@@ -190,6 +213,9 @@ public class WorldModel
 		this.config = config;
 		GL2 gl = glObj.getGL2();
 
+		renderList = new RenderList(cm);
+		addSceneGraphListener(renderList);
+
 		field = new Field(cm.getModel("models/newfield.obj"), cm);
 		gameState.addListener(field);
 		gameState.addListener(cm);
@@ -212,6 +238,20 @@ public class WorldModel
 		lighting.addLight(d1);
 	}
 
+	/**
+	 * Initializes the world without a GL context or content manager. Agent and ball positions are
+	 * then taken from their scene graph transforms, which is sufficient for analyzing logfiles.
+	 */
+	public void initHeadless(Configuration config)
+	{
+		this.config = config;
+
+		initTeams();
+
+		ball = new Ball(null);
+		sgItems.add(ball);
+	}
+
 	private void initTeams()
 	{
 		if (leftTeam != null) {
@@ -239,14 +279,35 @@ public class WorldModel
 		// This is done in the update loop rather than the scene graph update
 		// method because the scene graph might update much more frequently than
 		// rendering occurs.
-		if (sceneGraph != null) {
-			for (ISceneGraphItem sgi : sgItems)
-				sgi.update(sceneGraph);
-		}
+		boolean interpolating = false;
+		if (sceneGraph != null && config.graphics.interpolateFrames)
+			interpolating = sceneGraph.interpolate(System.nanoTime());
+		updateSceneGraphItems();
 
 		skyBox.setPosition(ui.getCamera().getPosition());
 
 		ballCircleTimeLeft -= elapsedMS / 1000.0;
+		animating = interpolating || ballCircleTimeLeft > 0;
+	}
+
+	/**
+	 * Checks if the world still changes without new server messages after the last update, because
+	 * motion is being interpolated or the ball circle is fading
+	 */
+	public boolean isAnimating()
+	{
+		return animating;
+	}
+
+	/**
+	 * Lets scene graph items (ball, teams) pull their current state from the scene graph
+	 */
+	public synchronized void updateSceneGraphItems()
+	{
+		if (sceneGraph != null) {
+			for (ISceneGraphItem sgi : sgItems)
+				sgi.update(sceneGraph);
+		}
 	}
 
 	public void renderBallCircle(GL2 gl)
@@ -44,6 +44,8 @@ public class Agent implements ISelectable
 		void transformChanged(Matrix headTransform);
 	}
 
+	private static final Vec3f[] ORIGIN = {new Vec3f(0)};
+
 	private final List<ChangeListener> listeners = new ArrayList<>();
 	private final List<StaticMeshNode> meshNodes;
 	private BoundingBox bounds;
@@ -144,9 +146,8 @@ public class Agent implements ISelectable
 		Vec3f max = new Vec3f(Float.NEGATIVE_INFINITY);
 
 		for (StaticMeshNode node : meshNodes) {
-			Model model = content.getModel(node.getName());
-			if (model.isLoaded()) {
-				Vec3f[] corners = model.getMesh().getBounds().getCorners();
+			Vec3f[] corners = getCorners(node);
+			if (corners != null) {
 				Matrix modelMat = WorldModel.COORD_TFN.times(node.getWorldTransform());
 
 				// store head transformation for "robot perspective" camera mode
@@ -161,8 +162,8 @@ public class Agent implements ISelectable
 					torsoDirection = bodyRot.transform(new Vec3f(0, 0, 1)).minus(bodyCenter).normalize();
 				}
 
-				for (int j = 0; j < 8; j++) {
-					Vec3f v = modelMat.transform(corners[j]);
+				for (Vec3f corner : corners) {
+					Vec3f v = modelMat.transform(corner);
 					if (v.x < min.x)
 						min.x = v.x;
 					if (v.y < min.y)
@@ -186,6 +187,21 @@ public class Agent implements ISelectable
 		age++;
 	}
 
+	/**
+	 * Returns the object space corners of a part's mesh bounds, or null if the mesh is not loaded
+	 * yet. Without a content manager (headless analysis) only the part's origin is used.
+	 */
+	private Vec3f[] getCorners(StaticMeshNode node)
+	{
+		if (content == null)
+			return ORIGIN;
+
+		Model model = content.getModel(node.getName());
+		if (!model.isLoaded())
+			return null;
+		return model.getMesh().getBounds().getCorners();
+	}
+
 	@Override
 	public Vec3f getPosition()
 	{
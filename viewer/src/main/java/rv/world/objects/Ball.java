@@ -30,6 +30,8 @@ import rv.world.WorldModel;
 
 public class Ball implements ISelectable, ISceneGraphItem
 {
+	private static final Vec3f[] ORIGIN = {new Vec3f(0)};
+
 	private BoundingBox bounds;
 	private boolean selected = false;
 	private StaticMeshNode node;
@@ -52,18 +54,24 @@ public class Ball implements ISelectable, ISceneGraphItem
 		if (node == null)
 			return;
 
-		Model model = content.getModel(node.getName());
-		if (!model.isLoaded()) {
-			return;
+		Vec3f[] corners;
+		if (content == null) {
+			// without a content manager (headless analysis) only the ball's origin is known
+			corners = ORIGIN;
+		} else {
+			Model model = content.getModel(node.getName());
+			if (!model.isLoaded()) {
+				return;
+			}
+			corners = model.getMesh().getBounds().getCorners();
 		}
 
 		Vec3f min = new Vec3f(Float.POSITIVE_INFINITY);
 		Vec3f max = new Vec3f(Float.NEGATIVE_INFINITY);
 
-		Vec3f[] corners = model.getMesh().getBounds().getCorners();
 		Matrix modelMat = WorldModel.COORD_TFN.times(node.getWorldTransform());
-		for (int j = 0; j < 8; j++) {
-			Vec3f v = modelMat.transform(corners[j]);
+		for (Vec3f corner : corners) {
+			Vec3f v = modelMat.transform(corner);
 			if (v.x < min.x)
 				min.x = v.x;
 			if (v.y < min.y)
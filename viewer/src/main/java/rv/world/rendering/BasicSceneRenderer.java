@@ -18,15 +18,13 @@ package rv.world.rendering;
 
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2;
-import java.util.ArrayList;
-import java.util.List;
+import jsgl.jogl.GLStateCache;
+import jsgl.jogl.model.MeshBatch;
 import jsgl.math.vector.Matrix;
 import rv.Configuration;
 import rv.Renderer;
 import rv.comm.drawing.Drawings;
-import rv.comm.rcssserver.scenegraph.StaticMeshNode;
 import rv.content.ContentManager;
-import rv.content.Model;
 import rv.world.WorldModel;
 
 /**
@@ -36,63 +34,33 @@ import rv.world.WorldModel;
  */
 public class BasicSceneRenderer implements SceneRenderer
 {
-	private ContentManager content;
-	private final List<String> suppressedMeshes = new ArrayList<>();
+	private final MeshBatch batch = new MeshBatch();
 
 	@Override
 	public boolean init(GL2 gl2, Configuration.Graphics conf, ContentManager cm)
 	{
-		this.content = cm;
-
-		suppressedMeshes.add("field.obj");
-		suppressedMeshes.add("skybox.obj");
-
 		return true;
 	}
 
-	public static void applyAgentMats(Model model, StaticMeshNode node, ContentManager content)
-	{
-		// NOTE: this is a hack to get the player meshes to render with the
-		// correct team colors. The materials should be explicitly listed by the scene
-		// graph, but the material being replaced (matTeam) is not mentioned anywhere
-		// in the scene graph.
-		boolean isAgent = false;
-		if (node.containsMaterial("matLeft")) {
-			model.replaceMaterial("matTeam", content.getMaterial("matLeft"));
-			model.replaceMaterial("matTeamGoalie", content.getMaterial("matLeftGoalie"));
-			model.replaceMaterial("matTeamNumGoalie", content.getMaterial("matLeftNumGoalie"));
-			isAgent = true;
-		} else if (node.containsMaterial("matRight")) {
-			model.replaceMaterial("matTeam", content.getMaterial("matRight"));
-			model.replaceMaterial("matTeamGoalie", content.getMaterial("matRightGoalie"));
-			model.replaceMaterial("matTeamNumGoalie", content.getMaterial("matRightNumGoalie"));
-			isAgent = true;
-		}
-		if (isAgent) {
-			for (String matName : node.getMaterials()) {
-				if (matName.startsWith("matNum")) {
-					model.replaceMaterial("matNum", content.getMaterial(matName));
-					break;
-				}
-			}
-		}
-	}
-
-	private void renderSceneGraphNode(GL2 gl, StaticMeshNode node, ContentManager content)
+	/**
+	 * @param batched
+	 *            - draws the meshes that can be batched after the others, sorted by mesh and
+	 *            material, so this must be false if the order of the items matters
+	 */
+	private void renderItems(GL2 gl, RenderList.Item[] items, boolean batched)
 	{
-		Model model = content.getModel(node.getName());
-		if (model.isLoaded()) {
-			// NOTE: this is a hack to avoid rendering certain meshes that are replaced by
-			// RoboViz; in particular, the field and skybox are treated differently
-			for (String s : suppressedMeshes)
-				if (node.getName().endsWith(s))
-					return;
-
-			applyAgentMats(model, node, content);
-
-			Matrix modelMat = WorldModel.COORD_TFN.times(node.getWorldTransform());
-			model.getMesh().render(gl, modelMat);
+		GLStateCache.begin();
+		batch.clear();
+		for (RenderList.Item item : items) {
+			if (item.isSuppressed() || item.isCulled() || !item.getModel().isLoaded())
+				continue;
+			Matrix modelMat = item.getModelMatrix();
+			if (!batched || !item.addTo(batch, modelMat))
+				item.render(gl, modelMat);
 		}
+		if (batched)
+			batch.render(gl);
+		GLStateCache.end();
 	}
 
 	public void render(GL2 gl, WorldModel world, Drawings drawings)
@@ -114,14 +82,8 @@ public class BasicSceneRenderer implements SceneRenderer
 		world.getField().render(gl);
 		gl.glDepthMask(true);
 
-		List<StaticMeshNode> transparentNodes = new ArrayList<>();
-		List<StaticMeshNode> nodes = world.getSceneGraph().getAllMeshNodes();
-		for (StaticMeshNode node : nodes) {
-			if (node.isTransparent())
-				transparentNodes.add(node);
-			else
-				renderSceneGraphNode(gl, node, content);
-		}
+		RenderList renderList = world.getRenderList();
+		renderItems(gl, renderList.getOpaque(), true);
 
 		gl.glEnable(GL.GL_BLEND);
 		if (world.getSelectedObject() != null)
@@ -130,10 +92,9 @@ public class BasicSceneRenderer implements SceneRenderer
 		if (drawings.isVisible())
 			drawings.render(gl, Renderer.glut);
 
-		// transparent stuff
+		// transparent stuff, back to front
 
-		for (StaticMeshNode transparentNode : transparentNodes)
-			renderSceneGraphNode(gl, transparentNode, content);
+		renderItems(gl, renderList.getTransparent(), false);
 		gl.glDisable(GL.GL_BLEND);
 
 		gl.glDisable(GL2.GL_LIGHTING);
@@ -143,6 +104,7 @@ public class BasicSceneRenderer implements SceneRenderer
 	@Override
 	public void dispose(GL gl)
 	{
+		batch.dispose(gl);
 	}
 
 	@Override
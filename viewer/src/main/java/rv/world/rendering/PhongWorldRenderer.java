@@ -18,16 +18,14 @@ package rv.world.rendering;
 
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2;
-import java.util.ArrayList;
-import java.util.List;
+import jsgl.jogl.GLStateCache;
 import jsgl.jogl.ShaderProgram;
+import jsgl.jogl.model.MeshBatch;
 import jsgl.math.vector.Matrix;
 import rv.Configuration.Graphics;
 import rv.Renderer;
 import rv.comm.drawing.Drawings;
-import rv.comm.rcssserver.scenegraph.StaticMeshNode;
 import rv.content.ContentManager;
-import rv.content.Model;
 import rv.world.WorldModel;
 
 /**
@@ -37,16 +35,17 @@ import rv.world.WorldModel;
  */
 public class PhongWorldRenderer implements SceneRenderer
 {
-	private ContentManager content;
 
 	private ShaderProgram shader;
-	private final List<String> suppressedMeshes = new ArrayList<>();
+
+	/** variant of the shader for instanced meshes, null if instancing is not supported */
+	private ShaderProgram instancedShader;
+	private int instanceModelAttrib;
+	private final MeshBatch batch = new MeshBatch();
 
 	@Override
 	public boolean init(GL2 gl, Graphics graphics, ContentManager cm)
 	{
-		this.content = cm;
-
 		shader = cm.loadShader(gl, "phong");
 		if (shader == null) {
 			graphics.usePhong = false;
@@ -58,29 +57,43 @@ public class PhongWorldRenderer implements SceneRenderer
 			return false;
 		}
 
-		suppressedMeshes.add("field.obj");
-		suppressedMeshes.add("skybox.obj");
+		if (MeshBatch.isSupported(gl)) {
+			instancedShader = cm.loadShader(gl, "phong", "INSTANCED");
+			if (instancedShader != null)
+				instanceModelAttrib = instancedShader.getAttribute(gl, "instanceModel");
+			else
+				System.err.println("Instanced Phong shader failed to load, rendering meshes one by one");
+		}
 
 		return true;
 	}
 
-	private void renderSceneGraphNode(GL2 gl, StaticMeshNode node, ContentManager content)
+	/**
+	 * @param batched
+	 *            - draws the meshes that can be batched after the others, sorted by mesh and
+	 *            material and instanced if supported, so this must be false if the order of the
+	 *            items matters
+	 */
+	private void renderItems(GL2 gl, RenderList.Item[] items, boolean batched)
 	{
-		Model model = content.getModel(node.getName());
-		if (model.isLoaded()) {
-			// NOTE: this is a hack to avoid rendering certain meshes that are
-			// replaced by
-			// RoboViz; in particular, the field and skybox are treated
-			// differently
-			for (String s : suppressedMeshes)
-				if (node.getName().endsWith(s))
-					return;
-
-			BasicSceneRenderer.applyAgentMats(model, node, content);
-
-			Matrix modelMat = WorldModel.COORD_TFN.times(node.getWorldTransform());
-			model.getMesh().render(gl, modelMat);
+		GLStateCache.begin();
+		batch.clear();
+		for (RenderList.Item item : items) {
+			if (item.isSuppressed() || item.isCulled() || !item.getModel().isLoaded())
+				continue;
+			Matrix modelMat = item.getModelMatrix();
+			if (!batched || !item.addTo(batch, modelMat))
+				item.render(gl, modelMat);
 		}
+
+		if (batched && instancedShader != null) {
+			instancedShader.enable(gl);
+			batch.render(gl, instanceModelAttrib);
+			shader.enable(gl);
+		} else if (batched) {
+			batch.render(gl);
+		}
+		GLStateCache.end();
 	}
 
 	public void render(GL2 gl, WorldModel world, Drawings drawings)
@@ -102,14 +115,8 @@ public class PhongWorldRenderer implements SceneRenderer
 		world.getField().render(gl);
 		gl.glDepthMask(true);
 
-		List<StaticMeshNode> transparentNodes = new ArrayList<>();
-		List<StaticMeshNode> nodes = world.getSceneGraph().getAllMeshNodes();
-		for (StaticMeshNode node : nodes) {
-			if (node.isTransparent())
-				transparentNodes.add(node);
-			else
-				renderSceneGraphNode(gl, node, content);
-		}
+		RenderList renderList = world.getRenderList();
+		renderItems(gl, renderList.getOpaque(), true);
 
 		shader.disable(gl);
 		gl.glEnable(GL.GL_BLEND);
@@ -120,10 +127,9 @@ public class PhongWorldRenderer implements SceneRenderer
 			drawings.render(gl, Renderer.glut);
 		shader.enable(gl);
 
-		// transparent stuff
+		// transparent stuff, back to front
 
-		for (StaticMeshNode transparentNode : transparentNodes)
-			renderSceneGraphNode(gl, transparentNode, content);
+		renderItems(gl, renderList.getTransparent(), false);
 		gl.glDisable(GL.GL_BLEND);
 
 		shader.disable(gl);
@@ -135,6 +141,9 @@ public class PhongWorldRenderer implements SceneRenderer
 	public void dispose(GL gl)
 	{
 		shader.dispose(gl);
+		if (instancedShader != null)
+			instancedShader.dispose(gl);
+		batch.dispose(gl);
 	}
 
 	@Override
@@ -0,0 +1,419 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.world.rendering;
+
+import com.jogamp.opengl.GL2;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jsgl.jogl.model.Mesh;
+import jsgl.jogl.model.MeshBatch;
+import jsgl.jogl.model.MeshMaterial;
+import jsgl.jogl.model.ObjMaterial;
+import jsgl.math.BoundingBox;
+import jsgl.math.geom.BoundingFrustum;
+import jsgl.math.vector.Matrix;
+import rv.comm.rcssserver.scenegraph.SceneGraph;
+import rv.comm.rcssserver.scenegraph.SceneGraph.SceneGraphListener;
+import rv.comm.rcssserver.scenegraph.StaticMeshNode;
+import rv.content.ContentManager;
+import rv.content.Model;
+import rv.world.WorldModel;
+
+/**
+ * Meshes of the scene graph in the form the scene renderers draw them. The list is rebuilt only
+ * when a new scene graph arrives, so looking up models and materials, checking for suppressed
+ * meshes and separating transparent meshes happens once per scene graph instead of every frame.
+ * <p>
+ * Opaque meshes are kept in scene graph order, since the renderers sort them by mesh and material
+ * while drawing them. Transparent meshes are sorted back to front for each view by
+ * {@link #sortTransparent}.
+ * <p>
+ * Before each render pass, {@link #cull} computes the model matrices of all meshes for the pass and
+ * marks the meshes outside of the pass's view frustum, which the renderers then skip. For the main
+ * view, {@link #selectLevels} then picks the level of detail of each mesh by its size on screen.
+ * <p>
+ * The list is rebuilt by the world model while holding its lock, so it must only be read while
+ * holding that lock as well, as the renderers do.
+ */
+public class RenderList implements SceneGraphListener
+{
+	/**
+	 * Meshes that are replaced by RoboViz; in particular, the field and skybox are treated
+	 * differently
+	 */
+	private static final String[] SUPPRESSED_MESHES = {"field.obj", "skybox.obj"};
+
+	private static final Item[] NO_ITEMS = new Item[0];
+
+	/**
+	 * Projected size in pixels below which each lower level of detail is drawn. A mesh only changes
+	 * its level once its size is past the threshold by the hysteresis fraction, so meshes close to a
+	 * threshold don't switch back and forth.
+	 */
+	private static final float[] LEVEL_PIXELS = {64, 24};
+	private static final float LEVEL_HYSTERESIS = 0.15f;
+
+	private static final Comparator<Item> BACK_TO_FRONT = (a, b) -> Float.compare(b.viewDistance, a.viewDistance);
+
+	/** Mesh node of the scene graph with everything resolved that is needed to render it */
+	public static class Item
+	{
+		private final StaticMeshNode node;
+		private final Model model;
+		private final boolean suppressed;
+
+		/** team and number materials keyed by the model material they replace, null if none */
+		private final Map<String, ObjMaterial> replacements;
+
+		/** materials of the parts of each level of detail, created once the model is loaded */
+		private MeshMaterial[][] materials;
+
+		/** level of detail chosen by the last call to {@link RenderList#selectLevels} */
+		private int level = 0;
+
+		/** squared distance to the eye of the last call to {@link RenderList#sortTransparent} */
+		private float viewDistance;
+
+		private final Matrix modelMatrix = Matrix.createIdentity();
+		private boolean culled = false;
+		private final float[] center = new float[3];
+
+		Item(StaticMeshNode node, ContentManager content)
+		{
+			this.node = node;
+			model = content.getModel(node.getName());
+
+			boolean suppressed = false;
+			for (String s : SUPPRESSED_MESHES)
+				if (node.getName().endsWith(s))
+					suppressed = true;
+			this.suppressed = suppressed;
+
+			// NOTE: this is a hack to get the player meshes to render with the correct team
+			// colors. The materials should be explicitly listed by the scene graph, but the
+			// material being replaced (matTeam) is not mentioned anywhere in the scene graph.
+			String side = null;
+			if (node.getMaterials() != null) {
+				if (node.containsMaterial("matLeft"))
+					side = "matLeft";
+				else if (node.containsMaterial("matRight"))
+					side = "matRight";
+			}
+
+			if (side != null) {
+				replacements = new HashMap<>();
+				replacements.put("matTeam", content.getMaterial(side));
+				replacements.put("matTeamGoalie", content.getMaterial(side + "Goalie"));
+				replacements.put("matTeamNumGoalie", content.getMaterial(side + "NumGoalie"));
+				for (String matName : node.getMaterials()) {
+					if (matName.startsWith("matNum")) {
+						replacements.put("matNum", content.getMaterial(matName));
+						break;
+					}
+				}
+			} else {
+				replacements = null;
+			}
+		}
+
+		public StaticMeshNode getNode()
+		{
+			return node;
+		}
+
+		public Model getModel()
+		{
+			return model;
+		}
+
+		/** Checks if the mesh is drawn by RoboViz itself and must not be rendered by scene renderers */
+		public boolean isSuppressed()
+		{
+			return suppressed;
+		}
+
+		/** Checks if the mesh was outside of the frustum of the last call to {@link #cull} */
+		public boolean isCulled()
+		{
+			return culled;
+		}
+
+		/**
+		 * Gets the model matrix of the mesh in RoboViz coordinates as computed by the last call to
+		 * {@link RenderList#cull}
+		 */
+		public Matrix getModelMatrix()
+		{
+			return modelMatrix;
+		}
+
+		/**
+		 * Computes the current model matrix of the mesh and checks if the mesh is outside of the
+		 * frustum
+		 *
+		 * @return true if the mesh was culled
+		 */
+		private boolean cull(BoundingFrustum frustum)
+		{
+			modelMatrix.set(WorldModel.COORD_TFN);
+			node.applyWorldTransform(modelMatrix);
+
+			BoundingBox bounds = model.isLoaded() ? model.getMesh().getBounds() : null;
+			culled = frustum != null && bounds != null && !frustum.intersects(bounds, modelMatrix);
+			return culled;
+		}
+
+		/**
+		 * Chooses the level of detail by the size of the mesh's bounding sphere on screen, using the
+		 * model matrix of the last call to {@link RenderList#cull}
+		 */
+		private void selectLevel(float eyeX, float eyeY, float eyeZ, float pixelsPerUnit)
+		{
+			if (!model.isLoaded() || model.getMesh().getLevelCount() == 1)
+				return;
+			Mesh mesh = model.getMesh();
+			BoundingBox bounds = mesh.getBounds();
+			if (bounds == null)
+				return;
+
+			float scale = 0;
+			for (int c = 0; c < 3; c++) {
+				double x = modelMatrix.get(0, c);
+				double y = modelMatrix.get(1, c);
+				double z = modelMatrix.get(2, c);
+				scale = Math.max(scale, (float) Math.sqrt(x * x + y * y + z * z));
+			}
+			float radius = bounds.getDiag().length() * 0.5f * scale;
+			modelMatrix.transform(bounds.getCenter().x, bounds.getCenter().y, bounds.getCenter().z, center);
+			float dx = center[0] - eyeX;
+			float dy = center[1] - eyeY;
+			float dz = center[2] - eyeZ;
+			float distance = Math.max((float) Math.sqrt(dx * dx + dy * dy + dz * dz), radius);
+			float pixels = 2 * radius * pixelsPerUnit / distance;
+
+			int lowest = Math.min(mesh.getLevelCount() - 1, LEVEL_PIXELS.length);
+			level = Math.min(level, lowest);
+			while (level < lowest && pixels < LEVEL_PIXELS[level] * (1 - LEVEL_HYSTERESIS))
+				level++;
+			while (level > 0 && pixels > LEVEL_PIXELS[level - 1] * (1 + LEVEL_HYSTERESIS))
+				level--;
+		}
+
+		/** Level of detail chosen by the last call to {@link RenderList#selectLevels} */
+		public int getLevel()
+		{
+			return level;
+		}
+
+		/**
+		 * Renders the mesh with its team and number materials. The model, which is shared by all
+		 * agents, is not modified. The model must have been loaded.
+		 */
+		public void render(GL2 gl, Matrix modelMatrix)
+		{
+			render(gl, modelMatrix, false);
+		}
+
+		/**
+		 * Same as {@link #render(GL2, Matrix)}, but draws the least detailed version of the mesh
+		 * instead of the chosen level of detail if lowestDetail is true, such as for shadows
+		 */
+		public void render(GL2 gl, Matrix modelMatrix, boolean lowestDetail)
+		{
+			int level = getLevel(lowestDetail);
+			model.getMesh().getLevel(level).render(gl, modelMatrix, getMaterials(level));
+		}
+
+		/**
+		 * Adds the mesh with its team and number materials to a batch of instances instead of
+		 * rendering it. The model must have been loaded.
+		 *
+		 * @return false if the mesh can't be instanced and must be rendered directly
+		 */
+		public boolean addTo(MeshBatch batch, Matrix modelMatrix)
+		{
+			return addTo(batch, modelMatrix, false);
+		}
+
+		/**
+		 * Same as {@link #addTo(MeshBatch, Matrix)}, but adds the least detailed version of the mesh
+		 * instead of the chosen level of detail if lowestDetail is true
+		 */
+		public boolean addTo(MeshBatch batch, Matrix modelMatrix, boolean lowestDetail)
+		{
+			int level = getLevel(lowestDetail);
+			return batch.add(model.getMesh().getLevel(level), modelMatrix, getMaterials(level));
+		}
+
+		private int getLevel(boolean lowestDetail)
+		{
+			int levels = model.getMesh().getLevelCount();
+			return lowestDetail ? levels - 1 : Math.min(level, levels - 1);
+		}
+
+		private MeshMaterial[] getMaterials(int level)
+		{
+			if (replacements == null)
+				return null;
+			if (materials == null)
+				materials = new MeshMaterial[model.getMesh().getLevelCount()][];
+			if (materials[level] == null)
+				materials[level] = model.getMesh().getLevel(level).createMaterials(replacements);
+			return materials[level];
+		}
+
+		/**
+		 * Renders the mesh with the model matrix of the last call to {@link RenderList#cull} if its
+		 * model has been loaded and it was not culled
+		 */
+		public void render(GL2 gl)
+		{
+			if (model.isLoaded() && !culled)
+				render(gl, modelMatrix);
+		}
+	}
+
+	private final ContentManager content;
+	private Item[] opaque = NO_ITEMS;
+	private Item[] transparent = NO_ITEMS;
+	private int culledCount = 0;
+	private int reducedCount = 0;
+
+	public RenderList(ContentManager content)
+	{
+		this.content = content;
+	}
+
+	/** Items of all meshes that are not transparent, in scene graph order */
+	public Item[] getOpaque()
+	{
+		return opaque;
+	}
+
+	/** Items of all transparent meshes, in scene graph order */
+	public Item[] getTransparent()
+	{
+		return transparent;
+	}
+
+	/**
+	 * Prepares all items for a render pass by computing their model matrices and culling the items
+	 * outside of the view frustum of the pass
+	 *
+	 * @param frustum
+	 *            - view frustum of the pass in RoboViz coordinates, or null to cull nothing
+	 */
+	public void cull(BoundingFrustum frustum)
+	{
+		int culled = 0;
+		for (Item item : opaque)
+			if (item.cull(frustum))
+				culled++;
+		for (Item item : transparent)
+			if (item.cull(frustum))
+				culled++;
+		culledCount = culled;
+	}
+
+	/**
+	 * Chooses the level of detail of each item that was not culled by its size on screen, using the
+	 * model matrices computed by the last call to {@link #cull}
+	 *
+	 * @param pixelsPerUnit
+	 *            - size in pixels of an object of size 1 at distance 1 from the eye, which is half of
+	 *            the viewport height divided by the tangent of half the vertical field of view
+	 */
+	public void selectLevels(float eyeX, float eyeY, float eyeZ, float pixelsPerUnit)
+	{
+		reducedCount = selectLevels(opaque, eyeX, eyeY, eyeZ, pixelsPerUnit)
+				+ selectLevels(transparent, eyeX, eyeY, eyeZ, pixelsPerUnit);
+	}
+
+	private static int selectLevels(Item[] items, float eyeX, float eyeY, float eyeZ, float pixelsPerUnit)
+	{
+		int reduced = 0;
+		for (Item item : items) {
+			if (item.culled)
+				continue;
+			item.selectLevel(eyeX, eyeY, eyeZ, pixelsPerUnit);
+			if (item.level > 0)
+				reduced++;
+		}
+		return reduced;
+	}
+
+	/**
+	 * Sorts the transparent items from back to front as seen from an eye position, using the model
+	 * matrices computed by the last call to {@link #cull}
+	 */
+	public void sortTransparent(float eyeX, float eyeY, float eyeZ)
+	{
+		for (Item item : transparent) {
+			Matrix m = item.modelMatrix;
+			float dx = (float) m.get(0, 3) - eyeX;
+			float dy = (float) m.get(1, 3) - eyeY;
+			float dz = (float) m.get(2, 3) - eyeZ;
+			item.viewDistance = dx * dx + dy * dy + dz * dz;
+		}
+		Arrays.sort(transparent, BACK_TO_FRONT);
+	}
+
+	/** Number of items culled by the last call to {@link #cull} */
+	public int getCulledCount()
+	{
+		return culledCount;
+	}
+
+	/** Number of items that were not culled by the last call to {@link #cull} */
+	public int getVisibleCount()
+	{
+		return opaque.length + transparent.length - culledCount;
+	}
+
+	/** Number of items drawn at a lower level of detail as chosen by the last call to {@link #selectLevels} */
+	public int getReducedCount()
+	{
+		return reducedCount;
+	}
+
+	@Override
+	public void newSceneGraph(SceneGraph sg)
+	{
+		List<Item> opaqueItems = new ArrayList<>();
+		List<Item> transparentItems = new ArrayList<>();
+		for (StaticMeshNode node : sg.getAllMeshNodes()) {
+			Item item = new Item(node, content);
+			if (node.isTransparent())
+				transparentItems.add(item);
+			else
+				opaqueItems.add(item);
+		}
+		opaque = opaqueItems.toArray(NO_ITEMS);
+		transparent = transparentItems.toArray(NO_ITEMS);
+		culledCount = 0;
+		reducedCount = 0;
+	}
+
+	@Override
+	public void updatedSceneGraph(SceneGraph sg)
+	{
+	}
+}
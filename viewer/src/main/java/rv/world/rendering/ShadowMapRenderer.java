@@ -18,22 +18,21 @@ package rv.world.rendering;
 
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2;
-import java.util.ArrayList;
-import java.util.List;
 import jsgl.jogl.FrameBufferObject;
+import jsgl.jogl.GLStateCache;
 import jsgl.jogl.RenderBuffer;
 import jsgl.jogl.ShaderProgram;
 import jsgl.jogl.Texture2D;
 import jsgl.jogl.light.DirLight;
+import jsgl.jogl.model.MeshBatch;
 import jsgl.math.Gaussian;
+import jsgl.math.geom.BoundingFrustum;
 import jsgl.math.vector.Matrix;
 import jsgl.math.vector.Vec3f;
 import rv.Configuration;
 import rv.Configuration.Graphics;
 import rv.comm.drawing.Drawings;
-import rv.comm.rcssserver.scenegraph.StaticMeshNode;
 import rv.content.ContentManager;
-import rv.content.Model;
 import rv.world.WorldModel;
 
 /**
@@ -52,6 +51,7 @@ public class ShadowMapRenderer implements SceneRenderer
 		private final Matrix view;
 		private final Matrix projection;
 		private final Matrix viewProjection;
+		private final BoundingFrustum frustum;
 
 		public Matrix getView()
 		{
@@ -73,6 +73,12 @@ public class ShadowMapRenderer implements SceneRenderer
 			return light;
 		}
 
+		/** Volume that receives shadows; meshes outside of it can't cast shadows into it */
+		public BoundingFrustum getFrustum()
+		{
+			return frustum;
+		}
+
 		public LightShadowVolume(
 				DirLight light, Vec3f eye, Vec3f target, Vec3f up, float width, float height, float depth)
 		{
@@ -83,12 +89,12 @@ public class ShadowMapRenderer implements SceneRenderer
 			projection = Matrix.createOrtho(-hw, hw, -hh, hh, 0.0, depth);
 			view = Matrix.createLookAt(eye.x, eye.y, eye.z, target.x, target.y, target.z, up.x, up.y, up.z);
 			viewProjection = projection.times(view);
+			frustum = new BoundingFrustum(viewProjection);
 		}
 	}
 
 	private final static int TEX_FORMAT = GL2.GL_RG32F;
 
-	private ContentManager content;
 	private final static float BLURRINESS = 1.0f;
 	private final static int SAMPLES = 5;
 	private int texWidth;
@@ -99,6 +105,11 @@ public class ShadowMapRenderer implements SceneRenderer
 	private FrameBufferObject blurFBO;
 
 	private ShaderProgram depthShader;
+
+	/** variant of the depth shader for instanced meshes, null if instancing is not supported */
+	private ShaderProgram instancedDepthShader;
+	private int instanceModelAttrib;
+	private final MeshBatch batch = new MeshBatch();
 	private ShaderProgram blurShader;
 
 	private Gaussian.BlurParams[] blurParams;
@@ -107,12 +118,26 @@ public class ShadowMapRenderer implements SceneRenderer
 
 	private boolean useBlur = true;
 	private final LightShadowVolume light;
+	private int culledCasters = 0;
+	private int visibleCasters = 0;
 
 	public LightShadowVolume getLight()
 	{
 		return light;
 	}
 
+	/** Number of meshes outside of the light volume that were not rendered into the last shadow map */
+	public int getCulledCasters()
+	{
+		return culledCasters;
+	}
+
+	/** Number of meshes rendered into the last shadow map */
+	public int getVisibleCasters()
+	{
+		return visibleCasters;
+	}
+
 	public Texture2D getShadowMap()
 	{
 		return shadowMapTexture;
@@ -217,28 +242,14 @@ public class ShadowMapRenderer implements SceneRenderer
 
 		world.getField().render(gl);
 
-		List<StaticMeshNode> transparentNodes = new ArrayList<>();
-		List<StaticMeshNode> nodes = world.getSceneGraph().getAllMeshNodes();
-		for (StaticMeshNode node : nodes) {
-			if (node.isTransparent())
-				transparentNodes.add(node);
-			else {
-				Model model = content.getModel(node.getName());
-				if (model.isLoaded()) {
-					Matrix modelMat = WorldModel.COORD_TFN.times(node.getWorldTransform());
-					model.getMesh().render(gl, modelMat);
-				}
-			}
-		}
+		RenderList renderList = world.getRenderList();
+		renderList.cull(light.getFrustum());
+		culledCasters = renderList.getCulledCount();
+		visibleCasters = renderList.getVisibleCount();
+		renderItems(gl, renderList.getOpaque());
 
 		gl.glEnable(GL.GL_BLEND);
-		for (StaticMeshNode node : transparentNodes) {
-			Model model = content.getModel(node.getName());
-			if (model.isLoaded()) {
-				Matrix modelMat = WorldModel.COORD_TFN.times(node.getWorldTransform());
-				model.getMesh().render(gl, modelMat);
-			}
-		}
+		renderItems(gl, renderList.getTransparent());
 		gl.glDisable(GL.GL_BLEND);
 
 		depthShader.disable(gl);
@@ -247,6 +258,29 @@ public class ShadowMapRenderer implements SceneRenderer
 		return shadowFBO.getColorTexture(0);
 	}
 
+	private void renderItems(GL2 gl, RenderList.Item[] items)
+	{
+		GLStateCache.begin();
+		batch.clear();
+		for (RenderList.Item item : items) {
+			if (item.isCulled() || !item.getModel().isLoaded())
+				continue;
+			Matrix modelMat = item.getModelMatrix();
+			// shadows are blurry and seen from far away, so the least detailed meshes suffice
+			if (!item.addTo(batch, modelMat, true))
+				item.render(gl, modelMat, true);
+		}
+
+		if (instancedDepthShader != null) {
+			instancedDepthShader.enable(gl);
+			batch.render(gl, instanceModelAttrib);
+			depthShader.enable(gl);
+		} else {
+			batch.render(gl);
+		}
+		GLStateCache.end();
+	}
+
 	private Texture2D blurShadowMap(GL2 gl)
 	{
 		gl.glMatrixMode(GL2.GL_PROJECTION);
@@ -296,6 +330,9 @@ public class ShadowMapRenderer implements SceneRenderer
 			blurFBO.dispose(gl);
 		if (depthShader != null)
 			depthShader.dispose(gl);
+		if (instancedDepthShader != null)
+			instancedDepthShader.dispose(gl);
+		batch.dispose(gl);
 		if (blurShader != null)
 			blurShader.dispose(gl);
 	}
@@ -303,7 +340,6 @@ public class ShadowMapRenderer implements SceneRenderer
 	@Override
 	public boolean init(GL2 gl, Graphics conf, ContentManager cm)
 	{
-		this.content = cm;
 		this.useBlur = conf.useSoftShadows;
 
 		texWidth = texHeight = conf.shadowResolution;
@@ -318,6 +354,12 @@ public class ShadowMapRenderer implements SceneRenderer
 		depthShader = ShaderProgram.create(gl, "shaders/vsm_depth.vert", "shaders/vsm_depth.frag", cl);
 		if (depthShader == null)
 			return abortInit(gl, "could not load depth pass shader", conf);
+		if (MeshBatch.isSupported(gl)) {
+			instancedDepthShader = ShaderProgram.create(
+					gl, "shaders/vsm_depth.vert", "shaders/vsm_depth.frag", cl, "INSTANCED");
+			if (instancedDepthShader != null)
+				instanceModelAttrib = instancedDepthShader.getAttribute(gl, "instanceModel");
+		}
 
 		if (useBlur) {
 			if (blurFBO == null)
@@ -18,15 +18,13 @@ package rv.world.rendering;
 
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2;
-import java.util.ArrayList;
-import java.util.List;
+import jsgl.jogl.GLStateCache;
+import jsgl.jogl.model.MeshBatch;
 import jsgl.math.vector.Matrix;
 import rv.Configuration.Graphics;
 import rv.Renderer;
 import rv.comm.drawing.Drawings;
-import rv.comm.rcssserver.scenegraph.StaticMeshNode;
 import rv.content.ContentManager;
-import rv.content.Model;
 import rv.effects.EffectManager;
 import rv.effects.VSMPhongShader;
 import rv.world.WorldModel;
@@ -38,10 +36,12 @@ import rv.world.WorldModel;
  */
 public class VSMPhongWorldRenderer implements SceneRenderer
 {
-	private ContentManager content;
 	private final EffectManager effects;
 	private VSMPhongShader shader;
-	private final List<String> suppressedMeshes = new ArrayList<>();
+
+	/** variant of the shader for instanced meshes, null if instancing is not supported */
+	private VSMPhongShader instancedShader;
+	private final MeshBatch batch = new MeshBatch();
 
 	public VSMPhongShader getShader()
 	{
@@ -56,8 +56,6 @@ public class VSMPhongWorldRenderer implements SceneRenderer
 	@Override
 	public boolean init(GL2 gl, Graphics graphics, ContentManager cm)
 	{
-		this.content = cm;
-
 		shader = VSMPhongShader.create(gl);
 		if (shader == null) {
 			graphics.useShadows = false;
@@ -68,31 +66,48 @@ public class VSMPhongWorldRenderer implements SceneRenderer
 		shader.setLightViewProjection(gl, effects.getShadowRenderer().getLight().getViewProjection());
 		shader.disable(gl);
 
-		suppressedMeshes.add("field.obj");
-		suppressedMeshes.add("skybox.obj");
+		if (MeshBatch.isSupported(gl)) {
+			instancedShader = VSMPhongShader.create(gl, true);
+			if (instancedShader != null) {
+				instancedShader.enable(gl);
+				instancedShader.setLightViewProjection(
+						gl, effects.getShadowRenderer().getLight().getViewProjection());
+				instancedShader.disable(gl);
+			} else {
+				System.err.println("Instanced VSM Phong shader failed to load, rendering meshes one by one");
+			}
+		}
 
 		return true;
 	}
 
-	private void renderSceneGraphNode(GL2 gl, StaticMeshNode node, ContentManager content)
+	/**
+	 * @param instanced
+	 *            - draws the meshes that can be instanced after the others, so this must be false
+	 *            if the order of the items matters
+	 */
+	private void renderItems(GL2 gl, RenderList.Item[] items, boolean instanced)
 	{
-		Model model = content.getModel(node.getName());
-		if (model.isLoaded()) {
-			// NOTE: this is a hack to avoid rendering certain meshes that are
-			// replaced by
-			// RoboViz; in particular, the field and skybox are treated
-			// differently
-			for (String s : suppressedMeshes)
-				if (node.getName().endsWith(s))
-					return;
-
-			BasicSceneRenderer.applyAgentMats(model, node, content);
-
-			Matrix modelMat = WorldModel.COORD_TFN.times(node.getWorldTransform());
-			shader.setModelMatrix(gl, modelMat);
-
-			model.getMesh().render(gl, modelMat);
+		instanced &= instancedShader != null;
+		GLStateCache.begin();
+		batch.clear();
+		for (RenderList.Item item : items) {
+			if (item.isSuppressed() || item.isCulled() || !item.getModel().isLoaded())
+				continue;
+			Matrix modelMat = item.getModelMatrix();
+			if (!instanced || !item.addTo(batch, modelMat)) {
+				shader.setModelMatrix(gl, modelMat);
+				item.render(gl, modelMat);
+			}
 		}
+
+		if (instanced) {
+			// the shadow map stays bound to its texture unit when switching programs
+			instancedShader.enable(gl);
+			batch.render(gl, instancedShader.getInstanceModelAttribute());
+			shader.enable(gl);
+		}
+		GLStateCache.end();
 	}
 
 	public void render(GL2 gl, WorldModel world, Drawings drawings)
@@ -117,14 +132,8 @@ public class VSMPhongWorldRenderer implements SceneRenderer
 		world.getField().render(gl);
 		gl.glDepthMask(true);
 
-		List<StaticMeshNode> transparentNodes = new ArrayList<>();
-		List<StaticMeshNode> nodes = world.getSceneGraph().getAllMeshNodes();
-		for (StaticMeshNode node : nodes) {
-			if (node.isTransparent())
-				transparentNodes.add(node);
-			else
-				renderSceneGraphNode(gl, node, content);
-		}
+		RenderList renderList = world.getRenderList();
+		renderItems(gl, renderList.getOpaque(), true);
 
 		// drawings
 		gl.glEnable(GL.GL_BLEND);
@@ -136,10 +145,9 @@ public class VSMPhongWorldRenderer implements SceneRenderer
 			drawings.render(gl, Renderer.glut);
 		shader.enable(gl);
 
-		// transparent stuff
+		// transparent stuff, back to front
 
-		for (StaticMeshNode transparentNode : transparentNodes)
-			renderSceneGraphNode(gl, transparentNode, content);
+		renderItems(gl, renderList.getTransparent(), false);
 		gl.glDisable(GL.GL_BLEND);
 
 		shader.disable(gl);
@@ -149,6 +157,9 @@ public class VSMPhongWorldRenderer implements SceneRenderer
 	public void dispose(GL gl)
 	{
 		shader.dispose(gl);
+		if (instancedShader != null)
+			instancedShader.dispose(gl);
+		batch.dispose(gl);
 	}
 
 	@Override
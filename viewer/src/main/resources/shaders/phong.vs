@@ -14,6 +14,10 @@
 *  limitations under the License.
 */
 
+#ifdef INSTANCED
+attribute mat4  instanceModel;
+#endif
+
 varying vec3    normal;
 varying vec3    lightDir;
 varying vec3    halfVector;
@@ -26,7 +30,13 @@ void main()
 {   
     diffuseTexCoords = vec2(gl_MultiTexCoord0);
 
+#ifdef INSTANCED
+    // the modelview matrix only contains the view transformation
+    vec4 vertex = instanceModel * gl_Vertex;
+    normal = normalize(gl_NormalMatrix * vec3(instanceModel * vec4(gl_Normal, 0.0)));
+#else
     normal = normalize(gl_NormalMatrix * gl_Normal);
+#endif
     lightDir = normalize(gl_LightSource[0].position.xyz);
     halfVector = normalize(gl_LightSource[0].halfVector.xyz);
     C_diffuse = gl_FrontMaterial.diffuse * gl_LightSource[0].diffuse;
@@ -34,5 +44,9 @@ void main()
        gl_LightModel.ambient);
     C_specular = gl_FrontMaterial.specular * gl_LightSource[0].specular;
     
+#ifdef INSTANCED
+    gl_Position = gl_ModelViewProjectionMatrix * vertex;
+#else
     gl_Position = ftransform();
+#endif
 } 
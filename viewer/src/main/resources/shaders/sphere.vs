@@ -0,0 +1,27 @@
+/*
+*  Copyright 2011 RoboViz
+*
+*  Licensed under the Apache License, Version 2.0 (the "License");
+*  you may not use this file except in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*      http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing, software
+*  distributed under the License is distributed on an "AS IS" BASIS,
+*  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*  See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+
+// per instance: center (xyz) and radius (w) of the sphere
+attribute vec4 instanceSphere;
+attribute vec4 instanceColor;
+
+void main()
+{
+	// the mesh is a unit sphere
+	vec4 pos = vec4(gl_Vertex.xyz * instanceSphere.w + instanceSphere.xyz, 1.0);
+	gl_Position = gl_ModelViewProjectionMatrix * pos;
+	gl_FrontColor = instanceColor;
+}
@@ -14,12 +14,21 @@
 *  limitations under the License.
 */
 
+#ifdef INSTANCED
+attribute mat4  instanceModel;
+#endif
+
 varying vec2    diffuseTexCoords;
 varying float   depth;
 
 void main()
 {	
+#ifdef INSTANCED
+	// the modelview matrix only contains the view transformation
+	gl_Position = gl_ModelViewProjectionMatrix * instanceModel * gl_Vertex;
+#else
 	gl_Position = ftransform();
+#endif
 	diffuseTexCoords = vec2(gl_MultiTexCoord0);
 	
 	vec3 vertPos = vec3(gl_Position / gl_Position.w);
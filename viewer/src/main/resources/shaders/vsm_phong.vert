@@ -14,7 +14,11 @@
 *  limitations under the License.
 */
 
+#ifdef INSTANCED
+attribute mat4  instanceModel;
+#else
 uniform mat4    modelMatrix;
+#endif
 uniform mat4    lightViewProjectionBias;
 
 varying vec3    normal;
@@ -30,14 +34,25 @@ varying float   fragDepth;
 void main()
 {	
     diffuseTexCoords = vec2(gl_MultiTexCoord0);
+
+#ifdef INSTANCED
+    // the modelview matrix only contains the view transformation
+    mat4 model = instanceModel;
+#else
+    mat4 model = modelMatrix;
+#endif
     
     // calculate shadow map coordinates for vertex
-    vec4 vertLightCS = lightViewProjectionBias * modelMatrix * gl_Vertex;
+    vec4 vertLightCS = lightViewProjectionBias * model * gl_Vertex;
     vertLightCS /= vertLightCS.w;
     shadowTexCoords = vertLightCS.xy;
     fragDepth = vertLightCS.z;
 
+#ifdef INSTANCED
+	normal = normalize(gl_NormalMatrix * vec3(model * vec4(gl_Normal, 0.0)));
+#else
 	normal = normalize(gl_NormalMatrix * gl_Normal);
+#endif
 	lightDir = normalize(gl_LightSource[0].position.xyz);
 	halfVector = normalize(gl_LightSource[0].halfVector.xyz);
 	C_diffuse = gl_FrontMaterial.diffuse * gl_LightSource[0].diffuse;
@@ -45,5 +60,9 @@ void main()
 	   gl_LightModel.ambient);	
 	C_specular = gl_FrontMaterial.specular * gl_LightSource[0].specular;
 	
+#ifdef INSTANCED
+	gl_Position = gl_ModelViewProjectionMatrix * model * gl_Vertex;
+#else
 	gl_Position = ftransform();
+#endif
 } 
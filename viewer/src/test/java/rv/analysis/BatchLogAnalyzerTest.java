@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rv.Configuration;
+
+public class BatchLogAnalyzerTest
+{
+	private File root;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		root = Files.createTempDirectory("BatchLogAnalyzerTest").toFile();
+	}
+
+	@After
+	public void tearDown() throws IOException
+	{
+		try (Stream<Path> paths = Files.walk(root.toPath())) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	private void writeLog(File file, int frames) throws IOException
+	{
+		file.getParentFile().mkdirs();
+		try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+			out.println("((time 0))(RSG 0 1)((nd TRF (SLT 1 0 0 0 0 1 0 0 0 0 1 0 0 0 0 1)))");
+			for (int time = 1; time < frames; time++)
+				out.println("((time " + time + "))(RDS 0 1)((nd (SLT 1 0 0 0 0 1 0 0 0 0 1 0 0 0 0 1)))");
+		}
+	}
+
+	@Test
+	public void testLogsWithSameNameGetSeparateReports() throws IOException
+	{
+		File logs = new File(root, "logs");
+		writeLog(new File(logs, "round1/match.log"), 5);
+		writeLog(new File(logs, "round2/match.log"), 7);
+		File output = new File(root, "analysis");
+
+		int failed = new BatchLogAnalyzer(logs, output, 2, new Configuration()).run();
+		assertEquals(0, failed);
+
+		File report1 = new File(output, "round1/match.log.json");
+		File report2 = new File(output, "round2/match.log.json");
+		assertTrue(report1.isFile());
+		assertTrue(report2.isFile());
+		assertTrue(read(report1).contains("\"frames\": 5"));
+		assertTrue(read(report2).contains("\"frames\": 7"));
+		String name1 = "round1" + File.separator + "match.log";
+		String name2 = "round2" + File.separator + "match.log";
+		assertTrue(read(report1).contains("\"log\": " + json(name1)));
+		assertTrue(read(report2).contains("\"log\": " + json(name2)));
+
+		// the summary rows are in order of completion
+		List<String> rows = Files.readAllLines(new File(output, "summary.csv").toPath(), StandardCharsets.UTF_8);
+		assertEquals(3, rows.size());
+		assertEquals(MatchStatistics.getCsvHeader(), rows.get(0));
+		Set<String> names = new HashSet<>();
+		for (String row : rows.subList(1, rows.size()))
+			names.add(row.substring(0, row.indexOf(',')));
+		assertEquals(new HashSet<>(Arrays.asList(name1, name2)), names);
+	}
+
+	private static String json(String value)
+	{
+		return '"' + value.replace("\\", "\\\\") + '"';
+	}
+
+	private static String read(File file) throws IOException
+	{
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+}
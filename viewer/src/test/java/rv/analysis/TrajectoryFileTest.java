@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rv.analysis.TrajectoryFile.Column;
+import rv.world.Team;
+
+public class TrajectoryFileTest
+{
+	private static final float EPSILON = 1e-4f;
+
+	private File root;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		root = Files.createTempDirectory("TrajectoryFileTest").toFile();
+	}
+
+	@After
+	public void tearDown()
+	{
+		for (File file : root.listFiles())
+			file.delete();
+		root.delete();
+	}
+
+	private static String ballTransform(float x, float y)
+	{
+		return "(SLT 1 0 0 0 0 1 0 0 0 0 1 0 " + x + " " + y + " 0.04 1)";
+	}
+
+	/** Log with a ball moving along the x axis, frame i at time times[i] */
+	private File writeLog(float... times) throws IOException
+	{
+		File file = new File(root, "match.log");
+		try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+			out.println("((time " + times[0] + "))(RSG 0 1)((nd TRF " + ballTransform(0, 1) +
+						" (nd StaticMesh (load models/soccerball.obj) (sSc 0.042 0.042 0.042)" +
+						" (resetMaterials soccerball_rcs-soccerball.png))))");
+			for (int i = 1; i < times.length; i++)
+				out.println("((time " + times[i] + "))(RDS 0 1)((nd " + ballTransform(i, 1) + " (nd)))");
+		}
+		return file;
+	}
+
+	@Test
+	public void testExportedTrajectoriesCanBeRead() throws IOException
+	{
+		File output = new File(root, "match.trj");
+		assertEquals(4, TrajectoryExporter.export(writeLog(0, 0.5f, 1, 1.5f), output));
+
+		try (TrajectoryFile trajectories = new TrajectoryFile(output)) {
+			assertEquals(4, trajectories.getNumFrames());
+			assertEquals(1 + 2 * Team.MAX_AGENTS, trajectories.getNumEntities());
+			int ball = trajectories.getBallEntity();
+			assertEquals(0, ball);
+			for (int frame = 0; frame < 4; frame++) {
+				assertEquals(frame * 0.5f, trajectories.getTime(frame), EPSILON);
+				assertEquals(frame, trajectories.get(ball, Column.X, frame), EPSILON);
+				assertEquals(1, trajectories.get(ball, Column.Y, frame), EPSILON);
+			}
+			assertTrue(Float.isNaN(trajectories.get(ball, Column.TORSO_HEADING, 0)));
+
+			// agents that are not on the field
+			int agent = trajectories.getEntity(Team.LEFT, 1);
+			assertTrue(agent > 0);
+			assertTrue(Float.isNaN(trajectories.get(agent, Column.X, 0)));
+
+			float[] xs = new float[2];
+			trajectories.get(ball, Column.X, 1, 3, xs);
+			assertEquals(1, xs[0], EPSILON);
+			assertEquals(2, xs[1], EPSILON);
+		}
+	}
+
+	@Test
+	public void testFindFrame() throws IOException
+	{
+		File output = new File(root, "match.trj");
+		TrajectoryExporter.export(writeLog(0, 0, 1, 2, 2, 3), output);
+		try (TrajectoryFile trajectories = new TrajectoryFile(output)) {
+			assertEquals(0, trajectories.findFrame(0));
+			assertEquals(2, trajectories.findFrame(0.5f));
+			assertEquals(3, trajectories.findFrame(2));
+			assertEquals(6, trajectories.findFrame(10));
+		}
+	}
+
+	@Test
+	public void testFindFrameWhenTimeDecreases() throws IOException
+	{
+		File output = new File(root, "match.trj");
+		TrajectoryExporter.export(writeLog(5, 6, 0, 1, 2), output);
+		try (TrajectoryFile trajectories = new TrajectoryFile(output)) {
+			assertEquals(0, trajectories.findFrame(0));
+			assertEquals(1, trajectories.findFrame(5.5f));
+			assertEquals(1, trajectories.findFrame(6));
+			assertEquals(5, trajectories.findFrame(7));
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class DrawCommTest
+{
+	private static final int PORT = 32799;
+
+	@Test
+	public void testPacketsLargerThanBufferAreDropped() throws IOException, InterruptedException
+	{
+		DrawComm comm = new DrawComm(null, PORT, 64, new DrawingBudget(0, 0, 0));
+		List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(1);
+		comm.addListener(command -> {
+			received.add(command.remaining());
+			done.countDown();
+		});
+		// only pass the packets to the listener, there is no viewer to execute them
+		comm.setPaused(true);
+
+		try (DatagramSocket socket = new DatagramSocket()) {
+			InetAddress address = InetAddress.getLoopbackAddress();
+			socket.send(new DatagramPacket(new byte[100], 100, address, PORT));
+			socket.send(new DatagramPacket(new byte[64], 64, address, PORT));
+			socket.send(new DatagramPacket(new byte[10], 10, address, PORT));
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+		} finally {
+			comm.shutdown();
+		}
+		assertEquals(Collections.singletonList(10), received);
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import org.junit.Test;
+import rv.comm.drawing.commands.Command;
+
+public class DrawingBudgetTest
+{
+	private static final SocketAddress AGENT_1 = new InetSocketAddress("127.0.0.1", 40001);
+	private static final SocketAddress AGENT_2 = new InetSocketAddress("127.0.0.1", 40002);
+
+	/** time of the budget's clock in nanoseconds */
+	private long now = 0;
+
+	private DrawingBudget createBudget(int bytesPerSecond, int shapesPerSecond, int setShapesPerSecond)
+	{
+		return new DrawingBudget(bytesPerSecond, shapesPerSecond, setShapesPerSecond, () -> now);
+	}
+
+	private void advance(double seconds)
+	{
+		now += (long) (seconds * 1e9);
+	}
+
+	@Test
+	public void testUnlimited()
+	{
+		DrawingBudget budget = createBudget(0, 0, 0);
+		assertTrue(budget.acceptPacket(AGENT_1, 1000000));
+		assertEquals(100000, budget.getShapeBudget(AGENT_1).acceptShapes("debug.a", 100000));
+	}
+
+	@Test
+	public void testFloodingSourceDoesNotTakeSharedPrefixFromOthers()
+	{
+		DrawingBudget budget = createBudget(0, 0, 100);
+		Command.ShapeBudget flooder = budget.getShapeBudget(AGENT_1);
+		for (int i = 0; i < 100; i++)
+			flooder.acceptShapes("debug.flood", 100);
+		assertEquals(0, flooder.acceptShapes("debug.other", 1));
+
+		// the other agent has its own budget for the same prefix
+		assertEquals(100, budget.getShapeBudget(AGENT_2).acceptShapes("debug.mine", 100));
+	}
+
+	@Test
+	public void testRejectedPrefixDoesNotSpendSourceBudget()
+	{
+		DrawingBudget budget = createBudget(0, 100, 10);
+		Command.ShapeBudget agent = budget.getShapeBudget(AGENT_1);
+		assertEquals(10, agent.acceptShapes("a.x", 10));
+		assertEquals(0, agent.acceptShapes("a.x", 50));
+		assertEquals(0, agent.acceptShapes("a.y", 50));
+
+		// only the 10 accepted shapes were taken from the source's budget of 100
+		for (String prefix : new String[] {"b.", "c.", "d.", "e.", "f.", "g.", "h.", "i.", "j."})
+			assertEquals(10, agent.acceptShapes(prefix + "x", 10));
+		assertEquals(0, agent.acceptShapes("k.x", 10));
+	}
+
+	@Test
+	public void testBatchLargerThanBudgetIsAcceptedInPart()
+	{
+		DrawingBudget budget = createBudget(0, 100, 0);
+		Command.ShapeBudget agent = budget.getShapeBudget(AGENT_1);
+		assertEquals(100, agent.acceptShapes("batch", 500));
+		assertEquals(0, agent.acceptShapes("batch", 500));
+
+		advance(0.5);
+		assertEquals(50, agent.acceptShapes("batch", 500));
+
+		DrawingBudget.Usage usage = budget.getUsage().get(0);
+		assertEquals(150, usage.getAcceptedShapes());
+		assertEquals(1350, usage.getDroppedShapes());
+	}
+
+	@Test
+	public void testBudgetRefillsUpToOneSecond()
+	{
+		DrawingBudget budget = createBudget(0, 100, 0);
+		Command.ShapeBudget agent = budget.getShapeBudget(AGENT_1);
+		assertEquals(100, agent.acceptShapes("set", 100));
+		advance(0.25);
+		assertEquals(25, agent.acceptShapes("set", 100));
+		advance(10);
+		assertEquals(100, agent.acceptShapes("set", 1000));
+	}
+
+	@Test
+	public void testPacketsLargerThanByteRateCanPass()
+	{
+		DrawingBudget budget = createBudget(1000, 0, 0);
+		// 507 bytes are left of the burst of one maximum size packet
+		assertTrue(budget.acceptPacket(AGENT_1, 65000));
+		assertFalse(budget.acceptPacket(AGENT_1, 8000));
+
+		// the budget refills at the configured rate
+		advance(7);
+		assertFalse(budget.acceptPacket(AGENT_1, 8000));
+		advance(1);
+		assertTrue(budget.acceptPacket(AGENT_1, 8000));
+		assertTrue(budget.acceptPacket(AGENT_2, 60000));
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DrawingsTest
+{
+	@Test
+	public void testBoundIDIsNotRebound()
+	{
+		Drawings drawings = new Drawings();
+		assertTrue(drawings.bindShapeSet(7, "agent1.ball"));
+		assertTrue(drawings.bindShapeSet(7, "agent1.ball"));
+		assertFalse(drawings.bindShapeSet(7, "agent2.ball"));
+
+		assertSame(drawings.getShapeSet("agent1.ball"), drawings.getShapeSet(7));
+		// the set of the rejected binding exists anyway
+		assertNotNull(drawings.getShapeSet("agent2.ball"));
+	}
+
+	@Test
+	public void testClearingSetsForgetsIDs()
+	{
+		Drawings drawings = new Drawings();
+		drawings.bindShapeSet(7, "agent1.ball");
+		drawings.clearAllShapeSets();
+		assertNull(drawings.getShapeSet(7));
+
+		assertTrue(drawings.bindShapeSet(7, "agent2.ball"));
+		assertSame(drawings.getShapeSet("agent2.ball"), drawings.getShapeSet(7));
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class SetIndexTest
+{
+	private static SetIndex<ShapeSet> createIndex(String... names)
+	{
+		SetIndex<ShapeSet> index = new SetIndex<>(ShapeSet::new);
+		for (String name : names)
+			index.getOrCreate(name, set -> {});
+		return index;
+	}
+
+	private static List<String> namesWithPrefix(SetIndex<ShapeSet> index, String prefix)
+	{
+		List<String> names = new ArrayList<>();
+		index.forEachWithPrefix(prefix, set -> names.add(set.getName()));
+		return names;
+	}
+
+	@Test
+	public void testPrefixVisitsOnlyMatchingSets()
+	{
+		SetIndex<ShapeSet> index = createIndex("b", "a.bc", "ab", "a.b.c", "a.b", "a");
+		assertEquals(Arrays.asList("a.b", "a.b.c", "a.bc"), namesWithPrefix(index, "a.b"));
+		assertEquals(Arrays.asList("a.b.c"), namesWithPrefix(index, "a.b."));
+		assertEquals(Arrays.asList("a", "a.b", "a.b.c", "a.bc", "ab"), namesWithPrefix(index, "a"));
+		assertEquals(6, namesWithPrefix(index, "").size());
+		assertEquals(0, namesWithPrefix(index, "c").size());
+	}
+
+	@Test
+	public void testSetIsCreatedOnce()
+	{
+		SetIndex<ShapeSet> index = new SetIndex<>(ShapeSet::new);
+		List<ShapeSet> created = new ArrayList<>();
+		ShapeSet set = index.getOrCreate("agent1.path", created::add);
+		assertSame(set, index.getOrCreate("agent1.path", created::add));
+		assertEquals(Arrays.asList(set), created);
+		assertSame(set, index.get("agent1.path"));
+
+		index.clear();
+		assertNull(index.get("agent1.path"));
+		assertEquals(0, namesWithPrefix(index, "agent1").size());
+		assertEquals(0, index.getSets().size());
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import static org.junit.Assert.assertEquals;
+
+import com.jogamp.opengl.GL;
+import org.junit.Test;
+
+public class ShapeBatchTest
+{
+	private static final int WHITE = 0xFFFFFFFF;
+
+	/** Lines with two widths, points with two sizes and a polygon */
+	private static ShapeSet createMixedSet()
+	{
+		ShapeSet set = new ShapeSet("test");
+		ShapeBuffer shapes = set.getBackBuffer();
+		shapes.addLine(0, 0, 0, 1, 0, 0, 1, WHITE);
+		shapes.addLine(0, 0, 0, 0, 1, 0, 2, WHITE);
+		shapes.addLine(0, 0, 0, 0, 0, 1, 1, WHITE);
+		shapes.addPoint(1, 1, 1, 4, WHITE);
+		shapes.addPoint(2, 2, 2, 2, WHITE);
+		shapes.addPoint(3, 3, 3, 4, WHITE);
+		shapes.beginPolygon(4, WHITE);
+		shapes.addPolygonVertex(0, 0, 0);
+		shapes.addPolygonVertex(1, 0, 0);
+		shapes.addPolygonVertex(1, 1, 0);
+		shapes.addPolygonVertex(0, 1, 0);
+		set.swapBuffers();
+		return set;
+	}
+
+	/** Each group is drawn with a single call, see {@link ShapeBatch#render} */
+	@Test
+	public void testShapesAreGroupedByModeAndWidth()
+	{
+		ShapeBatch batch = new ShapeBatch();
+		batch.update(createMixedSet());
+
+		assertEquals(5, batch.getGroupCount());
+		assertEquals(4, batch.getVertexCount(GL.GL_LINES, 1));
+		assertEquals(2, batch.getVertexCount(GL.GL_LINES, 2));
+		assertEquals(2, batch.getVertexCount(GL.GL_POINTS, 4));
+		assertEquals(1, batch.getVertexCount(GL.GL_POINTS, 2));
+		// the quad is split into two triangles
+		assertEquals(6, batch.getVertexCount(GL.GL_TRIANGLES, 0));
+	}
+
+	@Test
+	public void testUnchangedSetIsNotPackedAgain()
+	{
+		ShapeSet set = createMixedSet();
+		ShapeBatch batch = new ShapeBatch();
+		batch.update(set);
+
+		// shapes added to the back buffer are not visible before the next swap
+		set.getBackBuffer().addPoint(0, 0, 0, 4, WHITE);
+		batch.update(set);
+		assertEquals(2, batch.getVertexCount(GL.GL_POINTS, 4));
+
+		set.swapBuffers();
+		batch.update(set);
+		assertEquals(1, batch.getVertexCount(GL.GL_POINTS, 4));
+	}
+
+	@Test
+	public void testEmptyGroupsAreNotDrawn()
+	{
+		ShapeSet set = createMixedSet();
+		ShapeBatch batch = new ShapeBatch();
+		batch.update(set);
+
+		set.getBackBuffer().addLine(0, 0, 0, 1, 1, 1, 2, WHITE);
+		set.swapBuffers();
+		batch.update(set);
+		assertEquals(1, batch.getGroupCount());
+		assertEquals(0, batch.getVertexCount(GL.GL_LINES, 1));
+		assertEquals(2, batch.getVertexCount(GL.GL_LINES, 2));
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.drawing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class ShapeSetTest
+{
+	private static void addPoints(ShapeSet set, int count)
+	{
+		for (int i = 0; i < count; i++)
+			set.getBackBuffer().addPoint(i, 0, 0, 1, 0xFFFFFFFF);
+	}
+
+	@Test
+	public void testSwapPublishesBackBuffer()
+	{
+		ShapeSet set = new ShapeSet("test");
+		long version = set.getVersion();
+		addPoints(set, 3);
+		set.swapBuffers();
+		assertEquals(version + 1, set.getVersion());
+
+		int[] count = new int[1];
+		assertEquals(version + 1, set.readFront(front -> count[0] = front.getShapeCount()));
+		assertEquals(3, count[0]);
+		assertEquals(0, set.getBackBuffer().getShapeCount());
+	}
+
+	@Test
+	public void testBufferBeingReadIsNotReused()
+	{
+		ShapeSet set = new ShapeSet("test");
+		addPoints(set, 5);
+		set.swapBuffers();
+
+		set.readFront(front -> {
+			// the network thread swaps twice while the front buffer is being packed
+			for (int i = 0; i < 2; i++) {
+				assertNotSame(front, set.getBackBuffer());
+				addPoints(set, 1);
+				set.swapBuffers();
+				assertNotSame(front, set.getBackBuffer());
+			}
+			assertEquals(5, front.getShapeCount());
+		});
+
+		// once the reader is done, the old front buffer is recycled at a later swap
+		ShapeBuffer[] released = new ShapeBuffer[1];
+		addPoints(set, 2);
+		set.swapBuffers();
+		set.readFront(front -> released[0] = front);
+		addPoints(set, 4);
+		set.swapBuffers();
+		assertSame(released[0], set.getBackBuffer());
+		assertEquals(0, set.getBackBuffer().getShapeCount());
+		assertEquals(4, set.getFrontShapes().size());
+	}
+}
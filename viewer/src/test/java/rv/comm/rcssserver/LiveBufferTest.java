@@ -0,0 +1,151 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.rcssserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.text.ParseException;
+import org.junit.Test;
+import rv.world.WorldModel;
+
+public class LiveBufferTest
+{
+	/** keyframes are stored every 50 frames, see LiveBuffer.KEYFRAME_INTERVAL */
+	private static final int KEYFRAME_INTERVAL = 50;
+
+	/** small enough that a few hundred frames don't fit */
+	private static final int CAPACITY = 4096;
+
+	private static String fullMessage(int time)
+	{
+		return "((time " + time + "))(RSG 0 1)((nd TRF (SLT 1 0 0 0 0 1 0 0 0 0 1 0 " + time + " 0 0 1)))";
+	}
+
+	private static String diffMessage(int time)
+	{
+		return "((time " + time + "))(RDS 0 1)((nd (SLT 1 0 0 0 0 1 0 0 0 0 1 0 " + time + " 0 0 1)))";
+	}
+
+	/** Adds frames with the times from first to end - 1, starting with a full scene graph if first is 0 */
+	private static void addFrames(LiveBuffer buffer, int first, int end)
+	{
+		for (int time = first; time < end; time++)
+			buffer.addMessage(time == 0 ? fullMessage(time) : diffMessage(time));
+	}
+
+	/** Time of the world state that a buffered message restores */
+	private static float timeOf(String message) throws ParseException
+	{
+		WorldModel world = new WorldModel();
+		new MessageParser(world).parse(message);
+		return world.getGameState().getTime();
+	}
+
+	@Test
+	public void testAllFramesAreKeptWhileTheyFit() throws ParseException
+	{
+		LiveBuffer buffer = new LiveBuffer(null, 1024 * 1024);
+		addFrames(buffer, 0, 120);
+		assertEquals(120, buffer.getNumFrames());
+		assertTrue(buffer.isLive());
+
+		buffer.leaveLive();
+		assertFalse(buffer.isLive());
+		assertEquals(119, buffer.getCurrentFrame());
+
+		// a diff far from its keyframe is restored as a full state
+		buffer.stepAnywhere(77);
+		assertEquals(77, buffer.getCurrentFrame());
+		assertTrue(buffer.getCurrentFrameMessage().contains("(RSG 0 1)"));
+		assertEquals(77, timeOf(buffer.getCurrentFrameMessage()), 0);
+
+		buffer.stepBackward();
+		assertEquals(76, timeOf(buffer.getCurrentFrameMessage()), 0);
+
+		// stepping forward returns the diff as received, to be applied to the previous state
+		WorldModel world = new WorldModel();
+		MessageParser parser = new MessageParser(world);
+		parser.parse(buffer.getCurrentFrameMessage());
+		String next = buffer.stepForward();
+		assertTrue(next.contains("(RDS 0 1)"));
+		parser.parse(next);
+		assertEquals(77, world.getGameState().getTime(), 0);
+	}
+
+	@Test
+	public void testEvictionDropsKeyframeWithItsDiffs() throws ParseException
+	{
+		LiveBuffer buffer = new LiveBuffer(null, CAPACITY);
+		int frames = 4 * KEYFRAME_INTERVAL + 10;
+		addFrames(buffer, 0, frames);
+		assertTrue(buffer.getNumFrames() < frames);
+
+		// the oldest frame is a keyframe, so no diff was kept without the keyframe it depends on
+		buffer.leaveLive();
+		buffer.stepAnywhere(0);
+		String oldest = buffer.getCurrentFrameMessage();
+		assertTrue(oldest.contains("(RSG 0 1)"));
+		int oldestTime = (int) timeOf(oldest);
+		assertEquals(0, oldestTime % KEYFRAME_INTERVAL);
+		assertEquals(frames - oldestTime, buffer.getNumFrames());
+
+		// every buffered frame can still be restored
+		for (int frame = 0; frame < buffer.getNumFrames(); frame++) {
+			buffer.stepAnywhere(frame);
+			assertEquals(oldestTime + frame, timeOf(buffer.getCurrentFrameMessage()), 0);
+		}
+	}
+
+	@Test
+	public void testSeekToEvictedFrame() throws ParseException
+	{
+		LiveBuffer buffer = new LiveBuffer(null, CAPACITY);
+		addFrames(buffer, 0, 20);
+		assertEquals(20, buffer.getNumFrames());
+		buffer.leaveLive();
+		buffer.stepAnywhere(0);
+		assertEquals(0, timeOf(buffer.getCurrentFrameMessage()), 0);
+
+		// the stream goes on while playback is paused, until the current frame is dropped
+		addFrames(buffer, 20, 5 * KEYFRAME_INTERVAL);
+		buffer.stepAnywhere(0);
+		int oldestTime = (int) timeOf(buffer.getCurrentFrameMessage());
+		assertTrue(oldestTime > 0);
+		assertEquals(0, buffer.getCurrentFrame());
+
+		// stepping forward from a dropped frame continues at the oldest buffered one
+		buffer.stepAnywhere(1);
+		addFrames(buffer, 5 * KEYFRAME_INTERVAL, 8 * KEYFRAME_INTERVAL);
+		String next = buffer.stepForward();
+		int newOldestTime = (int) timeOf(next);
+		assertTrue(newOldestTime > oldestTime + 1);
+		assertEquals(0, newOldestTime % KEYFRAME_INTERVAL);
+		assertEquals(0, buffer.getCurrentFrame());
+		assertTrue(buffer.isAtBeginningOfLog());
+
+		// seeking beyond either end is clamped to the buffered frames
+		buffer.stepAnywhere(-5);
+		assertEquals(newOldestTime, timeOf(buffer.getCurrentFrameMessage()), 0);
+		buffer.stepAnywhere(Integer.MAX_VALUE);
+		assertEquals(8 * KEYFRAME_INTERVAL - 1, timeOf(buffer.getCurrentFrameMessage()), 0);
+		assertTrue(buffer.isAtEndOfLog());
+		assertNull(buffer.stepForward());
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.rcssserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class PlayoutBufferTest
+{
+	private static final long MS = 1000000;
+
+	/** time of the buffer's clock in nanoseconds */
+	private long now = 1;
+
+	private final List<String> played = Collections.synchronizedList(new ArrayList<>());
+
+	/** Buffer that only estimates the delay, driven by the test's clock */
+	private PlayoutBuffer createEstimator()
+	{
+		return new PlayoutBuffer(played::add, () -> now, false);
+	}
+
+	private void arrive(PlayoutBuffer buffer, long deltaMS)
+	{
+		now += deltaMS * MS;
+		buffer.add("(time " + now + ")");
+	}
+
+	@Test
+	public void testSteadyArrivalsUseMinimumDelay()
+	{
+		PlayoutBuffer buffer = createEstimator();
+		for (int i = 0; i < 100; i++)
+			arrive(buffer, 40);
+		assertEquals(20, buffer.getTargetDelayMS());
+	}
+
+	@Test
+	public void testJitterIncreasesDelayUntilNetworkIsCalm()
+	{
+		PlayoutBuffer buffer = createEstimator();
+		for (int i = 0; i < 200; i++)
+			arrive(buffer, i % 2 == 0 ? 20 : 60);
+
+		// the arrivals deviate 20 ms from the interval, which is buffered three times over
+		long delay = buffer.getTargetDelayMS();
+		assertTrue("delay " + delay, delay >= 40 && delay <= 80);
+
+		for (int i = 0; i < 200; i++)
+			arrive(buffer, 40);
+		assertEquals(20, buffer.getTargetDelayMS());
+	}
+
+	@Test
+	public void testDelayIsLimited()
+	{
+		PlayoutBuffer buffer = createEstimator();
+		for (int i = 0; i < 200; i++)
+			arrive(buffer, i % 2 == 0 ? 0 : 900);
+		assertEquals(500, buffer.getTargetDelayMS());
+	}
+
+	@Test
+	public void testConnectionPauseIsNotJitter()
+	{
+		PlayoutBuffer buffer = createEstimator();
+		for (int i = 0; i < 50; i++)
+			arrive(buffer, 40);
+		arrive(buffer, 5000);
+		arrive(buffer, 40);
+		assertEquals(20, buffer.getTargetDelayMS());
+	}
+
+	@Test
+	public void testMessagesArePlayedInOrder() throws InterruptedException
+	{
+		CountDownLatch done = new CountDownLatch(100);
+		PlayoutBuffer buffer = new PlayoutBuffer(message -> {
+			played.add(message);
+			done.countDown();
+		});
+		List<String> sent = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			String message = "(time " + i + ")";
+			sent.add(message);
+			buffer.add(message);
+		}
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(sent, played);
+	}
+
+	@Test
+	public void testFailingMessageDoesNotStopPlayout() throws InterruptedException
+	{
+		CountDownLatch done = new CountDownLatch(3);
+		PlayoutBuffer buffer = new PlayoutBuffer(message -> {
+			done.countDown();
+			if (message.equals("(time 1)"))
+				throw new IllegalStateException("broken message");
+			played.add(message);
+		});
+		for (int i = 0; i < 3; i++)
+			buffer.add("(time " + i + ")");
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(2, played.size());
+		assertEquals("(time 2)", played.get(1));
+	}
+
+	@Test
+	public void testUnderrunIncreasesDelay() throws InterruptedException
+	{
+		PlayoutBuffer buffer = new PlayoutBuffer(played::add);
+		buffer.add("(time 0)");
+
+		// no further message arrives in time
+		waitForUnderruns(buffer, 1);
+		assertEquals(1, played.size());
+		assertTrue(buffer.getTargetDelayMS() > 20);
+	}
+
+	@Test
+	public void testMessageAfterUnderrunsIsPlayed() throws InterruptedException
+	{
+		PlayoutBuffer buffer = new PlayoutBuffer(played::add);
+		for (int i = 0; i < 3; i++) {
+			buffer.add("(time " + i + ")");
+			waitForUnderruns(buffer, i + 1);
+		}
+
+		// the last message is played although it doesn't fill the increased delay
+		assertEquals(3, played.size());
+	}
+
+	private static void waitForUnderruns(PlayoutBuffer buffer, int underruns) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + 5000;
+		while (buffer.getUnderruns() < underruns && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(underruns, buffer.getUnderruns());
+	}
+
+	@Test
+	public void testClearWaitsForPlayingMessage() throws InterruptedException
+	{
+		CountDownLatch playing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		PlayoutBuffer buffer = new PlayoutBuffer(message -> {
+			playing.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			played.add(message);
+		});
+		buffer.add("(time 0)");
+		assertTrue(playing.await(5, TimeUnit.SECONDS));
+		buffer.add("(time 1)");
+		buffer.add("(time 2)");
+
+		Thread clearing = new Thread(buffer::clear);
+		clearing.start();
+		clearing.join(100);
+		assertTrue(clearing.isAlive());
+
+		release.countDown();
+		clearing.join(5000);
+		assertFalse(clearing.isAlive());
+		assertEquals(1, played.size());
+
+		// the queued messages were discarded
+		Thread.sleep(200);
+		assertEquals(1, played.size());
+		assertEquals(0, buffer.getUnderruns());
+	}
+}
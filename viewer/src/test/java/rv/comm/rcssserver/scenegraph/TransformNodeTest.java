@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2011 RoboViz
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package rv.comm.rcssserver.scenegraph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.ParseException;
+import org.junit.Test;
+import rv.comm.rcssserver.SExp;
+
+public class TransformNodeTest
+{
+	private static final double EPSILON = 1e-6;
+
+	/** Expression of a translation along the x axis */
+	private static SExp translation(String declaration, double x) throws ParseException
+	{
+		return SExp.parse("(" + declaration + " (SLT 1 0 0 0 0 1 0 0 0 0 1 0 " + x + " 0 0 1))").get(0);
+	}
+
+	private static TransformNode createNode(double x) throws ParseException
+	{
+		return new TransformNode(null, translation("nd TRF", x));
+	}
+
+	/** Updates a node to a translation and blends halfway to it */
+	private static double moveHalfway(TransformNode node, double x, boolean snap) throws ParseException
+	{
+		node.beginInterpolation(snap);
+		node.update(translation("nd", x));
+		node.interpolate(0.5f);
+		return node.getRenderTransform().get(0, 3);
+	}
+
+	@Test
+	public void testSmallMotionIsBlended() throws ParseException
+	{
+		TransformNode node = createNode(0);
+		assertEquals(0.2, moveHalfway(node, 0.4, false), EPSILON);
+		// the next update starts where the rendered transformation is
+		assertEquals(0.4, moveHalfway(node, 0.6, false), EPSILON);
+		node.interpolate(1);
+		assertEquals(0.6, node.getRenderTransform().get(0, 3), EPSILON);
+	}
+
+	@Test
+	public void testRepositioningIsNotBlended() throws ParseException
+	{
+		TransformNode node = createNode(0);
+		assertEquals(5, moveHalfway(node, 5, false), EPSILON);
+	}
+
+	@Test
+	public void testSnappingIsNotBlended() throws ParseException
+	{
+		TransformNode node = createNode(0);
+		assertEquals(0.4, moveHalfway(node, 0.4, true), EPSILON);
+		// later updates are blended again
+		assertEquals(0.6, moveHalfway(node, 0.8, false), EPSILON);
+	}
+}